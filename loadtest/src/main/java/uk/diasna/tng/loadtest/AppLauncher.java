@@ -0,0 +1,109 @@
+package uk.diasna.tng.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application under test in a child JVM on a free port and stops it afterwards
+ * H2 runs use the in-memory test profile; Postgres runs use the DB_* / R2DBC_URL environment
+ */
+final class AppLauncher {
+    
+    private static final String SERVLET_MAIN = "uk.diasna.tng.TrackingNumberGeneratorApplication";
+    private static final String REACTIVE_MAIN = "uk.diasna.tng.reactive.ReactiveTrackingNumberApplication";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    
+    private final Process process;
+    private final URI baseUri;
+    
+    private AppLauncher(Process process, URI baseUri) {
+        this.process = process;
+        this.baseUri = baseUri;
+    }
+    
+    static AppLauncher start(Scenario scenario, String classpath, Path logFile) throws IOException, InterruptedException {
+        if (scenario.app() == Scenario.App.REACTIVE && scenario.database() == Scenario.Database.H2) {
+            throw new IllegalArgumentException(scenario.name() + ": the reactive stack only runs against Postgres");
+        }
+        
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(scenario.jvmArgs());
+        command.add("-cp");
+        command.add(classpath);
+        command.add(scenario.app() == Scenario.App.SERVLET ? SERVLET_MAIN : REACTIVE_MAIN);
+        command.add("--server.port=" + port);
+        command.add("--spring.threads.virtual.enabled=" + scenario.virtualThreads());
+        command.add("--management.tracing.enabled=false");
+        if (scenario.app() == Scenario.App.SERVLET) {
+            if (scenario.database() == Scenario.Database.H2) {
+                command.add("--spring.profiles.active=test");
+            }
+            command.add("--tng.audit.sink=file");
+            command.add("--tng.audit.file.path=" + logFile.resolveSibling(scenario.name() + "-audit.ndjson"));
+        }
+        command.addAll(scenario.appArgs());
+        
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(logFile.toFile())
+            .start();
+        AppLauncher launcher = new AppLauncher(process, URI.create("http://localhost:" + port));
+        try {
+            launcher.awaitStarted();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            launcher.stop();
+            throw e;
+        }
+        return launcher;
+    }
+    
+    URI baseUri() {
+        return baseUri;
+    }
+    
+    private void awaitStarted() throws IOException, InterruptedException {
+        HttpClient probe = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest health = HttpRequest.newBuilder(baseUri.resolve("/actuator/health"))
+            .timeout(Duration.ofSeconds(2))
+            .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " during startup");
+            }
+            try {
+                // Any answer means the connector is up; readiness itself is not what we measure
+                probe.send(health, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(250);
+            }
+        }
+        throw new IOException("Application did not start within " + STARTUP_TIMEOUT);
+    }
+    
+    void stop() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            process.waitFor();
+        }
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
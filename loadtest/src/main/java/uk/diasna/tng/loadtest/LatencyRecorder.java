@@ -0,0 +1,98 @@
+package uk.diasna.tng.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counts of one run, safe to record from any number of clients
+ * The corrected histogram measures from when a request should have started, so a stalled
+ * server is charged for the requests it held back (coordinated omission); the raw one
+ * measures from when it actually started
+ */
+final class LatencyRecorder {
+    
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    
+    private final Histogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram raw = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder trackingNumbers = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    
+    void success(long intendedStartNanos, long actualStartNanos, long endNanos, int issued) {
+        record(intendedStartNanos, actualStartNanos, endNanos);
+        successes.increment();
+        trackingNumbers.add(issued);
+    }
+    
+    void httpError(long intendedStartNanos, long actualStartNanos, long endNanos, int status) {
+        record(intendedStartNanos, actualStartNanos, endNanos);
+        error("http_" + status);
+    }
+    
+    void failure(long intendedStartNanos, long actualStartNanos, long endNanos, Throwable cause) {
+        record(intendedStartNanos, actualStartNanos, endNanos);
+        error(classify(cause));
+    }
+    
+    /**
+     * Count a request the client could not even send, e.g. because too many were in flight
+     */
+    void error(String category) {
+        errors.computeIfAbsent(category, key -> new LongAdder()).increment();
+    }
+    
+    Histogram corrected() {
+        return corrected;
+    }
+    
+    Histogram raw() {
+        return raw;
+    }
+    
+    long successes() {
+        return successes.sum();
+    }
+    
+    long trackingNumbers() {
+        return trackingNumbers.sum();
+    }
+    
+    Map<String, Long> errors() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        errors.forEach((category, count) -> snapshot.put(category, count.sum()));
+        return snapshot;
+    }
+    
+    long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+    
+    private void record(long intendedStartNanos, long actualStartNanos, long endNanos) {
+        corrected.recordValue(clamp(endNanos - intendedStartNanos));
+        raw.recordValue(clamp(endNanos - actualStartNanos));
+    }
+    
+    private static long clamp(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+    
+    static String classify(Throwable cause) {
+        if (cause instanceof HttpConnectTimeoutException || cause instanceof ConnectException) {
+            return "connect";
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        return "io_" + cause.getClass().getSimpleName();
+    }
+}
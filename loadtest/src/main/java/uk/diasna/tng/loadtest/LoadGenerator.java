@@ -0,0 +1,139 @@
+package uk.diasna.tng.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a scenario's workload with one virtual thread per in-flight request (open model)
+ * or per simulated client (closed model); warm-up requests are sent but not recorded
+ */
+final class LoadGenerator {
+    
+    private final Scenario scenario;
+    private final HttpClient client;
+    private final RequestFactory requests;
+    
+    LoadGenerator(Scenario scenario, HttpClient client, RequestFactory requests) {
+        this.scenario = scenario;
+        this.client = client;
+        this.requests = requests;
+    }
+    
+    LatencyRecorder run() throws InterruptedException {
+        return scenario.model() == Scenario.Model.OPEN ? runOpen() : runClosed();
+    }
+    
+    /**
+     * Start requests on a fixed schedule; latency counts from the scheduled start, so time the
+     * generator or server spends falling behind shows up in the results instead of hiding
+     */
+    private LatencyRecorder runOpen() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        Semaphore inFlight = new Semaphore(scenario.maxInFlight());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / scenario.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + scenario.warmup().toNanos();
+        long end = measureFrom + scenario.duration().toNanos();
+        
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                sleepUntil(intendedStart);
+                LatencyRecorder target = intendedStart >= measureFrom ? recorder : null;
+                if (!inFlight.tryAcquire()) {
+                    // The client itself is saturated; the request never left, but it was due
+                    if (target != null) {
+                        target.error("client_saturated");
+                    }
+                    continue;
+                }
+                clients.submit(() -> {
+                    try {
+                        execute(intendedStart, target);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return recorder;
+    }
+    
+    /**
+     * A fixed number of clients, each sending its next request once the previous one returned
+     * With a total rate each client is paced, and latency counts from its scheduled start
+     */
+    private LatencyRecorder runClosed() throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        int clientCount = scenario.concurrency();
+        long pacingNanos = scenario.rate() > 0 ? (long) (TimeUnit.SECONDS.toNanos(clientCount) / scenario.rate()) : 0;
+        long start = System.nanoTime();
+        long measureFrom = start + scenario.warmup().toNanos();
+        long end = measureFrom + scenario.duration().toNanos();
+        
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientCount; c++) {
+                // Spread client start times over one pacing interval to avoid a thundering herd
+                long firstStart = start + (pacingNanos > 0 ? pacingNanos * c / clientCount : 0);
+                clients.submit(() -> {
+                    long intendedStart = firstStart;
+                    while (true) {
+                        if (pacingNanos > 0) {
+                            sleepUntil(intendedStart);
+                        } else {
+                            intendedStart = System.nanoTime();
+                        }
+                        if (intendedStart >= end) {
+                            return;
+                        }
+                        execute(intendedStart, intendedStart >= measureFrom ? recorder : null);
+                        intendedStart += pacingNanos;
+                    }
+                });
+            }
+        }
+        return recorder;
+    }
+    
+    private void execute(long intendedStart, LatencyRecorder recorder) {
+        RequestKind kind = requests.nextKind();
+        long actualStart = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(requests.build(kind), HttpResponse.BodyHandlers.ofString());
+            long endNanos = System.nanoTime();
+            if (response.statusCode() / 100 == 2) {
+                requests.completed(kind, response.body());
+            }
+            if (recorder == null) {
+                return;
+            }
+            if (response.statusCode() / 100 == 2) {
+                recorder.success(intendedStart, actualStart, endNanos, requests.trackingNumbersPer(kind));
+            } else {
+                recorder.httpError(intendedStart, actualStart, endNanos, response.statusCode());
+            }
+        } catch (IOException e) {
+            if (recorder != null) {
+                recorder.failure(intendedStart, actualStart, System.nanoTime(), e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package uk.diasna.tng.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs scenarios one after another, each against a freshly started application unless
+ * --target points at a running one, and exits non-zero when any threshold failed
+ */
+public final class LoadTestMain {
+    
+    private LoadTestMain() {}
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        Path reports = Path.of(options.getOrDefault("reports", "build/reports/loadtest"));
+        Duration duration = options.containsKey("duration") ? Scenario.duration(options.get("duration")) : null;
+        Scenario.Database database = options.containsKey("database")
+            ? Scenario.Database.valueOf(options.get("database").toUpperCase())
+            : null;
+        Files.createDirectories(reports);
+        
+        List<LoadTestReport> results = new ArrayList<>();
+        for (String name : options.getOrDefault("scenarios", "single").split(",")) {
+            Scenario scenario = Scenario.load(name.trim()).withOverrides(duration, database);
+            results.add(run(scenario, options, reports));
+        }
+        
+        System.out.printf("%n%-32s %12s %10s %10s %10s %8s%n", "Scenario", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "result");
+        for (LoadTestReport report : results) {
+            System.out.printf("%-32s %12.1f %10.2f %10.2f %10.2f %8s%n", report.scenario().name(),
+                              report.requestsPerSecond(), report.correctedMillis().get("p50"),
+                              report.correctedMillis().get("p99"), report.correctedMillis().get("p99.9"),
+                              report.passed() ? "PASS" : "FAIL");
+        }
+        if (results.stream().anyMatch(report -> !report.passed())) {
+            System.exit(1);
+        }
+    }
+    
+    private static LoadTestReport run(Scenario scenario, Map<String, String> options, Path reports) throws Exception {
+        AppLauncher launcher = null;
+        URI baseUri;
+        if (options.containsKey("target")) {
+            baseUri = URI.create(options.get("target"));
+        } else {
+            String classpath = options.get(scenario.app() == Scenario.App.SERVLET ? "servlet-classpath" : "reactive-classpath");
+            launcher = AppLauncher.start(scenario, classpath, reports.resolve(scenario.name() + "-app.log"));
+            baseUri = launcher.baseUri();
+        }
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(scenario.timeout())
+                .executor(executor)
+                .build();
+            System.out.printf("Running %s against %s for %s after %s warm-up%n",
+                              scenario.name(), baseUri, scenario.duration(), scenario.warmup());
+            
+            LatencyRecorder recorder = new LoadGenerator(scenario, client, new RequestFactory(baseUri, scenario)).run();
+            LoadTestReport report = LoadTestReport.of(scenario, recorder);
+            report.print(System.out);
+            report.write(reports, recorder);
+            return report;
+        } finally {
+            if (launcher != null) {
+                launcher.stop();
+            }
+        }
+    }
+    
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.diasna.tng.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of one scenario run: printed summary, JSON report, HDR percentile file and threshold checks
+ */
+record LoadTestReport(
+    Scenario scenario,
+    long successes,
+    long errors,
+    Map<String, Long> errorBreakdown,
+    double requestsPerSecond,
+    double trackingNumbersPerSecond,
+    Map<String, Double> correctedMillis,
+    Map<String, Double> rawMillis,
+    List<String> violations
+) {
+    
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    
+    static LoadTestReport of(Scenario scenario, LatencyRecorder recorder) {
+        double seconds = scenario.duration().toNanos() / 1e9;
+        long successes = recorder.successes();
+        long errors = recorder.errorCount();
+        Map<String, Double> corrected = percentiles(recorder.corrected());
+        
+        List<String> violations = new ArrayList<>();
+        Scenario.Thresholds thresholds = scenario.thresholds();
+        checkLatency(violations, "p50", thresholds.p50(), corrected.get("p50"));
+        checkLatency(violations, "p99", thresholds.p99(), corrected.get("p99"));
+        checkLatency(violations, "p99.9", thresholds.p999(), corrected.get("p99.9"));
+        checkLatency(violations, "p99.99", thresholds.p9999(), corrected.get("p99.99"));
+        double errorRate = successes + errors == 0 ? 1 : (double) errors / (successes + errors);
+        if (thresholds.maxErrorRate() != null && errorRate > thresholds.maxErrorRate()) {
+            violations.add("error rate %.4f above %.4f".formatted(errorRate, thresholds.maxErrorRate()));
+        }
+        double throughput = successes / seconds;
+        if (thresholds.minThroughput() != null && throughput < thresholds.minThroughput()) {
+            violations.add("throughput %.1f req/s below %.1f".formatted(throughput, thresholds.minThroughput()));
+        }
+        
+        return new LoadTestReport(scenario, successes, errors, recorder.errors(), throughput,
+                                  recorder.trackingNumbers() / seconds, corrected,
+                                  percentiles(recorder.raw()), List.copyOf(violations));
+    }
+    
+    boolean passed() {
+        return violations.isEmpty();
+    }
+    
+    void print(PrintStream out) {
+        out.printf("%n=== %s (%s, %s, %s threads, %s model) ===%n", scenario.name(), scenario.app(),
+                   scenario.database(), scenario.virtualThreads() ? "virtual" : "platform", scenario.model());
+        out.printf("Throughput: %.1f req/s, %.1f tracking numbers/s over %s%n",
+                   requestsPerSecond, trackingNumbersPerSecond, scenario.duration());
+        out.printf("Requests:   %d ok, %d failed %s%n", successes, errors, errorBreakdown.isEmpty() ? "" : errorBreakdown);
+        out.printf("%-10s %12s %12s%n", "Latency", "corrected", "raw");
+        for (String key : correctedMillis.keySet()) {
+            out.printf("%-10s %9.2f ms %9.2f ms%n", key, correctedMillis.get(key), rawMillis.get(key));
+        }
+        for (String violation : violations) {
+            out.println("THRESHOLD FAILED: " + violation);
+        }
+    }
+    
+    void write(Path directory, LatencyRecorder recorder) throws IOException {
+        Files.createDirectories(directory);
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(directory.resolve(scenario.name() + ".json").toFile(), Map.of(
+                "scenario", scenario.name(),
+                "throughput_rps", requestsPerSecond,
+                "tracking_numbers_per_second", trackingNumbersPerSecond,
+                "successes", successes,
+                "errors", errorBreakdown,
+                "latency_ms_corrected", correctedMillis,
+                "latency_ms_raw", rawMillis,
+                "violations", violations
+            ));
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(scenario.name() + ".hgrm")))) {
+            // Microsecond values, printed in milliseconds
+            recorder.corrected().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+    
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            String key = "p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile));
+            values.put(key, histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        values.put("max", histogram.getMaxValue() / 1000.0);
+        return values;
+    }
+    
+    private static void checkLatency(List<String> violations, String name, Duration limit, Double actualMillis) {
+        if (limit != null && actualMillis != null && actualMillis > limit.toNanos() / 1e6) {
+            violations.add("%s %.2f ms above %d ms".formatted(name, actualMillis, limit.toMillis()));
+        }
+    }
+}
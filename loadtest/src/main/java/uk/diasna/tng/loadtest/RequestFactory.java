@@ -0,0 +1,164 @@
+package uk.diasna.tng.loadtest;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Builds randomised requests for a scenario's mix from a fixed pool of customers and lanes
+ */
+final class RequestFactory {
+    
+    private static final int ISSUED_CAPACITY = 8192;
+    private static final String TRACKING_NUMBER_FIELD = "\"tracking_number\":\"";
+    private static final String CHARSET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    
+    private final URI baseUri;
+    private final Scenario scenario;
+    private final RequestKind[] kindsByTicket;
+    private final UUID[] customerIds;
+    private final String[][] lanes;
+    private final boolean remembersIssued;
+    private final AtomicReferenceArray<String> issued = new AtomicReferenceArray<>(ISSUED_CAPACITY);
+    private final AtomicLong issuedCount = new AtomicLong();
+    
+    RequestFactory(URI baseUri, Scenario scenario) {
+        this.baseUri = baseUri;
+        this.scenario = scenario;
+        
+        int tickets = scenario.mix().stream().mapToInt(Scenario.MixEntry::weight).sum();
+        this.kindsByTicket = new RequestKind[tickets];
+        int next = 0;
+        for (Scenario.MixEntry entry : scenario.mix()) {
+            for (int i = 0; i < entry.weight(); i++) {
+                kindsByTicket[next++] = entry.kind();
+            }
+        }
+        
+        this.customerIds = new UUID[scenario.customers()];
+        for (int i = 0; i < customerIds.length; i++) {
+            customerIds[i] = UUID.nameUUIDFromBytes(("loadtest-customer-" + i).getBytes());
+        }
+        
+        List<String> laneList = scenario.lanes();
+        this.lanes = new String[laneList.size()][];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = laneList.get(i).trim().split("-");
+        }
+        this.remembersIssued = scenario.mix().stream().anyMatch(entry -> entry.kind() == RequestKind.LOOKUP);
+    }
+    
+    RequestKind nextKind() {
+        return kindsByTicket[ThreadLocalRandom.current().nextInt(kindsByTicket.length)];
+    }
+    
+    HttpRequest build(RequestKind kind) {
+        return switch (kind) {
+            case SINGLE -> single();
+            case BATCH -> batch();
+            case LOOKUP -> lookup();
+        };
+    }
+    
+    /**
+     * Tracking numbers a successful request of this kind issues
+     */
+    int trackingNumbersPer(RequestKind kind) {
+        return switch (kind) {
+            case SINGLE -> 1;
+            case BATCH -> scenario.batchSize();
+            case LOOKUP -> 0;
+        };
+    }
+    
+    /**
+     * Keep the numbers single requests issued so lookups can ask for ones that exist
+     */
+    void completed(RequestKind kind, String body) {
+        if (!remembersIssued || kind != RequestKind.SINGLE) {
+            return;
+        }
+        int field = body.indexOf(TRACKING_NUMBER_FIELD);
+        if (field >= 0) {
+            int start = field + TRACKING_NUMBER_FIELD.length();
+            issued.set((int) (issuedCount.getAndIncrement() % ISSUED_CAPACITY), body.substring(start, start + 16));
+        }
+    }
+    
+    private HttpRequest single() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int customer = random.nextInt(customerIds.length);
+        String[] lane = lanes[random.nextInt(lanes.length)];
+        String query = "origin_country_id=" + lane[0]
+            + "&destination_country_id=" + lane[1]
+            + "&weight=" + weight(random)
+            + "&customer_id=" + customerIds[customer]
+            + "&customer_name=Load%20Test%20Customer%20" + customer
+            + "&customer_slug=loadtest-customer-" + customer;
+        return HttpRequest.newBuilder(baseUri.resolve("/api/v1/next-tracking-number?" + query))
+            .timeout(scenario.timeout())
+            .GET()
+            .build();
+    }
+    
+    private HttpRequest batch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int customer = random.nextInt(customerIds.length);
+        StringBuilder body = new StringBuilder(scenario.batchSize() * 200).append('[');
+        for (int i = 0; i < scenario.batchSize(); i++) {
+            String[] lane = lanes[random.nextInt(lanes.length)];
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"origin_country_id\":\"").append(lane[0])
+                .append("\",\"destination_country_id\":\"").append(lane[1])
+                .append("\",\"weight\":").append(weight(random))
+                .append(",\"customer_id\":\"").append(customerIds[customer])
+                .append("\",\"customer_name\":\"Load Test Customer ").append(customer)
+                .append("\",\"customer_slug\":\"loadtest-customer-").append(customer)
+                .append("\"}");
+        }
+        body.append(']');
+        return HttpRequest.newBuilder(baseUri.resolve("/api/v1/tracking-numbers/batch"))
+            .timeout(scenario.timeout())
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+    }
+    
+    private HttpRequest lookup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long known = Math.min(issuedCount.get(), ISSUED_CAPACITY);
+        StringBuilder body = new StringBuilder(scenario.batchSize() * 20 + 24).append("{\"tracking_numbers\":[");
+        for (int i = 0; i < scenario.batchSize(); i++) {
+            String trackingNumber = known > 0 && random.nextBoolean() ? issued.get(random.nextInt((int) known)) : null;
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append('"').append(trackingNumber != null ? trackingNumber : randomTrackingNumber(random)).append('"');
+        }
+        body.append("]}");
+        return HttpRequest.newBuilder(baseUri.resolve("/api/v1/tracking-numbers:lookup"))
+            .timeout(scenario.timeout())
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+    }
+    
+    private static String randomTrackingNumber(ThreadLocalRandom random) {
+        char[] chars = new char[16];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = CHARSET.charAt(random.nextInt(CHARSET.length()));
+        }
+        return new String(chars);
+    }
+    
+    private static BigDecimal weight(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(random.nextLong(100, 30_000), 3);
+    }
+}
@@ -0,0 +1,13 @@
+package uk.diasna.tng.loadtest;
+
+/**
+ * Request types a scenario mix can contain
+ */
+public enum RequestKind {
+    /** GET /api/v1/next-tracking-number */
+    SINGLE,
+    /** POST /api/v1/tracking-numbers/batch, served by the reactive stack */
+    BATCH,
+    /** POST /api/v1/tracking-numbers:lookup of batch-size numbers, half of them recently issued */
+    LOOKUP
+}
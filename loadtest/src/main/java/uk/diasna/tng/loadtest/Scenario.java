@@ -0,0 +1,170 @@
+package uk.diasna.tng.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * One load-test run as described by a scenarios/*.properties file
+ */
+public record Scenario(
+    String name,
+    App app,
+    Database database,
+    boolean virtualThreads,
+    List<String> appArgs,
+    List<String> jvmArgs,
+    Model model,
+    double rate,
+    int concurrency,
+    Duration duration,
+    Duration warmup,
+    Duration timeout,
+    int maxInFlight,
+    List<MixEntry> mix,
+    int batchSize,
+    int customers,
+    List<String> lanes,
+    Thresholds thresholds
+) {
+    
+    public enum App { SERVLET, REACTIVE }
+    
+    public enum Database { H2, POSTGRES }
+    
+    /**
+     * Open: requests start on a fixed schedule whatever the latency; closed: a fixed number
+     * of clients each wait for their previous response
+     */
+    public enum Model { OPEN, CLOSED }
+    
+    public record MixEntry(RequestKind kind, int weight) {}
+    
+    /**
+     * Limits checked against the coordinated-omission corrected results; null means unchecked
+     */
+    public record Thresholds(
+        Duration p50,
+        Duration p99,
+        Duration p999,
+        Duration p9999,
+        Double maxErrorRate,
+        Double minThroughput
+    ) {}
+    
+    public static Scenario load(String nameOrPath) throws IOException {
+        Properties properties = new Properties();
+        Path path = Path.of(nameOrPath);
+        String name;
+        if (Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            }
+            name = path.getFileName().toString().replaceFirst("\\.properties$", "");
+        } else {
+            try (InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + nameOrPath + ".properties")) {
+                if (in == null) {
+                    throw new IllegalArgumentException("Unknown scenario: " + nameOrPath);
+                }
+                properties.load(in);
+            }
+            name = nameOrPath;
+        }
+        return parse(name, properties);
+    }
+    
+    static Scenario parse(String name, Properties properties) {
+        Model model = Model.valueOf(properties.getProperty("model", "open").toUpperCase());
+        double rate = Double.parseDouble(properties.getProperty("rate", "0"));
+        int concurrency = Integer.parseInt(properties.getProperty("concurrency", "0"));
+        if (model == Model.OPEN && rate <= 0) {
+            throw new IllegalArgumentException(name + ": open model needs a positive rate");
+        }
+        if (model == Model.CLOSED && concurrency <= 0) {
+            throw new IllegalArgumentException(name + ": closed model needs a positive concurrency");
+        }
+        
+        return new Scenario(
+            name,
+            App.valueOf(properties.getProperty("app", "servlet").toUpperCase()),
+            Database.valueOf(properties.getProperty("database", "h2").toUpperCase()),
+            Boolean.parseBoolean(properties.getProperty("virtual-threads", "true")),
+            words(properties.getProperty("app.args", "")),
+            words(properties.getProperty("app.jvm-args", "")),
+            model,
+            rate,
+            concurrency,
+            duration(properties.getProperty("duration", "60s")),
+            duration(properties.getProperty("warmup", "10s")),
+            duration(properties.getProperty("timeout", "10s")),
+            Integer.parseInt(properties.getProperty("max-in-flight", "10000")),
+            mix(properties.getProperty("mix", "single:100")),
+            Integer.parseInt(properties.getProperty("batch-size", "100")),
+            Integer.parseInt(properties.getProperty("customers", "1000")),
+            List.of(properties.getProperty("lanes", "MY-ID,GB-US,SG-MY,US-GB").split(",")),
+            new Thresholds(
+                optionalDuration(properties.getProperty("threshold.p50")),
+                optionalDuration(properties.getProperty("threshold.p99")),
+                optionalDuration(properties.getProperty("threshold.p99.9")),
+                optionalDuration(properties.getProperty("threshold.p99.99")),
+                optionalDouble(properties.getProperty("threshold.error-rate")),
+                optionalDouble(properties.getProperty("threshold.min-throughput"))
+            )
+        );
+    }
+    
+    public Scenario withOverrides(Duration durationOverride, Database databaseOverride) {
+        return new Scenario(name, app, databaseOverride != null ? databaseOverride : database, virtualThreads,
+                            appArgs, jvmArgs, model, rate, concurrency,
+                            durationOverride != null ? durationOverride : duration,
+                            warmup, timeout, maxInFlight, mix, batchSize, customers, lanes, thresholds);
+    }
+    
+    static List<MixEntry> mix(String value) {
+        List<MixEntry> entries = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String[] kindAndWeight = part.trim().split(":");
+            RequestKind kind = RequestKind.valueOf(kindAndWeight[0].trim().toUpperCase());
+            int weight = kindAndWeight.length > 1 ? Integer.parseInt(kindAndWeight[1].trim()) : 1;
+            if (weight > 0) {
+                entries.add(new MixEntry(kind, weight));
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Request mix must not be empty: " + value);
+        }
+        return List.copyOf(entries);
+    }
+    
+    static Duration duration(String value) {
+        String trimmed = value.trim();
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        long amount = Long.parseLong(trimmed.substring(0, trimmed.length() - 1));
+        return switch (trimmed.charAt(trimmed.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+    
+    private static Duration optionalDuration(String value) {
+        return value == null || value.isBlank() ? null : duration(value);
+    }
+    
+    private static Double optionalDouble(String value) {
+        return value == null || value.isBlank() ? null : Double.valueOf(value.trim());
+    }
+    
+    private static List<String> words(String value) {
+        return value.isBlank() ? List.of() : List.of(value.trim().split("\\s+"));
+    }
+}
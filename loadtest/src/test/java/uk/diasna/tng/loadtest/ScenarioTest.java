@@ -0,0 +1,72 @@
+package uk.diasna.tng.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioTest {
+    
+    @Test
+    void load_BundledScenariosParse() throws IOException {
+        for (String name : List.of("single", "single-platform-threads", "single-closed", "batch-reactive",
+                                   "connections-10k-servlet", "connections-10k-reactive")) {
+            assertEquals(name, Scenario.load(name).name());
+        }
+        assertFalse(Scenario.load("single-platform-threads").virtualThreads());
+    }
+    
+    @Test
+    void parse_ReadsMixDurationsAndThresholds() {
+        Properties properties = new Properties();
+        properties.setProperty("model", "closed");
+        properties.setProperty("concurrency", "10");
+        properties.setProperty("duration", "2m");
+        properties.setProperty("timeout", "750ms");
+        properties.setProperty("mix", "single:3, batch:1");
+        properties.setProperty("threshold.p99.9", "200ms");
+        
+        Scenario scenario = Scenario.parse("custom", properties);
+        
+        assertEquals(Scenario.Model.CLOSED, scenario.model());
+        assertEquals(Duration.ofMinutes(2), scenario.duration());
+        assertEquals(Duration.ofMillis(750), scenario.timeout());
+        assertEquals(List.of(new Scenario.MixEntry(RequestKind.SINGLE, 3), new Scenario.MixEntry(RequestKind.BATCH, 1)),
+                     scenario.mix());
+        assertEquals(Duration.ofMillis(200), scenario.thresholds().p999());
+        assertNull(scenario.thresholds().p99());
+    }
+    
+    @Test
+    void parse_OpenModelNeedsRate() {
+        assertThrows(IllegalArgumentException.class, () -> Scenario.parse("broken", new Properties()));
+    }
+    
+    @Test
+    void report_ChecksThresholdsAgainstCorrectedLatency() {
+        Properties properties = new Properties();
+        properties.setProperty("rate", "100");
+        properties.setProperty("duration", "1s");
+        properties.setProperty("threshold.p99", "50ms");
+        Scenario scenario = Scenario.parse("thresholds", properties);
+        
+        // Every request took 1ms on the wire but was due 100ms earlier: only the corrected view fails
+        LatencyRecorder recorder = new LatencyRecorder();
+        long intended = 0;
+        long actual = TimeUnit.MILLISECONDS.toNanos(100);
+        for (int i = 0; i < 100; i++) {
+            recorder.success(intended, actual, actual + TimeUnit.MILLISECONDS.toNanos(1), 1);
+        }
+        
+        LoadTestReport report = LoadTestReport.of(scenario, recorder);
+        
+        assertFalse(report.passed());
+        assertTrue(report.rawMillis().get("p99") < 2);
+        assertTrue(report.correctedMillis().get("p99") > 100);
+    }
+}
@@ -0,0 +1,41 @@
+package uk.diasna.tng.reactive;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * One entry of a batch generation body, using the same names as the query parameters
+ */
+public record BatchTrackingNumberRequest(
+    @JsonProperty("origin_country_id")
+    String originCountryId,
+    
+    @JsonProperty("destination_country_id")
+    String destinationCountryId,
+    
+    @JsonProperty("weight")
+    BigDecimal weight,
+    
+    @JsonProperty("customer_id")
+    UUID customerId,
+    
+    @JsonProperty("customer_name")
+    String customerName,
+    
+    @JsonProperty("customer_slug")
+    String customerSlug
+) {
+    TrackingNumberRequest toRequest() {
+        return new TrackingNumberRequest(
+            originCountryId != null ? originCountryId.toUpperCase() : null,
+            destinationCountryId != null ? destinationCountryId.toUpperCase() : null,
+            weight,
+            customerId,
+            customerName,
+            customerSlug != null ? customerSlug.toLowerCase() : null
+        );
+    }
+}
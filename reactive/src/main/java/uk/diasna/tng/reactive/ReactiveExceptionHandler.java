@@ -0,0 +1,48 @@
+package uk.diasna.tng.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
+import uk.diasna.tng.exception.TrackingNumberGenerationException;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Same error bodies as the servlet GlobalExceptionHandler
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveExceptionHandler.class);
+    
+    @ExceptionHandler(TrackingNumberGenerationException.class)
+    public ResponseEntity<Map<String, Object>> handleTrackingNumberGenerationException(
+            TrackingNumberGenerationException ex) {
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "TRACKING_NUMBER_GENERATION_FAILED", ex.getMessage());
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        logger.debug("Rejected tracking number request: {}", ex.getMessage());
+        return error(HttpStatus.BAD_REQUEST, "INVALID_REQUEST_PARAMETER", ex.getMessage());
+    }
+    
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<Map<String, Object>> handleServerWebInputException(ServerWebInputException ex) {
+        return error(HttpStatus.BAD_REQUEST, "INVALID_PARAMETER_TYPE", ex.getReason());
+    }
+    
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String code, String message) {
+        Map<String, Object> error = Map.of(
+            "error", code,
+            "message", message != null ? message : status.getReasonPhrase(),
+            "timestamp", OffsetDateTime.now()
+        );
+        return ResponseEntity.status(status).body(error);
+    }
+}
@@ -0,0 +1,16 @@
+package uk.diasna.tng.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication(scanBasePackages = {
+    "uk.diasna.tng.reactive",
+    "uk.diasna.tng.util",
+    "uk.diasna.tng.validator"
+})
+public class ReactiveTrackingNumberApplication {
+    
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveTrackingNumberApplication.class, args);
+    }
+}
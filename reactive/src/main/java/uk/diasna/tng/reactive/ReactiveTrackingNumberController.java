@@ -0,0 +1,64 @@
+package uk.diasna.tng.reactive;
+
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.validator.TrackingNumberRequestValidator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+public class ReactiveTrackingNumberController {
+    
+    private final ReactiveTrackingNumberService trackingNumberService;
+    private final TrackingNumberRequestValidator validator;
+    
+    public ReactiveTrackingNumberController(ReactiveTrackingNumberService trackingNumberService,
+                                            TrackingNumberRequestValidator validator) {
+        this.trackingNumberService = trackingNumberService;
+        this.validator = validator;
+    }
+    
+    @GetMapping("/next-tracking-number")
+    public Mono<TrackingNumberResponse> generateTrackingNumber(
+            @RequestParam("origin_country_id") String originCountryId,
+            @RequestParam("destination_country_id") String destinationCountryId,
+            @RequestParam("weight") BigDecimal weight,
+            @RequestParam("customer_id") UUID customerId,
+            @RequestParam("customer_name") String customerName,
+            @RequestParam("customer_slug") String customerSlug) {
+        
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            originCountryId.toUpperCase(),
+            destinationCountryId.toUpperCase(),
+            weight,
+            customerId,
+            customerName,
+            customerSlug.toLowerCase()
+        );
+        
+        return Mono.fromRunnable(() -> validator.validate(request))
+            .then(trackingNumberService.generateTrackingNumber(request));
+    }
+    
+    @PostMapping("/tracking-numbers/batch")
+    public Mono<List<TrackingNumberResponse>> generateTrackingNumbers(
+            @RequestBody List<BatchTrackingNumberRequest> body) {
+        
+        return Mono.fromCallable(() -> {
+                List<TrackingNumberRequest> requests = new ArrayList<>(body.size());
+                for (BatchTrackingNumberRequest item : body) {
+                    TrackingNumberRequest request = item.toRequest();
+                    validator.validate(request);
+                    requests.add(request);
+                }
+                return requests;
+            })
+            .flatMap(trackingNumberService::generateTrackingNumbers);
+    }
+}
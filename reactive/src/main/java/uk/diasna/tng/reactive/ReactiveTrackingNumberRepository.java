@@ -0,0 +1,79 @@
+package uk.diasna.tng.reactive;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * R2DBC access to the tracking_numbers table shared with the servlet application
+ * Every row also gets its audit_outbox row, so the servlet application's relay ships it
+ */
+@Repository
+public class ReactiveTrackingNumberRepository {
+    
+    private static final String INSERT = """
+        INSERT INTO tracking_numbers (tracking_number, origin_country_id, destination_country_id, weight,
+                                      customer_id, customer_name, customer_slug, created_at)
+        VALUES ($1, $2, $3, $4, $5, $6, $7, $8)
+        """;
+    
+    private static final String INSERT_OUTBOX = """
+        INSERT INTO audit_outbox (tracking_number, origin_country_id, destination_country_id, weight,
+                                  customer_id, customer_name, customer_slug, created_at)
+        VALUES ($1, $2, $3, $4, $5, $6, $7, $8)
+        """;
+    
+    private final DatabaseClient databaseClient;
+    
+    public ReactiveTrackingNumberRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+    
+    public Mono<Long> insert(NewTrackingNumber row) {
+        return insertAll(List.of(row));
+    }
+    
+    /**
+     * Insert all rows, then their audit_outbox rows, with one prepared statement each and a
+     * binding per row; returns the tracking numbers written
+     * Run it inside a transaction so the outbox rows commit or roll back with the batch
+     */
+    public Mono<Long> insertAll(List<NewTrackingNumber> rows) {
+        return databaseClient.inConnection(connection ->
+            execute(connection, INSERT, rows)
+                .flatMap(inserted -> execute(connection, INSERT_OUTBOX, rows).thenReturn(inserted)));
+    }
+    
+    private static Mono<Long> execute(Connection connection, String sql, List<NewTrackingNumber> rows) {
+        Statement statement = connection.createStatement(sql);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            bind(statement, rows.get(i));
+        }
+        return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated).reduce(0L, Long::sum);
+    }
+    
+    private static void bind(Statement statement, NewTrackingNumber row) {
+        TrackingNumberRequest request = row.request();
+        statement.bind(0, row.trackingNumber())
+            .bind(1, request.originCountryId())
+            .bind(2, request.destinationCountryId())
+            .bind(3, request.weight())
+            .bind(4, request.customerId())
+            .bind(5, request.customerName())
+            .bind(6, request.customerSlug())
+            .bind(7, row.createdAt());
+    }
+    
+    public record NewTrackingNumber(String trackingNumber, TrackingNumberRequest request, OffsetDateTime createdAt) {}
+}
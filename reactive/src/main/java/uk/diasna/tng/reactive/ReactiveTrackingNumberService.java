@@ -0,0 +1,126 @@
+package uk.diasna.tng.reactive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.exception.TrackingNumberGenerationException;
+import uk.diasna.tng.util.TrackingNumberGenerator;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of TrackingNumberService
+ * Instead of checking for an existing number before inserting, it relies on the unique
+ * constraint and regenerates on a violation, saving a round trip per request
+ * Publishes the same meter names as the servlet service
+ */
+@Service
+public class ReactiveTrackingNumberService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTrackingNumberService.class);
+    private static final int MAX_GENERATION_ATTEMPTS = 10;
+    
+    private final ReactiveTrackingNumberRepository repository;
+    private final TrackingNumberGenerator idGenerator;
+    private final TransactionalOperator transactionalOperator;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchSize;
+    
+    private final Counter generationCounter;
+    private final Counter collisionCounter;
+    private final Counter failureCounter;
+    private final Timer generationTimer;
+    
+    public ReactiveTrackingNumberService(ReactiveTrackingNumberRepository repository,
+                                         TrackingNumberGenerator idGenerator,
+                                         TransactionalOperator transactionalOperator,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${tng.reactive.batch.max-size:1000}") int maxBatchSize) {
+        this.repository = repository;
+        this.idGenerator = idGenerator;
+        this.transactionalOperator = transactionalOperator;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = maxBatchSize;
+        
+        this.generationCounter = Counter.builder("tracking_number.generated")
+            .description("Total number of tracking numbers generated")
+            .register(meterRegistry);
+        
+        this.collisionCounter = Counter.builder("tracking_number.collisions")
+            .description("Tracking number collisions detected")
+            .register(meterRegistry);
+        
+        this.failureCounter = Counter.builder("tracking_number.failures")
+            .description("Tracking number generation failures")
+            .register(meterRegistry);
+        
+        this.generationTimer = Timer.builder("tracking_number.generation.time")
+            .description("Time taken to generate tracking number")
+            .register(meterRegistry);
+    }
+    
+    public Mono<TrackingNumberResponse> generateTrackingNumber(TrackingNumberRequest request) {
+        return generate(List.of(request)).map(responses -> responses.get(0));
+    }
+    
+    /**
+     * Issue one tracking number per request in a single transaction and insert statement
+     * A collision anywhere in the batch rolls it back and the whole batch is regenerated
+     */
+    public Mono<List<TrackingNumberResponse>> generateTrackingNumbers(List<TrackingNumberRequest> requests) {
+        if (requests.isEmpty() || requests.size() > maxBatchSize) {
+            return Mono.error(new InvalidTrackingNumberRequestException(
+                "Batch size must be between 1 and " + maxBatchSize));
+        }
+        return generate(requests);
+    }
+    
+    private Mono<List<TrackingNumberResponse>> generate(List<TrackingNumberRequest> requests) {
+        return Mono.defer(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                return Mono.defer(() -> insertAttempt(requests))
+                    .doOnError(DataIntegrityViolationException.class, e -> collisionCounter.increment())
+                    .retryWhen(Retry.max(MAX_GENERATION_ATTEMPTS - 1)
+                        .filter(DataIntegrityViolationException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> new TrackingNumberGenerationException(
+                            "Failed to generate unique tracking number after " + MAX_GENERATION_ATTEMPTS + " attempts",
+                            signal.failure())))
+                    .doOnSuccess(responses -> generationCounter.increment(responses.size()))
+                    .onErrorMap(e -> !(e instanceof TrackingNumberGenerationException),
+                                e -> new TrackingNumberGenerationException("Failed to generate tracking number", e))
+                    .doOnError(e -> {
+                        failureCounter.increment();
+                        logger.error("Failed to generate {} tracking number(s)", requests.size(), e);
+                    })
+                    .doFinally(signal -> sample.stop(generationTimer));
+            });
+    }
+    
+    private Mono<List<TrackingNumberResponse>> insertAttempt(List<TrackingNumberRequest> requests) {
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        List<ReactiveTrackingNumberRepository.NewTrackingNumber> rows = new ArrayList<>(requests.size());
+        List<TrackingNumberResponse> responses = new ArrayList<>(requests.size());
+        for (TrackingNumberRequest request : requests) {
+            String trackingNumber = idGenerator.generateTrackingNumber();
+            rows.add(new ReactiveTrackingNumberRepository.NewTrackingNumber(trackingNumber, request, createdAt));
+            responses.add(new TrackingNumberResponse(trackingNumber, createdAt));
+        }
+        
+        return repository.insertAll(rows)
+            .as(transactionalOperator::transactional)
+            .thenReturn(responses);
+    }
+}
@@ -0,0 +1,133 @@
+package uk.diasna.tng.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class ReactiveTrackingNumberControllerTest {
+    
+    @Autowired
+    private WebTestClient webTestClient;
+    
+    @Autowired
+    private DatabaseClient databaseClient;
+    
+    @Test
+    void generateTrackingNumber_PersistsAndReturnsNumber() {
+        TrackingNumberResponse response = webTestClient.get()
+            .uri(uri -> uri.path("/api/v1/next-tracking-number")
+                .queryParam("origin_country_id", "my")
+                .queryParam("destination_country_id", "ID")
+                .queryParam("weight", "1.234")
+                .queryParam("customer_id", UUID.randomUUID())
+                .queryParam("customer_name", "RedBox Logistics")
+                .queryParam("customer_slug", "redbox-logistics")
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(TrackingNumberResponse.class)
+            .returnResult()
+            .getResponseBody();
+        
+        assertNotNull(response);
+        assertTrue(response.trackingNumber().matches("^[A-Z0-9]{16}$"));
+        assertEquals("MY", originOf(response.trackingNumber()));
+        assertEquals(1L, outboxRows(response.trackingNumber()));
+    }
+    
+    @Test
+    void generateTrackingNumbers_InsertsWholeBatch() {
+        UUID customerId = UUID.randomUUID();
+        List<Map<String, Object>> body = List.of(
+            item(customerId, "MY", "ID"),
+            item(customerId, "GB", "US"),
+            item(customerId, "SG", "AU")
+        );
+        
+        List<TrackingNumberResponse> responses = webTestClient.post()
+            .uri("/api/v1/tracking-numbers/batch")
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(new ParameterizedTypeReference<List<TrackingNumberResponse>>() {})
+            .returnResult()
+            .getResponseBody();
+        
+        assertNotNull(responses);
+        assertEquals(3, responses.stream().map(TrackingNumberResponse::trackingNumber).collect(Collectors.toSet()).size());
+        assertEquals("GB", originOf(responses.get(1).trackingNumber()));
+        for (TrackingNumberResponse response : responses) {
+            assertEquals(1L, outboxRows(response.trackingNumber()));
+        }
+    }
+    
+    @Test
+    void generateTrackingNumbers_RejectsBatchWithInvalidEntry() {
+        UUID customerId = UUID.randomUUID();
+        
+        webTestClient.post()
+            .uri("/api/v1/tracking-numbers/batch")
+            .bodyValue(List.of(item(customerId, "MY", "ID"), item(customerId, "MY", "ZZ")))
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo("INVALID_REQUEST_PARAMETER");
+        
+        Long rows = databaseClient.sql("SELECT COUNT(*) FROM tracking_numbers WHERE customer_id = :customerId")
+            .bind("customerId", customerId)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .block();
+        assertEquals(0L, rows);
+        Long outbox = databaseClient.sql("SELECT COUNT(*) FROM audit_outbox WHERE customer_id = :customerId")
+            .bind("customerId", customerId)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .block();
+        assertEquals(0L, outbox);
+    }
+    
+    private Map<String, Object> item(UUID customerId, String origin, String destination) {
+        return Map.of(
+            "origin_country_id", origin,
+            "destination_country_id", destination,
+            "weight", new BigDecimal("1.234"),
+            "customer_id", customerId,
+            "customer_name", "RedBox Logistics",
+            "customer_slug", "redbox-logistics"
+        );
+    }
+    
+    private Long outboxRows(String trackingNumber) {
+        return databaseClient.sql("SELECT COUNT(*) FROM audit_outbox WHERE tracking_number = :trackingNumber")
+            .bind("trackingNumber", trackingNumber)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .block();
+    }
+    
+    private String originOf(String trackingNumber) {
+        return databaseClient.sql("SELECT origin_country_id FROM tracking_numbers WHERE tracking_number = :trackingNumber")
+            .bind("trackingNumber", trackingNumber)
+            .map(row -> row.get(0, String.class))
+            .one()
+            .block();
+    }
+}
@@ -0,0 +1,24 @@
+CREATE TABLE IF NOT EXISTS tracking_numbers (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tracking_number VARCHAR(16) NOT NULL UNIQUE,
+    origin_country_id VARCHAR(2) NOT NULL,
+    destination_country_id VARCHAR(2) NOT NULL,
+    weight DECIMAL(10,3) NOT NULL,
+    customer_id UUID NOT NULL,
+    customer_name VARCHAR(255) NOT NULL,
+    customer_slug VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS audit_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tracking_number VARCHAR(16) NOT NULL,
+    origin_country_id VARCHAR(2) NOT NULL,
+    destination_country_id VARCHAR(2) NOT NULL,
+    weight DECIMAL(10,3) NOT NULL,
+    customer_id UUID NOT NULL,
+    customer_name VARCHAR(255) NOT NULL,
+    customer_slug VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
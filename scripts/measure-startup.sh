@@ -0,0 +1,103 @@
+#!/usr/bin/env bash
+# Measures startup time and time to the first successful request for two builds:
+#   baseline  - plain fat jar, schema updated by Hibernate (ddl-auto=update, no Flyway)
+#   optimized - AOT-processed jar with a CDS archive, Flyway migrations and ddl-auto=validate
+#
+# Needs a running PostgreSQL reachable through DB_URL / DB_USERNAME / DB_PASSWORD, e.g.
+#   docker-compose -f docker-compose.dev.yml up -d postgres
+#
+# Usage: scripts/measure-startup.sh [runs per mode, default 5]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=${WORK:-$ROOT/build/startup}
+JAVA=${JAVA:-java}
+JVM_FLAGS=(-XX:MaxRAMPercentage=75.0)
+FIRST_REQUEST="http://localhost:$PORT/api/v1/next-tracking-number?origin_country_id=MY&destination_country_id=ID&weight=1.234&customer_id=de619854-b59b-425e-9db4-943979e1bd49&customer_name=RedBox%20Logistics&customer_slug=redbox-logistics"
+
+rm -rf "$WORK"
+mkdir -p "$WORK/baseline" "$WORK/optimized"
+
+build_jar() {
+    local destination=$1
+    shift
+    (cd "$ROOT" && ./gradlew -q :bootJar "$@")
+    cp "$(ls "$ROOT"/build/libs/*.jar | grep -v -- '-plain.jar$' | head -n 1)" "$destination/app.jar"
+}
+
+echo "Building baseline jar"
+build_jar "$WORK/baseline"
+
+echo "Building AOT jar and CDS archive"
+build_jar "$WORK/optimized" -Paot
+(
+    cd "$WORK/optimized"
+    "$JAVA" -Djarmode=tools -jar app.jar extract --destination application > /dev/null
+    "$JAVA" -XX:ArchiveClassesAtExit=application/application.jsa "${JVM_FLAGS[@]}" \
+        -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+        -jar application/app.jar \
+        --tng.schema.migrate-on-startup=false \
+        --spring.jpa.hibernate.ddl-auto=none \
+        --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false > training.log 2>&1
+)
+
+# Prints "<jvm-reported startup ms> <ms until the first 200 response>"
+measure() {
+    local mode=$1
+    local log=$2
+    shift 2
+    local start
+    start=$(date +%s%N)
+    (cd "$WORK/$mode" && exec "$JAVA" "${JVM_FLAGS[@]}" "$@" --server.port="$PORT") > "$log" 2>&1 &
+    local pid=$!
+
+    local deadline=$((start + 120000000000))
+    until curl -sf -o /dev/null "$FIRST_REQUEST"; do
+        if ! kill -0 "$pid" 2> /dev/null || [ "$(date +%s%N)" -gt "$deadline" ]; then
+            echo "$mode did not serve a request, see $log" >&2
+            kill "$pid" 2> /dev/null || true
+            exit 1
+        fi
+        sleep 0.01
+    done
+    local first_request=$((($(date +%s%N) - start) / 1000000))
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+
+    local started
+    started=$(sed -n 's/.*Started .* in \([0-9.]*\) seconds.*/\1/p' "$log" | head -n 1)
+    echo "$(awk -v s="$started" 'BEGIN { printf "%d", s * 1000 }') $first_request"
+}
+
+declare -A RESULTS
+for mode in baseline optimized; do
+    for run in $(seq 1 "$RUNS"); do
+        log="$WORK/$mode/run-$run.log"
+        if [ "$mode" = baseline ]; then
+            result=$(measure baseline "$log" -jar app.jar \
+                --spring.flyway.enabled=false --spring.jpa.hibernate.ddl-auto=update)
+        else
+            result=$(measure optimized "$log" -XX:SharedArchiveFile=application/application.jsa \
+                -Dspring.aot.enabled=true -jar application/app.jar)
+        fi
+        echo "$mode run $run: started in ${result% *} ms, first request after ${result#* } ms"
+        RESULTS[$mode]+="$result"$'\n'
+    done
+done
+
+# Median, minimum and maximum of one column
+summarise() {
+    sort -n | awk '{ v[NR] = $1 } END { printf "%8d %8d %8d", v[int((NR + 1) / 2)], v[1], v[NR] }'
+}
+
+echo
+printf "%-10s %-28s %-28s\n" "" "started in (ms)" "first request (ms)"
+printf "%-10s %8s %8s %8s   %8s %8s %8s\n" "mode" "median" "min" "max" "median" "min" "max"
+for mode in baseline optimized; do
+    started=$(printf "%s" "${RESULTS[$mode]}" | awk '{ print $1 }' | summarise)
+    first=$(printf "%s" "${RESULTS[$mode]}" | awk '{ print $2 }' | summarise)
+    printf "%-10s %s   %s\n" "$mode" "$started" "$first"
+done
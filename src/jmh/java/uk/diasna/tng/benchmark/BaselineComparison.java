@@ -0,0 +1,99 @@
+package uk.diasna.tng.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares JMH JSON results with a stored baseline and exits non-zero on regressions
+ * A benchmark regresses when its score or its normalised allocation rate (-prof gc)
+ * got worse than the baseline by more than the threshold fraction
+ */
+public final class BaselineComparison {
+    
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    // Allocation noise floor: a few bytes per op come and go with JIT decisions
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+    
+    private BaselineComparison() {}
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <results.json> <threshold>");
+            System.exit(2);
+        }
+        Path baselinePath = Path.of(args[0]);
+        Path resultsPath = Path.of(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        
+        if (!Files.exists(resultsPath)) {
+            System.err.println("No JMH results at " + resultsPath + "; run ./gradlew jmh first");
+            System.exit(2);
+        }
+        if (!Files.exists(baselinePath)) {
+            System.out.println("No baseline at " + baselinePath + "; store one with ./gradlew jmhBaseline");
+            return;
+        }
+        
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Result> baseline = read(mapper.readTree(baselinePath.toFile()));
+        Map<String, Result> current = read(mapper.readTree(resultsPath.toFile()));
+        
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s %12s %12s%n",
+                          "Benchmark", "Baseline", "Current", "Change", "B/op base", "B/op now");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %14s %14.3f %9s%n", entry.getKey(), "-", now.score(), "new");
+                continue;
+            }
+            
+            // Positive change always means worse, whatever the benchmark mode
+            double change = now.higherIsBetter()
+                ? (before.score() - now.score()) / before.score()
+                : (now.score() - before.score()) / before.score();
+            boolean slower = change > threshold;
+            boolean allocates = before.bytesPerOp() >= 0 && now.bytesPerOp() >= 0
+                && now.bytesPerOp() > before.bytesPerOp() * (1 + threshold) + ALLOCATION_SLACK_BYTES;
+            
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %12.1f %12.1f%s%n",
+                              entry.getKey(), before.score(), now.score(), change * 100,
+                              before.bytesPerOp(), now.bytesPerOp(),
+                              slower || allocates ? "  REGRESSION" : "");
+            if (slower || allocates) {
+                regressions++;
+            }
+        }
+        
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+    }
+    
+    private static Map<String, Result> read(JsonNode results) {
+        Map<String, Result> byKey = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").properties().forEach(param ->
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            
+            JsonNode allocation = run.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            byKey.put(key.toString(), new Result(
+                run.path("primaryMetric").path("score").asDouble(),
+                "thrpt".equals(run.path("mode").asText()),
+                allocation.isMissingNode() ? -1 : allocation.path("score").asDouble()
+            ));
+        }
+        return byKey;
+    }
+    
+    private record Result(double score, boolean higherIsBetter, double bytesPerOp) {}
+}
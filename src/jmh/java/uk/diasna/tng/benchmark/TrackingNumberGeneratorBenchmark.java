@@ -0,0 +1,38 @@
+package uk.diasna.tng.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.diasna.tng.util.TrackingNumberGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of tracking number generation, uncontended and with threads sharing the SecureRandom
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TrackingNumberGeneratorBenchmark {
+    
+    private final TrackingNumberGenerator generator = new TrackingNumberGenerator();
+    
+    @Benchmark
+    @Threads(1)
+    public String generate_1Thread() {
+        return generator.generateTrackingNumber();
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public String generate_4Threads() {
+        return generator.generateTrackingNumber();
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generate_MaxThreads() {
+        return generator.generateTrackingNumber();
+    }
+}
@@ -0,0 +1,65 @@
+package uk.diasna.tng.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.validator.TrackingNumberRequestValidator;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Current validator against the regex-based one it replaced, for valid and invalid requests
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TrackingNumberRequestValidatorBenchmark {
+    
+    private final TrackingNumberRequestValidator validator = new TrackingNumberRequestValidator();
+    private final LegacyRegexRequestValidator legacyValidator = new LegacyRegexRequestValidator();
+    
+    private TrackingNumberRequest validRequest;
+    private TrackingNumberRequest invalidRequest;
+    
+    @Setup
+    public void setUp() {
+        validRequest = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"), UUID.randomUUID(), "RedBox Logistics", "redbox-logistics");
+        invalidRequest = new TrackingNumberRequest(
+            "MYS", "id", new BigDecimal("0.0001"), UUID.randomUUID(), " ", "RedBox_Logistics");
+    }
+    
+    @Benchmark
+    public void validate_Valid() {
+        validator.validate(validRequest);
+    }
+    
+    @Benchmark
+    public void validate_Invalid(Blackhole blackhole) {
+        try {
+            validator.validate(invalidRequest);
+        } catch (InvalidTrackingNumberRequestException e) {
+            blackhole.consume(e);
+        }
+    }
+    
+    @Benchmark
+    public void legacyRegex_Valid() {
+        legacyValidator.validate(validRequest);
+    }
+    
+    @Benchmark
+    public void legacyRegex_Invalid(Blackhole blackhole) {
+        try {
+            legacyValidator.validate(invalidRequest);
+        } catch (IllegalArgumentException e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package uk.diasna.tng.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.diasna.tng.TrackingNumberGeneratorApplication;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.repository.AuditOutboxRepository;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+import uk.diasna.tng.service.TrackingNumberService;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end generation through the transactional service proxy against in-memory H2,
+ * using the test profile; tables are emptied between iterations to keep index sizes stable
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TrackingNumberServiceBenchmark {
+    
+    private ConfigurableApplicationContext context;
+    private TrackingNumberService service;
+    private TrackingNumberRepository trackingNumbers;
+    private AuditOutboxRepository auditOutbox;
+    private TrackingNumberRequest request;
+    
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(TrackingNumberGeneratorApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            .properties(
+                "logging.level.root=WARN",
+                "tng.audit.relay.interval-ms=3600000",
+                "tng.logging.request-summary.sample-rate=0")
+            .run();
+        service = context.getBean(TrackingNumberService.class);
+        trackingNumbers = context.getBean(TrackingNumberRepository.class);
+        auditOutbox = context.getBean(AuditOutboxRepository.class);
+        request = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"), UUID.randomUUID(), "RedBox Logistics", "redbox-logistics");
+    }
+    
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        auditOutbox.deleteAllInBatch();
+        trackingNumbers.deleteAllInBatch();
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public TrackingNumberResponse generate_1Thread() {
+        return service.generateTrackingNumber(request);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public TrackingNumberResponse generate_4Threads() {
+        return service.generateTrackingNumber(request);
+    }
+}
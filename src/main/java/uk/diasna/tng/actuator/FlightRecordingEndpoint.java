@@ -0,0 +1,200 @@
+package uk.diasna.tng.actuator;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.metrics.GenerationStageEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Starts, stops and dumps one bounded Flight Recorder recording on demand
+ * Available at: /actuator/flight-recording (status), POST with {"action": "start|stop|dump"}
+ * and optionally "duration" and "settings" (default or profile); dumps download from
+ * /actuator/flight-recording/{file}, and only the newest tng.jfr.max-dumps are kept
+ */
+@Component
+@Endpoint(id = "flight-recording")
+public class FlightRecordingEndpoint {
+    
+    static final String RECORDING_NAME = "tng-on-demand";
+    private static final int STATUS_CONFLICT = 409;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final Pattern DUMP_FILE = Pattern.compile("tng-\\d{8}-\\d{6}-\\d{3}\\.jfr");
+    
+    private final Path directory;
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final int maxDumps;
+    private Recording recording;
+    
+    @Autowired
+    public FlightRecordingEndpoint(@Value("${tng.jfr.directory:${java.io.tmpdir}/tng-jfr}") String directory,
+                                   @Value("${tng.jfr.default-duration:5m}") Duration defaultDuration,
+                                   @Value("${tng.jfr.max-duration:30m}") Duration maxDuration,
+                                   @Value("${tng.jfr.max-size-mb:256}") long maxSizeMb,
+                                   @Value("${tng.jfr.max-dumps:10}") int maxDumps) {
+        this(Path.of(directory), defaultDuration, maxDuration, maxSizeMb << 20, maxDumps);
+    }
+    
+    FlightRecordingEndpoint(Path directory, Duration defaultDuration, Duration maxDuration, long maxSizeBytes, int maxDumps) {
+        this.directory = directory;
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSizeBytes = maxSizeBytes;
+        this.maxDumps = maxDumps;
+    }
+    
+    @ReadOperation
+    public synchronized Map<String, Object> status() throws IOException {
+        Map<String, Object> status = describe();
+        status.put("dumps", dumps().stream().map(file -> file.getFileName().toString()).toList());
+        return status;
+    }
+    
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> control(String action,
+                                                                        @Nullable Duration duration,
+                                                                        @Nullable String settings) throws IOException {
+        return switch (action) {
+            case "start" -> start(duration == null ? defaultDuration : duration, settings == null ? "default" : settings);
+            case "stop" -> stop();
+            case "dump" -> dump();
+            default -> error(WebEndpointResponse.STATUS_BAD_REQUEST, "Unknown action " + action + ", expected start, stop or dump");
+        };
+    }
+    
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> download(@Selector String file) {
+        Path dump = directory.resolve(file);
+        if (!DUMP_FILE.matcher(file).matches() || !Files.isRegularFile(dump)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(dump));
+    }
+    
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+    
+    private WebEndpointResponse<Map<String, Object>> start(Duration duration, String settings) throws IOException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return error(STATUS_CONFLICT, "A recording is already running, stop it first");
+        }
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Duration must be positive and at most " + maxDuration);
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Unknown settings " + settings + ", expected default or profile");
+        }
+        
+        close();
+        recording = new Recording(configuration);
+        recording.setName(RECORDING_NAME);
+        recording.setDuration(duration);
+        recording.setMaxSize(maxSizeBytes);
+        recording.setToDisk(true);
+        recording.enable(GenerationStageEvent.class);
+        recording.start();
+        return new WebEndpointResponse<>(describe());
+    }
+    
+    private WebEndpointResponse<Map<String, Object>> stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return error(STATUS_CONFLICT, "No recording is running");
+        }
+        recording.stop();
+        return new WebEndpointResponse<>(describe());
+    }
+    
+    /**
+     * Write what has been recorded so far; works while the recording runs and after it stopped
+     */
+    private WebEndpointResponse<Map<String, Object>> dump() throws IOException {
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            return error(STATUS_CONFLICT, "Nothing has been recorded, start a recording first");
+        }
+        Files.createDirectories(directory);
+        Path file = directory.resolve("tng-" + FILE_TIME.format(Instant.now()) + ".jfr");
+        recording.dump(file);
+        
+        List<Path> dumps = dumps();
+        for (Path old : dumps.subList(0, Math.max(0, dumps.size() - maxDumps))) {
+            Files.deleteIfExists(old);
+        }
+        
+        Map<String, Object> result = describe();
+        result.put("file", file.getFileName().toString());
+        result.put("fileBytes", Files.size(file));
+        return new WebEndpointResponse<>(result);
+    }
+    
+    private Map<String, Object> describe() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        if (recording == null) {
+            details.put("state", "NONE");
+            return details;
+        }
+        details.put("state", recording.getState().name());
+        details.put("startTime", recording.getStartTime());
+        details.put("stopTime", recording.getStopTime());
+        details.put("duration", recording.getDuration());
+        details.put("maxSizeBytes", recording.getMaxSize());
+        details.put("recordedBytes", recording.getSize());
+        return details;
+    }
+    
+    /**
+     * Dump files, oldest first
+     */
+    private List<Path> dumps() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> DUMP_FILE.matcher(file.getFileName().toString()).matches())
+                .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+                .toList();
+        }
+    }
+    
+    private static WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return new WebEndpointResponse<>(body, status);
+    }
+}
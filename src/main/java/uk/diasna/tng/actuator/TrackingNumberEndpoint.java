@@ -1,29 +1,72 @@
 package uk.diasna.tng.actuator;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
 import org.springframework.stereotype.Component;
+import uk.diasna.tng.metrics.GenerationStageMetrics;
+import uk.diasna.tng.metrics.RollingGenerationStats;
 import uk.diasna.tng.service.TrackingNumberService;
+import uk.diasna.tng.stats.CustomerLoadTracker;
+import uk.diasna.tng.stats.LaneStatisticsAggregator;
+import uk.diasna.tng.stats.SpaceSavingSketch;
+import uk.diasna.tng.worker.WorkerLeaseManager;
 
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Custom actuator endpoint for tracking number statistics
  * Available at: /actuator/tracking-numbers
+ * Detail sections at: /actuator/tracking-numbers/{section} (lanes, customers, stages)
  */
 @Component
 @Endpoint(id = "tracking-numbers")
 public class TrackingNumberEndpoint {
     
+    private static final int MAX_REPORTED_LANES = 100;
+    private static final List<Duration> LANE_WINDOWS = List.of(
+        Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15), Duration.ofMinutes(60)
+    );
+    
     private final TrackingNumberService trackingNumberService;
+    private final LaneStatisticsAggregator laneStatistics;
+    private final CustomerLoadTracker customerLoad;
+    private final GenerationStageMetrics stageMetrics;
+    private final RollingGenerationStats rollingStats;
+    private final WorkerLeaseManager workerLease;
+    private final int topCustomers;
     
-    public TrackingNumberEndpoint(TrackingNumberService trackingNumberService) {
+    public TrackingNumberEndpoint(TrackingNumberService trackingNumberService,
+                                  LaneStatisticsAggregator laneStatistics,
+                                  CustomerLoadTracker customerLoad,
+                                  GenerationStageMetrics stageMetrics,
+                                  RollingGenerationStats rollingStats,
+                                  WorkerLeaseManager workerLease,
+                                  @Value("${tng.heavy-hitters.top:20}") int topCustomers) {
         this.trackingNumberService = trackingNumberService;
+        this.laneStatistics = laneStatistics;
+        this.customerLoad = customerLoad;
+        this.stageMetrics = stageMetrics;
+        this.rollingStats = rollingStats;
+        this.workerLease = workerLease;
+        this.topCustomers = topCustomers;
     }
     
     @ReadOperation
     public Map<String, Object> trackingNumberStats() {
         TrackingNumberService.TrackingNumberStats stats = trackingNumberService.getStats();
+        RollingGenerationStats.WindowStats current = rollingStats.statusStats();
+        
+        Map<String, Object> windows = new LinkedHashMap<>();
+        for (Duration window : rollingStats.windows()) {
+            windows.put(window.toMinutes() + "m", windowStats(rollingStats.stats(window)));
+        }
         
         return Map.of(
             "service", "Tracking Number Generator",
@@ -34,29 +77,111 @@ public class TrackingNumberEndpoint {
                 "avgGenerationTimeMs", stats.avgGenerationTimeMs()
             ),
             "performance", Map.of(
-                "collisionRate", calculateCollisionRate(stats),
-                "failureRate", calculateFailureRate(stats),
-                "status", determineStatus(stats)
-            )
+                "collisionRate", current.collisionRate(),
+                "failureRate", current.failureRate(),
+                "status", current.status(),
+                "windowSeconds", current.window().toSeconds()
+            ),
+            "windows", windows,
+            "workerLease", workerLease()
         );
     }
     
-    private double calculateCollisionRate(TrackingNumberService.TrackingNumberStats stats) {
-        long total = stats.totalGenerated() + stats.totalCollisions();
-        return total > 0 ? (double) stats.totalCollisions() / total * 100 : 0.0;
+    @ReadOperation
+    public Map<String, Object> trackingNumberSection(@Selector String section) {
+        return switch (section) {
+            case "lanes" -> laneStatistics();
+            case "customers" -> customerLoad();
+            case "stages" -> Map.of(
+                "service", "Tracking Number Generator",
+                "enabled", stageMetrics.isEnabled(),
+                "stages", stageMetrics.snapshot()
+            );
+            default -> null;
+        };
     }
     
-    private double calculateFailureRate(TrackingNumberService.TrackingNumberStats stats) {
-        long total = stats.totalGenerated() + stats.totalFailures();
-        return total > 0 ? (double) stats.totalFailures() / total * 100 : 0.0;
+    private Map<String, Object> workerLease() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", workerLease.isEnabled());
+        details.put("fenced", workerLease.isFenced());
+        workerLease.currentLease().ifPresent(lease -> {
+            details.put("workerId", lease.workerId());
+            details.put("fencingToken", lease.fencingToken());
+            details.put("owner", lease.owner());
+            details.put("expiresAt", lease.expiresAt());
+            details.put("validUntil", lease.validUntil());
+        });
+        return details;
     }
     
-    private String determineStatus(TrackingNumberService.TrackingNumberStats stats) {
-        double failureRate = calculateFailureRate(stats);
-        double collisionRate = calculateCollisionRate(stats);
+    private Map<String, Object> laneStatistics() {
+        Map<String, Object> windows = new LinkedHashMap<>();
+        for (Duration window : LANE_WINDOWS) {
+            windows.put(window.toMinutes() + "m", laneStatistics.snapshot(window).stream()
+                .filter(lane -> lane.windowCount() > 0)
+                .sorted(Comparator.comparingLong(LaneStatisticsAggregator.LaneSnapshot::windowCount).reversed())
+                .limit(MAX_REPORTED_LANES)
+                .map(lane -> Map.of(
+                    "lane", lane.originCountryId() + "-" + lane.destinationCountryId(),
+                    "count", lane.windowCount(),
+                    "weightKg", lane.windowWeightKg(),
+                    "totalCount", lane.totalCount(),
+                    "totalWeightKg", lane.totalWeightKg()
+                ))
+                .toList());
+        }
         
-        if (failureRate > 5.0) return "CRITICAL";
-        if (failureRate > 1.0 || collisionRate > 10.0) return "WARNING";
-        return "HEALTHY";
+        return Map.of(
+            "service", "Tracking Number Generator",
+            "lanes", windows
+        );
+    }
+    
+    private Map<String, Object> customerLoad() {
+        CustomerLoadTracker.CustomerLoadReport report = customerLoad.report(topCustomers);
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("service", "Tracking Number Generator");
+        result.put("droppedSamples", report.droppedSamples());
+        result.put("currentWindow", customerWindow(report.current()));
+        if (report.previous() != null) {
+            result.put("previousWindow", customerWindow(report.previous()));
+        }
+        return result;
+    }
+    
+    private Map<String, Object> customerWindow(CustomerLoadTracker.WindowReport window) {
+        return Map.of(
+            "windowStart", window.windowStart(),
+            "windowSeconds", window.windowLength().toSeconds(),
+            "totalRequests", window.totalRequests(),
+            "maxError", window.maxError(),
+            "topCustomers", window.topCustomers().stream()
+                .map(this::customerEstimate)
+                .toList()
+        );
+    }
+    
+    private Map<String, Object> customerEstimate(SpaceSavingSketch.Estimate<UUID> estimate) {
+        return Map.of(
+            "customerId", estimate.key(),
+            "requests", estimate.count(),
+            "guaranteedRequests", estimate.guaranteedCount(),
+            "error", estimate.error(),
+            "avgLatencyMs", estimate.avgLatencyNanos() / 1_000_000.0,
+            "maxLatencyMs", estimate.maxLatencyNanos() / 1_000_000.0
+        );
+    }
+    
+    private Map<String, Object> windowStats(RollingGenerationStats.WindowStats stats) {
+        return Map.of(
+            "generated", stats.generated(),
+            "collisions", stats.collisions(),
+            "failures", stats.failures(),
+            "collisionRate", stats.collisionRate(),
+            "failureRate", stats.failureRate(),
+            "status", stats.status()
+        );
     }
 }
@@ -0,0 +1,34 @@
+package uk.diasna.tng.actuator;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.metrics.RollingGenerationStats;
+
+/**
+ * Health contributor "trackingNumber" driven by windowed failure and collision rates
+ * CRITICAL reports DOWN so the readiness group takes the node out of rotation
+ */
+@Component
+public class TrackingNumberHealthIndicator implements HealthIndicator {
+    
+    private final RollingGenerationStats rollingStats;
+    
+    public TrackingNumberHealthIndicator(RollingGenerationStats rollingStats) {
+        this.rollingStats = rollingStats;
+    }
+    
+    @Override
+    public Health health() {
+        RollingGenerationStats.WindowStats stats = rollingStats.statusStats();
+        
+        Health.Builder builder = "CRITICAL".equals(stats.status()) ? Health.down() : Health.up();
+        return builder
+            .withDetail("status", stats.status())
+            .withDetail("windowSeconds", stats.window().toSeconds())
+            .withDetail("generated", stats.generated())
+            .withDetail("collisionRate", stats.collisionRate())
+            .withDetail("failureRate", stats.failureRate())
+            .build();
+    }
+}
@@ -0,0 +1,30 @@
+package uk.diasna.tng.actuator;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.warmup.StartupWarmUp;
+
+/**
+ * Health contributor "warmUp", DOWN until the startup warm-up has finished or hit its deadline
+ * Part of the readiness group so no traffic is routed to a cold instance
+ */
+@Component
+public class WarmUpHealthIndicator implements HealthIndicator {
+    
+    private final StartupWarmUp warmUp;
+    
+    public WarmUpHealthIndicator(StartupWarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+    
+    @Override
+    public Health health() {
+        Health.Builder builder = warmUp.isReady() ? Health.up() : Health.down();
+        return builder
+            .withDetail("state", warmUp.state())
+            .withDetail("iterations", warmUp.completedIterations())
+            .withDetail("durationMs", warmUp.duration().toMillis())
+            .build();
+    }
+}
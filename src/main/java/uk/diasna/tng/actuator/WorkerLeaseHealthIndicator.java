@@ -0,0 +1,32 @@
+package uk.diasna.tng.actuator;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.worker.WorkerLeaseManager;
+
+/**
+ * Health contributor "workerLease", DOWN while the instance is fenced for lack of a valid worker ID lease
+ * Part of the readiness group so traffic moves to instances that can still generate
+ */
+@Component
+public class WorkerLeaseHealthIndicator implements HealthIndicator {
+    
+    private final WorkerLeaseManager workerLease;
+    
+    public WorkerLeaseHealthIndicator(WorkerLeaseManager workerLease) {
+        this.workerLease = workerLease;
+    }
+    
+    @Override
+    public Health health() {
+        if (!workerLease.isEnabled()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        Health.Builder builder = workerLease.isFenced() ? Health.down() : Health.up();
+        workerLease.currentLease().ifPresent(lease -> builder
+            .withDetail("workerId", lease.workerId())
+            .withDetail("expiresAt", lease.expiresAt()));
+        return builder.build();
+    }
+}
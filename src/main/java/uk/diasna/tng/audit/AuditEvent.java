@@ -0,0 +1,37 @@
+package uk.diasna.tng.audit;
+
+import uk.diasna.tng.entity.AuditOutboxEntity;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One issued tracking number as delivered to the audit sink
+ * The tracking number identifies the event, so sinks can drop redelivered ones; outboxId restarts with the outbox
+ */
+public record AuditEvent(
+    long outboxId,
+    String trackingNumber,
+    String originCountryId,
+    String destinationCountryId,
+    BigDecimal weight,
+    UUID customerId,
+    String customerName,
+    String customerSlug,
+    OffsetDateTime createdAt
+) {
+    public static AuditEvent from(AuditOutboxEntity entity) {
+        return new AuditEvent(
+            entity.getId(),
+            entity.getTrackingNumber(),
+            entity.getOriginCountryId(),
+            entity.getDestinationCountryId(),
+            entity.getWeight(),
+            entity.getCustomerId(),
+            entity.getCustomerName(),
+            entity.getCustomerSlug(),
+            entity.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,125 @@
+package uk.diasna.tng.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.diasna.tng.entity.AuditOutboxEntity;
+import uk.diasna.tng.repository.AuditOutboxRepository;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains audit_outbox to the audit sink in batches, off the request path
+ * Each batch is locked with FOR UPDATE SKIP LOCKED and deleted in the same transaction once the
+ * sink accepted it, so instances relay disjoint batches; delivery is at-least-once, and a crash
+ * between the sink write and the commit only causes redelivery
+ */
+@Component
+public class AuditOutboxRelay {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AuditOutboxRelay.class);
+    
+    private final AuditOutboxRepository repository;
+    private final AuditSink sink;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final Clock clock;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter relayedCounter;
+    private final Counter failureCounter;
+    private final Timer sinkTimer;
+    
+    @Autowired
+    public AuditOutboxRelay(AuditOutboxRepository repository,
+                            AuditSink sink,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${tng.audit.relay.batch-size:500}") int batchSize) {
+        this(repository, sink, transactionManager, meterRegistry, batchSize, Clock.systemUTC());
+    }
+    
+    AuditOutboxRelay(AuditOutboxRepository repository, AuditSink sink, PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry, int batchSize, Clock clock) {
+        this.repository = repository;
+        this.sink = sink;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setName("audit-outbox-relay");
+        this.batchSize = batchSize;
+        this.clock = clock;
+        
+        TimeGauge.builder("tracking_number.audit.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+            .description("Age of the oldest audit event not yet delivered to the sink")
+            .register(meterRegistry);
+        
+        this.relayedCounter = Counter.builder("tracking_number.audit.relayed")
+            .description("Audit events delivered to the sink")
+            .tag("sink", sink.name())
+            .register(meterRegistry);
+        
+        this.failureCounter = Counter.builder("tracking_number.audit.relay.failures")
+            .description("Audit batches the sink rejected; they stay in the outbox and are retried")
+            .tag("sink", sink.name())
+            .register(meterRegistry);
+        
+        this.sinkTimer = Timer.builder("tracking_number.audit.sink.write")
+            .description("Time taken to write one audit batch to the sink")
+            .tag("sink", sink.name())
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Relay full batches until the outbox is drained or the sink fails
+     */
+    @Scheduled(fixedDelayString = "${tng.audit.relay.interval-ms:500}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+    
+    int relayBatch() {
+        return transaction.execute(status -> relayLockedBatch());
+    }
+    
+    private int relayLockedBatch() {
+        List<AuditOutboxEntity> batch = repository.lockBatch(batchSize);
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Math.max(0, clock.millis() - batch.get(0).getCreatedAt().toInstant().toEpochMilli()));
+        
+        List<AuditEvent> events = new ArrayList<>(batch.size());
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (AuditOutboxEntity entity : batch) {
+            events.add(AuditEvent.from(entity));
+            ids.add(entity.getId());
+        }
+        
+        try {
+            sinkTimer.record(() -> sink.write(events));
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            logger.warn("Audit sink {} rejected a batch of {} events, will retry", sink.name(), events.size(), e);
+            return 0;
+        }
+        
+        repository.deleteAllByIdInBatch(ids);
+        relayedCounter.increment(events.size());
+        return events.size();
+    }
+}
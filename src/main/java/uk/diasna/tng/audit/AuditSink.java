@@ -0,0 +1,20 @@
+package uk.diasna.tng.audit;
+
+import java.util.List;
+
+/**
+ * Destination of the audit trail
+ * Delivery is at-least-once, so writing an event that is already stored must be a no-op
+ */
+public interface AuditSink {
+    
+    /**
+     * Store a batch of events; throwing leaves the whole batch in the outbox for the next run
+     */
+    void write(List<AuditEvent> events);
+    
+    /**
+     * Short name used to tag sink metrics
+     */
+    String name();
+}
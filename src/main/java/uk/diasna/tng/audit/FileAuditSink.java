@@ -0,0 +1,172 @@
+package uk.diasna.tng.audit;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SequencedSet;
+
+/**
+ * Appends audit events as newline-delimited JSON, for tests and runs without MongoDB
+ * Tracking numbers written recently are remembered (and re-read from the file on startup),
+ * so redelivered events are not appended twice; outbox ids are not used for this because
+ * they restart when the outbox is recreated while the file is kept
+ */
+@Component
+@ConditionalOnProperty(name = "tng.audit.sink", havingValue = "file")
+public class FileAuditSink implements AuditSink {
+    
+    static final int REMEMBERED_TRACKING_NUMBERS = 1 << 16;
+    
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final SequencedSet<String> writtenTrackingNumbers = new LinkedHashSet<>();
+    private final Path path;
+    private boolean tornLastLine;
+    
+    public FileAuditSink(@Value("${tng.audit.file.path:audit/tracking-numbers.ndjson}") Path path) {
+        this.path = path;
+        loadWrittenTrackingNumbers();
+    }
+    
+    @Override
+    public synchronized void write(List<AuditEvent> events) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(events.size() * 256);
+        List<String> appended = new ArrayList<>(events.size());
+        if (tornLastLine) {
+            // Terminate a line cut short by a crash so it cannot corrupt the next event
+            buffer.write('\n');
+        }
+        try {
+            for (AuditEvent event : events) {
+                if (writtenTrackingNumbers.contains(event.trackingNumber()) || appended.contains(event.trackingNumber())) {
+                    continue;
+                }
+                writeLine(buffer, event);
+                appended.add(event.trackingNumber());
+            }
+            if (appended.isEmpty()) {
+                return;
+            }
+            
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append audit events to " + path, e);
+        }
+        tornLastLine = false;
+        appended.forEach(this::remember);
+    }
+    
+    @Override
+    public String name() {
+        return "file";
+    }
+    
+    private void writeLine(ByteArrayOutputStream buffer, AuditEvent event) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(buffer, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeNumberField("outbox_id", event.outboxId());
+            json.writeStringField("tracking_number", event.trackingNumber());
+            json.writeStringField("origin_country_id", event.originCountryId());
+            json.writeStringField("destination_country_id", event.destinationCountryId());
+            json.writeNumberField("weight", event.weight());
+            json.writeStringField("customer_id", event.customerId().toString());
+            json.writeStringField("customer_name", event.customerName());
+            json.writeStringField("customer_slug", event.customerSlug());
+            json.writeStringField("created_at", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(event.createdAt()));
+            json.writeEndObject();
+        }
+        buffer.write('\n');
+    }
+    
+    private void loadWrittenTrackingNumbers() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            tornLastLine = endsWithoutNewline();
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                while (line != null) {
+                    String next = reader.readLine();
+                    // An unterminated last line may hold a valid prefix; it was never fully written
+                    boolean complete = next != null || !tornLastLine;
+                    String trackingNumber = complete ? readTrackingNumber(line) : null;
+                    if (trackingNumber != null) {
+                        remember(trackingNumber);
+                    }
+                    line = next;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audit file " + path, e);
+        }
+    }
+    
+    private boolean endsWithoutNewline() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return false;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            return last.get(0) != '\n';
+        }
+    }
+    
+    private String readTrackingNumber(String line) {
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("tracking_number".equals(field)) {
+                    return parser.getValueAsString();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // Not an audit record; it cannot hide a redelivery
+            return null;
+        }
+        return null;
+    }
+    
+    private void remember(String trackingNumber) {
+        if (writtenTrackingNumbers.add(trackingNumber) && writtenTrackingNumbers.size() > REMEMBERED_TRACKING_NUMBERS) {
+            writtenTrackingNumbers.removeFirst();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package uk.diasna.tng.audit;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes audit batches with one unordered insertMany, keyed by tracking number
+ * Redelivered events fail with duplicate-key errors, which are ignored
+ */
+@Component
+@ConditionalOnProperty(name = "tng.audit.sink", havingValue = "mongo", matchIfMissing = true)
+public class MongoAuditSink implements AuditSink {
+    
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+    
+    private final MongoTemplate mongoTemplate;
+    private final String collection;
+    
+    public MongoAuditSink(MongoTemplate mongoTemplate,
+                          @Value("${tng.audit.mongo.collection:tracking_number_audit}") String collection) {
+        this.mongoTemplate = mongoTemplate;
+        this.collection = collection;
+    }
+    
+    @Override
+    public void write(List<AuditEvent> events) {
+        List<Document> documents = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            documents.add(new Document("_id", event.trackingNumber())
+                .append("outbox_id", event.outboxId())
+                .append("origin_country_id", event.originCountryId())
+                .append("destination_country_id", event.destinationCountryId())
+                .append("weight", new Decimal128(event.weight()))
+                .append("customer_id", event.customerId().toString())
+                .append("customer_name", event.customerName())
+                .append("customer_slug", event.customerSlug())
+                .append("created_at", Date.from(event.createdAt().toInstant())));
+        }
+        
+        try {
+            mongoTemplate.getCollection(collection).insertMany(documents, UNORDERED);
+        } catch (MongoBulkWriteException e) {
+            // Unordered inserts still store every new document; only rethrow for real failures
+            boolean onlyDuplicates = e.getWriteErrors().stream()
+                .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates || e.getWriteConcernError() != null) {
+                throw e;
+            }
+        }
+    }
+    
+    @Override
+    public String name() {
+        return "mongo";
+    }
+}
@@ -0,0 +1,149 @@
+package uk.diasna.tng.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.exception.LoadSheddingException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * AIMD concurrency limit in front of tracking number generation
+ * While latency stays under the threshold and the limit is in use it grows by 1/limit per
+ * request, about one per round; a slow or shed request cuts it by the backoff ratio, at
+ * most once per threshold interval. Requests beyond the limit are rejected immediately
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Duration retryAfter;
+    
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseNanos;
+    private final Counter rejectedCounter;
+    
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${tng.limiter.enabled:true}") boolean enabled,
+                                      @Value("${tng.limiter.initial-limit:20}") int initialLimit,
+                                      @Value("${tng.limiter.min-limit:4}") int minLimit,
+                                      @Value("${tng.limiter.max-limit:200}") int maxLimit,
+                                      @Value("${tng.limiter.latency-threshold:250ms}") Duration latencyThreshold,
+                                      @Value("${tng.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${tng.limiter.retry-after:1s}") Duration retryAfter) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.retryAfter = retryAfter;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+        this.lastDecreaseNanos = new AtomicLong(System.nanoTime() - latencyThresholdNanos);
+        
+        Gauge.builder("tracking_number.limiter.limit", this, AdaptiveConcurrencyLimiter::limit)
+            .description("Current adaptive concurrency limit for generation requests")
+            .register(meterRegistry);
+        Gauge.builder("tracking_number.limiter.inflight", inflight, AtomicInteger::get)
+            .description("Generation requests currently admitted by the limiter")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("tracking_number.limiter.rejected")
+            .description("Generation requests shed because the concurrency limit was reached")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Run the work if under the limit, otherwise throw LoadSheddingException without waiting
+     */
+    public <T> T call(Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        if (!tryAcquire()) {
+            rejectedCounter.increment();
+            throw new LoadSheddingException("Generation concurrency limit reached", retryAfter);
+        }
+        
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return work.get();
+        } catch (LoadSheddingException e) {
+            dropped = true;
+            throw e;
+        } finally {
+            release(System.nanoTime() - start, dropped);
+        }
+    }
+    
+    public double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+    
+    public int inflight() {
+        return inflight.get();
+    }
+    
+    boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit()) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    void release(long latencyNanos, boolean dropped) {
+        int inflightBefore = inflight.getAndDecrement();
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else {
+            increase(inflightBefore);
+        }
+    }
+    
+    private void increase(int inflightBefore) {
+        while (true) {
+            long bits = limitBits.get();
+            double current = Double.longBitsToDouble(bits);
+            // Only grow a limit that is actually being used
+            if (inflightBefore * 2 < current || current >= maxLimit) {
+                return;
+            }
+            double next = Math.min(maxLimit, current + 1.0 / current);
+            if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+    
+    private void decrease() {
+        long now = System.nanoTime();
+        long last = lastDecreaseNanos.get();
+        if (now - last < latencyThresholdNanos || !lastDecreaseNanos.compareAndSet(last, now)) {
+            return;
+        }
+        while (true) {
+            long bits = limitBits.get();
+            double next = Math.max(minLimit, Double.longBitsToDouble(bits) * backoffRatio);
+            if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
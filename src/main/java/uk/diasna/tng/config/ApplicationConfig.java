@@ -2,13 +2,30 @@ package uk.diasna.tng.config;
 
 import org.springframework.boot.actuate.info.Info;
 import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import uk.diasna.tng.quota.QuotaProperties;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
 
 @Configuration
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+@EnableScheduling
+@EnableConfigurationProperties(QuotaProperties.class)
 public class ApplicationConfig {
+    /**
+     * created_at is an OffsetDateTime, which the default LocalDateTime provider cannot fill
+     */
+    @Bean
+    public DateTimeProvider auditingDateTimeProvider() {
+        return () -> Optional.of(OffsetDateTime.now());
+    }
+    
     @Bean
     public InfoContributor trackingNumberInfoContributor() {
         return new InfoContributor() {
@@ -0,0 +1,33 @@
+package uk.diasna.tng.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.diasna.tng.logging.DropCountingAsyncAppender;
+import uk.diasna.tng.logging.RequestSummaryFilter;
+
+@Configuration
+public class LoggingConfig {
+    /**
+     * One summary event per API request, sampled for successes and always emitted for server errors
+     */
+    @Bean
+    public FilterRegistrationBean<RequestSummaryFilter> requestSummaryFilter(
+            @Value("${tng.logging.request-summary.sample-rate:0.01}") double sampleRate) {
+        FilterRegistrationBean<RequestSummaryFilter> registration =
+            new FilterRegistrationBean<>(new RequestSummaryFilter(sampleRate));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+    
+    @Bean
+    public MeterBinder droppedLogEventsMetrics() {
+        return registry -> FunctionCounter.builder("logging.events.dropped", DropCountingAsyncAppender.class,
+                                                   appender -> DropCountingAsyncAppender.droppedEvents())
+            .description("Log events discarded by the async appender because its queue was full")
+            .register(registry);
+    }
+}
@@ -0,0 +1,31 @@
+package uk.diasna.tng.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.diasna.tng.metrics.GenerationStageMetrics;
+
+@Configuration
+public class MetricsConfig {
+    /**
+     * Give the Hikari connection-acquire timer the same percentiles and SLO buckets as the stage timers
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tng.metrics.stages.enabled", havingValue = "true", matchIfMissing = true)
+    public MeterFilter connectionAcquireDistribution() {
+        DistributionStatisticConfig stageDistribution = GenerationStageMetrics.distributionConfig();
+        
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (GenerationStageMetrics.CONNECTION_ACQUIRE_METER.equals(id.getName())) {
+                    return stageDistribution.merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package uk.diasna.tng.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Flyway owns the schema and Hibernate only validates it at boot
+ * Migrations can be skipped at startup when they are applied by a separate job,
+ * or during the CDS training run in the image build where there is no database
+ */
+@Configuration
+public class SchemaMigrationConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationConfig.class);
+    
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${tng.schema.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            } else {
+                logger.info("Skipping schema migrations at startup (tng.schema.migrate-on-startup=false)");
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package uk.diasna.tng.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import uk.diasna.tng.converter.TrackingNumberResponseConverter;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    /**
+     * Serve tracking number responses ahead of the generic Jackson converter
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new TrackingNumberResponseConverter());
+    }
+}
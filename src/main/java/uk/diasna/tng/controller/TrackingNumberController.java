@@ -1,11 +1,22 @@
 package uk.diasna.tng.controller;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import uk.diasna.tng.concurrency.AdaptiveConcurrencyLimiter;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.dto.TrackingNumberLookupRequest;
+import uk.diasna.tng.dto.TrackingNumberLookupResponse;
+import uk.diasna.tng.dto.TrackingNumberPage;
 import uk.diasna.tng.dto.TrackingNumberRequest;
 import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.exception.TrackingNumberCollisionException;
+import uk.diasna.tng.idempotency.IdempotencyService;
+import uk.diasna.tng.logging.RequestSummary;
+import uk.diasna.tng.metrics.GenerationStage;
+import uk.diasna.tng.metrics.GenerationStageMetrics;
+import uk.diasna.tng.quota.CustomerQuotaService;
+import uk.diasna.tng.service.TrackingNumberLookupService;
+import uk.diasna.tng.service.TrackingNumberQueryService;
 import uk.diasna.tng.service.TrackingNumberService;
 import uk.diasna.tng.validator.TrackingNumberRequestValidator;
 
@@ -16,16 +27,36 @@ import java.util.UUID;
 @RequestMapping("/api/v1")
 public class TrackingNumberController {
     
-    private static final Logger logger = LoggerFactory.getLogger(TrackingNumberController.class);
-    
     private final TrackingNumberService trackingNumberService;
+    private final TrackingNumberQueryService queryService;
+    private final TrackingNumberLookupService lookupService;
     private final TrackingNumberRequestValidator validator;
+    private final GenerationStageMetrics stageMetrics;
+    private final DatabaseConcurrencyLimiter databaseLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final CustomerQuotaService customerQuota;
+    private final IdempotencyService idempotencyService;
     
     public TrackingNumberController(TrackingNumberService trackingNumberService,
-                                  TrackingNumberRequestValidator validator) {
+                                  TrackingNumberQueryService queryService,
+                                  TrackingNumberLookupService lookupService,
+                                  TrackingNumberRequestValidator validator,
+                                  GenerationStageMetrics stageMetrics,
+                                  DatabaseConcurrencyLimiter databaseLimiter,
+                                  AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                  CustomerQuotaService customerQuota,
+                                  IdempotencyService idempotencyService) {
         this.trackingNumberService = trackingNumberService;
+        this.queryService = queryService;
+        this.lookupService = lookupService;
         this.validator = validator;
+        this.stageMetrics = stageMetrics;
+        this.databaseLimiter = databaseLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.customerQuota = customerQuota;
+        this.idempotencyService = idempotencyService;
     }
+    
     @GetMapping("/next-tracking-number")
     public ResponseEntity<TrackingNumberResponse> generateTrackingNumber(
             @RequestParam("origin_country_id") String originCountryId,
@@ -33,10 +64,8 @@ public class TrackingNumberController {
             @RequestParam("weight") BigDecimal weight,
             @RequestParam("customer_id") UUID customerId,
             @RequestParam("customer_name") String customerName,
-            @RequestParam("customer_slug") String customerSlug) {
-        
-        logger.info("Received tracking number generation request for customer: {} from {} to {}", 
-                   customerId, originCountryId, destinationCountryId);
+            @RequestParam("customer_slug") String customerSlug,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         
         TrackingNumberRequest request = new TrackingNumberRequest(
             originCountryId.toUpperCase(),
@@ -46,14 +75,59 @@ public class TrackingNumberController {
             customerName,
             customerSlug.toLowerCase()
         );
+        RequestSummary.describe(customerId, request.originCountryId(), request.destinationCountryId());
         
+        long validationStart = stageMetrics.start();
         validator.validate(request);
+        stageMetrics.record(GenerationStage.VALIDATION, validationStart);
         
-        TrackingNumberResponse response = trackingNumberService.generateTrackingNumber(request);
+        // Replays are answered before quota and limiters; only a first attempt costs capacity
+        TrackingNumberResponse response = idempotencyKey == null
+            ? issue(request, null)
+            : idempotencyService.execute(request, idempotencyKey, () -> issue(request, idempotencyKey));
         
-        logger.info("Successfully generated tracking number: {} for customer: {}", 
-                   response.trackingNumber(), customerId);
+        RequestSummary.issued(response.trackingNumber());
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * A customer's tracking numbers, newest first; pass next_cursor back as cursor for the next page
+     */
+    @GetMapping("/customers/{customerId}/tracking-numbers")
+    public ResponseEntity<TrackingNumberPage> listTrackingNumbers(
+            @PathVariable("customerId") UUID customerId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        
+        return ResponseEntity.ok(databaseLimiter.call(() -> queryService.listByCustomer(customerId, cursor, limit)));
+    }
+    
+    /**
+     * Resolve up to tng.lookup.max-tracking-numbers tracking numbers, one result each in request order
+     */
+    @PostMapping("/tracking-numbers:lookup")
+    public ResponseEntity<TrackingNumberLookupResponse> lookupTrackingNumbers(@RequestBody TrackingNumberLookupRequest request) {
+        return ResponseEntity.ok(lookupService.lookup(request.trackingNumbers()));
+    }
+    
+    private TrackingNumberResponse issue(TrackingNumberRequest request, String idempotencyKey) {
+        customerQuota.acquire(request.customerId(), request.customerSlug());
+        
+        return concurrencyLimiter.call(() -> databaseLimiter.call(() -> {
+            try {
+                return generate(request, idempotencyKey);
+            } catch (TrackingNumberCollisionException e) {
+                // Another instance inserted the same number after our existence check; that
+                // transaction rolled back, so one more attempt in a fresh one is safe
+                return generate(request, idempotencyKey);
+            }
+        }));
+    }
+    
+    private TrackingNumberResponse generate(TrackingNumberRequest request, String idempotencyKey) {
+        return idempotencyKey == null
+            ? trackingNumberService.generateTrackingNumber(request)
+            : trackingNumberService.generateTrackingNumber(request, idempotencyKey);
+    }
 }
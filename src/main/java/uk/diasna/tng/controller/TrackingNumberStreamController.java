@@ -0,0 +1,52 @@
+package uk.diasna.tng.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.stream.StreamFilter;
+import uk.diasna.tng.stream.TrackingNumberStreamService;
+import uk.diasna.tng.validator.IsoCountryCodes;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+public class TrackingNumberStreamController {
+    
+    private final TrackingNumberStreamService streamService;
+    
+    public TrackingNumberStreamController(TrackingNumberStreamService streamService) {
+        this.streamService = streamService;
+    }
+    
+    /**
+     * Push tracking numbers issued by this instance as Server-Sent Events, optionally per customer or lane
+     * Reconnecting clients send Last-Event-ID to resume where they left off
+     */
+    @GetMapping(path = "/tracking-numbers/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTrackingNumbers(
+            @RequestParam(value = "customer_id", required = false) UUID customerId,
+            @RequestParam(value = "origin_country_id", required = false) String originCountryId,
+            @RequestParam(value = "destination_country_id", required = false) String destinationCountryId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        
+        StreamFilter filter = new StreamFilter(
+            customerId,
+            countryCode("origin_country_id", originCountryId),
+            countryCode("destination_country_id", destinationCountryId)
+        );
+        return streamService.subscribe(filter, lastEventId);
+    }
+    
+    private static String countryCode(String parameter, String value) {
+        if (value == null) {
+            return null;
+        }
+        String code = value.toUpperCase();
+        if (!IsoCountryCodes.isAssigned(code)) {
+            throw new InvalidTrackingNumberRequestException("Invalid " + parameter + ": " + value);
+        }
+        return code;
+    }
+}
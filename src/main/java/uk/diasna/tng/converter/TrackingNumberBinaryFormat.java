@@ -0,0 +1,88 @@
+package uk.diasna.tng.converter;
+
+import uk.diasna.tng.dto.TrackingNumberResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-width binary encoding of tracking number responses, big-endian
+ * A 4-byte record count followed by 32-byte records: 16 bytes of ASCII tracking number
+ * padded with NUL, 8 bytes epoch second, 4 bytes nano-of-second and 4 bytes UTC offset seconds
+ */
+public final class TrackingNumberBinaryFormat {
+    
+    public static final String MEDIA_TYPE = "application/vnd.tng.tracking-number+binary";
+    static final int HEADER_BYTES = 4;
+    static final int TRACKING_NUMBER_BYTES = 16;
+    static final int RECORD_BYTES = TRACKING_NUMBER_BYTES + 8 + 4 + 4;
+    
+    private TrackingNumberBinaryFormat() {
+    }
+    
+    public static byte[] encode(List<TrackingNumberResponse> responses) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + responses.size() * RECORD_BYTES);
+        buffer.putInt(responses.size());
+        for (TrackingNumberResponse response : responses) {
+            writeRecord(buffer, response);
+        }
+        return buffer.array();
+    }
+    
+    public static byte[] encode(TrackingNumberResponse response) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + RECORD_BYTES);
+        buffer.putInt(1);
+        writeRecord(buffer, response);
+        return buffer.array();
+    }
+    
+    public static List<TrackingNumberResponse> decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int count = buffer.getInt();
+        if (count < 0 || bytes.length != HEADER_BYTES + (long) count * RECORD_BYTES) {
+            throw new IllegalArgumentException("Malformed tracking number payload of " + bytes.length + " bytes");
+        }
+        
+        List<TrackingNumberResponse> responses = new ArrayList<>(count);
+        byte[] trackingNumber = new byte[TRACKING_NUMBER_BYTES];
+        for (int i = 0; i < count; i++) {
+            buffer.get(trackingNumber);
+            int length = 0;
+            while (length < TRACKING_NUMBER_BYTES && trackingNumber[length] != 0) {
+                length++;
+            }
+            long epochSecond = buffer.getLong();
+            int nano = buffer.getInt();
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds(buffer.getInt());
+            responses.add(new TrackingNumberResponse(
+                new String(trackingNumber, 0, length, StandardCharsets.US_ASCII),
+                OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), offset)
+            ));
+        }
+        return responses;
+    }
+    
+    private static void writeRecord(ByteBuffer buffer, TrackingNumberResponse response) {
+        String trackingNumber = response.trackingNumber();
+        if (trackingNumber.length() > TRACKING_NUMBER_BYTES) {
+            throw new IllegalArgumentException("Tracking number longer than " + TRACKING_NUMBER_BYTES + " characters");
+        }
+        for (int i = 0; i < TRACKING_NUMBER_BYTES; i++) {
+            char c = i < trackingNumber.length() ? trackingNumber.charAt(i) : 0;
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("Tracking number is not ASCII");
+            }
+            buffer.put((byte) c);
+        }
+        
+        OffsetDateTime createdAt = response.createdAt();
+        buffer.putLong(createdAt.toEpochSecond());
+        buffer.putInt(createdAt.getNano());
+        buffer.putInt(createdAt.getOffset().getTotalSeconds());
+    }
+}
@@ -0,0 +1,180 @@
+package uk.diasna.tng.converter;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes tracking number responses as JSON byte-for-byte identical to Jackson's output
+ * Field names are precomputed and the "yyyy-MM-ddTHH:mm:ss" prefix of created_at is
+ * formatted once per second, leaving only the fraction and offset per response
+ */
+final class TrackingNumberJsonWriter {
+    
+    private static final byte[] TRACKING_NUMBER_FIELD = ascii("{\"tracking_number\":");
+    private static final byte[] CREATED_AT_FIELD = ascii(",\"created_at\":\"");
+    private static final byte[] NULL = ascii("null");
+    
+    private volatile CachedSecond cachedSecond;
+    
+    byte[] write(TrackingNumberResponse response) {
+        Buffer buffer = new Buffer(96);
+        writeResponse(buffer, response);
+        return buffer.toByteArray();
+    }
+    
+    byte[] write(List<TrackingNumberResponse> responses) {
+        Buffer buffer = new Buffer(2 + responses.size() * 90);
+        buffer.put((byte) '[');
+        for (int i = 0; i < responses.size(); i++) {
+            if (i > 0) {
+                buffer.put((byte) ',');
+            }
+            writeResponse(buffer, responses.get(i));
+        }
+        buffer.put((byte) ']');
+        return buffer.toByteArray();
+    }
+    
+    private void writeResponse(Buffer buffer, TrackingNumberResponse response) {
+        if (response == null) {
+            buffer.put(NULL);
+            return;
+        }
+        buffer.put(TRACKING_NUMBER_FIELD);
+        writeString(buffer, response.trackingNumber());
+        
+        OffsetDateTime createdAt = response.createdAt();
+        if (createdAt == null) {
+            buffer.put(CREATED_AT_FIELD, CREATED_AT_FIELD.length - 1);
+            buffer.put(NULL);
+        } else {
+            buffer.put(CREATED_AT_FIELD);
+            writeTimestamp(buffer, createdAt);
+            buffer.put((byte) '"');
+        }
+        buffer.put((byte) '}');
+    }
+    
+    /**
+     * Same text as DateTimeFormatter.ISO_OFFSET_DATE_TIME, which Jackson uses for OffsetDateTime
+     */
+    private void writeTimestamp(Buffer buffer, OffsetDateTime value) {
+        int offsetSeconds = value.getOffset().getTotalSeconds();
+        long localSecond = value.toEpochSecond() + offsetSeconds;
+        
+        CachedSecond cached = cachedSecond;
+        if (cached == null || cached.localSecond != localSecond || cached.offsetSeconds != offsetSeconds) {
+            cached = new CachedSecond(
+                localSecond,
+                offsetSeconds,
+                ascii(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(
+                    LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC))),
+                ascii(value.getOffset().getId())
+            );
+            cachedSecond = cached;
+        }
+        
+        buffer.put(cached.dateTime);
+        int nano = value.getNano();
+        if (nano > 0) {
+            // Shortest fraction without trailing zeros, as appendFraction(NANO_OF_SECOND, 0, 9, true)
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            buffer.put((byte) '.');
+            buffer.putDigits(nano, digits);
+        }
+        buffer.put(cached.offset);
+    }
+    
+    private static void writeString(Buffer buffer, String value) {
+        if (value == null) {
+            buffer.put(NULL);
+            return;
+        }
+        buffer.put((byte) '"');
+        if (isPlainAscii(value)) {
+            buffer.putAscii(value);
+        } else {
+            // Tracking numbers are [A-Z0-9]; anything else gets Jackson's own escaping
+            buffer.put(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+        }
+        buffer.put((byte) '"');
+    }
+    
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7E || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    private record CachedSecond(long localSecond, int offsetSeconds, byte[] dateTime, byte[] offset) {}
+    
+    private static final class Buffer {
+        private byte[] bytes;
+        private int size;
+        
+        Buffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+        
+        void put(byte value) {
+            ensureCapacity(1);
+            bytes[size++] = value;
+        }
+        
+        void put(byte[] values) {
+            put(values, values.length);
+        }
+        
+        void put(byte[] values, int length) {
+            ensureCapacity(length);
+            System.arraycopy(values, 0, bytes, size, length);
+            size += length;
+        }
+        
+        void putAscii(String value) {
+            ensureCapacity(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                bytes[size++] = (byte) value.charAt(i);
+            }
+        }
+        
+        void putDigits(int value, int digits) {
+            ensureCapacity(digits);
+            for (int i = size + digits - 1; i >= size; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            size += digits;
+        }
+        
+        byte[] toByteArray() {
+            return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+        }
+        
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package uk.diasna.tng.converter;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Write-only converter for TrackingNumberResponse and lists of them, as JSON or the
+ * opt-in fixed-width binary format
+ * Bodies are encoded up front so Content-Length is always set; that lets the servlet
+ * container apply server.compression.min-response-size instead of gzipping every
+ * chunked response regardless of size
+ */
+public class TrackingNumberResponseConverter extends AbstractGenericHttpMessageConverter<Object> {
+    
+    public static final MediaType BINARY = MediaType.parseMediaType(TrackingNumberBinaryFormat.MEDIA_TYPE);
+    
+    private final TrackingNumberJsonWriter jsonWriter = new TrackingNumberJsonWriter();
+    
+    public TrackingNumberResponseConverter() {
+        super(MediaType.APPLICATION_JSON, BINARY);
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TrackingNumberResponse.class.isAssignableFrom(clazz);
+    }
+    
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        Type target = type != null ? type : clazz;
+        return (isResponseType(target) || isResponseList(target)) && canWrite(mediaType);
+    }
+    
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        boolean binary = contentType != null && BINARY.isCompatibleWith(contentType);
+        
+        byte[] bytes;
+        if (body instanceof TrackingNumberResponse response) {
+            bytes = binary ? TrackingNumberBinaryFormat.encode(response) : jsonWriter.write(response);
+        } else {
+            List<TrackingNumberResponse> responses = body instanceof List<?> list
+                ? (List<TrackingNumberResponse>) list
+                : new ArrayList<>((Collection<TrackingNumberResponse>) body);
+            bytes = binary ? TrackingNumberBinaryFormat.encode(responses) : jsonWriter.write(responses);
+        }
+        
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+    
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Tracking number responses are write-only", inputMessage);
+    }
+    
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Tracking number responses are write-only", inputMessage);
+    }
+    
+    private static boolean isResponseType(Type type) {
+        return type instanceof Class<?> clazz && TrackingNumberResponse.class.isAssignableFrom(clazz);
+    }
+    
+    private static boolean isResponseList(Type type) {
+        return type instanceof ParameterizedType parameterized
+            && parameterized.getRawType() instanceof Class<?> raw
+            && Collection.class.isAssignableFrom(raw)
+            && isResponseType(parameterized.getActualTypeArguments()[0]);
+    }
+}
@@ -0,0 +1,10 @@
+package uk.diasna.tng.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record TrackingNumberLookupRequest(
+    @JsonProperty("tracking_numbers")
+    List<String> trackingNumbers
+) {}
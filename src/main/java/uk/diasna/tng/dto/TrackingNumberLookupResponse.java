@@ -0,0 +1,13 @@
+package uk.diasna.tng.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One result per requested tracking number, in request order
+ */
+public record TrackingNumberLookupResponse(
+    @JsonProperty("results")
+    List<TrackingNumberLookupResult> results
+) {}
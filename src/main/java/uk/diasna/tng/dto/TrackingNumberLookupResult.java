@@ -0,0 +1,22 @@
+package uk.diasna.tng.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome for one requested tracking number; details are only present when it was found
+ */
+public record TrackingNumberLookupResult(
+    @JsonProperty("tracking_number")
+    String trackingNumber,
+    
+    @JsonProperty("status")
+    Status status,
+    
+    @JsonProperty("details")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    TrackingNumberSummary details
+) {
+    
+    public enum Status { FOUND, NOT_FOUND, INVALID }
+}
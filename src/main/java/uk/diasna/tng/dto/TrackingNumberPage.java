@@ -0,0 +1,16 @@
+package uk.diasna.tng.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * A page of a customer's tracking numbers, newest first; nextCursor is null on the last page
+ */
+public record TrackingNumberPage(
+    @JsonProperty("items")
+    List<TrackingNumberSummary> items,
+    
+    @JsonProperty("next_cursor")
+    String nextCursor
+) {}
@@ -0,0 +1,31 @@
+package uk.diasna.tng.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * One row of a customer listing, projected straight from the query without loading the entity
+ * The id only feeds the page cursor
+ */
+public record TrackingNumberSummary(
+    @JsonIgnore
+    Long id,
+    
+    @JsonProperty("tracking_number")
+    String trackingNumber,
+    
+    @JsonProperty("origin_country_id")
+    String originCountryId,
+    
+    @JsonProperty("destination_country_id")
+    String destinationCountryId,
+    
+    @JsonProperty("weight")
+    BigDecimal weight,
+    
+    @JsonProperty("created_at")
+    OffsetDateTime createdAt
+) {}
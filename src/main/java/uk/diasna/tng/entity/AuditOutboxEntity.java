@@ -0,0 +1,127 @@
+package uk.diasna.tng.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "audit_outbox")
+public class AuditOutboxEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "tracking_number", nullable = false, length = 16)
+    private String trackingNumber;
+    
+    @Column(name = "origin_country_id", nullable = false, length = 2)
+    private String originCountryId;
+    
+    @Column(name = "destination_country_id", nullable = false, length = 2)
+    private String destinationCountryId;
+    
+    @Column(name = "weight", nullable = false, precision = 10, scale = 3)
+    private BigDecimal weight;
+    
+    @Column(name = "customer_id", nullable = false)
+    private UUID customerId;
+    
+    @Column(name = "customer_name", nullable = false)
+    private String customerName;
+    
+    @Column(name = "customer_slug", nullable = false)
+    private String customerSlug;
+    
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+    
+    public AuditOutboxEntity() {}
+    
+    public AuditOutboxEntity(String trackingNumber, String originCountryId, String destinationCountryId,
+                             BigDecimal weight, UUID customerId, String customerName, String customerSlug,
+                             OffsetDateTime createdAt) {
+        this.trackingNumber = trackingNumber;
+        this.originCountryId = originCountryId;
+        this.destinationCountryId = destinationCountryId;
+        this.weight = weight;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.customerSlug = customerSlug;
+        this.createdAt = createdAt;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+    
+    public void setTrackingNumber(String trackingNumber) {
+        this.trackingNumber = trackingNumber;
+    }
+    
+    public String getOriginCountryId() {
+        return originCountryId;
+    }
+    
+    public void setOriginCountryId(String originCountryId) {
+        this.originCountryId = originCountryId;
+    }
+    
+    public String getDestinationCountryId() {
+        return destinationCountryId;
+    }
+    
+    public void setDestinationCountryId(String destinationCountryId) {
+        this.destinationCountryId = destinationCountryId;
+    }
+    
+    public BigDecimal getWeight() {
+        return weight;
+    }
+    
+    public void setWeight(BigDecimal weight) {
+        this.weight = weight;
+    }
+    
+    public UUID getCustomerId() {
+        return customerId;
+    }
+    
+    public void setCustomerId(UUID customerId) {
+        this.customerId = customerId;
+    }
+    
+    public String getCustomerName() {
+        return customerName;
+    }
+    
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+    
+    public String getCustomerSlug() {
+        return customerSlug;
+    }
+    
+    public void setCustomerSlug(String customerSlug) {
+        this.customerSlug = customerSlug;
+    }
+    
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
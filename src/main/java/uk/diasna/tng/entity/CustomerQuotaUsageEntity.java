@@ -0,0 +1,77 @@
+package uk.diasna.tng.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@Entity
+@Table(name = "customer_quota_usage", indexes = {
+    @Index(name = "idx_quota_usage_window", columnList = "windowStart")
+})
+@IdClass(CustomerQuotaUsageEntity.Key.class)
+public class CustomerQuotaUsageEntity {
+    
+    @Id
+    @Column(name = "customer_id", nullable = false)
+    private UUID customerId;
+    
+    @Id
+    @Column(name = "window_start", nullable = false)
+    private OffsetDateTime windowStart;
+    
+    @Column(name = "consumed", nullable = false)
+    private long consumed;
+    
+    public CustomerQuotaUsageEntity() {}
+    
+    public UUID getCustomerId() {
+        return customerId;
+    }
+    
+    public void setCustomerId(UUID customerId) {
+        this.customerId = customerId;
+    }
+    
+    public OffsetDateTime getWindowStart() {
+        return windowStart;
+    }
+    
+    public void setWindowStart(OffsetDateTime windowStart) {
+        this.windowStart = windowStart;
+    }
+    
+    public long getConsumed() {
+        return consumed;
+    }
+    
+    public void setConsumed(long consumed) {
+        this.consumed = consumed;
+    }
+    
+    public static class Key implements Serializable {
+        private UUID customerId;
+        private OffsetDateTime windowStart;
+        
+        public Key() {}
+        
+        public Key(UUID customerId, OffsetDateTime windowStart) {
+            this.customerId = customerId;
+            this.windowStart = windowStart;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key
+                && Objects.equals(customerId, key.customerId)
+                && Objects.equals(windowStart, key.windowStart);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(customerId, windowStart);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package uk.diasna.tng.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_idempotency_customer_key", columnNames = {"customer_id", "idempotency_key"})
+}, indexes = {
+    @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt")
+})
+public class IdempotencyKeyEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "customer_id", nullable = false)
+    private UUID customerId;
+    
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+    
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Column(name = "tracking_number", nullable = false, length = 16)
+    private String trackingNumber;
+    
+    @Column(name = "issued_at", nullable = false)
+    private OffsetDateTime issuedAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+    
+    public IdempotencyKeyEntity() {}
+    
+    public IdempotencyKeyEntity(UUID customerId, String idempotencyKey, String requestHash, String trackingNumber,
+                                OffsetDateTime issuedAt, OffsetDateTime expiresAt) {
+        this.customerId = customerId;
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.trackingNumber = trackingNumber;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public UUID getCustomerId() {
+        return customerId;
+    }
+    
+    public void setCustomerId(UUID customerId) {
+        this.customerId = customerId;
+    }
+    
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    public String getRequestHash() {
+        return requestHash;
+    }
+    
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+    
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+    
+    public void setTrackingNumber(String trackingNumber) {
+        this.trackingNumber = trackingNumber;
+    }
+    
+    public OffsetDateTime getIssuedAt() {
+        return issuedAt;
+    }
+    
+    public void setIssuedAt(OffsetDateTime issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+    
+    public OffsetDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(OffsetDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
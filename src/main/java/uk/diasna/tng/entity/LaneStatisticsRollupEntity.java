@@ -0,0 +1,93 @@
+package uk.diasna.tng.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "lane_statistics_rollup", indexes = {
+    @Index(name = "idx_lane_rollup_window", columnList = "windowStart"),
+    @Index(name = "idx_lane_rollup_lane", columnList = "originCountryId, destinationCountryId, windowStart")
+})
+public class LaneStatisticsRollupEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "window_start", nullable = false)
+    private OffsetDateTime windowStart;
+    
+    @Column(name = "origin_country_id", nullable = false, length = 2)
+    private String originCountryId;
+    
+    @Column(name = "destination_country_id", nullable = false, length = 2)
+    private String destinationCountryId;
+    
+    @Column(name = "tracking_number_count", nullable = false)
+    private long trackingNumberCount;
+    
+    @Column(name = "weight_sum", nullable = false, precision = 19, scale = 3)
+    private BigDecimal weightSum;
+    
+    public LaneStatisticsRollupEntity() {}
+    
+    public LaneStatisticsRollupEntity(OffsetDateTime windowStart, String originCountryId,
+                                      String destinationCountryId, long trackingNumberCount,
+                                      BigDecimal weightSum) {
+        this.windowStart = windowStart;
+        this.originCountryId = originCountryId;
+        this.destinationCountryId = destinationCountryId;
+        this.trackingNumberCount = trackingNumberCount;
+        this.weightSum = weightSum;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public OffsetDateTime getWindowStart() {
+        return windowStart;
+    }
+    
+    public void setWindowStart(OffsetDateTime windowStart) {
+        this.windowStart = windowStart;
+    }
+    
+    public String getOriginCountryId() {
+        return originCountryId;
+    }
+    
+    public void setOriginCountryId(String originCountryId) {
+        this.originCountryId = originCountryId;
+    }
+    
+    public String getDestinationCountryId() {
+        return destinationCountryId;
+    }
+    
+    public void setDestinationCountryId(String destinationCountryId) {
+        this.destinationCountryId = destinationCountryId;
+    }
+    
+    public long getTrackingNumberCount() {
+        return trackingNumberCount;
+    }
+    
+    public void setTrackingNumberCount(long trackingNumberCount) {
+        this.trackingNumberCount = trackingNumberCount;
+    }
+    
+    public BigDecimal getWeightSum() {
+        return weightSum;
+    }
+    
+    public void setWeightSum(BigDecimal weightSum) {
+        this.weightSum = weightSum;
+    }
+}
@@ -11,8 +11,9 @@ import java.util.UUID;
 @Entity
 @Table(name = "tracking_numbers", indexes = {
     @Index(name = "idx_tracking_number", columnList = "trackingNumber", unique = true),
-    @Index(name = "idx_customer_id", columnList = "customerId"),
-    @Index(name = "idx_created_at", columnList = "createdAt")
+    @Index(name = "idx_customer_created_id", columnList = "customerId, createdAt, id"),
+    @Index(name = "idx_created_at", columnList = "createdAt"),
+    @Index(name = "idx_worker_id_id", columnList = "workerId, id")
 })
 @EntityListeners(AuditingEntityListener.class)
 public class TrackingNumberEntity {
@@ -42,6 +43,9 @@ public class TrackingNumberEntity {
     @Column(name = "customer_slug", nullable = false)
     private String customerSlug;
     
+    @Column(name = "worker_id")
+    private Integer workerId;
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
@@ -131,4 +135,12 @@ public class TrackingNumberEntity {
     public void setCreatedAt(OffsetDateTime createdAt) {
         this.createdAt = createdAt;
     }
+    
+    public Integer getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(Integer workerId) {
+        this.workerId = workerId;
+    }
 }
@@ -0,0 +1,91 @@
+package uk.diasna.tng.entity;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "worker_leases", indexes = {
+    @Index(name = "idx_worker_leases_expires_at", columnList = "expiresAt")
+})
+public class WorkerLeaseEntity {
+    
+    @Id
+    @Column(name = "worker_id", nullable = false)
+    private Integer workerId;
+    
+    @Column(name = "owner")
+    private String owner;
+    
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+    
+    @Column(name = "acquired_at", nullable = false)
+    private OffsetDateTime acquiredAt;
+    
+    @Column(name = "renewed_at", nullable = false)
+    private OffsetDateTime renewedAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+    
+    public WorkerLeaseEntity() {}
+    
+    public WorkerLeaseEntity(Integer workerId, String owner, long fencingToken,
+                             OffsetDateTime acquiredAt, OffsetDateTime renewedAt, OffsetDateTime expiresAt) {
+        this.workerId = workerId;
+        this.owner = owner;
+        this.fencingToken = fencingToken;
+        this.acquiredAt = acquiredAt;
+        this.renewedAt = renewedAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    public Integer getWorkerId() {
+        return workerId;
+    }
+    
+    public void setWorkerId(Integer workerId) {
+        this.workerId = workerId;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public long getFencingToken() {
+        return fencingToken;
+    }
+    
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+    
+    public OffsetDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+    
+    public void setAcquiredAt(OffsetDateTime acquiredAt) {
+        this.acquiredAt = acquiredAt;
+    }
+    
+    public OffsetDateTime getRenewedAt() {
+        return renewedAt;
+    }
+    
+    public void setRenewedAt(OffsetDateTime renewedAt) {
+        this.renewedAt = renewedAt;
+    }
+    
+    public OffsetDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(OffsetDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -2,11 +2,13 @@ package uk.diasna.tng.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import uk.diasna.tng.logging.RequestSummary;
 
 import java.time.OffsetDateTime;
 import java.util.Map;
@@ -21,6 +23,7 @@ public class GlobalExceptionHandler {
             TrackingNumberGenerationException ex) {
         
         logger.error("Tracking number generation failed", ex);
+        RequestSummary.failed("TRACKING_NUMBER_GENERATION_FAILED");
         
         Map<String, Object> error = Map.of(
             "error", "TRACKING_NUMBER_GENERATION_FAILED",
@@ -31,11 +34,78 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
     
+    @ExceptionHandler(LoadSheddingException.class)
+    public ResponseEntity<Map<String, Object>> handleLoadSheddingException(LoadSheddingException ex) {
+        
+        // Counted by the limiter metrics; logging each one would add load while overloaded
+        RequestSummary.failed("SERVICE_OVERLOADED");
+        
+        Map<String, Object> error = Map.of(
+            "error", "SERVICE_OVERLOADED",
+            "message", ex.getMessage(),
+            "timestamp", OffsetDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+            .body(error);
+    }
+    
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleQuotaExceededException(QuotaExceededException ex) {
+        
+        RequestSummary.failed("QUOTA_EXCEEDED");
+        
+        Map<String, Object> error = Map.of(
+            "error", "QUOTA_EXCEEDED",
+            "message", ex.getMessage(),
+            "timestamp", OffsetDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+            .body(error);
+    }
+    
+    @ExceptionHandler(InvalidTrackingNumberRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidTrackingNumberRequestException(
+            InvalidTrackingNumberRequestException ex) {
+        
+        // Expected client error: the request summary records it, no trace needed
+        logger.debug("Rejected tracking number request: {}", ex.getMessage());
+        RequestSummary.failed("INVALID_REQUEST_PARAMETER");
+        
+        Map<String, Object> error = Map.of(
+            "error", "INVALID_REQUEST_PARAMETER",
+            "message", ex.getMessage(),
+            "timestamp", OffsetDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReusedException(
+            IdempotencyKeyReusedException ex) {
+        
+        logger.debug("Rejected reused Idempotency-Key: {}", ex.getMessage());
+        RequestSummary.failed("IDEMPOTENCY_KEY_REUSED");
+        
+        Map<String, Object> error = Map.of(
+            "error", "IDEMPOTENCY_KEY_REUSED",
+            "message", ex.getMessage(),
+            "timestamp", OffsetDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(
             IllegalArgumentException ex) {
         
         logger.warn("Invalid request parameter: {}", ex.getMessage());
+        RequestSummary.failed("INVALID_REQUEST_PARAMETER");
         
         Map<String, Object> error = Map.of(
             "error", "INVALID_REQUEST_PARAMETER",
@@ -52,6 +122,7 @@ public class GlobalExceptionHandler {
         
         logger.warn("Invalid parameter type: {} for parameter: {}", 
                    ex.getValue(), ex.getName());
+        RequestSummary.failed("INVALID_PARAMETER_TYPE");
         
         Map<String, Object> error = Map.of(
             "error", "INVALID_PARAMETER_TYPE",
@@ -67,6 +138,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
         
         logger.error("Unexpected error occurred", ex);
+        RequestSummary.failed("INTERNAL_SERVER_ERROR");
         
         Map<String, Object> error = Map.of(
             "error", "INTERNAL_SERVER_ERROR",
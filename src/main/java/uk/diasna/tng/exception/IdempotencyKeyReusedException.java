@@ -0,0 +1,17 @@
+package uk.diasna.tng.exception;
+
+/**
+ * An Idempotency-Key sent again with parameters other than those it was first used with
+ * Thrown on an expected, client-driven path, so no stack trace is captured
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+    
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+    
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
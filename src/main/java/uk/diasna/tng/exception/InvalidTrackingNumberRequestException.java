@@ -0,0 +1,17 @@
+package uk.diasna.tng.exception;
+
+/**
+ * Rejection of a malformed generation request
+ * Thrown on an expected, client-driven path, so no stack trace is captured
+ */
+public class InvalidTrackingNumberRequestException extends IllegalArgumentException {
+    
+    public InvalidTrackingNumberRequestException(String message) {
+        super(message);
+    }
+    
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,26 @@
+package uk.diasna.tng.exception;
+
+import java.time.Duration;
+
+/**
+ * A request turned away because the service is at capacity
+ * Shedding is expected under overload, so no stack trace is captured
+ */
+public class LoadSheddingException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public LoadSheddingException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+    
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,26 @@
+package uk.diasna.tng.exception;
+
+import java.time.Duration;
+
+/**
+ * A customer issuing faster than its quota allows
+ * Rejections are expected and frequent for a flooding client, so no stack trace is captured
+ */
+public class QuotaExceededException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public QuotaExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+    
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
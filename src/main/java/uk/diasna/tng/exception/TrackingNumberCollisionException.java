@@ -0,0 +1,12 @@
+package uk.diasna.tng.exception;
+
+/**
+ * The tracking_numbers unique constraint rejected an insert that passed the existence check
+ * Another instance issued the same number in between; the transaction is rolled back and safe to retry
+ */
+public class TrackingNumberCollisionException extends TrackingNumberGenerationException {
+    
+    public TrackingNumberCollisionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,44 @@
+package uk.diasna.tng.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.repository.IdempotencyKeyRepository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Deletes expired idempotency keys in small batches, each in its own transaction,
+ * so cleanup never holds long locks on idempotency_keys
+ */
+@Component
+public class IdempotencyKeyCleanupJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyKeyCleanupJob.class);
+    
+    private final IdempotencyKeyRepository repository;
+    private final int batchSize;
+    
+    public IdempotencyKeyCleanupJob(IdempotencyKeyRepository repository,
+                                    @Value("${tng.idempotency.cleanup-batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(fixedDelayString = "${tng.idempotency.cleanup-interval-ms:60000}")
+    public void deleteExpiredKeys() {
+        OffsetDateTime now = OffsetDateTime.now();
+        long deleted = 0;
+        int batch;
+        do {
+            batch = repository.deleteExpiredBatch(now, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        
+        if (deleted > 0) {
+            logger.debug("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+}
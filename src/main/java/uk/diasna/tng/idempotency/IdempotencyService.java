@@ -0,0 +1,207 @@
+package uk.diasna.tng.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.entity.IdempotencyKeyEntity;
+import uk.diasna.tng.exception.IdempotencyKeyReusedException;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.repository.IdempotencyKeyRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the response first issued for a customer's Idempotency-Key
+ * In-flight and recent keys are held as futures in a bounded cache, so concurrent duplicates
+ * wait on one generation; older keys are found in idempotency_keys, whose unique constraint
+ * also settles races between instances
+ * Each key also remembers a hash of the request it was first used with; reusing it for
+ * different parameters is rejected rather than answered with the first tracking number
+ */
+@Component
+public class IdempotencyService {
+    
+    static final int MAX_KEY_LENGTH = 255;
+    
+    private final IdempotencyKeyRepository repository;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Cache<CacheKey, Entry> inFlight;
+    private final Counter cacheReplays;
+    private final Counter databaseReplays;
+    
+    @Autowired
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              MeterRegistry meterRegistry,
+                              @Value("${tng.idempotency.cache-size:100000}") int cacheSize,
+                              @Value("${tng.idempotency.ttl:24h}") Duration ttl) {
+        this(repository, meterRegistry, cacheSize, ttl, Clock.systemUTC());
+    }
+    
+    IdempotencyService(IdempotencyKeyRepository repository, MeterRegistry meterRegistry,
+                       int cacheSize, Duration ttl, Clock clock) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.inFlight = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(ttl)
+            .build();
+        
+        this.cacheReplays = Counter.builder("tracking_number.idempotency.replays")
+            .description("Requests answered with a previously issued tracking number")
+            .tag("source", "cache")
+            .register(meterRegistry);
+        this.databaseReplays = Counter.builder("tracking_number.idempotency.replays")
+            .description("Requests answered with a previously issued tracking number")
+            .tag("source", "database")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Return the response already issued for the key, or run the generation exactly once for it
+     * The generation must record the key via {@link #record} in its own transaction
+     */
+    public TrackingNumberResponse execute(TrackingNumberRequest request, String idempotencyKey,
+                                          Supplier<TrackingNumberResponse> generation) {
+        validate(idempotencyKey);
+        CacheKey key = new CacheKey(request.customerId(), idempotencyKey);
+        String requestHash = requestHash(request);
+        
+        Entry owned = new Entry(requestHash, new CompletableFuture<>());
+        Entry existing = inFlight.asMap().putIfAbsent(key, owned);
+        if (existing != null) {
+            checkSameRequest(existing.requestHash(), requestHash);
+            cacheReplays.increment();
+            return await(existing.response());
+        }
+        
+        try {
+            TrackingNumberResponse response = findStored(request.customerId(), idempotencyKey, requestHash)
+                .map(stored -> {
+                    databaseReplays.increment();
+                    return stored;
+                })
+                .orElseGet(() -> generateOnce(request.customerId(), idempotencyKey, requestHash, generation));
+            owned.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // Let a later retry of the same key try again instead of replaying the failure
+            inFlight.asMap().remove(key, owned);
+            owned.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Remember the response for the key; call inside the transaction that issued it
+     */
+    public void record(TrackingNumberRequest request, String idempotencyKey, TrackingNumberResponse response) {
+        repository.saveAndFlush(new IdempotencyKeyEntity(
+            request.customerId(),
+            idempotencyKey,
+            requestHash(request),
+            response.trackingNumber(),
+            response.createdAt(),
+            OffsetDateTime.now(clock).plus(ttl)
+        ));
+    }
+    
+    /**
+     * SHA-256 of the normalised generation parameters, hex encoded
+     * Weight is compared by value, so 1.5 and 1.50 are the same request
+     */
+    static String requestHash(TrackingNumberRequest request) {
+        String canonical = String.join("\u001F",
+            request.originCountryId(),
+            request.destinationCountryId(),
+            request.weight().stripTrailingZeros().toPlainString(),
+            request.customerId().toString(),
+            request.customerName(),
+            request.customerSlug());
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private TrackingNumberResponse generateOnce(UUID customerId, String idempotencyKey, String requestHash,
+                                                Supplier<TrackingNumberResponse> generation) {
+        try {
+            return generation.get();
+        } catch (DataIntegrityViolationException e) {
+            // Tracking number collisions are flushed and reported as TrackingNumberCollisionException before
+            // the key is recorded, so this is the key's constraint: another instance recorded it first
+            return findStored(customerId, idempotencyKey, requestHash)
+                .map(stored -> {
+                    databaseReplays.increment();
+                    return stored;
+                })
+                .orElseThrow(() -> e);
+        }
+    }
+    
+    private Optional<TrackingNumberResponse> findStored(UUID customerId, String idempotencyKey, String requestHash) {
+        Optional<IdempotencyKeyEntity> stored = repository.findByCustomerIdAndIdempotencyKey(customerId, idempotencyKey);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        IdempotencyKeyEntity entity = stored.get();
+        if (entity.getExpiresAt().isBefore(OffsetDateTime.now(clock))) {
+            // Expired but not yet cleaned up: free the key for a new generation
+            repository.delete(entity);
+            return Optional.empty();
+        }
+        checkSameRequest(entity.getRequestHash(), requestHash);
+        return Optional.of(new TrackingNumberResponse(entity.getTrackingNumber(), entity.getIssuedAt()));
+    }
+    
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(
+                "Idempotency-Key was already used with different request parameters");
+        }
+    }
+    
+    private static TrackingNumberResponse await(CompletableFuture<TrackingNumberResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private static void validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidTrackingNumberRequestException(
+                "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+    
+    private record CacheKey(UUID customerId, String idempotencyKey) {}
+    
+    private record Entry(String requestHash, CompletableFuture<TrackingNumberResponse> response) {}
+}
@@ -0,0 +1,30 @@
+package uk.diasna.tng.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback async appender that counts the events it discards
+ * The check mirrors AsyncAppenderBase: below the discarding threshold INFO and lower
+ * are dropped, and with neverBlock a full queue drops everything; counts are approximate
+ */
+public class DropCountingAsyncAppender extends AsyncAppender {
+    
+    private static final LongAdder DROPPED_EVENTS = new LongAdder();
+    
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event))
+                || (isNeverBlock() && remaining == 0)) {
+            DROPPED_EVENTS.increment();
+        }
+        super.append(event);
+    }
+    
+    public static long droppedEvents() {
+        return DROPPED_EVENTS.sum();
+    }
+}
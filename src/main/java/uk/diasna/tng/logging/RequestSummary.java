@@ -0,0 +1,109 @@
+package uk.diasna.tng.logging;
+
+import uk.diasna.tng.metrics.GenerationStage;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Request-scoped facts collected along the hot path and emitted once per request
+ * by {@link RequestSummaryFilter}; all static helpers are no-ops outside a request
+ */
+public final class RequestSummary {
+    
+    private static final ThreadLocal<RequestSummary> CURRENT = new ThreadLocal<>();
+    private static final GenerationStage[] STAGES = GenerationStage.values();
+    
+    private final long startNanos;
+    private final long[] stageNanos = new long[STAGES.length];
+    private UUID customerId;
+    private String lane;
+    private String trackingNumber;
+    private String errorCode;
+    private int collisions;
+    
+    private RequestSummary(long startNanos) {
+        this.startNanos = startNanos;
+        Arrays.fill(stageNanos, -1L);
+    }
+    
+    static RequestSummary begin() {
+        RequestSummary summary = new RequestSummary(System.nanoTime());
+        CURRENT.set(summary);
+        return summary;
+    }
+    
+    static void end() {
+        CURRENT.remove();
+    }
+    
+    public static void recordStage(GenerationStage stage, long nanos) {
+        RequestSummary summary = CURRENT.get();
+        if (summary != null) {
+            // Stages can repeat on collision retries; keep the total
+            int index = stage.ordinal();
+            summary.stageNanos[index] = Math.max(summary.stageNanos[index], 0L) + nanos;
+        }
+    }
+    
+    public static void describe(UUID customerId, String originCountryId, String destinationCountryId) {
+        RequestSummary summary = CURRENT.get();
+        if (summary != null) {
+            summary.customerId = customerId;
+            summary.lane = originCountryId + "-" + destinationCountryId;
+        }
+    }
+    
+    public static void issued(String trackingNumber) {
+        RequestSummary summary = CURRENT.get();
+        if (summary != null) {
+            summary.trackingNumber = trackingNumber;
+        }
+    }
+    
+    public static void collision() {
+        RequestSummary summary = CURRENT.get();
+        if (summary != null) {
+            summary.collisions++;
+        }
+    }
+    
+    public static void failed(String errorCode) {
+        RequestSummary summary = CURRENT.get();
+        if (summary != null) {
+            summary.errorCode = errorCode;
+        }
+    }
+    
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+    
+    long stageNanos(GenerationStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+    
+    UUID customerId() {
+        return customerId;
+    }
+    
+    String lane() {
+        return lane;
+    }
+    
+    String trackingNumber() {
+        return trackingNumber;
+    }
+    
+    String errorCode() {
+        return errorCode;
+    }
+    
+    int collisions() {
+        return collisions;
+    }
+    
+    static GenerationStage[] stages() {
+        return STAGES;
+    }
+}
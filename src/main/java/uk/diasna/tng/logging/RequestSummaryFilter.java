@@ -0,0 +1,136 @@
+package uk.diasna.tng.logging;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.diasna.tng.metrics.GenerationStage;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Emits one structured summary event per API request instead of per-step log lines
+ * Successful requests are sampled at the configured rate; errors (status 400 and above) are always logged
+ * Async requests such as the SSE stream are summarised when their async processing completes
+ */
+public class RequestSummaryFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger("uk.diasna.tng.request");
+    
+    private final double sampleRate;
+    
+    public RequestSummaryFilter(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestSummary summary = RequestSummary.begin();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            RequestSummary.end();
+            if (failure == null && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new DeferredSummary(request, response, summary));
+            } else {
+                emit(request, response, summary, failure);
+            }
+        }
+    }
+    
+    private void emit(HttpServletRequest request, HttpServletResponse response,
+                      RequestSummary summary, Throwable failure) {
+        int status = failure != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        if (status < 400 && !sampled()) {
+            return;
+        }
+        
+        // Load shedding (503) is expected under overload, so it is a warning rather than an error
+        Level level = status >= 500 && status != HttpServletResponse.SC_SERVICE_UNAVAILABLE ? Level.ERROR
+            : status >= 400 ? Level.WARN
+            : Level.INFO;
+        if (!logger.isEnabledForLevel(level)) {
+            return;
+        }
+        
+        LoggingEventBuilder event = logger.atLevel(level)
+            .addKeyValue("method", request.getMethod())
+            .addKeyValue("path", request.getRequestURI())
+            .addKeyValue("status", status)
+            .addKeyValue("durationMs", summary.elapsedNanos() / 1_000_000.0);
+        if (summary.customerId() != null) {
+            event = event.addKeyValue("customerId", summary.customerId())
+                .addKeyValue("lane", summary.lane());
+        }
+        if (summary.trackingNumber() != null) {
+            event = event.addKeyValue("trackingNumber", summary.trackingNumber());
+        }
+        if (summary.collisions() > 0) {
+            event = event.addKeyValue("collisions", summary.collisions());
+        }
+        for (GenerationStage stage : RequestSummary.stages()) {
+            long nanos = summary.stageNanos(stage);
+            if (nanos >= 0) {
+                event = event.addKeyValue(stage.tagValue() + "Ms", nanos / 1_000_000.0);
+            }
+        }
+        if (summary.errorCode() != null) {
+            event = event.addKeyValue("error", summary.errorCode());
+        }
+        if (failure != null) {
+            event = event.setCause(failure);
+        }
+        event.log("request completed");
+    }
+    
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+    
+    /**
+     * Emits the summary once the async request ends instead of when its first dispatch returns
+     * Client disconnects also end it here, with the status already committed to the response
+     */
+    private final class DeferredSummary implements AsyncListener {
+        
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final RequestSummary summary;
+        
+        DeferredSummary(HttpServletRequest request, HttpServletResponse response, RequestSummary summary) {
+            this.request = request;
+            this.response = response;
+            this.summary = summary;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            emit(request, response, summary, null);
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
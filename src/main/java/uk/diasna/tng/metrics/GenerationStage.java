@@ -0,0 +1,22 @@
+package uk.diasna.tng.metrics;
+
+/**
+ * Stages of a tracking number generation request, in execution order
+ */
+public enum GenerationStage {
+    VALIDATION("validation"),
+    ID_GENERATION("id_generation"),
+    EXISTENCE_CHECK("existence_check"),
+    INSERT("insert"),
+    COMMIT("commit");
+    
+    private final String tagValue;
+    
+    GenerationStage(String tagValue) {
+        this.tagValue = tagValue;
+    }
+    
+    public String tagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,74 @@
+package uk.diasna.tng.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+
+/**
+ * Flight Recorder event for one stage of a generation request, tagged with the customer and lane
+ * Stack traces are off and the fields are only filled in once the event is known to be recorded,
+ * so with no recording running start and commit cost about as much as a field check
+ */
+@Name(GenerationStageEvent.NAME)
+@Label("Generation Stage")
+@Category({"Tracking Number Generator", "Generation"})
+@Description("Time spent in one stage of a tracking number generation request")
+@StackTrace(false)
+public final class GenerationStageEvent extends Event {
+    
+    public static final String NAME = "uk.diasna.tng.GenerationStage";
+    
+    @Label("Stage")
+    String stage;
+    
+    @Label("Customer ID")
+    String customerId;
+    
+    @Label("Lane")
+    @Description("Origin and destination country, e.g. MY-ID")
+    String lane;
+    
+    @Label("Attempt")
+    @Description("Attempt number of an id_generation or existence_check stage, above 1 after collisions; 0 for other stages")
+    int attempt;
+    
+    private final transient GenerationStage generationStage;
+    
+    private GenerationStageEvent(GenerationStage generationStage) {
+        this.generationStage = generationStage;
+    }
+    
+    /**
+     * Start timing a stage
+     */
+    public static GenerationStageEvent start(GenerationStage stage) {
+        GenerationStageEvent event = new GenerationStageEvent(stage);
+        event.begin();
+        return event;
+    }
+    
+    /**
+     * Whether a running recording takes these events
+     */
+    public static boolean recording() {
+        return new GenerationStageEvent(GenerationStage.COMMIT).isEnabled();
+    }
+    
+    /**
+     * Stop timing and record the event, if a recording takes it and it passed the threshold
+     */
+    public void commit(TrackingNumberRequest request, int attempt) {
+        end();
+        if (shouldCommit()) {
+            this.stage = generationStage.tagValue();
+            this.customerId = String.valueOf(request.customerId());
+            this.lane = request.originCountryId() + "-" + request.destinationCountryId();
+            this.attempt = attempt;
+            commit();
+        }
+    }
+}
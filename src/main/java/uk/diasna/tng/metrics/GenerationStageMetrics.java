@@ -0,0 +1,162 @@
+package uk.diasna.tng.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.logging.RequestSummary;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency timers with windowed percentiles and SLO buckets
+ * When disabled no timers are registered and start/record reduce to a field check
+ */
+@Component
+public class GenerationStageMetrics {
+    
+    public static final String CONNECTION_ACQUIRE_METER = "hikaricp.connections.acquire";
+    static final double[] PERCENTILES = {0.5, 0.95, 0.99, 0.999};
+    static final Duration[] SLO_BUCKETS = {
+        Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+        Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(1000)
+    };
+    static final Duration PERCENTILE_WINDOW = Duration.ofMinutes(1);
+    static final int PERCENTILE_WINDOW_BUFFERS = 3;
+    
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Timer[] timers = new Timer[GenerationStage.values().length];
+    
+    public GenerationStageMetrics(MeterRegistry meterRegistry,
+                                  @Value("${tng.metrics.stages.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        
+        if (enabled) {
+            for (GenerationStage stage : GenerationStage.values()) {
+                timers[stage.ordinal()] = Timer.builder("tracking_number.stage.time")
+                    .description("Time spent in each tracking number generation stage")
+                    .tag("stage", stage.tagValue())
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .serviceLevelObjectives(SLO_BUCKETS)
+                    .distributionStatisticExpiry(PERCENTILE_WINDOW)
+                    .distributionStatisticBufferLength(PERCENTILE_WINDOW_BUFFERS)
+                    .register(meterRegistry);
+            }
+        }
+    }
+    
+    /**
+     * The stage distribution settings, for meters created outside this class
+     */
+    public static DistributionStatisticConfig distributionConfig() {
+        return DistributionStatisticConfig.builder()
+            .percentiles(PERCENTILES)
+            .percentilesHistogram(true)
+            .serviceLevelObjectives(Arrays.stream(SLO_BUCKETS).mapToDouble(Duration::toNanos).toArray())
+            .expiry(PERCENTILE_WINDOW)
+            .bufferLength(PERCENTILE_WINDOW_BUFFERS)
+            .build();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Start timestamp for a stage, or 0 when stage instrumentation is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+    
+    public void record(GenerationStage stage, long startNanos) {
+        if (enabled) {
+            long elapsed = System.nanoTime() - startNanos;
+            timers[stage.ordinal()].record(elapsed, TimeUnit.NANOSECONDS);
+            RequestSummary.recordStage(stage, elapsed);
+        }
+    }
+    
+    /**
+     * Time the flush and commit of the current transaction, if one is active,
+     * as a timer sample and as a GenerationStageEvent when a recording takes those
+     */
+    public void timeCurrentCommit(TrackingNumberRequest request) {
+        boolean recording = GenerationStageEvent.recording();
+        if ((!enabled && !recording) || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long commitStart;
+            private GenerationStageEvent event;
+            
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitStart = System.nanoTime();
+                if (recording) {
+                    event = GenerationStageEvent.start(GenerationStage.COMMIT);
+                }
+            }
+            
+            @Override
+            public void afterCommit() {
+                record(GenerationStage.COMMIT, commitStart);
+                if (event != null) {
+                    event.commit(request, 0);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Windowed latency percentiles per stage plus the Hikari connection-acquire time
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        if (!enabled) {
+            return stages;
+        }
+        
+        for (GenerationStage stage : GenerationStage.values()) {
+            stages.put(stage.tagValue(), describe(timers[stage.ordinal()]));
+        }
+        
+        Timer connectionAcquire = meterRegistry.find(CONNECTION_ACQUIRE_METER).timer();
+        if (connectionAcquire != null) {
+            stages.put("connection_acquire", describe(connectionAcquire));
+        }
+        return stages;
+    }
+    
+    private Map<String, Object> describe(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("count", snapshot.count());
+        description.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        description.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            description.put(percentileKey(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return description;
+    }
+    
+    private static String percentileKey(double percentile) {
+        // 0.5 -> p50, 0.95 -> p95, 0.999 -> p999
+        String digits = String.valueOf(percentile).substring(2);
+        return "p" + (digits.length() == 1 ? digits + "0" : digits) + "Ms";
+    }
+}
@@ -0,0 +1,115 @@
+package uk.diasna.tng.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Windowed generated/collision/failure counts and the health status derived from them
+ * Unlike the lifetime Micrometer counters, a failure storm shows up within the window
+ */
+@Component
+public class RollingGenerationStats {
+    
+    private static final double CRITICAL_FAILURE_RATE = 5.0;
+    private static final double WARNING_FAILURE_RATE = 1.0;
+    private static final double WARNING_COLLISION_RATE = 10.0;
+    
+    private final RollingWindowCounter generated;
+    private final RollingWindowCounter collisions;
+    private final RollingWindowCounter failures;
+    private final List<Duration> windows;
+    private final Duration statusWindow;
+    private final long minimumEvents;
+    
+    @Autowired
+    public RollingGenerationStats(@Value("${tng.health.windows:1m,5m,15m}") List<Duration> windows,
+                                  @Value("${tng.health.status-window:1m}") Duration statusWindow,
+                                  @Value("${tng.health.minimum-events:10}") long minimumEvents) {
+        this(windows, statusWindow, minimumEvents, Clock.systemUTC());
+    }
+    
+    RollingGenerationStats(List<Duration> windows, Duration statusWindow, long minimumEvents, Clock clock) {
+        this.windows = List.copyOf(windows);
+        this.statusWindow = statusWindow;
+        this.minimumEvents = minimumEvents;
+        
+        Duration longest = Collections.max(this.windows);
+        if (statusWindow.compareTo(longest) > 0) {
+            longest = statusWindow;
+        }
+        this.generated = new RollingWindowCounter(longest, clock);
+        this.collisions = new RollingWindowCounter(longest, clock);
+        this.failures = new RollingWindowCounter(longest, clock);
+    }
+    
+    public void recordGenerated() {
+        generated.increment();
+    }
+    
+    public void recordCollision() {
+        collisions.increment();
+    }
+    
+    public void recordFailure() {
+        failures.increment();
+    }
+    
+    public List<Duration> windows() {
+        return windows;
+    }
+    
+    /**
+     * Rates and status over the window used for health checks
+     */
+    public WindowStats statusStats() {
+        return stats(statusWindow);
+    }
+    
+    public WindowStats stats(Duration window) {
+        long generatedCount = generated.sum(window);
+        long collisionCount = collisions.sum(window);
+        long failureCount = failures.sum(window);
+        
+        double collisionRate = rate(collisionCount, generatedCount + collisionCount);
+        double failureRate = rate(failureCount, generatedCount + failureCount);
+        
+        return new WindowStats(
+            window,
+            generatedCount,
+            collisionCount,
+            failureCount,
+            collisionRate,
+            failureRate,
+            determineStatus(generatedCount + collisionCount + failureCount, collisionRate, failureRate)
+        );
+    }
+    
+    private double rate(long events, long total) {
+        return total > 0 ? (double) events / total * 100 : 0.0;
+    }
+    
+    private String determineStatus(long totalEvents, double collisionRate, double failureRate) {
+        // Too few events in the window to judge; a single failed request should not fail the node
+        if (totalEvents < minimumEvents) return "HEALTHY";
+        
+        if (failureRate > CRITICAL_FAILURE_RATE) return "CRITICAL";
+        if (failureRate > WARNING_FAILURE_RATE || collisionRate > WARNING_COLLISION_RATE) return "WARNING";
+        return "HEALTHY";
+    }
+    
+    public record WindowStats(
+        Duration window,
+        long generated,
+        long collisions,
+        long failures,
+        double collisionRate,
+        double failureRate,
+        String status
+    ) {}
+}
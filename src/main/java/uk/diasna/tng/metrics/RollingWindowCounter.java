@@ -0,0 +1,59 @@
+package uk.diasna.tng.metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free event counter over a ring of per-second buckets
+ * Each slot packs the epoch second it belongs to (high 32 bits) with its count (low 32 bits),
+ * so a stale slot is reset and incremented by a single compare-and-set
+ */
+public class RollingWindowCounter {
+    
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+    
+    private final AtomicLongArray slots;
+    private final int capacitySeconds;
+    private final Clock clock;
+    
+    public RollingWindowCounter(Duration maxWindow, Clock clock) {
+        this.capacitySeconds = (int) Math.max(1, maxWindow.toSeconds());
+        this.slots = new AtomicLongArray(capacitySeconds);
+        this.clock = clock;
+    }
+    
+    public void increment() {
+        long second = currentSecond();
+        int index = (int) (second % capacitySeconds);
+        long stamp = second & COUNT_MASK;
+        
+        long current;
+        long updated;
+        do {
+            current = slots.get(index);
+            updated = (current >>> 32) == stamp ? current + 1 : (stamp << 32) | 1;
+        } while (!slots.compareAndSet(index, current, updated));
+    }
+    
+    /**
+     * Events counted in the trailing window, including the current partial second
+     */
+    public long sum(Duration window) {
+        long now = currentSecond();
+        long seconds = Math.min(capacitySeconds, Math.max(1, window.toSeconds()));
+        
+        long total = 0;
+        for (long second = now - seconds + 1; second <= now; second++) {
+            long slot = slots.get((int) (second % capacitySeconds));
+            if ((slot >>> 32) == (second & COUNT_MASK)) {
+                total += slot & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+    
+    private long currentSecond() {
+        return clock.millis() / 1000;
+    }
+}
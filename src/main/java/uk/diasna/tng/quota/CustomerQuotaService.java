@@ -0,0 +1,104 @@
+package uk.diasna.tng.quota;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.exception.QuotaExceededException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-customer rate limits checked before any database work
+ * Buckets live in a bounded map that forgets idle customers; a customer's tier is
+ * resolved from its slug when its bucket is created
+ */
+@Component
+public class CustomerQuotaService {
+    
+    private final QuotaProperties properties;
+    private final LongSupplier nanoTime;
+    private final Cache<UUID, TokenBucket> buckets;
+    private final Counter rejectedCounter;
+    
+    @Autowired
+    public CustomerQuotaService(QuotaProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+    
+    CustomerQuotaService(QuotaProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(properties.maxCustomers())
+            .expireAfterAccess(properties.idleExpiry())
+            .build();
+        
+        this.rejectedCounter = Counter.builder("tracking_number.quota.rejected")
+            .description("Generation requests rejected because the customer exceeded its quota")
+            .register(meterRegistry);
+        Gauge.builder("tracking_number.quota.customers", buckets, Cache::estimatedSize)
+            .description("Customers with an active quota bucket")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Take one token from the customer's bucket or throw QuotaExceededException
+     */
+    public void acquire(UUID customerId, String customerSlug) {
+        if (!properties.enabled()) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        TokenBucket bucket = buckets.get(customerId, id -> new TokenBucket(properties.tierFor(customerSlug), now));
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            rejectedCounter.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            throw new QuotaExceededException("Issuance quota exceeded for customer " + customerId,
+                                             Duration.ofSeconds(retryAfterSeconds));
+        }
+    }
+    
+    /**
+     * Take the tokens each customer consumed on this instance since the previous call
+     */
+    List<PendingUsage> drainPendingUsage() {
+        List<PendingUsage> pending = new ArrayList<>();
+        for (Map.Entry<UUID, TokenBucket> entry : buckets.asMap().entrySet()) {
+            long consumed = entry.getValue().drainConsumed();
+            if (consumed > 0) {
+                pending.add(new PendingUsage(entry.getKey(), entry.getValue(), consumed));
+            }
+        }
+        return pending;
+    }
+    
+    /**
+     * Charge a bucket with what other instances consumed, given the cluster-wide window total
+     * returned after adding this instance's own consumption
+     */
+    void applyClusterUsage(PendingUsage usage, long windowStart, long windowTotal) {
+        TokenBucket bucket = usage.bucket();
+        if (bucket.syncWindowStart != windowStart) {
+            bucket.syncWindowStart = windowStart;
+            bucket.syncedWindowTotal = 0;
+        }
+        long remote = windowTotal - bucket.syncedWindowTotal - usage.consumed();
+        bucket.syncedWindowTotal = windowTotal;
+        if (remote > 0) {
+            bucket.charge(remote, nanoTime.getAsLong());
+        }
+    }
+    
+    record PendingUsage(UUID customerId, TokenBucket bucket, long consumed) {}
+}
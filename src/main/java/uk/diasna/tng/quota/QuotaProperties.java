@@ -0,0 +1,53 @@
+package uk.diasna.tng.quota;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-customer issuance quotas: named tiers, the slug-to-tier assignments and the
+ * optional cross-instance usage sync
+ */
+@ConfigurationProperties("tng.quota")
+public record QuotaProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("standard") String defaultTier,
+    Map<String, Tier> tiers,
+    Map<String, String> slugTiers,
+    @DefaultValue("100000") int maxCustomers,
+    @DefaultValue("10m") Duration idleExpiry,
+    @DefaultValue Sync sync
+) {
+    static final Tier FALLBACK_TIER = new Tier(50, 100);
+    
+    public QuotaProperties {
+        tiers = tiers != null ? tiers : Map.of();
+        slugTiers = slugTiers != null ? slugTiers : Map.of();
+    }
+    
+    /**
+     * The tier assigned to a slug, falling back to the default tier
+     */
+    public Tier tierFor(String customerSlug) {
+        String name = customerSlug != null ? slugTiers.getOrDefault(customerSlug, defaultTier) : defaultTier;
+        Tier tier = tiers.get(name);
+        return tier != null ? tier : tiers.getOrDefault(defaultTier, FALLBACK_TIER);
+    }
+    
+    /**
+     * Sustained rate and the burst allowed on top of it
+     * A rate of zero or less would make the token bucket's emission interval infinite, so it fails binding
+     */
+    public record Tier(double ratePerSecond, int burst) {
+        
+        public Tier {
+            if (!(ratePerSecond > 0) || Double.isInfinite(ratePerSecond)) {
+                throw new IllegalArgumentException("Quota tier rate-per-second must be positive, was " + ratePerSecond);
+            }
+        }
+    }
+    
+    public record Sync(@DefaultValue("false") boolean enabled, @DefaultValue("1m") Duration window) {}
+}
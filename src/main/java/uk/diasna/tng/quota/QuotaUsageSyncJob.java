@@ -0,0 +1,55 @@
+package uk.diasna.tng.quota;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.diasna.tng.repository.CustomerQuotaUsageRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Approximately shares quotas across instances: each run adds local consumption to the
+ * customer's current window row and charges the local bucket with what the others used
+ */
+@Component
+@ConditionalOnProperty(name = "tng.quota.sync.enabled", havingValue = "true")
+public class QuotaUsageSyncJob {
+    
+    private static final int RETAINED_WINDOWS = 2;
+    
+    private final CustomerQuotaService quotaService;
+    private final CustomerQuotaUsageRepository repository;
+    private final long windowMillis;
+    private final Clock clock = Clock.systemUTC();
+    
+    public QuotaUsageSyncJob(CustomerQuotaService quotaService,
+                             CustomerQuotaUsageRepository repository,
+                             QuotaProperties properties) {
+        this.quotaService = quotaService;
+        this.repository = repository;
+        this.windowMillis = properties.sync().window().toMillis();
+    }
+    
+    @Scheduled(fixedDelayString = "${tng.quota.sync.interval-ms:1000}")
+    @Transactional
+    public void syncUsage() {
+        long windowStart = clock.millis() / windowMillis * windowMillis;
+        OffsetDateTime window = OffsetDateTime.ofInstant(Instant.ofEpochMilli(windowStart), ZoneOffset.UTC);
+        
+        for (CustomerQuotaService.PendingUsage usage : quotaService.drainPendingUsage()) {
+            long windowTotal = repository.addConsumed(usage.customerId(), window, usage.consumed());
+            quotaService.applyClusterUsage(usage, windowStart, windowTotal);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${tng.quota.sync.cleanup-interval-ms:60000}")
+    @Transactional
+    public void deleteExpiredWindows() {
+        long cutoff = clock.millis() / windowMillis * windowMillis - RETAINED_WINDOWS * windowMillis;
+        repository.deleteWindowsBefore(OffsetDateTime.ofInstant(Instant.ofEpochMilli(cutoff), ZoneOffset.UTC));
+    }
+}
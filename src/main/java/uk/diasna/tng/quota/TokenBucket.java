@@ -0,0 +1,58 @@
+package uk.diasna.tng.quota;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token bucket using the generic cell rate algorithm
+ * The whole bucket is one "theoretical arrival time": a request is admitted if moving it
+ * one emission interval forward keeps it within the burst tolerance of now
+ */
+final class TokenBucket {
+    
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+    private final LongAdder consumedSinceSync = new LongAdder();
+    
+    // Only touched by the usage sync job
+    long syncWindowStart = Long.MIN_VALUE;
+    long syncedWindowTotal;
+    
+    TokenBucket(QuotaProperties.Tier tier, long nowNanos) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / tier.ratePerSecond());
+        this.toleranceNanos = emissionIntervalNanos * Math.max(tier.burst(), 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+    
+    /**
+     * Take one token, or return the nanoseconds until one is available
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long wait = next - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                consumedSinceSync.increment();
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * Spend tokens consumed on other instances, at most emptying the bucket
+     */
+    void charge(long tokens, long nowNanos) {
+        long ceiling = nowNanos + toleranceNanos;
+        theoreticalArrival.updateAndGet(current ->
+            Math.min(ceiling, Math.max(current, nowNanos) + tokens * emissionIntervalNanos));
+    }
+    
+    long drainConsumed() {
+        return consumedSinceSync.sumThenReset();
+    }
+}
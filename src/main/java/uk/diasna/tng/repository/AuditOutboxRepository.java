@@ -0,0 +1,21 @@
+package uk.diasna.tng.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import uk.diasna.tng.entity.AuditOutboxEntity;
+
+import java.util.List;
+
+@Repository
+public interface AuditOutboxRepository extends JpaRepository<AuditOutboxEntity, Long> {
+    /**
+     * Lock the oldest undelivered audit events, skipping rows another relay holds
+     * Call inside a transaction; the locks last until it ends
+     */
+    @Query(value = """
+        SELECT * FROM audit_outbox ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<AuditOutboxEntity> lockBatch(@Param("batchSize") int batchSize);
+}
@@ -0,0 +1,35 @@
+package uk.diasna.tng.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import uk.diasna.tng.entity.CustomerQuotaUsageEntity;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+public interface CustomerQuotaUsageRepository extends JpaRepository<CustomerQuotaUsageEntity, CustomerQuotaUsageEntity.Key> {
+    /**
+     * Add this instance's consumption to a customer's window and return the total across all instances
+     */
+    @Query(value = """
+        INSERT INTO customer_quota_usage (customer_id, window_start, consumed)
+        VALUES (:customerId, :windowStart, :consumed)
+        ON CONFLICT (customer_id, window_start)
+        DO UPDATE SET consumed = customer_quota_usage.consumed + EXCLUDED.consumed
+        RETURNING consumed
+        """, nativeQuery = true)
+    long addConsumed(@Param("customerId") UUID customerId,
+                     @Param("windowStart") OffsetDateTime windowStart,
+                     @Param("consumed") long consumed);
+    
+    /**
+     * Remove usage windows that can no longer affect any bucket
+     */
+    @Modifying
+    @Query(value = "DELETE FROM customer_quota_usage WHERE window_start < :cutoff", nativeQuery = true)
+    int deleteWindowsBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
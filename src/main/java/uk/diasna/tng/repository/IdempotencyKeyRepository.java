@@ -0,0 +1,33 @@
+package uk.diasna.tng.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.diasna.tng.entity.IdempotencyKeyEntity;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, Long> {
+    /**
+     * Find the response recorded for a customer's idempotency key
+     */
+    Optional<IdempotencyKeyEntity> findByCustomerIdAndIdempotencyKey(UUID customerId, String idempotencyKey);
+    
+    /**
+     * Delete up to batchSize expired keys in one short transaction
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        DELETE FROM idempotency_keys WHERE id IN (
+            SELECT id FROM idempotency_keys WHERE expires_at < :now ORDER BY expires_at LIMIT :batchSize
+        )
+        """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") OffsetDateTime now, @Param("batchSize") int batchSize);
+}
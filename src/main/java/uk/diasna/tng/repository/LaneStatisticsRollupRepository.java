@@ -0,0 +1,17 @@
+package uk.diasna.tng.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import uk.diasna.tng.entity.LaneStatisticsRollupEntity;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface LaneStatisticsRollupRepository extends JpaRepository<LaneStatisticsRollupEntity, Long> {
+    /**
+     * Find the persisted per-minute rollups of a lane within a time range
+     */
+    List<LaneStatisticsRollupEntity> findByOriginCountryIdAndDestinationCountryIdAndWindowStartBetweenOrderByWindowStart(
+        String originCountryId, String destinationCountryId, OffsetDateTime from, OffsetDateTime to);
+}
@@ -1,11 +1,15 @@
 package uk.diasna.tng.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import uk.diasna.tng.dto.TrackingNumberSummary;
 import uk.diasna.tng.entity.TrackingNumberEntity;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,9 +24,50 @@ public interface TrackingNumberRepository extends JpaRepository<TrackingNumberEn
      */
     Optional<TrackingNumberEntity> findByTrackingNumber(String trackingNumber);
     
+    /**
+     * Rows one worker inserted after the given id, oldest first, for stream catch-up
+     * A null workerId matches the rows issued without a worker lease
+     */
+    List<TrackingNumberEntity> findByWorkerIdAndIdGreaterThanOrderByIdAsc(Integer workerId, Long id, Limit limit);
+    
+    /**
+     * Rows for any of the given tracking numbers in one statement
+     * Bound as a single array parameter, so every chunk size shares one prepared statement
+     */
+    @Query(value = "SELECT * FROM tracking_numbers WHERE tracking_number = ANY(:trackingNumbers)", nativeQuery = true)
+    List<TrackingNumberEntity> findAllByTrackingNumberAny(@Param("trackingNumbers") String[] trackingNumbers);
+    
     /**
      * Count tracking numbers for a specific customer
      */
     @Query("SELECT COUNT(t) FROM TrackingNumberEntity t WHERE t.customerId = :customerId")
     long countByCustomerId(@Param("customerId") java.util.UUID customerId);
+    
+    /**
+     * First page of a customer's tracking numbers, newest first, read from idx_customer_created_id
+     */
+    @Query("""
+        SELECT new uk.diasna.tng.dto.TrackingNumberSummary(
+            t.id, t.trackingNumber, t.originCountryId, t.destinationCountryId, t.weight, t.createdAt)
+        FROM TrackingNumberEntity t
+        WHERE t.customerId = :customerId
+        ORDER BY t.createdAt DESC, t.id DESC
+        """)
+    List<TrackingNumberSummary> findPageByCustomerId(@Param("customerId") java.util.UUID customerId, Limit limit);
+    
+    /**
+     * Page after the (createdAt, id) of the previous page's last row; the row comparison
+     * seeks into the index, so every page costs the same however deep it is
+     */
+    @Query("""
+        SELECT new uk.diasna.tng.dto.TrackingNumberSummary(
+            t.id, t.trackingNumber, t.originCountryId, t.destinationCountryId, t.weight, t.createdAt)
+        FROM TrackingNumberEntity t
+        WHERE t.customerId = :customerId AND (t.createdAt, t.id) < (:createdAt, :id)
+        ORDER BY t.createdAt DESC, t.id DESC
+        """)
+    List<TrackingNumberSummary> findPageByCustomerIdAfter(@Param("customerId") java.util.UUID customerId,
+                                                          @Param("createdAt") OffsetDateTime createdAt,
+                                                          @Param("id") Long id,
+                                                          Limit limit);
 }
@@ -0,0 +1,80 @@
+package uk.diasna.tng.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.diasna.tng.entity.WorkerLeaseEntity;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Worker ID leases; every change is a compare-and-set on the fencing token in its own transaction
+ */
+@Repository
+public interface WorkerLeaseRepository extends JpaRepository<WorkerLeaseEntity, Integer> {
+    /**
+     * Leases that have expired and can be claimed, lowest worker IDs first
+     */
+    List<WorkerLeaseEntity> findByExpiresAtBeforeOrderByWorkerIdAsc(OffsetDateTime now, Limit limit);
+    
+    /**
+     * Highest worker ID handed out so far, null when the table is empty
+     */
+    @Query("SELECT MAX(w.workerId) FROM WorkerLeaseEntity w")
+    Integer findMaxWorkerId();
+    
+    /**
+     * Take over an expired lease; 0 when another instance claimed or renewed it first
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE WorkerLeaseEntity w
+        SET w.owner = :owner, w.fencingToken = w.fencingToken + 1,
+            w.acquiredAt = :now, w.renewedAt = :now, w.expiresAt = :expiresAt
+        WHERE w.workerId = :workerId AND w.fencingToken = :fencingToken AND w.expiresAt < :now
+        """)
+    int claim(@Param("workerId") int workerId, @Param("fencingToken") long fencingToken, @Param("owner") String owner,
+              @Param("now") OffsetDateTime now, @Param("expiresAt") OffsetDateTime expiresAt);
+    
+    /**
+     * Create the lease for a worker ID never used before; fails with a duplicate key if another instance won
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO worker_leases (worker_id, owner, fencing_token, acquired_at, renewed_at, expires_at)
+        VALUES (:workerId, :owner, 1, :now, :now, :expiresAt)
+        """, nativeQuery = true)
+    int insertLease(@Param("workerId") int workerId, @Param("owner") String owner,
+                    @Param("now") OffsetDateTime now, @Param("expiresAt") OffsetDateTime expiresAt);
+    
+    /**
+     * Extend a lease still held under the given fencing token; 0 when it has been taken over
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE WorkerLeaseEntity w SET w.renewedAt = :now, w.expiresAt = :expiresAt
+        WHERE w.workerId = :workerId AND w.fencingToken = :fencingToken AND w.owner = :owner
+        """)
+    int renew(@Param("workerId") int workerId, @Param("fencingToken") long fencingToken, @Param("owner") String owner,
+              @Param("now") OffsetDateTime now, @Param("expiresAt") OffsetDateTime expiresAt);
+    
+    /**
+     * Expire a lease immediately so the worker ID can be claimed by the next instance
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE WorkerLeaseEntity w SET w.owner = NULL, w.expiresAt = :now
+        WHERE w.workerId = :workerId AND w.fencingToken = :fencingToken
+        """)
+    int release(@Param("workerId") int workerId, @Param("fencingToken") long fencingToken,
+                @Param("now") OffsetDateTime now);
+}
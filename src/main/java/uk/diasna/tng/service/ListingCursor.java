@@ -0,0 +1,52 @@
+package uk.diasna.tng.service;
+
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a listing page: its created_at and id, opaque to clients
+ */
+record ListingCursor(OffsetDateTime createdAt, long id) {
+    
+    private static final byte VERSION = 1;
+    private static final int BYTES = 1 + Long.BYTES + Integer.BYTES + Long.BYTES;
+    
+    String encode() {
+        Instant instant = createdAt.toInstant();
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES)
+            .put(VERSION)
+            .putLong(instant.getEpochSecond())
+            .putInt(instant.getNano())
+            .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+    
+    static ListingCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        if (bytes.length != BYTES || bytes[0] != VERSION) {
+            throw invalid();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, BYTES - 1);
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        if (nano < 0 || nano > 999_999_999) {
+            throw invalid();
+        }
+        return new ListingCursor(OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), ZoneOffset.UTC),
+                                 buffer.getLong());
+    }
+    
+    private static InvalidTrackingNumberRequestException invalid() {
+        return new InvalidTrackingNumberRequestException("Invalid cursor");
+    }
+}
@@ -0,0 +1,148 @@
+package uk.diasna.tng.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.dto.TrackingNumberLookupResponse;
+import uk.diasna.tng.dto.TrackingNumberLookupResult;
+import uk.diasna.tng.dto.TrackingNumberSummary;
+import uk.diasna.tng.entity.TrackingNumberEntity;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+import uk.diasna.tng.util.TrackingNumberGenerator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves many tracking numbers at once, for hubs scanning whole cages
+ * Malformed and repeated numbers are settled in memory, cached numbers come from an in-process
+ * cache, and the rest are read with one = ANY query per chunk inside a single read-only transaction
+ */
+@Service
+public class TrackingNumberLookupService {
+    
+    private final TrackingNumberRepository repository;
+    private final DatabaseConcurrencyLimiter databaseLimiter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, TrackingNumberSummary> cache;
+    private final int maxTrackingNumbers;
+    private final int chunkSize;
+    private final Counter cacheHits;
+    private final Counter databaseHits;
+    private final Counter notFound;
+    private final Counter invalid;
+    
+    @Autowired
+    public TrackingNumberLookupService(TrackingNumberRepository repository,
+                                       DatabaseConcurrencyLimiter databaseLimiter,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${tng.lookup.max-tracking-numbers:1000}") int maxTrackingNumbers,
+                                       @Value("${tng.lookup.chunk-size:500}") int chunkSize,
+                                       @Value("${tng.lookup.cache-size:100000}") int cacheSize,
+                                       @Value("${tng.lookup.cache-ttl:10m}") Duration cacheTtl) {
+        this.repository = repository;
+        this.databaseLimiter = databaseLimiter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setName("tracking-number-lookup");
+        // Issued tracking numbers never change, so the TTL only bounds how long a deleted row lingers
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(cacheTtl)
+            .build();
+        this.maxTrackingNumbers = maxTrackingNumbers;
+        this.chunkSize = chunkSize;
+        
+        this.cacheHits = lookups(meterRegistry, "cache");
+        this.databaseHits = lookups(meterRegistry, "database");
+        this.notFound = lookups(meterRegistry, "not_found");
+        this.invalid = lookups(meterRegistry, "invalid");
+    }
+    
+    public TrackingNumberLookupResponse lookup(List<String> trackingNumbers) {
+        if (trackingNumbers == null || trackingNumbers.isEmpty()) {
+            throw new InvalidTrackingNumberRequestException("tracking_numbers must not be empty");
+        }
+        if (trackingNumbers.size() > maxTrackingNumbers) {
+            throw new InvalidTrackingNumberRequestException(
+                "At most " + maxTrackingNumbers + " tracking numbers per lookup, got " + trackingNumbers.size());
+        }
+        
+        Map<String, TrackingNumberSummary> found = new HashMap<>();
+        Set<String> misses = new LinkedHashSet<>();
+        for (String trackingNumber : trackingNumbers) {
+            if (!TrackingNumberGenerator.isWellFormed(trackingNumber)
+                || found.containsKey(trackingNumber) || misses.contains(trackingNumber)) {
+                continue;
+            }
+            TrackingNumberSummary cached = cache.getIfPresent(trackingNumber);
+            if (cached != null) {
+                found.put(trackingNumber, cached);
+                cacheHits.increment();
+            } else {
+                misses.add(trackingNumber);
+            }
+        }
+        
+        if (!misses.isEmpty()) {
+            List<TrackingNumberSummary> loaded = databaseLimiter.call(() -> readOnlyTransaction.execute(status -> load(misses)));
+            for (TrackingNumberSummary summary : loaded) {
+                found.put(summary.trackingNumber(), summary);
+                cache.put(summary.trackingNumber(), summary);
+            }
+            databaseHits.increment(loaded.size());
+            notFound.increment(misses.size() - loaded.size());
+        }
+        
+        List<TrackingNumberLookupResult> results = new ArrayList<>(trackingNumbers.size());
+        for (String trackingNumber : trackingNumbers) {
+            TrackingNumberSummary summary = found.get(trackingNumber);
+            if (summary != null) {
+                results.add(new TrackingNumberLookupResult(trackingNumber, TrackingNumberLookupResult.Status.FOUND, summary));
+            } else if (TrackingNumberGenerator.isWellFormed(trackingNumber)) {
+                results.add(new TrackingNumberLookupResult(trackingNumber, TrackingNumberLookupResult.Status.NOT_FOUND, null));
+            } else {
+                invalid.increment();
+                results.add(new TrackingNumberLookupResult(trackingNumber, TrackingNumberLookupResult.Status.INVALID, null));
+            }
+        }
+        return new TrackingNumberLookupResponse(results);
+    }
+    
+    private List<TrackingNumberSummary> load(Set<String> trackingNumbers) {
+        String[] all = trackingNumbers.toArray(String[]::new);
+        List<TrackingNumberSummary> loaded = new ArrayList<>(all.length);
+        for (int from = 0; from < all.length; from += chunkSize) {
+            String[] chunk = from == 0 && all.length <= chunkSize
+                ? all
+                : Arrays.copyOfRange(all, from, Math.min(all.length, from + chunkSize));
+            for (TrackingNumberEntity entity : repository.findAllByTrackingNumberAny(chunk)) {
+                loaded.add(new TrackingNumberSummary(entity.getId(), entity.getTrackingNumber(),
+                    entity.getOriginCountryId(), entity.getDestinationCountryId(), entity.getWeight(), entity.getCreatedAt()));
+            }
+        }
+        return loaded;
+    }
+    
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("tracking_number.lookup.results")
+            .description("Tracking numbers resolved by bulk lookups")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,63 @@
+package uk.diasna.tng.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.diasna.tng.dto.TrackingNumberPage;
+import uk.diasna.tng.dto.TrackingNumberSummary;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-side queries over issued tracking numbers
+ */
+@Service
+public class TrackingNumberQueryService {
+    
+    private final TrackingNumberRepository repository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    
+    @Autowired
+    public TrackingNumberQueryService(TrackingNumberRepository repository,
+                                      @Value("${tng.listing.default-page-size:50}") int defaultPageSize,
+                                      @Value("${tng.listing.max-page-size:500}") int maxPageSize) {
+        this.repository = repository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+    
+    /**
+     * One page of a customer's tracking numbers, newest first
+     * Keyset pagination: the cursor names the last row returned and the next page seeks past it,
+     * one more row than asked for is read to tell whether another page follows
+     */
+    @Transactional(readOnly = true)
+    public TrackingNumberPage listByCustomer(UUID customerId, String cursor, Integer pageSize) {
+        int size = pageSize == null ? defaultPageSize : pageSize;
+        if (size < 1 || size > maxPageSize) {
+            throw new InvalidTrackingNumberRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        
+        Limit limit = Limit.of(size + 1);
+        List<TrackingNumberSummary> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = repository.findPageByCustomerId(customerId, limit);
+        } else {
+            ListingCursor after = ListingCursor.decode(cursor);
+            rows = repository.findPageByCustomerIdAfter(customerId, after.createdAt(), after.id(), limit);
+        }
+        
+        if (rows.size() <= size) {
+            return new TrackingNumberPage(rows, null);
+        }
+        List<TrackingNumberSummary> page = rows.subList(0, size);
+        TrackingNumberSummary last = page.get(size - 1);
+        return new TrackingNumberPage(List.copyOf(page), new ListingCursor(last.createdAt(), last.id()).encode());
+    }
+}
@@ -8,12 +8,28 @@ import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import uk.diasna.tng.dto.TrackingNumberRequest;
 import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.entity.AuditOutboxEntity;
 import uk.diasna.tng.entity.TrackingNumberEntity;
+import uk.diasna.tng.exception.TrackingNumberCollisionException;
 import uk.diasna.tng.exception.TrackingNumberGenerationException;
+import uk.diasna.tng.idempotency.IdempotencyService;
+import uk.diasna.tng.logging.RequestSummary;
+import uk.diasna.tng.metrics.GenerationStage;
+import uk.diasna.tng.metrics.GenerationStageEvent;
+import uk.diasna.tng.metrics.GenerationStageMetrics;
+import uk.diasna.tng.metrics.RollingGenerationStats;
+import uk.diasna.tng.repository.AuditOutboxRepository;
 import uk.diasna.tng.repository.TrackingNumberRepository;
+import uk.diasna.tng.stats.CustomerLoadTracker;
+import uk.diasna.tng.stats.LaneStatisticsAggregator;
+import uk.diasna.tng.stream.TrackingNumberEvent;
+import uk.diasna.tng.stream.TrackingNumberEventBuffer;
 import uk.diasna.tng.util.TrackingNumberGenerator;
+import uk.diasna.tng.worker.WorkerLeaseManager;
 
 import java.time.OffsetDateTime;
 
@@ -24,17 +40,41 @@ public class TrackingNumberService {
     private static final int MAX_GENERATION_ATTEMPTS = 10;
     
     private final TrackingNumberRepository repository;
+    private final AuditOutboxRepository auditOutbox;
     private final TrackingNumberGenerator idGenerator;
+    private final LaneStatisticsAggregator laneStatistics;
+    private final CustomerLoadTracker customerLoad;
+    private final GenerationStageMetrics stageMetrics;
+    private final RollingGenerationStats rollingStats;
+    private final IdempotencyService idempotency;
+    private final TrackingNumberEventBuffer eventBuffer;
+    private final WorkerLeaseManager workerLease;
     private final Counter generationCounter;
     private final Counter collisionCounter;
     private final Counter failureCounter;
     private final Timer generationTimer;
     
     public TrackingNumberService(TrackingNumberRepository repository, 
+                               AuditOutboxRepository auditOutbox,
                                TrackingNumberGenerator idGenerator,
+                               LaneStatisticsAggregator laneStatistics,
+                               CustomerLoadTracker customerLoad,
+                               GenerationStageMetrics stageMetrics,
+                               RollingGenerationStats rollingStats,
+                               IdempotencyService idempotency,
+                               TrackingNumberEventBuffer eventBuffer,
+                               WorkerLeaseManager workerLease,
                                MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.auditOutbox = auditOutbox;
         this.idGenerator = idGenerator;
+        this.laneStatistics = laneStatistics;
+        this.customerLoad = customerLoad;
+        this.stageMetrics = stageMetrics;
+        this.rollingStats = rollingStats;
+        this.idempotency = idempotency;
+        this.eventBuffer = eventBuffer;
+        this.workerLease = workerLease;
         
         this.generationCounter = Counter.builder("tracking_number.generated")
             .description("Total tracking numbers generated")
@@ -55,12 +95,13 @@ public class TrackingNumberService {
     
     @Transactional
     public TrackingNumberResponse generateTrackingNumber(TrackingNumberRequest request) {
+        // A fenced instance may share its worker ID with another one; turn the request away instead
+        workerLease.checkNotFenced();
+        long startNanos = System.nanoTime();
+        stageMetrics.timeCurrentCommit(request);
         try {
             return generationTimer.recordCallable(() -> {
-                logger.info("Generating tracking number for customer: {} from {} to {}", 
-                           request.customerId(), request.originCountryId(), request.destinationCountryId());
-                
-                String trackingNumber = generateUniqueTrackingNumber();
+                String trackingNumber = generateUniqueTrackingNumber(request);
                 OffsetDateTime createdAt = OffsetDateTime.now();
                 
                 try {
@@ -75,22 +116,48 @@ public class TrackingNumberService {
                     );
                     
                     entity.setCreatedAt(createdAt);
+                    // Lets a resumed stream on this instance replay only the numbers it issued
+                    entity.setWorkerId(workerLease.currentLease().map(WorkerLeaseManager.Lease::workerId).orElse(null));
+                    long insertStart = stageMetrics.start();
+                    GenerationStageEvent insertEvent = GenerationStageEvent.start(GenerationStage.INSERT);
                     repository.save(entity);
+                    // Committed atomically with the tracking number; AuditOutboxRelay ships it later
+                    auditOutbox.save(new AuditOutboxEntity(
+                        trackingNumber,
+                        request.originCountryId(),
+                        request.destinationCountryId(),
+                        request.weight(),
+                        request.customerId(),
+                        request.customerName(),
+                        request.customerSlug(),
+                        createdAt
+                    ));
+                    // Surface a tracking_numbers unique violation here as a collision, not later at the
+                    // Idempotency-Key insert where it would read as a lost key race
+                    repository.flush();
+                    stageMetrics.record(GenerationStage.INSERT, insertStart);
+                    insertEvent.commit(request, 0);
+                    eventBuffer.publishAfterCommit(TrackingNumberEvent.from(entity));
                     
-                    generationCounter.increment();
-                    
-                    logger.info("Successfully generated tracking number: {} for customer: {}", 
-                               trackingNumber, request.customerId());
+                    // An Idempotency-Key race can still roll the transaction back; count only what commits
+                    afterCommit(() -> {
+                        generationCounter.increment();
+                        rollingStats.recordGenerated();
+                        laneStatistics.record(request.originCountryId(), request.destinationCountryId(), request.weight());
+                    });
                     
                     return new TrackingNumberResponse(trackingNumber, createdAt);
                     
                 } catch (DataIntegrityViolationException e) {
                     collisionCounter.increment();
-                    logger.warn("Tracking number collision detected: {}, retrying...", trackingNumber);
-                    throw new TrackingNumberGenerationException("Tracking number collision detected", e);
+                    rollingStats.recordCollision();
+                    // GlobalExceptionHandler logs the failure once, with its stack trace
+                    logger.debug("Tracking number collision detected on insert: {}", trackingNumber);
+                    throw new TrackingNumberCollisionException("Tracking number collision detected", e);
                 } catch (Exception e) {
                     failureCounter.increment();
-                    logger.error("Failed to save tracking number: {}", trackingNumber, e);
+                    rollingStats.recordFailure();
+                    logger.debug("Failed to save tracking number: {}", trackingNumber);
                     throw new TrackingNumberGenerationException("Failed to generate tracking number", e);
                 }
             });
@@ -99,31 +166,70 @@ public class TrackingNumberService {
                 throw (TrackingNumberGenerationException) e;
             }
             failureCounter.increment();
+            rollingStats.recordFailure();
             throw new TrackingNumberGenerationException("Failed to generate tracking number", e);
+        } finally {
+            customerLoad.record(request.customerId(), System.nanoTime() - startNanos);
         }
     }
     
-    private String generateUniqueTrackingNumber() {
+    /**
+     * Generate and record the Idempotency-Key in the same transaction, so a key is
+     * never stored without its tracking number or the other way round
+     */
+    @Transactional
+    public TrackingNumberResponse generateTrackingNumber(TrackingNumberRequest request, String idempotencyKey) {
+        TrackingNumberResponse response = generateTrackingNumber(request);
+        idempotency.record(request, idempotencyKey, response);
+        return response;
+    }
+    
+    private String generateUniqueTrackingNumber(TrackingNumberRequest request) {
         for (int attempt = 1; attempt <= MAX_GENERATION_ATTEMPTS; attempt++) {
+            long stageStart = stageMetrics.start();
+            GenerationStageEvent event = GenerationStageEvent.start(GenerationStage.ID_GENERATION);
             String trackingNumber = idGenerator.generateTrackingNumber();
+            stageMetrics.record(GenerationStage.ID_GENERATION, stageStart);
+            event.commit(request, attempt);
             
             // Check for existing tracking number
-            if (!repository.existsByTrackingNumber(trackingNumber)) {
+            stageStart = stageMetrics.start();
+            event = GenerationStageEvent.start(GenerationStage.EXISTENCE_CHECK);
+            boolean exists = repository.existsByTrackingNumber(trackingNumber);
+            stageMetrics.record(GenerationStage.EXISTENCE_CHECK, stageStart);
+            event.commit(request, attempt);
+            if (!exists) {
                 logger.debug("Generated unique tracking number: {} on attempt: {}", 
                            trackingNumber, attempt);
                 return trackingNumber;
             }
             
             collisionCounter.increment();
-            logger.warn("Tracking number collision detected: {} on attempt: {}", 
+            rollingStats.recordCollision();
+            RequestSummary.collision();
+            logger.debug("Tracking number collision detected: {} on attempt: {}", 
                        trackingNumber, attempt);
         }
         
         failureCounter.increment();
+        rollingStats.recordFailure();
         throw new TrackingNumberGenerationException(
             "Failed to generate unique tracking number after " + MAX_GENERATION_ATTEMPTS + " attempts");
     }
     
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
     public TrackingNumberStats getStats() {
         long totalGenerated = (long) generationCounter.count();
         long totalCollisions = (long) collisionCounter.count();
@@ -0,0 +1,153 @@
+package uk.diasna.tng.stats;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded-memory heavy-hitter tracking of request counts and latency per customer
+ * Request threads only claim a slot in a lock-free ring buffer; a single drainer
+ * folds the samples into a Space-Saving sketch that is reset every window
+ */
+@Component
+public class CustomerLoadTracker {
+    
+    /**
+     * Customer ID of synthetic traffic such as the startup warm-up, which is never tracked
+     */
+    public static final UUID SYNTHETIC_CUSTOMER_ID = new UUID(0L, 0L);
+    
+    private static final int BUFFER_CAPACITY = 1 << 16;
+    private static final int BUFFER_MASK = BUFFER_CAPACITY - 1;
+    
+    private final AtomicReferenceArray<Sample> buffer = new AtomicReferenceArray<>(BUFFER_CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder droppedSamples = new LongAdder();
+    private final int sketchCapacity;
+    private final long windowMillis;
+    private final Clock clock;
+    private volatile long head;
+    
+    private SpaceSavingSketch<UUID> currentSketch;
+    private long currentWindowStart;
+    private SpaceSavingSketch<UUID> previousSketch;
+    private long previousWindowStart;
+    
+    @Autowired
+    public CustomerLoadTracker(MeterRegistry meterRegistry,
+                               @Value("${tng.heavy-hitters.capacity:1024}") int sketchCapacity,
+                               @Value("${tng.heavy-hitters.window:5m}") Duration window) {
+        this(meterRegistry, sketchCapacity, window, Clock.systemUTC());
+    }
+    
+    CustomerLoadTracker(MeterRegistry meterRegistry, int sketchCapacity, Duration window, Clock clock) {
+        this.sketchCapacity = sketchCapacity;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        this.currentSketch = new SpaceSavingSketch<>(sketchCapacity);
+        this.currentWindowStart = clock.millis();
+        
+        FunctionCounter.builder("tracking_number.customer_load.dropped_samples", droppedSamples, LongAdder::sum)
+            .description("Customer load samples dropped because the sketch buffer was full")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Record one request for a customer; never blocks, drops the sample when the buffer is full
+     */
+    public void record(UUID customerId, long latencyNanos) {
+        if (customerId == null || customerId.equals(SYNTHETIC_CUSTOMER_ID)) {
+            return;
+        }
+        
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head >= BUFFER_CAPACITY) {
+                droppedSamples.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+        
+        buffer.set((int) (slot & BUFFER_MASK), new Sample(customerId, latencyNanos));
+    }
+    
+    /**
+     * Fold buffered samples into the sketch and roll the window when it has elapsed
+     */
+    @Scheduled(fixedDelayString = "${tng.heavy-hitters.drain-interval-ms:200}")
+    public synchronized void drain() {
+        long position = head;
+        long limit = tail.get();
+        while (position < limit) {
+            int index = (int) (position & BUFFER_MASK);
+            Sample sample = buffer.get(index);
+            if (sample == null) {
+                // Slot claimed but not yet published; pick it up on the next drain
+                break;
+            }
+            buffer.set(index, null);
+            currentSketch.offer(sample.customerId(), sample.latencyNanos());
+            position++;
+        }
+        head = position;
+        
+        long now = clock.millis();
+        if (now - currentWindowStart >= windowMillis) {
+            previousSketch = currentSketch;
+            previousWindowStart = currentWindowStart;
+            currentSketch = new SpaceSavingSketch<>(sketchCapacity);
+            currentWindowStart = now;
+        }
+    }
+    
+    /**
+     * Top customers of the current and the last completed window
+     */
+    public synchronized CustomerLoadReport report(int limit) {
+        drain();
+        return new CustomerLoadReport(
+            windowReport(currentSketch, currentWindowStart, limit),
+            previousSketch != null ? windowReport(previousSketch, previousWindowStart, limit) : null,
+            droppedSamples.sum()
+        );
+    }
+    
+    private WindowReport windowReport(SpaceSavingSketch<UUID> sketch, long windowStart, int limit) {
+        return new WindowReport(
+            Instant.ofEpochMilli(windowStart),
+            Duration.ofMillis(windowMillis),
+            sketch.totalCount(),
+            sketch.maxError(),
+            sketch.top(limit)
+        );
+    }
+    
+    private record Sample(UUID customerId, long latencyNanos) {}
+    
+    public record CustomerLoadReport(
+        WindowReport current,
+        WindowReport previous,
+        long droppedSamples
+    ) {}
+    
+    public record WindowReport(
+        Instant windowStart,
+        Duration windowLength,
+        long totalRequests,
+        long maxError,
+        List<SpaceSavingSketch.Estimate<UUID>> topCustomers
+    ) {}
+}
@@ -0,0 +1,205 @@
+package uk.diasna.tng.stats;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free per-lane aggregation of issued tracking numbers
+ * Lanes live in a fixed 676 x 676 array indexed by packed ISO country codes,
+ * each lane keeping lifetime totals plus one hour of per-minute buckets
+ */
+@Component
+public class LaneStatisticsAggregator {
+    
+    static final int COUNTRY_SLOTS = 26 * 26;
+    static final int BUCKET_COUNT = 60;
+    private static final long BUCKET_MILLIS = 60_000L;
+    
+    private final AtomicReferenceArray<LaneCell> lanes = new AtomicReferenceArray<>(COUNTRY_SLOTS * COUNTRY_SLOTS);
+    private final Set<Integer> activeLanes = ConcurrentHashMap.newKeySet();
+    private final Clock clock;
+    
+    public LaneStatisticsAggregator() {
+        this(Clock.systemUTC());
+    }
+    
+    LaneStatisticsAggregator(Clock clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * Record one issued tracking number; unknown or malformed country codes are ignored
+     */
+    public void record(String originCountryId, String destinationCountryId, BigDecimal weight) {
+        int origin = countryIndex(originCountryId);
+        int destination = countryIndex(destinationCountryId);
+        if (origin < 0 || destination < 0 || weight == null) {
+            return;
+        }
+        
+        long weightGrams = weight.scaleByPowerOfTen(3).longValue();
+        laneCell(origin * COUNTRY_SLOTS + destination).record(currentMinute(), weightGrams);
+    }
+    
+    /**
+     * Snapshot every active lane over the trailing window (rounded up to whole minutes, max one hour)
+     */
+    public List<LaneSnapshot> snapshot(Duration window) {
+        long nowMinute = currentMinute();
+        long minutes = Math.min(BUCKET_COUNT, Math.max(1, (window.toMillis() + BUCKET_MILLIS - 1) / BUCKET_MILLIS));
+        
+        List<LaneSnapshot> snapshots = new ArrayList<>(activeLanes.size());
+        for (int lane : activeLanes) {
+            LaneCell cell = lanes.get(lane);
+            long count = 0;
+            long weightGrams = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                Bucket bucket = cell.buckets.get(i);
+                if (bucket != null && bucket.minute > nowMinute - minutes && bucket.minute <= nowMinute) {
+                    count += bucket.count.sum();
+                    weightGrams += bucket.weightGrams.sum();
+                }
+            }
+            snapshots.add(new LaneSnapshot(
+                countryCode(lane / COUNTRY_SLOTS),
+                countryCode(lane % COUNTRY_SLOTS),
+                count,
+                BigDecimal.valueOf(weightGrams, 3),
+                cell.totalCount.sum(),
+                BigDecimal.valueOf(cell.totalWeightGrams.sum(), 3)
+            ));
+        }
+        return snapshots;
+    }
+    
+    /**
+     * Collect the per-lane totals of a single closed minute for persistence
+     */
+    public List<LaneRollup> rollup(long minute) {
+        int slot = (int) Math.floorMod(minute, (long) BUCKET_COUNT);
+        List<LaneRollup> rollups = new ArrayList<>();
+        for (int lane : activeLanes) {
+            Bucket bucket = lanes.get(lane).buckets.get(slot);
+            if (bucket == null || bucket.minute != minute) {
+                continue;
+            }
+            long count = bucket.count.sum();
+            if (count > 0) {
+                rollups.add(new LaneRollup(
+                    countryCode(lane / COUNTRY_SLOTS),
+                    countryCode(lane % COUNTRY_SLOTS),
+                    Instant.ofEpochMilli(minute * BUCKET_MILLIS),
+                    count,
+                    BigDecimal.valueOf(bucket.weightGrams.sum(), 3)
+                ));
+            }
+        }
+        return rollups;
+    }
+    
+    /**
+     * Current minute since the epoch, the unit of the rolling buckets
+     */
+    public long currentMinute() {
+        return clock.millis() / BUCKET_MILLIS;
+    }
+    
+    private LaneCell laneCell(int lane) {
+        LaneCell cell = lanes.get(lane);
+        if (cell == null) {
+            LaneCell created = new LaneCell();
+            cell = lanes.compareAndExchange(lane, null, created);
+            if (cell == null) {
+                cell = created;
+                activeLanes.add(lane);
+            }
+        }
+        return cell;
+    }
+    
+    static int countryIndex(String countryCode) {
+        if (countryCode == null || countryCode.length() != 2) {
+            return -1;
+        }
+        int first = countryCode.charAt(0) - 'A';
+        int second = countryCode.charAt(1) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+            return -1;
+        }
+        return first * 26 + second;
+    }
+    
+    static String countryCode(int index) {
+        return new String(new char[] {(char) ('A' + index / 26), (char) ('A' + index % 26)});
+    }
+    
+    private static final class LaneCell {
+        private final LongAdder totalCount = new LongAdder();
+        private final LongAdder totalWeightGrams = new LongAdder();
+        private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKET_COUNT);
+        
+        void record(long minute, long weightGrams) {
+            totalCount.increment();
+            totalWeightGrams.add(weightGrams);
+            
+            Bucket bucket = bucketFor(minute);
+            bucket.count.increment();
+            bucket.weightGrams.add(weightGrams);
+        }
+        
+        private Bucket bucketFor(long minute) {
+            int slot = (int) Math.floorMod(minute, (long) BUCKET_COUNT);
+            Bucket bucket = buckets.get(slot);
+            while (bucket == null || bucket.minute != minute) {
+                if (bucket != null && bucket.minute > minute) {
+                    // Writer stalled across a minute boundary; keep lifetime totals only
+                    return new Bucket(minute);
+                }
+                Bucket fresh = new Bucket(minute);
+                Bucket witness = buckets.compareAndExchange(slot, bucket, fresh);
+                if (witness == bucket) {
+                    return fresh;
+                }
+                bucket = witness;
+            }
+            return bucket;
+        }
+    }
+    
+    private static final class Bucket {
+        private final long minute;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder weightGrams = new LongAdder();
+        
+        Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+    
+    public record LaneSnapshot(
+        String originCountryId,
+        String destinationCountryId,
+        long windowCount,
+        BigDecimal windowWeightKg,
+        long totalCount,
+        BigDecimal totalWeightKg
+    ) {}
+    
+    public record LaneRollup(
+        String originCountryId,
+        String destinationCountryId,
+        Instant windowStart,
+        long count,
+        BigDecimal weightKg
+    ) {}
+}
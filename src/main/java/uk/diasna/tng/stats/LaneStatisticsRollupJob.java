@@ -0,0 +1,66 @@
+package uk.diasna.tng.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.diasna.tng.entity.LaneStatisticsRollupEntity;
+import uk.diasna.tng.repository.LaneStatisticsRollupRepository;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodically persists closed per-minute lane buckets to the rollup table
+ * so lane history can be queried without scanning tracking_numbers
+ * The first run after a restart persists every closed minute the aggregator still holds,
+ * including the one the application started in
+ */
+@Component
+public class LaneStatisticsRollupJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LaneStatisticsRollupJob.class);
+    private static final long NOTHING_PERSISTED = Long.MIN_VALUE;
+    
+    private final LaneStatisticsAggregator aggregator;
+    private final LaneStatisticsRollupRepository repository;
+    private long lastPersistedMinute;
+    
+    public LaneStatisticsRollupJob(LaneStatisticsAggregator aggregator,
+                                   LaneStatisticsRollupRepository repository) {
+        this.aggregator = aggregator;
+        this.repository = repository;
+        this.lastPersistedMinute = NOTHING_PERSISTED;
+    }
+    
+    @Scheduled(cron = "${tng.lane-stats.rollup-cron:5 * * * * *}")
+    @Transactional
+    public void persistClosedMinutes() {
+        long closedMinute = aggregator.currentMinute() - 1;
+        long oldestHeldMinute = closedMinute - LaneStatisticsAggregator.BUCKET_COUNT + 2;
+        long firstMinute = lastPersistedMinute == NOTHING_PERSISTED
+            ? oldestHeldMinute
+            : Math.max(lastPersistedMinute + 1, oldestHeldMinute);
+        
+        List<LaneStatisticsRollupEntity> rows = new ArrayList<>();
+        for (long minute = firstMinute; minute <= closedMinute; minute++) {
+            for (LaneStatisticsAggregator.LaneRollup rollup : aggregator.rollup(minute)) {
+                rows.add(new LaneStatisticsRollupEntity(
+                    rollup.windowStart().atOffset(ZoneOffset.UTC),
+                    rollup.originCountryId(),
+                    rollup.destinationCountryId(),
+                    rollup.count(),
+                    rollup.weightKg()
+                ));
+            }
+        }
+        
+        if (!rows.isEmpty()) {
+            repository.saveAll(rows);
+            logger.debug("Persisted {} lane rollup rows up to minute {}", rows.size(), closedMinute);
+        }
+        lastPersistedMinute = closedMinute;
+    }
+}
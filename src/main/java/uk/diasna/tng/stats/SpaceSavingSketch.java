@@ -0,0 +1,174 @@
+package uk.diasna.tng.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving top-K sketch with a fixed number of counters
+ * Each reported count over-estimates the true count by at most its error,
+ * and every key with a true count above total/capacity is guaranteed to be present
+ * Not thread-safe: callers must serialise access
+ */
+public class SpaceSavingSketch<K> {
+    
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final Counter<K>[] heap;
+    private int size;
+    private long totalCount;
+    
+    @SuppressWarnings("unchecked")
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Sketch capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = new Counter[capacity];
+    }
+    
+    /**
+     * Count one occurrence of the key together with an observed latency
+     */
+    public void offer(K key, long latencyNanos) {
+        totalCount++;
+        
+        Counter<K> counter = counters.get(key);
+        boolean appended = false;
+        if (counter == null) {
+            if (size < capacity) {
+                counter = new Counter<>();
+                counter.heapIndex = size;
+                heap[size++] = counter;
+                appended = true;
+            } else {
+                // Evict the minimum counter and inherit its count as the error bound
+                counter = heap[0];
+                counters.remove(counter.key);
+            }
+            counter.reset(key, counter.count);
+            counters.put(key, counter);
+        }
+        
+        counter.count++;
+        counter.observed++;
+        counter.latencySumNanos += latencyNanos;
+        counter.latencyMaxNanos = Math.max(counter.latencyMaxNanos, latencyNanos);
+        if (appended) {
+            siftUp(counter.heapIndex);
+        } else {
+            siftDown(counter.heapIndex);
+        }
+    }
+    
+    /**
+     * The n keys with the highest estimated counts
+     */
+    public List<Estimate<K>> top(int n) {
+        Counter<K>[] ordered = Arrays.copyOf(heap, size);
+        Arrays.sort(ordered, Comparator.comparingLong((Counter<K> c) -> c.count).reversed());
+        
+        List<Estimate<K>> estimates = new ArrayList<>(Math.min(n, size));
+        for (int i = 0; i < Math.min(n, size); i++) {
+            Counter<K> counter = ordered[i];
+            estimates.add(new Estimate<>(
+                counter.key,
+                counter.count,
+                counter.error,
+                counter.observed,
+                counter.observed > 0 ? counter.latencySumNanos / counter.observed : 0,
+                counter.latencyMaxNanos
+            ));
+        }
+        return estimates;
+    }
+    
+    public long totalCount() {
+        return totalCount;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Upper bound on the over-estimation of any reported count
+     */
+    public long maxError() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+    
+    private void siftUp(int index) {
+        Counter<K> counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+    
+    private void siftDown(int index) {
+        Counter<K> counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+    
+    private static final class Counter<K> {
+        private K key;
+        private long count;
+        private long error;
+        private long observed;
+        private long latencySumNanos;
+        private long latencyMaxNanos;
+        private int heapIndex;
+        
+        void reset(K key, long inheritedCount) {
+            this.key = key;
+            this.count = inheritedCount;
+            this.error = inheritedCount;
+            this.observed = 0;
+            this.latencySumNanos = 0;
+            this.latencyMaxNanos = 0;
+        }
+    }
+    
+    /**
+     * Estimated count in [count - error, count]; latency covers the observed occurrences only
+     */
+    public record Estimate<K>(
+        K key,
+        long count,
+        long error,
+        long observed,
+        long avgLatencyNanos,
+        long maxLatencyNanos
+    ) {
+        public long guaranteedCount() {
+            return count - error;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package uk.diasna.tng.stream;
+
+import java.util.UUID;
+
+/**
+ * Optional customer and lane constraints of one stream subscription; null matches anything
+ */
+public record StreamFilter(UUID customerId, String originCountryId, String destinationCountryId) {
+    
+    public boolean matches(TrackingNumberEvent event) {
+        return (customerId == null || customerId.equals(event.customerId()))
+            && (originCountryId == null || originCountryId.equals(event.originCountryId()))
+            && (destinationCountryId == null || destinationCountryId.equals(event.destinationCountryId()));
+    }
+}
@@ -0,0 +1,52 @@
+package uk.diasna.tng.stream;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import uk.diasna.tng.entity.TrackingNumberEntity;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * An issued tracking number as pushed to stream subscribers
+ * The id is the tracking_numbers row id and doubles as the SSE event id
+ */
+public record TrackingNumberEvent(
+    @JsonIgnore
+    Long id,
+    
+    @JsonProperty("tracking_number")
+    String trackingNumber,
+    
+    @JsonProperty("origin_country_id")
+    String originCountryId,
+    
+    @JsonProperty("destination_country_id")
+    String destinationCountryId,
+    
+    @JsonProperty("weight")
+    BigDecimal weight,
+    
+    @JsonProperty("customer_id")
+    UUID customerId,
+    
+    @JsonProperty("customer_slug")
+    String customerSlug,
+    
+    @JsonProperty("created_at")
+    OffsetDateTime createdAt
+) {
+    public static TrackingNumberEvent from(TrackingNumberEntity entity) {
+        return new TrackingNumberEvent(
+            entity.getId(),
+            entity.getTrackingNumber(),
+            entity.getOriginCountryId(),
+            entity.getDestinationCountryId(),
+            entity.getWeight(),
+            entity.getCustomerId(),
+            entity.getCustomerSlug(),
+            entity.getCreatedAt()
+        );
+    }
+}
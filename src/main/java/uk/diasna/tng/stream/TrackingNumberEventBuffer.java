@@ -0,0 +1,147 @@
+package uk.diasna.tng.stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-size ring of recently issued tracking numbers, fanned out to stream subscribers
+ * Publishing claims a sequence and overwrites the oldest slot without waiting for anyone;
+ * each subscriber keeps its own cursor and learns how many events it missed when lapped
+ */
+@Component
+public class TrackingNumberEventBuffer {
+    
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+    
+    public TrackingNumberEventBuffer(@Value("${tng.stream.buffer-capacity:65536}") int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Stream buffer capacity must be a power of two");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+    
+    /**
+     * Publish once the surrounding transaction commits, so subscribers never see a rolled-back number
+     */
+    public void publishAfterCommit(TrackingNumberEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+    
+    public void publish(TrackingNumberEvent event) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set((int) (sequence & mask), new Entry(sequence, event));
+        if (!waiters.isEmpty()) {
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+    
+    /**
+     * Sequence the next published event will get; a new subscriber starts here
+     */
+    public long head() {
+        return nextSequence.get();
+    }
+    
+    /**
+     * Sequence just after the buffered event with the given id, if it is still in the ring
+     */
+    public long sequenceAfter(Long eventId, long before) {
+        long oldest = Math.max(0, before - slots.length());
+        for (long sequence = before - 1; sequence >= oldest; sequence--) {
+            Entry entry = slots.get((int) (sequence & mask));
+            if (entry != null && entry.sequence() == sequence && Objects.equals(entry.event().id(), eventId)) {
+                return sequence + 1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Read up to max events starting at a sequence
+     * Events overwritten before the reader got to them are skipped and counted in missed
+     */
+    public Batch read(long fromSequence, int max) {
+        long head = nextSequence.get();
+        long missed = 0;
+        long sequence = fromSequence;
+        if (head - sequence > slots.length()) {
+            missed = head - slots.length() - sequence;
+            sequence = head - slots.length();
+        }
+        
+        List<TrackingNumberEvent> events = new ArrayList<>(Math.min(max, (int) Math.max(0, head - sequence)));
+        while (sequence < head && events.size() < max) {
+            Entry entry = slots.get((int) (sequence & mask));
+            if (entry == null || entry.sequence() < sequence) {
+                // Sequence claimed but the slot is not written yet; later events wait behind it
+                break;
+            }
+            if (entry.sequence() > sequence) {
+                // Lapped while reading: everything up to the oldest slot still intact is gone
+                long resume = nextSequence.get() - slots.length();
+                missed += resume - sequence;
+                sequence = resume;
+                continue;
+            }
+            events.add(entry.event());
+            sequence++;
+        }
+        return new Batch(events, sequence, missed);
+    }
+    
+    /**
+     * Park the calling thread until an event after the sequence is published or the timeout passes
+     */
+    public void awaitPublish(long afterSequence, long timeoutNanos) {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            if (nextSequence.get() <= afterSequence) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+    
+    /**
+     * Unblock a subscriber thread waiting in awaitPublish, e.g. after its client disconnected
+     */
+    public void wake(Thread subscriber) {
+        LockSupport.unpark(subscriber);
+    }
+    
+    public int capacity() {
+        return slots.length();
+    }
+    
+    private record Entry(long sequence, TrackingNumberEvent event) {}
+    
+    public record Batch(List<TrackingNumberEvent> events, long nextSequence, long missed) {}
+}
@@ -0,0 +1,100 @@
+package uk.diasna.tng.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.exception.LoadSheddingException;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+import uk.diasna.tng.worker.WorkerLeaseManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens SSE subscriptions on the event buffer, each served by its own virtual thread
+ * so a slow client only ever holds up itself
+ */
+@Component
+public class TrackingNumberStreamService {
+    
+    private final TrackingNumberEventBuffer buffer;
+    private final TrackingNumberRepository repository;
+    private final DatabaseConcurrencyLimiter databaseLimiter;
+    private final WorkerLeaseManager workerLease;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Duration heartbeatInterval;
+    private final int catchUpLimit;
+    private final Duration retryAfter;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter skippedCounter;
+    private final Counter catchUpCounter;
+    
+    public TrackingNumberStreamService(TrackingNumberEventBuffer buffer,
+                                       TrackingNumberRepository repository,
+                                       DatabaseConcurrencyLimiter databaseLimiter,
+                                       WorkerLeaseManager workerLease,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${tng.stream.max-subscribers:100}") int maxSubscribers,
+                                       @Value("${tng.stream.timeout:30m}") Duration timeout,
+                                       @Value("${tng.stream.heartbeat-interval:15s}") Duration heartbeatInterval,
+                                       @Value("${tng.stream.catch-up-limit:10000}") int catchUpLimit,
+                                       @Value("${tng.limiter.retry-after:1s}") Duration retryAfter) {
+        this.buffer = buffer;
+        this.repository = repository;
+        this.databaseLimiter = databaseLimiter;
+        this.workerLease = workerLease;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeatInterval = heartbeatInterval;
+        this.catchUpLimit = catchUpLimit;
+        this.retryAfter = retryAfter;
+        
+        Gauge.builder("tracking_number.stream.subscribers", subscribers, AtomicInteger::get)
+            .description("Open tracking number stream subscriptions")
+            .register(meterRegistry);
+        
+        this.skippedCounter = Counter.builder("tracking_number.stream.skipped")
+            .description("Events lagging subscribers missed because the buffer wrapped")
+            .register(meterRegistry);
+        
+        this.catchUpCounter = Counter.builder("tracking_number.stream.catch_up.rows")
+            .description("Rows read from tracking_numbers to resume subscribers beyond the buffer")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Start streaming events after lastEventId (or from now when null) that match the filter
+     */
+    public SseEmitter subscribe(StreamFilter filter, Long lastEventId) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new LoadSheddingException("Too many open tracking number streams", retryAfter);
+        }
+        
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Integer workerId = workerLease.currentLease().map(WorkerLeaseManager.Lease::workerId).orElse(null);
+        try {
+            TrackingNumberSubscription subscription = new TrackingNumberSubscription(
+                buffer, repository, databaseLimiter, emitter, filter, lastEventId, workerId,
+                heartbeatInterval, catchUpLimit, skippedCounter, catchUpCounter);
+            Thread.ofVirtual()
+                .name("tng-stream")
+                .start(() -> {
+                    try {
+                        subscription.run();
+                    } finally {
+                        subscribers.decrementAndGet();
+                    }
+                });
+        } catch (RuntimeException e) {
+            subscribers.decrementAndGet();
+            throw e;
+        }
+        return emitter;
+    }
+}
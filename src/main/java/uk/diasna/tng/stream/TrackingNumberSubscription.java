@@ -0,0 +1,193 @@
+package uk.diasna.tng.stream;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.entity.TrackingNumberEntity;
+import uk.diasna.tng.exception.LoadSheddingException;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One SSE client: optional catch-up, then live events from its own buffer cursor
+ * When the buffer laps the cursor the client gets a gap event instead of stalling producers
+ * The buffer only holds this instance's numbers, so catch-up replays only rows issued under its worker ID
+ */
+class TrackingNumberSubscription implements Runnable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TrackingNumberSubscription.class);
+    private static final int READ_BATCH = 256;
+    private static final int CATCH_UP_PAGE = 500;
+    
+    private final TrackingNumberEventBuffer buffer;
+    private final TrackingNumberRepository repository;
+    private final DatabaseConcurrencyLimiter databaseLimiter;
+    private final SseEmitter emitter;
+    private final StreamFilter filter;
+    private final Long lastEventId;
+    private final Integer workerId;
+    private final long startSequence;
+    private final long heartbeatNanos;
+    private final int catchUpLimit;
+    private final Counter skippedCounter;
+    private final Counter catchUpCounter;
+    private final Set<Long> caughtUpIds = new HashSet<>();
+    private volatile boolean closed;
+    private volatile Thread thread;
+    
+    TrackingNumberSubscription(TrackingNumberEventBuffer buffer,
+                               TrackingNumberRepository repository,
+                               DatabaseConcurrencyLimiter databaseLimiter,
+                               SseEmitter emitter,
+                               StreamFilter filter,
+                               Long lastEventId,
+                               Integer workerId,
+                               Duration heartbeatInterval,
+                               int catchUpLimit,
+                               Counter skippedCounter,
+                               Counter catchUpCounter) {
+        this.buffer = buffer;
+        this.repository = repository;
+        this.databaseLimiter = databaseLimiter;
+        this.emitter = emitter;
+        this.filter = filter;
+        this.lastEventId = lastEventId;
+        this.workerId = workerId;
+        // Taken before any catch-up query so nothing committed meanwhile can fall between the two
+        this.startSequence = buffer.head();
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.catchUpLimit = catchUpLimit;
+        this.skippedCounter = skippedCounter;
+        this.catchUpCounter = catchUpCounter;
+        
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(error -> close());
+    }
+    
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        RuntimeException failure = null;
+        try {
+            long cursor = resumeSequence();
+            long nextHeartbeat = System.nanoTime() + heartbeatNanos;
+            while (!closed) {
+                TrackingNumberEventBuffer.Batch batch = buffer.read(cursor, READ_BATCH);
+                if (batch.missed() > 0) {
+                    skippedCounter.increment(batch.missed());
+                    sendGap(Map.of("reason", "lagged", "missed", batch.missed()));
+                }
+                for (TrackingNumberEvent event : batch.events()) {
+                    if (filter.matches(event) && !caughtUpIds.remove(event.id())) {
+                        send(event);
+                    }
+                }
+                cursor = batch.nextSequence();
+                
+                if (batch.events().isEmpty() && batch.missed() == 0) {
+                    long now = System.nanoTime();
+                    if (now - nextHeartbeat >= 0) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                        nextHeartbeat = now + heartbeatNanos;
+                    }
+                    buffer.awaitPublish(cursor, Math.max(0, nextHeartbeat - now));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already completed
+            logger.debug("Tracking number stream closed: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            // E.g. the catch-up query failed; end the response with an error rather than leave it open
+            logger.warn("Tracking number stream failed", e);
+            failure = e;
+        } finally {
+            if (failure == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(failure);
+            }
+        }
+    }
+    
+    /**
+     * Where live delivery starts: just after lastEventId when it is still buffered, otherwise
+     * at the subscription start after replaying newer rows from the database
+     */
+    private long resumeSequence() throws IOException {
+        if (lastEventId == null) {
+            return startSequence;
+        }
+        long buffered = buffer.sequenceAfter(lastEventId, startSequence);
+        if (buffered >= 0) {
+            return buffered;
+        }
+        catchUp();
+        return startSequence;
+    }
+    
+    private void catchUp() throws IOException {
+        long afterId = lastEventId;
+        int scanned = 0;
+        while (!closed) {
+            if (scanned >= catchUpLimit) {
+                sendGap(Map.of("reason", "catch_up_limit", "resume_after", afterId));
+                return;
+            }
+            long pageAfter = afterId;
+            int pageSize = Math.min(CATCH_UP_PAGE, catchUpLimit - scanned);
+            List<TrackingNumberEntity> page;
+            try {
+                page = databaseLimiter.call(() -> repository.findByWorkerIdAndIdGreaterThanOrderByIdAsc(
+                    workerId, pageAfter, Limit.of(pageSize)));
+            } catch (LoadSheddingException e) {
+                sendGap(Map.of("reason", "catch_up_unavailable", "resume_after", afterId));
+                return;
+            }
+            catchUpCounter.increment(page.size());
+            
+            for (TrackingNumberEntity entity : page) {
+                TrackingNumberEvent event = TrackingNumberEvent.from(entity);
+                if (filter.matches(event)) {
+                    send(event);
+                    // The same number may also be in the buffer after startSequence; send it once
+                    caughtUpIds.add(event.id());
+                }
+                afterId = entity.getId();
+            }
+            scanned += page.size();
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
+    }
+    
+    private void send(TrackingNumberEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+            .id(String.valueOf(event.id()))
+            .name("tracking-number")
+            .data(event, MediaType.APPLICATION_JSON));
+    }
+    
+    private void sendGap(Map<String, Object> gap) throws IOException {
+        emitter.send(SseEmitter.event().name("gap").data(gap, MediaType.APPLICATION_JSON));
+    }
+    
+    private void close() {
+        closed = true;
+        Thread current = thread;
+        if (current != null) {
+            buffer.wake(current);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package uk.diasna.tng.tools.audit;
+
+import java.util.List;
+
+/**
+ * Outcome of a duplicate audit, written as duplicate-audit.json
+ */
+record AuditResult(
+    long records,
+    long duplicateGroups,
+    long extraCopies,
+    List<SourceResult> sources,
+    List<SourcePair> crossSourceCollisions,
+    List<DuplicateCollector.Duplicate> samples
+) {
+    
+    boolean clean() {
+        return duplicateGroups == 0;
+    }
+    
+    /**
+     * Per-source counts; duplicated is the distinct tracking numbers that occur more than once
+     * anywhere, withinSource the extra copies inside this source and crossSource the duplicated
+     * tracking numbers also found in another source
+     */
+    record SourceResult(
+        String name,
+        long records,
+        long malformed,
+        long duplicated,
+        long withinSource,
+        long crossSource
+    ) {}
+    
+    /**
+     * Tracking numbers found in both sources
+     */
+    record SourcePair(
+        String first,
+        String second,
+        long collisions
+    ) {}
+}
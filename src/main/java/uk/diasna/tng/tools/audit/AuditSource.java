@@ -0,0 +1,27 @@
+package uk.diasna.tng.tools.audit;
+
+import java.util.List;
+
+/**
+ * A named place tracking numbers are read from, e.g. one database node or shard, or an archive export
+ * Each source is cut into splits that are read in parallel
+ */
+interface AuditSource {
+    
+    String name();
+    
+    List<Split> splits() throws Exception;
+    
+    interface Split {
+        
+        String description();
+        
+        void read(Sink sink) throws Exception;
+    }
+    
+    @FunctionalInterface
+    interface Sink {
+        
+        void accept(CharSequence trackingNumber) throws Exception;
+    }
+}
@@ -0,0 +1,231 @@
+package uk.diasna.tng.tools.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline duplicate audit across database nodes, shards and exported archives
+ * Every source is streamed into fixed-width binary keys, sorted into run files in bounded memory,
+ * and the runs are merged so equal tracking numbers meet; exits 0 when clean, 2 when
+ * duplicates were found and 1 on error
+ *
+ * Usage: DuplicateAudit [--jdbc name=url]... [--file name=path]... [--work-dir dir] [--report-dir dir]
+ *        [--memory-records n] [--fan-in n] [--parallelism n] [--db-partitions n] [--db-user u] [--db-password p]
+ */
+public final class DuplicateAudit {
+    
+    static final int EXIT_CLEAN = 0;
+    static final int EXIT_ERROR = 1;
+    static final int EXIT_DUPLICATES = 2;
+    
+    private static final int SAMPLE_LIMIT = 1000;
+    
+    private final List<AuditSource> sources;
+    private final Path workDir;
+    private final Path reportDir;
+    private final long memoryRecords;
+    private final int fanIn;
+    private final int parallelism;
+    private final PrintStream out;
+    private int mergePasses;
+    private int runs;
+    
+    DuplicateAudit(List<AuditSource> sources, Path workDir, Path reportDir, long memoryRecords,
+                   int fanIn, int parallelism, PrintStream out) {
+        if (sources.isEmpty() || sources.size() > TrackingNumberKey.MAX_SOURCES) {
+            throw new IllegalArgumentException("Between 1 and " + TrackingNumberKey.MAX_SOURCES + " sources are needed, got " + sources.size());
+        }
+        this.sources = sources;
+        this.workDir = workDir;
+        this.reportDir = reportDir;
+        this.memoryRecords = memoryRecords;
+        this.fanIn = fanIn;
+        this.parallelism = parallelism;
+        this.out = out;
+    }
+    
+    public static void main(String[] args) {
+        try {
+            Map<String, List<String>> options = options(args);
+            DuplicateAudit audit = new DuplicateAudit(
+                sources(options),
+                Path.of(option(options, "work-dir", "build/duplicate-audit/work")),
+                Path.of(option(options, "report-dir", "build/reports/duplicate-audit")),
+                Long.parseLong(option(options, "memory-records", String.valueOf(defaultMemoryRecords()))),
+                Integer.parseInt(option(options, "fan-in", "128")),
+                Integer.parseInt(option(options, "parallelism", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                System.out);
+            System.exit(audit.run().clean() ? EXIT_CLEAN : EXIT_DUPLICATES);
+        } catch (Exception e) {
+            System.err.println("Duplicate audit failed: " + e);
+            e.printStackTrace(System.err);
+            System.exit(EXIT_ERROR);
+        }
+    }
+    
+    AuditResult run() throws Exception {
+        Files.createDirectories(reportDir);
+        List<String> names = sources.stream().map(AuditSource::name).toList();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (BufferedWriter csv = Files.newBufferedWriter(reportDir.resolve("duplicates.csv"), StandardCharsets.US_ASCII)) {
+            DuplicateCollector collector = new DuplicateCollector(names, csv, SAMPLE_LIMIT);
+            
+            long start = System.nanoTime();
+            List<Path> sortedRuns = sortRuns(collector, pool);
+            runs = sortedRuns.size();
+            long sorted = System.nanoTime();
+            out.printf("Sorted into %d runs in %s%n", runs, Duration.ofNanos(sorted - start));
+            
+            RunMerger merger = new RunMerger(workDir, fanIn, pool);
+            merger.merge(sortedRuns, collector);
+            mergePasses = merger.passes();
+            AuditResult result = collector.finish();
+            out.printf("Merged in %s with %d intermediate passes%n", Duration.ofNanos(System.nanoTime() - sorted), mergePasses);
+            
+            print(result);
+            writeJson(result);
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Read every split on its own thread; each thread fills a borrowed buffer and spills it when full
+     */
+    private List<Path> sortRuns(DuplicateCollector collector, ForkJoinPool pool) throws Exception {
+        ExternalSorter sorter = new ExternalSorter(workDir, memoryRecords, parallelism, pool);
+        AtomicLong read = new AtomicLong();
+        List<Future<?>> pending = new ArrayList<>();
+        try (ExecutorService readers = Executors.newFixedThreadPool(parallelism)) {
+            for (int source = 0; source < sources.size(); source++) {
+                int sourceId = source;
+                for (AuditSource.Split split : sources.get(source).splits()) {
+                    pending.add(readers.submit(() -> {
+                        long count = readSplit(split, sourceId, sorter, collector);
+                        out.printf("Read %d from %s (%d so far)%n", count, split.description(), read.addAndGet(count));
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        }
+        return sorter.finish();
+    }
+    
+    private static long readSplit(AuditSource.Split split, int source, ExternalSorter sorter,
+                                  DuplicateCollector collector) throws Exception {
+        SortBuffer buffer = sorter.borrow();
+        long[] count = new long[1];
+        try {
+            split.read(trackingNumber -> {
+                count[0]++;
+                long high = TrackingNumberKey.high(trackingNumber);
+                if (high == -1) {
+                    collector.malformed(source);
+                } else if (buffer.add(high, TrackingNumberKey.low(trackingNumber, source))) {
+                    sorter.spill(buffer);
+                }
+            });
+        } finally {
+            sorter.release(buffer);
+        }
+        return count[0];
+    }
+    
+    private void print(AuditResult result) {
+        out.printf("%n%-24s %14s %10s %12s %14s %14s%n", "Source", "records", "malformed", "duplicated", "within source", "cross source");
+        for (AuditResult.SourceResult source : result.sources()) {
+            out.printf("%-24s %14d %10d %12d %14d %14d%n", source.name(), source.records(), source.malformed(),
+                       source.duplicated(), source.withinSource(), source.crossSource());
+        }
+        for (AuditResult.SourcePair pair : result.crossSourceCollisions()) {
+            out.printf("%s <-> %s: %d shared tracking numbers%n", pair.first(), pair.second(), pair.collisions());
+        }
+        out.printf("%n%d records, %d duplicated tracking numbers, %d extra copies: %s%n", result.records(),
+                   result.duplicateGroups(), result.extraCopies(), result.clean() ? "CLEAN" : "DUPLICATES FOUND");
+    }
+    
+    private void writeJson(AuditResult result) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("clean", result.clean());
+        report.put("records", result.records());
+        report.put("duplicate_tracking_numbers", result.duplicateGroups());
+        report.put("extra_copies", result.extraCopies());
+        report.put("sources", result.sources());
+        report.put("cross_source_collisions", result.crossSourceCollisions());
+        report.put("runs", runs);
+        report.put("merge_passes", mergePasses);
+        report.put("samples", result.samples());
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(reportDir.resolve("duplicate-audit.json").toFile(), report);
+    }
+    
+    private static List<AuditSource> sources(Map<String, List<String>> options) {
+        String user = option(options, "db-user", System.getenv().getOrDefault("DB_USERNAME", "postgres"));
+        String password = option(options, "db-password", System.getenv().getOrDefault("DB_PASSWORD", ""));
+        int partitions = Integer.parseInt(option(options, "db-partitions", "16"));
+        
+        List<AuditSource> sources = new ArrayList<>();
+        for (String jdbc : options.getOrDefault("jdbc", List.of())) {
+            String[] nameAndUrl = namedValue(jdbc);
+            sources.add(new JdbcSource(nameAndUrl[0], nameAndUrl[1], user, password, partitions));
+        }
+        for (String file : options.getOrDefault("file", List.of())) {
+            String[] nameAndPath = namedValue(file);
+            sources.add(new FileSource(nameAndPath[0], Path.of(nameAndPath[1])));
+        }
+        return sources;
+    }
+    
+    /**
+     * About a quarter of the heap, at 24 bytes a record
+     */
+    private static long defaultMemoryRecords() {
+        return Runtime.getRuntime().maxMemory() / 4 / SortBuffer.BYTES_PER_RECORD;
+    }
+    
+    private static String[] namedValue(String value) {
+        int separator = value.indexOf('=');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Expected name=value, got " + value);
+        }
+        return new String[] {value.substring(0, separator), value.substring(separator + 1)};
+    }
+    
+    private static String option(Map<String, List<String>> options, String name, String defaultValue) {
+        List<String> values = options.get(name);
+        return values == null ? defaultValue : values.get(values.size() - 1);
+    }
+    
+    private static Map<String, List<String>> options(String[] args) {
+        Map<String, List<String>> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.computeIfAbsent(args[i].substring(2), key -> new ArrayList<>()).add(args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,150 @@
+package uk.diasna.tng.tools.audit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumes records in key order and tallies the runs of equal tracking numbers
+ * Only the current group is held in memory; every duplicate goes to the CSV writer and the
+ * first sampleLimit are kept for the JSON report
+ */
+final class DuplicateCollector implements RunMerger.RecordConsumer {
+    
+    private final List<String> sourceNames;
+    private final Writer csv;
+    private final int sampleLimit;
+    private final SourceStats[] sources;
+    private final Map<Long, Long> crossSourcePairs = new HashMap<>();
+    private final List<Duplicate> samples = new ArrayList<>();
+    private final int[] groupCounts;
+    private final int[] groupSources;
+    private int groupDistinctSources;
+    private long groupHigh;
+    private int groupLow;
+    private int groupSize;
+    private long records;
+    private long duplicateGroups;
+    private long extraCopies;
+    
+    DuplicateCollector(List<String> sourceNames, Writer csv, int sampleLimit) throws IOException {
+        this.sourceNames = sourceNames;
+        this.csv = csv;
+        this.sampleLimit = sampleLimit;
+        this.sources = new SourceStats[sourceNames.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = new SourceStats();
+        }
+        this.groupCounts = new int[sourceNames.size()];
+        this.groupSources = new int[sourceNames.size()];
+        csv.write("tracking_number,copies,sources\n");
+    }
+    
+    @Override
+    public void accept(long high, int low) throws IOException {
+        records++;
+        if (groupSize > 0 && !TrackingNumberKey.sameTrackingNumber(groupHigh, groupLow, high, low)) {
+            closeGroup();
+        }
+        if (groupSize == 0) {
+            groupHigh = high;
+            groupLow = low;
+        }
+        int source = TrackingNumberKey.source(low);
+        if (groupCounts[source]++ == 0) {
+            groupSources[groupDistinctSources++] = source;
+        }
+        groupSize++;
+        sources[source].records++;
+    }
+    
+    /**
+     * Count a line that could not be decoded into a tracking number
+     */
+    void malformed(int source) {
+        synchronized (sources[source]) {
+            sources[source].malformed++;
+        }
+    }
+    
+    /**
+     * Close the last group; call once after the merge
+     */
+    AuditResult finish() throws IOException {
+        if (groupSize > 0) {
+            closeGroup();
+        }
+        csv.flush();
+        
+        List<AuditResult.SourceResult> perSource = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            SourceStats stats = sources[i];
+            perSource.add(new AuditResult.SourceResult(sourceNames.get(i), stats.records, stats.malformed,
+                                                       stats.duplicated, stats.withinSource, stats.crossSource));
+        }
+        List<AuditResult.SourcePair> pairs = crossSourcePairs.entrySet().stream()
+            .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+            .map(entry -> new AuditResult.SourcePair(sourceNames.get((int) (entry.getKey() >>> 32)),
+                                                     sourceNames.get(entry.getKey().intValue()), entry.getValue()))
+            .toList();
+        return new AuditResult(records, duplicateGroups, extraCopies, perSource, pairs, List.copyOf(samples));
+    }
+    
+    private void closeGroup() throws IOException {
+        if (groupSize > 1) {
+            duplicateGroups++;
+            extraCopies += groupSize - 1;
+            Arrays.sort(groupSources, 0, groupDistinctSources);
+            
+            StringBuilder line = new StringBuilder(64);
+            String trackingNumber = TrackingNumberKey.toTrackingNumber(groupHigh, groupLow);
+            line.append(trackingNumber).append(',').append(groupSize).append(',');
+            Map<String, Integer> copies = new HashMap<>();
+            for (int i = 0; i < groupDistinctSources; i++) {
+                int source = groupSources[i];
+                int count = groupCounts[source];
+                SourceStats stats = sources[source];
+                stats.duplicated++;
+                stats.withinSource += count - 1;
+                if (groupDistinctSources > 1) {
+                    stats.crossSource++;
+                    for (int j = i + 1; j < groupDistinctSources; j++) {
+                        crossSourcePairs.merge((long) source << 32 | groupSources[j], 1L, Long::sum);
+                    }
+                }
+                line.append(i == 0 ? "" : ";").append(sourceNames.get(source)).append(':').append(count);
+                copies.put(sourceNames.get(source), count);
+            }
+            csv.write(line.append('\n').toString());
+            if (samples.size() < sampleLimit) {
+                samples.add(new Duplicate(trackingNumber, groupSize, copies));
+            }
+        }
+        for (int i = 0; i < groupDistinctSources; i++) {
+            groupCounts[groupSources[i]] = 0;
+        }
+        groupDistinctSources = 0;
+        groupSize = 0;
+    }
+    
+    private static final class SourceStats {
+        private long records;
+        private long malformed;
+        private long duplicated;
+        private long withinSource;
+        private long crossSource;
+    }
+    
+    /**
+     * One duplicated tracking number and how many copies each source holds
+     */
+    record Duplicate(
+        String trackingNumber,
+        int copies,
+        Map<String, Integer> sources
+    ) {}
+}
@@ -0,0 +1,74 @@
+package uk.diasna.tng.tools.audit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects records from concurrent readers into sorted run files
+ * Memory is split into one buffer per reader thread, so at most memoryRecords records are
+ * held at once however many records the sources produce; a full buffer is sorted on the
+ * fork-join pool and spilled before its reader continues
+ */
+final class ExternalSorter {
+    
+    private final Path workDir;
+    private final RunSorter sorter;
+    private final BlockingQueue<SortBuffer> buffers;
+    private final List<Path> runs = new ArrayList<>();
+    private final AtomicInteger runSequence = new AtomicInteger();
+    
+    ExternalSorter(Path workDir, long memoryRecords, int readers, ForkJoinPool pool) throws IOException {
+        long perReader = memoryRecords / readers;
+        if (perReader < 1 || perReader > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("memory records per reader must be between 1 and 2^31, got " + perReader);
+        }
+        this.workDir = Files.createDirectories(workDir);
+        this.sorter = new RunSorter(pool);
+        this.buffers = new ArrayBlockingQueue<>(readers);
+        for (int i = 0; i < readers; i++) {
+            buffers.add(new SortBuffer((int) perReader));
+        }
+    }
+    
+    /**
+     * Take a buffer for the calling reader, blocking until one is free
+     */
+    SortBuffer borrow() throws InterruptedException {
+        return buffers.take();
+    }
+    
+    void release(SortBuffer buffer) {
+        buffers.add(buffer);
+    }
+    
+    void spill(SortBuffer buffer) throws IOException {
+        Path run = workDir.resolve("run-0-" + runSequence.getAndIncrement() + ".bin");
+        buffer.spill(sorter, run);
+        synchronized (runs) {
+            runs.add(run);
+        }
+    }
+    
+    /**
+     * Spill whatever the buffers still hold and return every run written
+     * Call once all readers have released their buffers
+     */
+    List<Path> finish() throws IOException {
+        for (SortBuffer buffer : buffers) {
+            if (!buffer.isEmpty()) {
+                spill(buffer);
+            }
+        }
+        buffers.clear();
+        synchronized (runs) {
+            return List.copyOf(runs);
+        }
+    }
+}
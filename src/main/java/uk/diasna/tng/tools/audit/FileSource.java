@@ -0,0 +1,150 @@
+package uk.diasna.tng.tools.audit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads exported tracking numbers from a file, or from every file in a directory
+ * Formats by extension, optionally gzipped: .csv (tracking_number column, or the first column
+ * without a header), .ndjson/.jsonl (tracking_number field), anything else one per line
+ */
+final class FileSource implements AuditSource {
+    
+    private static final String FIELD = "tracking_number";
+    
+    private final String name;
+    private final Path path;
+    
+    FileSource(String name, Path path) {
+        this.name = name;
+        this.path = path;
+    }
+    
+    @Override
+    public String name() {
+        return name;
+    }
+    
+    @Override
+    public List<Split> splits() throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(new ExportFile(path));
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            List<Split> splits = new ArrayList<>();
+            files.filter(Files::isRegularFile).sorted().forEach(file -> splits.add(new ExportFile(file)));
+            return splits;
+        }
+    }
+    
+    private record ExportFile(Path file) implements Split {
+        
+        @Override
+        public String description() {
+            return file.toString();
+        }
+        
+        @Override
+        public void read(Sink sink) throws Exception {
+            String fileName = file.getFileName().toString().toLowerCase();
+            boolean gzipped = fileName.endsWith(".gz");
+            if (gzipped) {
+                fileName = fileName.substring(0, fileName.length() - 3);
+            }
+            
+            InputStream in = Files.newInputStream(file);
+            if (gzipped) {
+                in = new GZIPInputStream(in, 1 << 16);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII), 1 << 16)) {
+                if (fileName.endsWith(".csv")) {
+                    readCsv(reader, sink);
+                } else if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+                    readJsonLines(reader, sink);
+                } else {
+                    readLines(reader, sink);
+                }
+            }
+        }
+        
+        private static void readCsv(BufferedReader reader, Sink sink) throws Exception {
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
+            String[] columns = header.split(",", -1);
+            int column = -1;
+            for (int i = 0; i < columns.length; i++) {
+                if (unquote(columns[i]).equalsIgnoreCase(FIELD)) {
+                    column = i;
+                }
+            }
+            if (column < 0) {
+                // No header, the tracking number is the first column
+                column = 0;
+                sink.accept(unquote(columns[0]));
+            }
+            
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    sink.accept(unquote(field(line, column)));
+                }
+            }
+        }
+        
+        private static void readJsonLines(BufferedReader reader, Sink sink) throws Exception {
+            String key = "\"" + FIELD + "\"";
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int at = line.indexOf(key);
+                if (at < 0) {
+                    if (!line.isBlank()) {
+                        sink.accept("");
+                    }
+                    continue;
+                }
+                int open = line.indexOf('"', line.indexOf(':', at + key.length()) + 1);
+                int close = open < 0 ? -1 : line.indexOf('"', open + 1);
+                sink.accept(close < 0 ? "" : line.substring(open + 1, close));
+            }
+        }
+        
+        private static void readLines(BufferedReader reader, Sink sink) throws Exception {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    sink.accept(line.strip());
+                }
+            }
+        }
+        
+        private static String field(String line, int column) {
+            int start = 0;
+            for (int i = 0; i < column; i++) {
+                start = line.indexOf(',', start) + 1;
+                if (start == 0) {
+                    return "";
+                }
+            }
+            int end = line.indexOf(',', start);
+            return end < 0 ? line.substring(start) : line.substring(start, end);
+        }
+        
+        private static String unquote(String value) {
+            String trimmed = value.strip();
+            return trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")
+                ? trimmed.substring(1, trimmed.length() - 1)
+                : trimmed;
+        }
+    }
+}
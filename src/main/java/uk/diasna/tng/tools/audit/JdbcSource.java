@@ -0,0 +1,103 @@
+package uk.diasna.tng.tools.audit;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams tracking_numbers from one database in id ranges, one connection per range
+ * Autocommit is off so the PostgreSQL driver honours the fetch size and uses a cursor
+ * rather than loading the whole result
+ */
+final class JdbcSource implements AuditSource {
+    
+    private static final int FETCH_SIZE = 10_000;
+    
+    private final String name;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int partitions;
+    
+    JdbcSource(String name, String url, String username, String password, int partitions) {
+        this.name = name;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.partitions = partitions;
+    }
+    
+    @Override
+    public String name() {
+        return name;
+    }
+    
+    @Override
+    public List<Split> splits() throws SQLException {
+        long minId;
+        long maxId;
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet bounds = statement.executeQuery("SELECT MIN(id), MAX(id) FROM tracking_numbers")) {
+            bounds.next();
+            minId = bounds.getLong(1);
+            maxId = bounds.getLong(2);
+            if (bounds.wasNull()) {
+                return List.of();
+            }
+        }
+        
+        long span = Math.max(1, (maxId - minId + partitions) / partitions);
+        List<Split> splits = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += span) {
+            splits.add(new Range(from, Math.min(maxId, from + span - 1)));
+        }
+        return splits;
+    }
+    
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, username, password);
+    }
+    
+    private final class Range implements Split {
+        private final long fromId;
+        private final long toId;
+        
+        Range(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+        
+        @Override
+        public String description() {
+            return name + " ids " + fromId + ".." + toId;
+        }
+        
+        @Override
+        public void read(Sink sink) throws Exception {
+            try (Connection connection = connect()) {
+                connection.setAutoCommit(false);
+                connection.setReadOnly(true);
+                try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT tracking_number FROM tracking_numbers WHERE id BETWEEN ? AND ?",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(FETCH_SIZE);
+                    statement.setLong(1, fromId);
+                    statement.setLong(2, toId);
+                    try (ResultSet rows = statement.executeQuery()) {
+                        while (rows.next()) {
+                            sink.accept(rows.getString(1));
+                        }
+                    }
+                } finally {
+                    connection.rollback();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package uk.diasna.tng.tools.audit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sorted runs on disk: 12-byte big-endian records (high long, low int), nothing else
+ */
+final class RunFiles {
+    
+    private static final int BUFFER_BYTES = 1 << 20;
+    
+    private RunFiles() {}
+    
+    static Writer write(Path path) throws IOException {
+        return new Writer(path);
+    }
+    
+    static Reader read(Path path) throws IOException {
+        return new Reader(path);
+    }
+    
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        
+        private Writer(Path path) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_BYTES));
+        }
+        
+        void write(long high, int low) throws IOException {
+            out.writeLong(high);
+            out.writeInt(low);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+    
+    /**
+     * Cursor over a run; call next() before reading the first record
+     */
+    static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private long remaining;
+        private long high;
+        private int low;
+        
+        private Reader(Path path) throws IOException {
+            this.remaining = Files.size(path) / TrackingNumberKey.RECORD_BYTES;
+            // Many runs are open at once during a merge, so each gets a smaller buffer
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES / 8));
+        }
+        
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            try {
+                high = in.readLong();
+                low = in.readInt();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            remaining--;
+            return true;
+        }
+        
+        long high() {
+            return high;
+        }
+        
+        int low() {
+            return low;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
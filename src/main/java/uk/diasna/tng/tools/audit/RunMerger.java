@@ -0,0 +1,129 @@
+package uk.diasna.tng.tools.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * K-way merge of sorted runs
+ * While there are more runs than the fan-in, groups of fanIn runs are merged into intermediate
+ * runs in parallel on the fork-join pool; the last pass streams into the consumer in order
+ */
+final class RunMerger {
+    
+    private final Path workDir;
+    private final int fanIn;
+    private final ForkJoinPool pool;
+    private int pass;
+    
+    RunMerger(Path workDir, int fanIn, ForkJoinPool pool) {
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("fan-in must be at least 2, got " + fanIn);
+        }
+        this.workDir = workDir;
+        this.fanIn = fanIn;
+        this.pool = pool;
+    }
+    
+    /**
+     * Number of intermediate passes the last merge needed
+     */
+    int passes() {
+        return pass;
+    }
+    
+    void merge(List<Path> runs, RecordConsumer consumer) throws IOException {
+        List<Path> current = runs;
+        while (current.size() > fanIn) {
+            current = mergePass(current);
+        }
+        mergeInto(current, consumer);
+        deleteAll(current);
+    }
+    
+    private List<Path> mergePass(List<Path> runs) throws IOException {
+        pass++;
+        List<GroupMerge> groups = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += fanIn) {
+            List<Path> group = runs.subList(from, Math.min(from + fanIn, runs.size()));
+            groups.add(new GroupMerge(group, workDir.resolve("run-" + pass + "-" + groups.size() + ".bin")));
+        }
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(groups);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        deleteAll(runs);
+        return groups.stream().map(group -> group.output).toList();
+    }
+    
+    private static void mergeInto(List<Path> runs, RecordConsumer consumer) throws IOException {
+        PriorityQueue<RunFiles.Reader> heap = new PriorityQueue<>(Math.max(1, runs.size()),
+            (a, b) -> TrackingNumberKey.compare(a.high(), a.low(), b.high(), b.low()));
+        try {
+            for (Path run : runs) {
+                RunFiles.Reader reader = RunFiles.read(run);
+                if (reader.next()) {
+                    heap.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            while (!heap.isEmpty()) {
+                RunFiles.Reader smallest = heap.poll();
+                consumer.accept(smallest.high(), smallest.low());
+                if (smallest.next()) {
+                    heap.add(smallest);
+                } else {
+                    smallest.close();
+                }
+            }
+        } finally {
+            for (RunFiles.Reader reader : heap) {
+                reader.close();
+            }
+        }
+    }
+    
+    private static void deleteAll(List<Path> runs) throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+    }
+    
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(long high, int low) throws IOException;
+    }
+    
+    private static final class GroupMerge extends RecursiveAction {
+        private final List<Path> inputs;
+        private final Path output;
+        
+        GroupMerge(List<Path> inputs, Path output) {
+            this.inputs = List.copyOf(inputs);
+            this.output = output;
+        }
+        
+        @Override
+        protected void compute() {
+            try (RunFiles.Writer writer = RunFiles.write(output)) {
+                mergeInto(inputs, writer::write);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
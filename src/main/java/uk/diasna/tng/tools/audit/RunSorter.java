@@ -0,0 +1,107 @@
+package uk.diasna.tng.tools.audit;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel merge sort of records held as parallel high/low arrays
+ * Halves are sorted as fork-join subtasks down to SEQUENTIAL_THRESHOLD and merged through scratch arrays
+ */
+final class RunSorter {
+    
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+    private static final int INSERTION_THRESHOLD = 32;
+    
+    private final ForkJoinPool pool;
+    
+    RunSorter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Sort the first count records; the scratch arrays must hold at least count records
+     */
+    void sort(long[] high, int[] low, long[] scratchHigh, int[] scratchLow, int count) {
+        pool.invoke(new SortTask(high, low, scratchHigh, scratchLow, 0, count));
+    }
+    
+    private static final class SortTask extends RecursiveAction {
+        private final long[] high;
+        private final int[] low;
+        private final long[] scratchHigh;
+        private final int[] scratchLow;
+        private final int from;
+        private final int to;
+        
+        SortTask(long[] high, int[] low, long[] scratchHigh, int[] scratchLow, int from, int to) {
+            this.high = high;
+            this.low = low;
+            this.scratchHigh = scratchHigh;
+            this.scratchLow = scratchLow;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                sortSequential(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(high, low, scratchHigh, scratchLow, from, middle),
+                      new SortTask(high, low, scratchHigh, scratchLow, middle, to));
+            merge(from, middle, to);
+        }
+        
+        private void sortSequential(int start, int end) {
+            if (end - start <= INSERTION_THRESHOLD) {
+                insertionSort(start, end);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            sortSequential(start, middle);
+            sortSequential(middle, end);
+            merge(start, middle, end);
+        }
+        
+        private void insertionSort(int start, int end) {
+            for (int i = start + 1; i < end; i++) {
+                long h = high[i];
+                int l = low[i];
+                int j = i - 1;
+                while (j >= start && TrackingNumberKey.compare(high[j], low[j], h, l) > 0) {
+                    high[j + 1] = high[j];
+                    low[j + 1] = low[j];
+                    j--;
+                }
+                high[j + 1] = h;
+                low[j + 1] = l;
+            }
+        }
+        
+        private void merge(int start, int middle, int end) {
+            if (TrackingNumberKey.compare(high[middle - 1], low[middle - 1], high[middle], low[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(high, start, scratchHigh, start, middle - start);
+            System.arraycopy(low, start, scratchLow, start, middle - start);
+            int left = start;
+            int right = middle;
+            int target = start;
+            while (left < middle && right < end) {
+                if (TrackingNumberKey.compare(scratchHigh[left], scratchLow[left], high[right], low[right]) <= 0) {
+                    high[target] = scratchHigh[left];
+                    low[target++] = scratchLow[left++];
+                } else {
+                    high[target] = high[right];
+                    low[target++] = low[right++];
+                }
+            }
+            while (left < middle) {
+                high[target] = scratchHigh[left];
+                low[target++] = scratchLow[left++];
+            }
+        }
+    }
+}
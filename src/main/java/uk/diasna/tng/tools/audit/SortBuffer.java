@@ -0,0 +1,51 @@
+package uk.diasna.tng.tools.audit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Fixed-size in-memory run; 24 bytes a record including the merge sort's scratch space
+ */
+final class SortBuffer {
+    
+    static final int BYTES_PER_RECORD = 2 * TrackingNumberKey.RECORD_BYTES;
+    
+    private final long[] high;
+    private final int[] low;
+    private final long[] scratchHigh;
+    private final int[] scratchLow;
+    private int count;
+    
+    SortBuffer(int capacity) {
+        this.high = new long[capacity];
+        this.low = new int[capacity];
+        this.scratchHigh = new long[capacity];
+        this.scratchLow = new int[capacity];
+    }
+    
+    /**
+     * Add a record and report whether the buffer is now full
+     */
+    boolean add(long recordHigh, int recordLow) {
+        high[count] = recordHigh;
+        low[count] = recordLow;
+        return ++count == high.length;
+    }
+    
+    boolean isEmpty() {
+        return count == 0;
+    }
+    
+    /**
+     * Sort the buffered records into a run file and empty the buffer
+     */
+    void spill(RunSorter sorter, Path run) throws IOException {
+        sorter.sort(high, low, scratchHigh, scratchLow, count);
+        try (RunFiles.Writer writer = RunFiles.write(run)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(high[i], low[i]);
+            }
+        }
+        count = 0;
+    }
+}
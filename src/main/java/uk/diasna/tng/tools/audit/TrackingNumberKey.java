@@ -0,0 +1,97 @@
+package uk.diasna.tng.tools.audit;
+
+/**
+ * Fixed-width binary form of a tracking number for sorting
+ * Both 8-character base-36 halves fit in 42 bits; with a 12-bit source ID appended the
+ * record is 96 bits, held as an unsigned long (high) and an unsigned int (low), so that
+ * records sort by tracking number first and equal tracking numbers sit next to each other
+ */
+final class TrackingNumberKey {
+    
+    static final int LENGTH = 16;
+    static final int SOURCE_BITS = 12;
+    static final int MAX_SOURCES = 1 << SOURCE_BITS;
+    static final int RECORD_BYTES = Long.BYTES + Integer.BYTES;
+    
+    private static final int HALF_LENGTH = 8;
+    private static final int RADIX = 36;
+    private static final int LOW_RANDOM_BITS = 20;
+    private static final long LOW_RANDOM_MASK = (1L << LOW_RANDOM_BITS) - 1;
+    private static final int SOURCE_MASK = MAX_SOURCES - 1;
+    private static final String DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    
+    private TrackingNumberKey() {}
+    
+    /**
+     * High 64 bits of the record, or -1 when the tracking number is malformed
+     * (-1 is never a valid high word since both halves are below 36^8)
+     */
+    static long high(CharSequence trackingNumber) {
+        if (trackingNumber.length() != LENGTH) {
+            return -1;
+        }
+        long timestampPart = decodeHalf(trackingNumber, 0);
+        long randomPart = decodeHalf(trackingNumber, HALF_LENGTH);
+        if (timestampPart < 0 || randomPart < 0) {
+            return -1;
+        }
+        return timestampPart << (64 - 42) | randomPart >>> LOW_RANDOM_BITS;
+    }
+    
+    /**
+     * Low 32 bits of the record for a tracking number already accepted by {@link #high}
+     */
+    static int low(CharSequence trackingNumber, int source) {
+        long randomPart = decodeHalf(trackingNumber, HALF_LENGTH);
+        return (int) ((randomPart & LOW_RANDOM_MASK) << SOURCE_BITS) | source;
+    }
+    
+    static int source(int low) {
+        return low & SOURCE_MASK;
+    }
+    
+    static boolean sameTrackingNumber(long high, int low, long otherHigh, int otherLow) {
+        return high == otherHigh && (low >>> SOURCE_BITS) == (otherLow >>> SOURCE_BITS);
+    }
+    
+    static int compare(long high, int low, long otherHigh, int otherLow) {
+        int byHigh = Long.compareUnsigned(high, otherHigh);
+        return byHigh != 0 ? byHigh : Integer.compareUnsigned(low, otherLow);
+    }
+    
+    static String toTrackingNumber(long high, int low) {
+        long timestampPart = high >>> (64 - 42);
+        long randomPart = (high & ((1L << (64 - 42)) - 1)) << LOW_RANDOM_BITS | (low >>> SOURCE_BITS);
+        char[] chars = new char[LENGTH];
+        encodeHalf(timestampPart, chars, 0);
+        encodeHalf(randomPart, chars, HALF_LENGTH);
+        return new String(chars);
+    }
+    
+    /**
+     * Characters are least significant first, as TrackingNumberGenerator writes them
+     */
+    private static long decodeHalf(CharSequence value, int offset) {
+        long result = 0;
+        for (int i = HALF_LENGTH - 1; i >= 0; i--) {
+            char c = value.charAt(offset + i);
+            int digit;
+            if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A';
+            } else if (c >= '0' && c <= '9') {
+                digit = 26 + c - '0';
+            } else {
+                return -1;
+            }
+            result = result * RADIX + digit;
+        }
+        return result;
+    }
+    
+    private static void encodeHalf(long value, char[] target, int offset) {
+        for (int i = 0; i < HALF_LENGTH; i++) {
+            target[offset + i] = DIGITS.charAt((int) (value % RADIX));
+            value /= RADIX;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package uk.diasna.tng.tools.backfill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Backfills legacy tracking numbers from CSV or NDJSON exports into tracking_numbers
+ * Files are cut into byte-range segments that parallel workers validate and stream in with COPY;
+ * progress is checkpointed per segment in import_checkpoints, so rerunning with the same files and
+ * segment size resumes where the last run stopped; exits 0 when every row was imported, 2 when
+ * some were rejected (see the .rejected.csv files) and 1 on error
+ *
+ * Usage: BackfillImport --jdbc url --file path [--file path]... [--workers n] [--batch-size n]
+ *        [--segment-mb n] [--report-dir dir] [--db-user u] [--db-password p]
+ */
+public final class BackfillImport {
+    
+    static final int EXIT_IMPORTED = 0;
+    static final int EXIT_ERROR = 1;
+    static final int EXIT_REJECTED = 2;
+    
+    private final String url;
+    private final String username;
+    private final String password;
+    private final List<Path> files;
+    private final Path reportDir;
+    private final int workers;
+    private final int batchSize;
+    private final long segmentBytes;
+    private final PrintStream out;
+    
+    BackfillImport(String url, String username, String password, List<Path> files, Path reportDir,
+                   int workers, int batchSize, long segmentBytes, PrintStream out) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No input files");
+        }
+        Set<Path> names = new HashSet<>();
+        for (Path file : files) {
+            if (!names.add(file.getFileName())) {
+                throw new IllegalArgumentException("Input file names must be unique, their rejected rows share a file: " + file);
+            }
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.files = files;
+        this.reportDir = reportDir;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.segmentBytes = segmentBytes;
+        this.out = out;
+    }
+    
+    public static void main(String[] args) {
+        try {
+            Map<String, List<String>> options = options(args);
+            String url = option(options, "jdbc", null);
+            if (url == null) {
+                throw new IllegalArgumentException("--jdbc is required");
+            }
+            BackfillImport backfill = new BackfillImport(
+                url,
+                option(options, "db-user", System.getenv().getOrDefault("DB_USERNAME", "postgres")),
+                option(options, "db-password", System.getenv().getOrDefault("DB_PASSWORD", "")),
+                inputFiles(options.getOrDefault("file", List.of())),
+                Path.of(option(options, "report-dir", "build/reports/backfill")),
+                Integer.parseInt(option(options, "workers", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(option(options, "batch-size", "50000")),
+                Long.parseLong(option(options, "segment-mb", "256")) << 20,
+                System.out);
+            ImportProgress progress = backfill.run();
+            System.exit(progress.invalid() + progress.conflicts() == 0 ? EXIT_IMPORTED : EXIT_REJECTED);
+        } catch (Exception e) {
+            System.err.println("Backfill import failed: " + e);
+            e.printStackTrace(System.err);
+            System.exit(EXIT_ERROR);
+        }
+    }
+    
+    ImportProgress run() throws Exception {
+        Map<Path, RowFormat> formats = new LinkedHashMap<>();
+        Queue<ImportSegment> segments = new ConcurrentLinkedQueue<>();
+        for (Path file : files) {
+            formats.put(file, RowFormat.forFile(file));
+            segments.addAll(ImportSegment.plan(file, segmentBytes));
+        }
+        out.printf("Importing %d files in %d segments with %d workers%n", files.size(), segments.size(), workers);
+        
+        ImportProgress progress = new ImportProgress(out, segments.size());
+        AtomicBoolean stopped = new AtomicBoolean();
+        try (RejectLog rejectLog = new RejectLog(reportDir.resolve("rejected"));
+             ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            progress.start();
+            List<Future<Void>> pending = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                pending.add(executor.submit(new ImportWorker(DriverManager.getConnection(url, username, password),
+                    segments, formats, rejectLog, progress, stopped, batchSize)));
+            }
+            Exception failure = null;
+            for (Future<Void> future : pending) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception cause ? cause : e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            progress.stop();
+        }
+        
+        print(progress);
+        writeJson(progress);
+        return progress;
+    }
+    
+    private void print(ImportProgress progress) {
+        double elapsed = progress.elapsedSeconds();
+        out.printf("%n%,d rows in %.1fs: %,d imported, %,d invalid, %,d conflicting%n", progress.total(), elapsed,
+                   progress.imported(), progress.invalid(), progress.conflicts());
+        out.printf("%,.0f rows/s on average, %,d rows/s at peak; %d segments imported, %d already complete%n",
+                   progress.total() / Math.max(elapsed, 0.001), progress.peakRowsPerSecond(),
+                   progress.segmentsDone(), progress.segmentsSkipped());
+        if (progress.invalid() + progress.conflicts() > 0) {
+            out.printf("Rejected rows are in %s%n", reportDir.resolve("rejected"));
+        }
+    }
+    
+    private void writeJson(ImportProgress progress) throws IOException {
+        double elapsed = progress.elapsedSeconds();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("files", files.stream().map(Path::toString).toList());
+        report.put("workers", workers);
+        report.put("batch_size", batchSize);
+        report.put("elapsed_seconds", elapsed);
+        report.put("rows", progress.total());
+        report.put("imported", progress.imported());
+        report.put("invalid", progress.invalid());
+        report.put("conflicts", progress.conflicts());
+        report.put("segments_imported", progress.segmentsDone());
+        report.put("segments_already_complete", progress.segmentsSkipped());
+        report.put("average_rows_per_second", progress.total() / Math.max(elapsed, 0.001));
+        report.put("peak_rows_per_second", progress.peakRowsPerSecond());
+        report.put("rows_per_second", progress.rowsPerSecond());
+        Files.createDirectories(reportDir);
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(reportDir.resolve("backfill-import.json").toFile(), report);
+    }
+    
+    /**
+     * Files as given, and the exports directly inside any directory given
+     */
+    static List<Path> inputFiles(List<String> paths) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String value : paths) {
+            Path path = Path.of(value);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    children.filter(BackfillImport::isExport).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+    
+    private static boolean isExport(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return Files.isRegularFile(file) && (name.endsWith(".csv") || name.endsWith(".ndjson") || name.endsWith(".jsonl"));
+    }
+    
+    private static String option(Map<String, List<String>> options, String name, String defaultValue) {
+        List<String> values = options.get(name);
+        return values == null ? defaultValue : values.get(values.size() - 1);
+    }
+    
+    private static Map<String, List<String>> options(String[] args) {
+        Map<String, List<String>> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.computeIfAbsent(args[i].substring(2), key -> new ArrayList<>()).add(args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,68 @@
+package uk.diasna.tng.tools.backfill;
+
+import uk.diasna.tng.dto.TrackingNumberRequest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rows encoded in COPY's text format: tab-separated, backslash-escaped, \N for null
+ */
+final class CopyBuffer {
+    
+    static final String COLUMNS = "source_offset, tracking_number, origin_country_id, destination_country_id, "
+        + "weight, customer_id, customer_name, customer_slug, created_at";
+    
+    private final StringBuilder text;
+    private int rows;
+    
+    CopyBuffer(int expectedRows) {
+        this.text = new StringBuilder(expectedRows * 160);
+    }
+    
+    void add(RowValidator.ImportRow row) {
+        TrackingNumberRequest request = row.request();
+        text.append(row.offset()).append('\t')
+            .append(row.trackingNumber()).append('\t')
+            .append(request.originCountryId()).append('\t')
+            .append(request.destinationCountryId()).append('\t')
+            .append(request.weight().toPlainString()).append('\t')
+            .append(request.customerId()).append('\t');
+        appendEscaped(request.customerName());
+        text.append('\t');
+        appendEscaped(request.customerSlug());
+        text.append('\t');
+        if (row.createdAt() == null) {
+            text.append("\\N");
+        } else {
+            text.append(row.createdAt());
+        }
+        text.append('\n');
+        rows++;
+    }
+    
+    int rows() {
+        return rows;
+    }
+    
+    byte[] toBytes() {
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    void clear() {
+        text.setLength(0);
+        rows = 0;
+    }
+    
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> text.append("\\\\");
+                case '\t' -> text.append("\\t");
+                case '\n' -> text.append("\\n");
+                case '\r' -> text.append("\\r");
+                default -> text.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package uk.diasna.tng.tools.backfill;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Committed row counts shared by the workers, printed as rows per second once a second
+ */
+final class ImportProgress {
+    
+    private final LongAdder imported = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder segmentsDone = new LongAdder();
+    private final LongAdder segmentsSkipped = new LongAdder();
+    private final List<Long> rowsPerSecond = new ArrayList<>();
+    private final PrintStream out;
+    private final int segments;
+    private ScheduledExecutorService reporter;
+    private long startNanos;
+    private long lastTotal;
+    
+    ImportProgress(PrintStream out, int segments) {
+        this.out = out;
+        this.segments = segments;
+    }
+    
+    /**
+     * Count a committed batch: rows inserted, rows failing validation and rows whose tracking number already existed
+     */
+    void committed(long importedRows, long invalidRows, long conflictRows) {
+        imported.add(importedRows);
+        invalid.add(invalidRows);
+        conflicts.add(conflictRows);
+    }
+    
+    void segmentDone(boolean skipped) {
+        (skipped ? segmentsSkipped : segmentsDone).increment();
+    }
+    
+    void start() {
+        startNanos = System.nanoTime();
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backfill-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::report, 1, 1, TimeUnit.SECONDS);
+    }
+    
+    void stop() {
+        reporter.shutdownNow();
+    }
+    
+    private synchronized void report() {
+        long total = total();
+        long perSecond = total - lastTotal;
+        lastTotal = total;
+        rowsPerSecond.add(perSecond);
+        out.printf("%6ds %,12d rows/s | imported %,d, invalid %,d, conflicts %,d | segments %d/%d%n",
+                   rowsPerSecond.size(), perSecond, imported.sum(), invalid.sum(), conflicts.sum(),
+                   segmentsDone.sum() + segmentsSkipped.sum(), segments);
+    }
+    
+    long imported() {
+        return imported.sum();
+    }
+    
+    long invalid() {
+        return invalid.sum();
+    }
+    
+    long conflicts() {
+        return conflicts.sum();
+    }
+    
+    long total() {
+        return imported.sum() + invalid.sum() + conflicts.sum();
+    }
+    
+    long segmentsDone() {
+        return segmentsDone.sum();
+    }
+    
+    long segmentsSkipped() {
+        return segmentsSkipped.sum();
+    }
+    
+    double elapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+    
+    synchronized long peakRowsPerSecond() {
+        return rowsPerSecond.stream().mapToLong(Long::longValue).max().orElse(total());
+    }
+    
+    synchronized List<Long> rowsPerSecond() {
+        return List.copyOf(rowsPerSecond);
+    }
+}
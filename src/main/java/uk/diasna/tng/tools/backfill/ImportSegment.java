@@ -0,0 +1,38 @@
+package uk.diasna.tng.tools.backfill;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A byte range of an input file that one worker imports on its own
+ * A segment owns the lines that start inside [start, end); gzipped files cannot be split
+ * and form one segment whose offsets count uncompressed bytes
+ */
+record ImportSegment(Path file, long start, long end) {
+    
+    static List<ImportSegment> plan(Path file, long segmentBytes) throws IOException {
+        if (isGzipped(file)) {
+            return List.of(new ImportSegment(file, 0, Long.MAX_VALUE));
+        }
+        long size = Files.size(file);
+        List<ImportSegment> segments = new ArrayList<>();
+        for (long start = 0; start < size; start += segmentBytes) {
+            segments.add(new ImportSegment(file, start, Math.min(size, start + segmentBytes)));
+        }
+        return segments;
+    }
+    
+    /**
+     * Checkpoint key; stays the same across runs as long as the segment size does
+     */
+    String key() {
+        return file.toAbsolutePath().normalize() + "@" + start;
+    }
+    
+    static boolean isGzipped(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+}
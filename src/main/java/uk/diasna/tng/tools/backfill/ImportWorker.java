@@ -0,0 +1,232 @@
+package uk.diasna.tng.tools.backfill;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Imports segments taken from a shared queue over its own connection
+ * Each batch is one transaction: COPY into a session-private staging table, merge into tracking_numbers
+ * with ON CONFLICT against the unique index, and move the segment's checkpoint past the batch,
+ * so a crash at any point resumes at the first uncommitted line
+ */
+final class ImportWorker implements Callable<Void> {
+    
+    private static final String CREATE_STAGING = """
+        CREATE TEMP TABLE IF NOT EXISTS import_staging (
+            source_offset BIGINT NOT NULL,
+            tracking_number VARCHAR(16) NOT NULL,
+            origin_country_id VARCHAR(2) NOT NULL,
+            destination_country_id VARCHAR(2) NOT NULL,
+            weight DECIMAL(10,3) NOT NULL,
+            customer_id UUID NOT NULL,
+            customer_name VARCHAR(255) NOT NULL,
+            customer_slug VARCHAR(255) NOT NULL,
+            created_at TIMESTAMP WITH TIME ZONE
+        ) ON COMMIT DELETE ROWS""";
+    
+    private static final String COPY = "COPY import_staging (" + CopyBuffer.COLUMNS + ") FROM STDIN";
+    
+    /**
+     * Inserts the first row of every tracking number in the batch and returns the staged rows that were
+     * not inserted; rows go in index order so concurrent workers take unique-index locks in the same order
+     */
+    private static final String MERGE = """
+        WITH candidates AS (
+            SELECT DISTINCT ON (tracking_number) *
+            FROM import_staging
+            ORDER BY tracking_number, source_offset
+        ), inserted AS (
+            INSERT INTO tracking_numbers (tracking_number, origin_country_id, destination_country_id, weight,
+                                          customer_id, customer_name, customer_slug, created_at)
+            SELECT tracking_number, origin_country_id, destination_country_id, weight,
+                   customer_id, customer_name, customer_slug, COALESCE(created_at, CURRENT_TIMESTAMP)
+            FROM candidates
+            ORDER BY tracking_number
+            ON CONFLICT (tracking_number) DO NOTHING
+            RETURNING tracking_number
+        )
+        SELECT s.source_offset, s.tracking_number, c.source_offset IS NULL AS repeated
+        FROM import_staging s
+        LEFT JOIN candidates c ON c.source_offset = s.source_offset
+        WHERE c.source_offset IS NULL
+           OR NOT EXISTS (SELECT 1 FROM inserted i WHERE i.tracking_number = s.tracking_number)""";
+    
+    private static final String FIND_CHECKPOINT =
+        "SELECT next_offset, completed FROM import_checkpoints WHERE segment_key = ?";
+    
+    private static final String SAVE_CHECKPOINT = """
+        INSERT INTO import_checkpoints (segment_key, next_offset, completed, imported_rows, rejected_rows, updated_at)
+        VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+        ON CONFLICT (segment_key) DO UPDATE SET
+            next_offset = EXCLUDED.next_offset,
+            completed = EXCLUDED.completed,
+            imported_rows = import_checkpoints.imported_rows + EXCLUDED.imported_rows,
+            rejected_rows = import_checkpoints.rejected_rows + EXCLUDED.rejected_rows,
+            updated_at = EXCLUDED.updated_at""";
+    
+    private final Connection connection;
+    private final Queue<ImportSegment> segments;
+    private final Map<Path, RowFormat> formats;
+    private final RejectLog rejectLog;
+    private final ImportProgress progress;
+    private final AtomicBoolean stopped;
+    private final int batchSize;
+    private final RowValidator validator = new RowValidator();
+    private final CopyBuffer copy;
+    private final List<RejectLog.Rejection> rejections = new ArrayList<>();
+    private long invalid;
+    
+    ImportWorker(Connection connection, Queue<ImportSegment> segments, Map<Path, RowFormat> formats,
+                 RejectLog rejectLog, ImportProgress progress, AtomicBoolean stopped, int batchSize) {
+        this.connection = connection;
+        this.segments = segments;
+        this.formats = formats;
+        this.rejectLog = rejectLog;
+        this.progress = progress;
+        this.stopped = stopped;
+        this.batchSize = batchSize;
+        this.copy = new CopyBuffer(batchSize);
+    }
+    
+    @Override
+    public Void call() throws Exception {
+        try (connection) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                // Checkpoints commit with their rows, so a commit lost in a crash is simply imported again
+                statement.execute("SET synchronous_commit = off");
+                statement.execute(CREATE_STAGING);
+            }
+            connection.commit();
+            
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            ImportSegment segment;
+            while (!stopped.get() && (segment = segments.poll()) != null) {
+                try {
+                    importSegment(segment, copyManager);
+                } catch (Exception e) {
+                    connection.rollback();
+                    stopped.set(true);
+                    throw new IllegalStateException("Import of " + segment.key() + " failed, rerun to resume", e);
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void importSegment(ImportSegment segment, CopyManager copyManager) throws Exception {
+        long resumeFrom = segment.start();
+        try (PreparedStatement statement = connection.prepareStatement(FIND_CHECKPOINT)) {
+            statement.setString(1, segment.key());
+            try (ResultSet checkpoint = statement.executeQuery()) {
+                if (checkpoint.next()) {
+                    if (checkpoint.getBoolean(2)) {
+                        progress.segmentDone(true);
+                        return;
+                    }
+                    resumeFrom = checkpoint.getLong(1);
+                }
+            }
+        }
+        
+        RowFormat format = formats.get(segment.file());
+        try (SegmentReader reader = new SegmentReader(segment, resumeFrom)) {
+            long nextOffset = resumeFrom;
+            int lines = 0;
+            while (reader.next()) {
+                if (!(format.hasHeader() && reader.offset() == 0) && !reader.line().isBlank()) {
+                    stage(format, reader.line(), reader.offset());
+                }
+                nextOffset = reader.nextOffset();
+                if (++lines == batchSize) {
+                    if (stopped.get()) {
+                        return;
+                    }
+                    commitBatch(segment, nextOffset, false, copyManager);
+                    lines = 0;
+                }
+            }
+            commitBatch(segment, nextOffset, true, copyManager);
+        }
+        progress.segmentDone(false);
+    }
+    
+    private void stage(RowFormat format, String line, long offset) {
+        LegacyRow row;
+        try {
+            row = format.parse(line);
+        } catch (IllegalArgumentException e) {
+            reject(offset, null, "Unparseable row: " + e.getMessage());
+            return;
+        }
+        RowValidator.Result result = validator.validate(row, offset);
+        if (result.row() != null) {
+            copy.add(result.row());
+        } else {
+            reject(offset, row.trackingNumber(), result.rejection());
+        }
+    }
+    
+    private void reject(long offset, String trackingNumber, String reason) {
+        rejections.add(new RejectLog.Rejection(offset, trackingNumber, reason));
+        invalid++;
+    }
+    
+    private void commitBatch(ImportSegment segment, long nextOffset, boolean completed,
+                             CopyManager copyManager) throws Exception {
+        long staged = copy.rows();
+        long conflicts = 0;
+        if (staged > 0) {
+            copyManager.copyIn(COPY, new ByteArrayInputStream(copy.toBytes()));
+            conflicts = merge();
+        }
+        long imported = staged - conflicts;
+        saveCheckpoint(segment, nextOffset, completed, imported, invalid + conflicts);
+        connection.commit();
+        
+        rejectLog.write(segment.file(), rejections);
+        progress.committed(imported, invalid, conflicts);
+        copy.clear();
+        rejections.clear();
+        invalid = 0;
+    }
+    
+    private long merge() throws SQLException {
+        long conflicts = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(MERGE)) {
+            while (rows.next()) {
+                conflicts++;
+                rejections.add(new RejectLog.Rejection(rows.getLong(1), rows.getString(2),
+                    rows.getBoolean(3) ? "Duplicate tracking_number earlier in the file" : "tracking_number already exists"));
+            }
+        }
+        return conflicts;
+    }
+    
+    private void saveCheckpoint(ImportSegment segment, long nextOffset, boolean completed,
+                                long imported, long rejected) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SAVE_CHECKPOINT)) {
+            statement.setString(1, segment.key());
+            statement.setLong(2, nextOffset);
+            statement.setBoolean(3, completed);
+            statement.setLong(4, imported);
+            statement.setLong(5, rejected);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package uk.diasna.tng.tools.backfill;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One exported row, as text, before validation
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+record LegacyRow(
+    @JsonProperty("tracking_number")
+    String trackingNumber,
+    
+    @JsonProperty("origin_country_id")
+    String originCountryId,
+    
+    @JsonProperty("destination_country_id")
+    String destinationCountryId,
+    
+    @JsonProperty("weight")
+    String weight,
+    
+    @JsonProperty("customer_id")
+    String customerId,
+    
+    @JsonProperty("customer_name")
+    String customerName,
+    
+    @JsonProperty("customer_slug")
+    String customerSlug,
+    
+    @JsonProperty("created_at")
+    String createdAt
+) {}
@@ -0,0 +1,90 @@
+package uk.diasna.tng.tools.backfill;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One rejected-rows CSV per input file, appended to across resumed runs
+ * Rows are written after their batch commits, so a crash between the two loses that batch's rejects
+ * from the file while the checkpoint already counts them
+ */
+final class RejectLog implements Closeable {
+    
+    private final Path directory;
+    private final Map<Path, BufferedWriter> writers = new ConcurrentHashMap<>();
+    
+    RejectLog(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+    
+    static Path fileFor(Path directory, Path source) {
+        return directory.resolve(source.getFileName() + ".rejected.csv");
+    }
+    
+    void write(Path source, List<Rejection> rejections) throws IOException {
+        if (rejections.isEmpty()) {
+            return;
+        }
+        BufferedWriter writer = writer(source);
+        synchronized (writer) {
+            for (Rejection rejection : rejections) {
+                writer.write(Long.toString(rejection.offset()));
+                writer.write(',');
+                writer.write(quote(rejection.trackingNumber()));
+                writer.write(',');
+                writer.write(quote(rejection.reason()));
+                writer.newLine();
+            }
+            writer.flush();
+        }
+    }
+    
+    private BufferedWriter writer(Path source) {
+        return writers.computeIfAbsent(source, key -> {
+            Path file = fileFor(directory, key);
+            try {
+                boolean created = Files.notExists(file);
+                BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                                                                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (created) {
+                    writer.write("offset,tracking_number,reason");
+                    writer.newLine();
+                }
+                return writer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"").replace("\r", " ").replace("\n", " ") + '"';
+    }
+    
+    @Override
+    public void close() throws IOException {
+        for (BufferedWriter writer : writers.values()) {
+            writer.close();
+        }
+    }
+    
+    /**
+     * A row left out of the import; offset is its byte offset in the source file
+     */
+    record Rejection(long offset, String trackingNumber, String reason) {}
+}
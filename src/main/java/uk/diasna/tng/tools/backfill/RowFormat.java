@@ -0,0 +1,135 @@
+package uk.diasna.tng.tools.backfill;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns a line of an export into a LegacyRow
+ * CSV needs a header naming the columns (quoted fields are allowed, embedded newlines are not);
+ * NDJSON takes one object per line; both may be gzipped
+ */
+abstract sealed class RowFormat permits RowFormat.Csv, RowFormat.Ndjson {
+    
+    static final List<String> COLUMNS = List.of("tracking_number", "origin_country_id", "destination_country_id",
+                                                "weight", "customer_id", "customer_name", "customer_slug", "created_at");
+    
+    /**
+     * Whether the first line of the file is a header rather than a row
+     */
+    abstract boolean hasHeader();
+    
+    /**
+     * Parse a line; throws IllegalArgumentException when it is not a row at all
+     */
+    abstract LegacyRow parse(String line);
+    
+    static RowFormat forFile(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) {
+            try (SegmentReader reader = new SegmentReader(new ImportSegment(file, 0, Long.MAX_VALUE), 0)) {
+                if (!reader.next()) {
+                    throw new IllegalArgumentException(file + " has no header");
+                }
+                return new Csv(reader.line());
+            }
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new Ndjson();
+        }
+        throw new IllegalArgumentException("Unsupported file type, expected .csv, .ndjson or .jsonl: " + file);
+    }
+    
+    static final class Csv extends RowFormat {
+        private final int[] columnIndex = new int[COLUMNS.size()];
+        
+        Csv(String header) {
+            List<String> names = split(header);
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                columnIndex[i] = names.indexOf(COLUMNS.get(i));
+            }
+            for (int i = 0; i < COLUMNS.size() - 1; i++) {
+                if (columnIndex[i] < 0) {
+                    throw new IllegalArgumentException("CSV header has no " + COLUMNS.get(i) + " column: " + header);
+                }
+            }
+        }
+        
+        @Override
+        boolean hasHeader() {
+            return true;
+        }
+        
+        @Override
+        LegacyRow parse(String line) {
+            List<String> fields = split(line);
+            String[] values = new String[COLUMNS.size()];
+            for (int i = 0; i < values.length; i++) {
+                int index = columnIndex[i];
+                values[i] = index >= 0 && index < fields.size() ? fields.get(index) : null;
+            }
+            return new LegacyRow(values[0], values[1], values[2], values[3], values[4], values[5], values[6],
+                                 values[7] == null || values[7].isEmpty() ? null : values[7]);
+        }
+        
+        /**
+         * RFC 4180 fields on one line: commas inside quotes are kept, doubled quotes unescape
+         */
+        static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quote");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+    
+    static final class Ndjson extends RowFormat {
+        private static final ObjectReader READER = JsonMapper.builder().build().readerFor(LegacyRow.class);
+        
+        @Override
+        boolean hasHeader() {
+            return false;
+        }
+        
+        @Override
+        LegacyRow parse(String line) {
+            try {
+                return READER.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Not a JSON object: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
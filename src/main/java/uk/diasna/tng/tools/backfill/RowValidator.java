@@ -0,0 +1,79 @@
+package uk.diasna.tng.tools.backfill;
+
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.util.TrackingNumberGenerator;
+import uk.diasna.tng.validator.TrackingNumberRequestValidator;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Applies the generation endpoint's rules to legacy rows, with the same normalisation:
+ * country codes upper-cased and slugs lower-cased before TrackingNumberRequestValidator runs
+ */
+final class RowValidator {
+    
+    /**
+     * Width of customer_name and customer_slug; longer values would fail the whole COPY
+     */
+    static final int MAX_TEXT_LENGTH = 255;
+    
+    private final TrackingNumberRequestValidator validator = new TrackingNumberRequestValidator();
+    
+    /**
+     * The row ready to stage, or the reasons it was rejected
+     */
+    Result validate(LegacyRow row, long offset) {
+        if (!TrackingNumberGenerator.isWellFormed(row.trackingNumber())) {
+            return Result.rejected("tracking_number must be 16 characters of A-Z and 0-9");
+        }
+        BigDecimal weight;
+        UUID customerId;
+        OffsetDateTime createdAt;
+        try {
+            weight = row.weight() == null ? null : new BigDecimal(row.weight().trim());
+        } catch (NumberFormatException e) {
+            return Result.rejected("weight is not a number");
+        }
+        try {
+            customerId = row.customerId() == null ? null : UUID.fromString(row.customerId().trim());
+        } catch (IllegalArgumentException e) {
+            return Result.rejected("customer_id is not a UUID");
+        }
+        try {
+            createdAt = row.createdAt() == null ? null : OffsetDateTime.parse(row.createdAt().trim());
+        } catch (DateTimeParseException e) {
+            return Result.rejected("created_at is not an ISO-8601 timestamp with offset");
+        }
+        
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            row.originCountryId() == null ? null : row.originCountryId().toUpperCase(),
+            row.destinationCountryId() == null ? null : row.destinationCountryId().toUpperCase(),
+            weight,
+            customerId,
+            row.customerName(),
+            row.customerSlug() == null ? null : row.customerSlug().toLowerCase()
+        );
+        if (!validator.isValid(request)) {
+            return Result.rejected(String.join("; ", validator.collectValidationErrors(request)));
+        }
+        if (request.customerName().length() > MAX_TEXT_LENGTH || request.customerSlug().length() > MAX_TEXT_LENGTH) {
+            return Result.rejected("customer_name and customer_slug must not exceed " + MAX_TEXT_LENGTH + " characters");
+        }
+        return new Result(new ImportRow(offset, row.trackingNumber(), request, createdAt), null);
+    }
+    
+    record Result(ImportRow row, String rejection) {
+        
+        static Result rejected(String reason) {
+            return new Result(null, reason);
+        }
+    }
+    
+    /**
+     * A validated row; createdAt is null when the export had none, the merge then uses now()
+     */
+    record ImportRow(long offset, String trackingNumber, TrackingNumberRequest request, OffsetDateTime createdAt) {}
+}
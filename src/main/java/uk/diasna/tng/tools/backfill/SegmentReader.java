@@ -0,0 +1,126 @@
+package uk.diasna.tng.tools.backfill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the lines of a segment along with the byte offset each starts at
+ * Offsets are what checkpoints record, so a resumed import continues at an exact line
+ */
+final class SegmentReader implements Closeable {
+    
+    private static final int BUFFER_BYTES = 1 << 16;
+    
+    private final InputStream in;
+    private final long end;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int bufferPosition;
+    private int bufferLimit;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private long position;
+    private long lineOffset;
+    
+    /**
+     * Open the segment at resumeFrom, a line start previously returned by {@link #nextOffset()},
+     * or at the segment's own start
+     */
+    SegmentReader(ImportSegment segment, long resumeFrom) throws IOException {
+        this.end = segment.end();
+        long from = Math.max(segment.start(), resumeFrom);
+        if (ImportSegment.isGzipped(segment.file())) {
+            this.in = new GZIPInputStream(Files.newInputStream(segment.file()), BUFFER_BYTES);
+            in.skipNBytes(from);
+            this.position = from;
+        } else {
+            // Starting at a segment boundary inside the file: the line spanning it belongs to the previous segment
+            boolean midLine = from > 0 && from == segment.start();
+            FileChannel channel = FileChannel.open(segment.file(), StandardOpenOption.READ);
+            channel.position(midLine ? from - 1 : from);
+            this.in = Channels.newInputStream(channel);
+            this.position = midLine ? from - 1 : from;
+            if (midLine) {
+                readLine();
+            }
+        }
+    }
+    
+    /**
+     * Advance to the next line starting inside the segment
+     */
+    boolean next() throws IOException {
+        if (position >= end) {
+            return false;
+        }
+        lineOffset = position;
+        if (!readLine()) {
+            return false;
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        return true;
+    }
+    
+    String line() {
+        return new String(line, 0, lineLength, StandardCharsets.UTF_8);
+    }
+    
+    long offset() {
+        return lineOffset;
+    }
+    
+    /**
+     * Offset of the line after the current one, where a resumed import would continue
+     */
+    long nextOffset() {
+        return position;
+    }
+    
+    /**
+     * Copy bytes up to the next newline into line; false at the end of input with nothing read
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        while (true) {
+            if (bufferPosition == bufferLimit) {
+                bufferLimit = in.read(buffer);
+                bufferPosition = 0;
+                if (bufferLimit <= 0) {
+                    bufferLimit = 0;
+                    return lineLength > 0;
+                }
+            }
+            int newline = bufferPosition;
+            while (newline < bufferLimit && buffer[newline] != '\n') {
+                newline++;
+            }
+            int length = newline - bufferPosition;
+            if (lineLength + length > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+            }
+            System.arraycopy(buffer, bufferPosition, line, lineLength, length);
+            lineLength += length;
+            position += length;
+            if (newline < bufferLimit) {
+                bufferPosition = newline + 1;
+                position++;
+                return true;
+            }
+            bufferPosition = bufferLimit;
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,170 @@
+package uk.diasna.tng.tools.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import uk.diasna.tng.metrics.GenerationStage;
+import uk.diasna.tng.metrics.GenerationStageEvent;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarises the GenerationStageEvents of .jfr files into per-stage duration histograms
+ * With --by lane or --by customer each stage is also broken down by its busiest lanes or customers
+ *
+ * Usage: GenerationStageReport --file recording.jfr [--file recording.jfr]... [--by lane|customer] [--top n]
+ */
+public final class GenerationStageReport {
+    
+    private static final int BAR_WIDTH = 50;
+    
+    private final Map<String, StageHistogram> stages = new LinkedHashMap<>();
+    private final Map<String, Map<String, StageHistogram>> breakdown = new HashMap<>();
+    private final String by;
+    
+    GenerationStageReport(String by) {
+        if (by != null && !by.equals("lane") && !by.equals("customer")) {
+            throw new IllegalArgumentException("--by must be lane or customer, got " + by);
+        }
+        this.by = by;
+        for (GenerationStage stage : GenerationStage.values()) {
+            stages.put(stage.tagValue(), new StageHistogram());
+        }
+    }
+    
+    public static void main(String[] args) {
+        try {
+            Map<String, List<String>> options = options(args);
+            List<String> files = options.getOrDefault("file", List.of());
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("At least one --file is needed");
+            }
+            GenerationStageReport report = new GenerationStageReport(option(options, "by", null));
+            for (String file : files) {
+                report.read(Path.of(file));
+            }
+            report.print(System.out, Integer.parseInt(option(options, "top", "10")));
+        } catch (Exception e) {
+            System.err.println("Generation stage report failed: " + e);
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Add the generation stage events of a recording; other events are skipped
+     */
+    long read(Path file) throws IOException {
+        long events = 0;
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                if (event.getEventType().getName().equals(GenerationStageEvent.NAME)) {
+                    add(event.getString("stage"), event.getString("lane"), event.getString("customerId"),
+                        event.getDuration().toNanos());
+                    events++;
+                }
+            }
+        }
+        return events;
+    }
+    
+    void add(String stage, String lane, String customerId, long nanos) {
+        stages.computeIfAbsent(stage, key -> new StageHistogram()).add(nanos);
+        if (by != null) {
+            breakdown.computeIfAbsent(stage, key -> new HashMap<>())
+                .computeIfAbsent(by.equals("lane") ? lane : customerId, key -> new StageHistogram())
+                .add(nanos);
+        }
+    }
+    
+    StageHistogram stage(String stage) {
+        return stages.get(stage);
+    }
+    
+    void print(PrintStream out, int top) {
+        for (Map.Entry<String, StageHistogram> entry : stages.entrySet()) {
+            StageHistogram histogram = entry.getValue();
+            if (histogram.count() == 0) {
+                continue;
+            }
+            out.printf("%n%s%n", entry.getKey());
+            out.printf("  %-38s %s%n", "", summary(histogram));
+            printBuckets(out, histogram);
+            
+            Map<String, StageHistogram> groups = breakdown.getOrDefault(entry.getKey(), Map.of());
+            if (!groups.isEmpty()) {
+                out.printf("  busiest %ss:%n", by);
+                List<Map.Entry<String, StageHistogram>> busiest = new ArrayList<>(groups.entrySet());
+                busiest.sort(Comparator.comparingInt((Map.Entry<String, StageHistogram> group) -> group.getValue().count()).reversed());
+                for (Map.Entry<String, StageHistogram> group : busiest.subList(0, Math.min(top, busiest.size()))) {
+                    out.printf("  %-38s %s%n", group.getKey(), summary(group.getValue()));
+                }
+            }
+        }
+    }
+    
+    private static String summary(StageHistogram histogram) {
+        return String.format("count %,10d  mean %9.3f  p50 %9.3f  p95 %9.3f  p99 %9.3f  max %9.3f ms",
+                             histogram.count(), histogram.meanNanos() / 1e6, millis(histogram.percentileNanos(0.5)),
+                             millis(histogram.percentileNanos(0.95)), millis(histogram.percentileNanos(0.99)),
+                             millis(histogram.maxNanos()));
+    }
+    
+    private static void printBuckets(PrintStream out, StageHistogram histogram) {
+        int first = 0;
+        int last = StageHistogram.BUCKETS - 1;
+        while (histogram.bucketCount(first) == 0) {
+            first++;
+        }
+        while (histogram.bucketCount(last) == 0) {
+            last--;
+        }
+        long largest = 0;
+        for (int bucket = first; bucket <= last; bucket++) {
+            largest = Math.max(largest, histogram.bucketCount(bucket));
+        }
+        for (int bucket = first; bucket <= last; bucket++) {
+            long count = histogram.bucketCount(bucket);
+            String range = bucket == StageHistogram.BUCKETS - 1
+                ? ">= " + micros(StageHistogram.bucketFloorMicros(bucket))
+                : micros(StageHistogram.bucketFloorMicros(bucket)) + " - " + micros(StageHistogram.bucketFloorMicros(bucket + 1));
+            out.printf("  %20s %10d %6.2f%% %s%n", range, count, 100.0 * count / histogram.count(),
+                       "#".repeat((int) Math.round((double) BAR_WIDTH * count / largest)));
+        }
+    }
+    
+    private static String micros(long micros) {
+        if (micros >= 1_000_000) {
+            return String.format("%.1fs", micros / 1e6);
+        }
+        return micros >= 1000 ? String.format("%.1fms", micros / 1e3) : micros + "us";
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+    
+    private static String option(Map<String, List<String>> options, String name, String defaultValue) {
+        List<String> values = options.get(name);
+        return values == null ? defaultValue : values.get(values.size() - 1);
+    }
+    
+    private static Map<String, List<String>> options(String[] args) {
+        Map<String, List<String>> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.computeIfAbsent(args[i].substring(2), key -> new ArrayList<>()).add(args[i + 1]);
+        }
+        return options;
+    }
+}
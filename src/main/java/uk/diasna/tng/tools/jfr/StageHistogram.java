@@ -0,0 +1,77 @@
+package uk.diasna.tng.tools.jfr;
+
+import java.util.Arrays;
+
+/**
+ * Durations of one stage: exact percentiles from the sorted samples and
+ * power-of-two microsecond buckets for the printed histogram
+ */
+final class StageHistogram {
+    
+    /**
+     * Bucket i holds durations in [2^(i-1), 2^i) microseconds, bucket 0 those under 1 microsecond;
+     * the last bucket, from about 1 second up, is open-ended
+     */
+    static final int BUCKETS = 22;
+    
+    private long[] samples = new long[64];
+    private int count;
+    private final long[] buckets = new long[BUCKETS];
+    private boolean sorted;
+    
+    void add(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        buckets[bucket(nanos)]++;
+        sorted = false;
+    }
+    
+    static int bucket(long nanos) {
+        long micros = nanos / 1000;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+    
+    /**
+     * Lower bound of a bucket in microseconds
+     */
+    static long bucketFloorMicros(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+    
+    int count() {
+        return count;
+    }
+    
+    long bucketCount(int bucket) {
+        return buckets[bucket];
+    }
+    
+    double meanNanos() {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return count == 0 ? 0 : (double) sum / count;
+    }
+    
+    /**
+     * Nearest-rank percentile, quantile between 0 and 1
+     */
+    long percentileNanos(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(quantile * count);
+        return samples[Math.max(0, Math.min(count, rank) - 1)];
+    }
+    
+    long maxNanos() {
+        return percentileNanos(1.0);
+    }
+}
@@ -12,8 +12,12 @@ import java.time.Instant;
 @Component
 public class TrackingNumberGenerator {
 
+    public static final int LENGTH = 16;
+    
     private static final String CHARSET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
     private static final SecureRandom secureRandom = new SecureRandom();
+    private static final int RANDOM_LENGTH = 8;
+    private static final long RANDOM_BOUND = 2_821_109_907_456L; // 36^8
     
     /**
      * Generate a 16-character tracking number
@@ -21,10 +25,26 @@ public class TrackingNumberGenerator {
      */
     public String generateTrackingNumber() {
         String timestampPart = encodeTimestamp(Instant.now().toEpochMilli());
-        String randomPart = generateRandomString(8);
+        String randomPart = generateRandomString();
         return timestampPart + randomPart;
     }
     
+    /**
+     * Whether the value has the shape of an issued tracking number: 16 characters of A-Z and 0-9
+     */
+    public static boolean isWellFormed(String trackingNumber) {
+        if (trackingNumber == null || trackingNumber.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = trackingNumber.charAt(i);
+            if ((c < 'A' || c > 'Z') && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * Encode timestamp into 8-character base-36 string (A-Z, 0-9)
      */
@@ -43,15 +63,19 @@ public class TrackingNumberGenerator {
     }
     
     /**
-     * Generate random string of specified length using A-Z, 0-9
+     * Generate random 8-character string using A-Z, 0-9
+     * All characters come from one bounded nextLong rather than a draw per character,
+     * since every draw enters the shared SecureRandom's monitor
      */
-    private String generateRandomString(int length) {
-        StringBuilder result = new StringBuilder(length);
+    private String generateRandomString() {
+        char[] result = new char[RANDOM_LENGTH];
+        long value = secureRandom.nextLong(RANDOM_BOUND);
         
-        for (int i = 0; i < length; i++) {
-            result.append(CHARSET.charAt(secureRandom.nextInt(CHARSET.length())));
+        for (int i = 0; i < RANDOM_LENGTH; i++) {
+            result[i] = CHARSET.charAt((int) (value % CHARSET.length()));
+            value /= CHARSET.length();
         }
         
-        return result.toString();
+        return new String(result);
     }
 }
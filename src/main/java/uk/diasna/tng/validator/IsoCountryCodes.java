@@ -0,0 +1,42 @@
+package uk.diasna.tng.validator;
+
+import java.util.Locale;
+
+/**
+ * ISO 3166-1 alpha-2 country codes as a 26 x 26 bitset indexed by the two letters
+ * Lookups are two subtractions and a bit test, with no hashing or allocation
+ */
+public final class IsoCountryCodes {
+    
+    private static final long[] ASSIGNED = new long[(26 * 26 + 63) / 64];
+    
+    static {
+        for (String code : Locale.getISOCountries(Locale.IsoCountryCode.PART1_ALPHA2)) {
+            int index = index(code);
+            ASSIGNED[index >>> 6] |= 1L << index;
+        }
+    }
+    
+    private IsoCountryCodes() {
+    }
+    
+    /**
+     * True if the value is an assigned upper-case alpha-2 code
+     */
+    public static boolean isAssigned(String code) {
+        if (code == null || code.length() != 2) {
+            return false;
+        }
+        int index = index(code);
+        return index >= 0 && (ASSIGNED[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    private static int index(String code) {
+        int first = code.charAt(0) - 'A';
+        int second = code.charAt(1) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+            return -1;
+        }
+        return first * 26 + second;
+    }
+}
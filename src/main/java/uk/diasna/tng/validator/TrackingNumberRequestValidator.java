@@ -2,6 +2,7 @@ package uk.diasna.tng.validator;
 
 import org.springframework.stereotype.Component;
 import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -10,20 +11,18 @@ import java.util.List;
 @Component
 public class TrackingNumberRequestValidator {
     
-    private static final String ISO_COUNTRY_CODE_PATTERN = "^[A-Z]{2}$";
-    private static final String KEBAB_CASE_PATTERN = "^[a-z0-9-]+$";
     private static final BigDecimal MIN_WEIGHT = new BigDecimal("0.001");
     private static final BigDecimal MAX_WEIGHT = new BigDecimal("999999.999");
     
     /**
      * Validates a tracking number request and throws IllegalArgumentException with detailed message
+     * Valid requests take an allocation-free path; error messages are only built on rejection
      */
     public void validate(TrackingNumberRequest request) {
-        List<String> errors = collectValidationErrors(request);
-        
-        if (!errors.isEmpty()) {
-            throw new IllegalArgumentException(String.join("; ", errors));
+        if (isValid(request)) {
+            return;
         }
+        throw new InvalidTrackingNumberRequestException(String.join("; ", collectValidationErrors(request)));
     }
     
     /**
@@ -46,13 +45,18 @@ public class TrackingNumberRequestValidator {
      * Checks if the request is valid without throwing exceptions
      */
     public boolean isValid(TrackingNumberRequest request) {
-        return collectValidationErrors(request).isEmpty();
+        return IsoCountryCodes.isAssigned(request.originCountryId())
+            && IsoCountryCodes.isAssigned(request.destinationCountryId())
+            && isWeightInRange(request.weight())
+            && request.customerId() != null
+            && !isBlank(request.customerName())
+            && isKebabCase(request.customerSlug());
     }
     
     private void validateOriginCountryId(String originCountryId, List<String> errors) {
         if (isNullOrEmpty(originCountryId)) {
             errors.add("Origin country ID is required");
-        } else if (!originCountryId.matches(ISO_COUNTRY_CODE_PATTERN)) {
+        } else if (!IsoCountryCodes.isAssigned(originCountryId)) {
             errors.add("Origin country ID must be ISO 3166-1 alpha-2 format (e.g., 'US', 'GB')");
         }
     }
@@ -60,7 +64,7 @@ public class TrackingNumberRequestValidator {
     private void validateDestinationCountryId(String destinationCountryId, List<String> errors) {
         if (isNullOrEmpty(destinationCountryId)) {
             errors.add("Destination country ID is required");
-        } else if (!destinationCountryId.matches(ISO_COUNTRY_CODE_PATTERN)) {
+        } else if (!IsoCountryCodes.isAssigned(destinationCountryId)) {
             errors.add("Destination country ID must be ISO 3166-1 alpha-2 format (e.g., 'US', 'GB')");
         }
     }
@@ -87,7 +91,7 @@ public class TrackingNumberRequestValidator {
     private void validateCustomerName(String customerName, List<String> errors) {
         if (isNullOrEmpty(customerName)) {
             errors.add("Customer name is required");
-        } else if (customerName.trim().isEmpty()) {
+        } else if (isBlank(customerName)) {
             errors.add("Customer name cannot be blank");
         }
     }
@@ -95,7 +99,7 @@ public class TrackingNumberRequestValidator {
     private void validateCustomerSlug(String customerSlug, List<String> errors) {
         if (isNullOrEmpty(customerSlug)) {
             errors.add("Customer slug is required");
-        } else if (!customerSlug.matches(KEBAB_CASE_PATTERN)) {
+        } else if (!isKebabCase(customerSlug)) {
             errors.add("Customer slug must be in kebab-case format (lowercase letters, numbers, and hyphens only)");
         }
     }
@@ -103,4 +107,39 @@ public class TrackingNumberRequestValidator {
     private boolean isNullOrEmpty(String value) {
         return value == null || value.isEmpty();
     }
+    
+    private boolean isWeightInRange(BigDecimal weight) {
+        return weight != null && weight.compareTo(MIN_WEIGHT) >= 0 && weight.compareTo(MAX_WEIGHT) <= 0;
+    }
+
+    /**
+     * Null, empty or only characters that String.trim would strip
+     */
+    private boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Non-empty and only lowercase ASCII letters, digits and hyphens
+     */
+    private boolean isKebabCase(String value) {
+        if (isNullOrEmpty(value)) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,249 @@
+package uk.diasna.tng.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import uk.diasna.tng.converter.TrackingNumberResponseConverter;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.repository.IdempotencyKeyRepository;
+import uk.diasna.tng.service.TrackingNumberService;
+import uk.diasna.tng.stats.CustomerLoadTracker;
+import uk.diasna.tng.stream.TrackingNumberEvent;
+import uk.diasna.tng.validator.TrackingNumberRequestValidator;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms the request path after startup so the first real requests do not pay for it
+ * Fills the Hikari pool to minimum-idle, then runs synthetic requests through validation,
+ * TrackingNumberService and the response converters, each inside a transaction that is always
+ * rolled back; this also primes the Hibernate query plans, the country code table and the JSON
+ * writer's timestamp cache
+ * Generated totals, the stream and lane statistics only record after commit, so they never see
+ * the warm-up, and the customer load tracker ignores its synthetic customer; the stage timers do
+ * see it
+ * Readiness stays DOWN until it finishes or the deadline passes, see WarmUpHealthIndicator
+ */
+@Component
+public class StartupWarmUp {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+    private static final UUID CUSTOMER_ID = CustomerLoadTracker.SYNTHETIC_CUSTOMER_ID;
+    private static final String[][] LANES = {{"MY", "ID"}, {"GB", "US"}, {"DE", "FR"}, {"SG", "AU"}};
+    
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+    private final TrackingNumberService trackingNumberService;
+    private final IdempotencyKeyRepository idempotencyKeys;
+    private final TrackingNumberRequestValidator validator;
+    private final ObjectMapper objectMapper;
+    private final TrackingNumberResponseConverter converter = new TrackingNumberResponseConverter();
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration deadline;
+    private final AtomicLong durationNanos = new AtomicLong();
+    private final AtomicLong completedIterations = new AtomicLong();
+    private volatile State state = State.PENDING;
+    private volatile long deadlineNanos;
+    
+    @Autowired
+    public StartupWarmUp(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         TrackingNumberService trackingNumberService,
+                         IdempotencyKeyRepository idempotencyKeys,
+                         TrackingNumberRequestValidator validator,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${tng.warmup.enabled:true}") boolean enabled,
+                         @Value("${tng.warmup.iterations:500}") int iterations,
+                         @Value("${tng.warmup.deadline:30s}") Duration deadline) {
+        this.dataSource = dataSource;
+        this.transactionManager = transactionManager;
+        this.trackingNumberService = trackingNumberService;
+        this.idempotencyKeys = idempotencyKeys;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.deadline = deadline;
+        
+        TimeGauge.builder("tracking_number.warmup.duration", durationNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+            .description("Time the startup warm-up took before readiness")
+            .register(meterRegistry);
+        Gauge.builder("tracking_number.warmup.iterations", completedIterations, AtomicLong::get)
+            .description("Synthetic requests run by the startup warm-up")
+            .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            state = State.SKIPPED;
+            return;
+        }
+        Thread.ofVirtual().name("startup-warm-up").start(this::run);
+    }
+    
+    /**
+     * Run the warm-up on the calling thread
+     */
+    void run() {
+        long start = System.nanoTime();
+        deadlineNanos = start + deadline.toNanos();
+        state = State.RUNNING;
+        try {
+            int connections = fillConnectionPool();
+            exercise();
+            state = beforeDeadline() ? State.COMPLETED : State.TIMED_OUT;
+            logger.info("Warm-up {} in {} ms: {} connections, {} iterations", state.name().toLowerCase(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), connections, completedIterations.get());
+        } catch (Exception e) {
+            state = State.FAILED;
+            logger.warn("Warm-up failed after {} iterations, serving cold", completedIterations.get(), e);
+        } finally {
+            durationNanos.set(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Ready once the warm-up finished, failed, was skipped, or ran out of time
+     */
+    public boolean isReady() {
+        State current = state;
+        return current.finished() || (current == State.RUNNING && !beforeDeadline());
+    }
+    
+    public State state() {
+        return state;
+    }
+    
+    public long completedIterations() {
+        return completedIterations.get();
+    }
+    
+    public Duration duration() {
+        return Duration.ofNanos(durationNanos.get());
+    }
+    
+    /**
+     * Borrow minimum-idle connections at once so Hikari opens them now rather than on first use
+     */
+    private int fillConnectionPool() throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            return 0;
+        }
+        int target = dataSource.unwrap(HikariDataSource.class).getMinimumIdle();
+        List<Connection> borrowed = new ArrayList<>(target);
+        try {
+            while (borrowed.size() < target && beforeDeadline()) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+        return borrowed.size();
+    }
+    
+    private void exercise() throws Exception {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        definition.setName("warm-up");
+        WarmUpOutputMessage output = new WarmUpOutputMessage();
+        
+        for (int i = 0; i < iterations && beforeDeadline(); i++) {
+            String[] lane = LANES[i % LANES.length];
+            TrackingNumberRequest request = new TrackingNumberRequest(
+                lane[0], lane[1], BigDecimal.valueOf(1000 + i, 3), CUSTOMER_ID, "Warm-up", "warm-up");
+            validator.validate(request);
+            if (i % 10 == 0) {
+                // Rejections build their messages on a separate path
+                validator.collectValidationErrors(new TrackingNumberRequest("XX", lane[1], BigDecimal.ZERO, null, "", "Warm Up"));
+            }
+            
+            // The service joins this transaction, so its inserts are rolled back with it
+            TransactionStatus transaction = transactionManager.getTransaction(definition);
+            try {
+                TrackingNumberResponse response;
+                if (i % 2 == 0) {
+                    response = trackingNumberService.generateTrackingNumber(request);
+                } else {
+                    String idempotencyKey = "warm-up-" + i;
+                    idempotencyKeys.findByCustomerIdAndIdempotencyKey(CUSTOMER_ID, idempotencyKey);
+                    response = trackingNumberService.generateTrackingNumber(request, idempotencyKey);
+                }
+                
+                converter.write(response, MediaType.APPLICATION_JSON, output.reset());
+                converter.write(response, TrackingNumberResponseConverter.BINARY, output.reset());
+                converter.write(List.of(response), MediaType.APPLICATION_JSON, output.reset());
+                objectMapper.writeValueAsBytes(new TrackingNumberEvent(
+                    null, response.trackingNumber(), request.originCountryId(), request.destinationCountryId(),
+                    request.weight(), request.customerId(), request.customerSlug(), response.createdAt()));
+            } finally {
+                transactionManager.rollback(transaction);
+            }
+            completedIterations.incrementAndGet();
+        }
+    }
+    
+    private boolean beforeDeadline() {
+        return System.nanoTime() - deadlineNanos < 0;
+    }
+    
+    public enum State {
+        PENDING, RUNNING, COMPLETED, TIMED_OUT, FAILED, SKIPPED;
+        
+        boolean finished() {
+            return this != PENDING && this != RUNNING;
+        }
+    }
+    
+    private static final class WarmUpOutputMessage implements HttpOutputMessage {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        private final HttpHeaders headers = new HttpHeaders();
+        
+        WarmUpOutputMessage reset() {
+            body.reset();
+            headers.clear();
+            return this;
+        }
+        
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+        
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
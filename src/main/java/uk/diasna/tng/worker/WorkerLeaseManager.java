@@ -0,0 +1,257 @@
+package uk.diasna.tng.worker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.diasna.tng.entity.WorkerLeaseEntity;
+import uk.diasna.tng.exception.LoadSheddingException;
+import uk.diasna.tng.repository.WorkerLeaseRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds a unique worker ID for this instance through a lease row in worker_leases
+ * The lease is claimed before the web server starts, renewed by a heartbeat and released on shutdown;
+ * once it can no longer be renewed within its TTL (less the allowed clock skew) the instance
+ * fences itself and refuses to generate until it holds a lease again
+ */
+@Component
+public class WorkerLeaseManager implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WorkerLeaseManager.class);
+    private static final int CLAIM_CANDIDATES = 8;
+    
+    private final WorkerLeaseRepository repository;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int maxWorkers;
+    private final Duration ttl;
+    private final Duration maxClockSkew;
+    private final Duration retryAfter;
+    private final String owner;
+    private final Counter renewalFailures;
+    private final Counter fencedRequests;
+    private volatile Lease lease;
+    private volatile boolean running;
+    
+    @Autowired
+    public WorkerLeaseManager(WorkerLeaseRepository repository,
+                              MeterRegistry meterRegistry,
+                              @Value("${tng.worker-lease.enabled:true}") boolean enabled,
+                              @Value("${tng.worker-lease.max-workers:1024}") int maxWorkers,
+                              @Value("${tng.worker-lease.ttl:30s}") Duration ttl,
+                              @Value("${tng.worker-lease.heartbeat-interval-ms:10000}") long heartbeatIntervalMs,
+                              @Value("${tng.worker-lease.max-clock-skew:2s}") Duration maxClockSkew,
+                              @Value("${tng.worker-lease.owner:}") String owner) {
+        this(repository, meterRegistry, enabled, maxWorkers, ttl, Duration.ofMillis(heartbeatIntervalMs),
+             maxClockSkew, owner.isBlank() ? defaultOwner() : owner, Clock.systemUTC());
+    }
+    
+    WorkerLeaseManager(WorkerLeaseRepository repository, MeterRegistry meterRegistry, boolean enabled,
+                       int maxWorkers, Duration ttl, Duration heartbeatInterval, Duration maxClockSkew,
+                       String owner, Clock clock) {
+        if (enabled && ttl.compareTo(heartbeatInterval.plus(maxClockSkew)) <= 0) {
+            throw new IllegalArgumentException("Worker lease TTL must exceed the heartbeat interval plus the clock skew");
+        }
+        this.repository = repository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.maxWorkers = maxWorkers;
+        this.ttl = ttl;
+        this.maxClockSkew = maxClockSkew;
+        this.retryAfter = heartbeatInterval;
+        this.owner = owner;
+        
+        Gauge.builder("tracking_number.worker_lease.id", this, manager -> manager.currentLease().map(Lease::workerId).orElse(-1))
+            .description("Worker ID held by this instance, -1 when it holds none")
+            .register(meterRegistry);
+        this.renewalFailures = Counter.builder("tracking_number.worker_lease.renewal_failures")
+            .description("Lease renewals that failed with an error")
+            .register(meterRegistry);
+        this.fencedRequests = Counter.builder("tracking_number.worker_lease.fenced")
+            .description("Generation requests refused because this instance holds no valid lease")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public void start() {
+        if (enabled) {
+            Lease acquired = acquire();
+            if (acquired == null) {
+                throw new IllegalStateException("No free worker ID among " + maxWorkers + " in worker_leases");
+            }
+            lease = acquired;
+            logger.info("Claimed worker ID {} (fencing token {}) as {}", acquired.workerId(), acquired.fencingToken(), owner);
+        }
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        Lease released = lease;
+        lease = null;
+        if (released != null) {
+            try {
+                repository.release(released.workerId(), released.fencingToken(), now());
+                logger.info("Released worker ID {}", released.workerId());
+            } catch (RuntimeException e) {
+                logger.warn("Could not release worker ID {}, it frees up when the lease expires", released.workerId(), e);
+            }
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Claimed before the web server starts accepting requests and released after it has stopped
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+    
+    /**
+     * Extend the lease, or claim a new worker ID when it was lost
+     */
+    @Scheduled(fixedDelayString = "${tng.worker-lease.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (!enabled || !running) {
+            return;
+        }
+        
+        Lease current = lease;
+        try {
+            if (current == null) {
+                lease = acquire();
+                if (lease != null) {
+                    logger.info("Claimed worker ID {} (fencing token {}) after losing the previous lease",
+                                lease.workerId(), lease.fencingToken());
+                }
+                return;
+            }
+            
+            OffsetDateTime now = now();
+            OffsetDateTime expiresAt = now.plus(ttl);
+            if (repository.renew(current.workerId(), current.fencingToken(), owner, now, expiresAt) == 1) {
+                lease = new Lease(current.workerId(), current.fencingToken(), owner, expiresAt.toInstant(), validUntil(now));
+            } else {
+                lease = null;
+                logger.error("Worker ID {} was claimed by another instance, refusing to generate", current.workerId());
+            }
+        } catch (RuntimeException e) {
+            renewalFailures.increment();
+            logger.warn("Could not renew worker lease {}, valid until {}", current != null ? current.workerId() : "-",
+                        current != null ? current.validUntil() : "-", e);
+        }
+    }
+    
+    /**
+     * Throw when this instance holds no valid lease; a no-op when leases are disabled
+     */
+    public void checkNotFenced() {
+        if (enabled && !isValid(lease)) {
+            fencedRequests.increment();
+            throw new LoadSheddingException("Worker lease not held, refusing to generate", retryAfter);
+        }
+    }
+    
+    public boolean isFenced() {
+        return enabled && !isValid(lease);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public Optional<Lease> currentLease() {
+        return Optional.ofNullable(lease);
+    }
+    
+    private boolean isValid(Lease current) {
+        return current != null && clock.instant().isBefore(current.validUntil());
+    }
+    
+    /**
+     * Take over the lowest expired worker ID, or create the next unused one
+     * Every failed attempt means another instance took an ID, so maxWorkers attempts are enough
+     */
+    private Lease acquire() {
+        for (int attempt = 0; attempt <= maxWorkers; attempt++) {
+            OffsetDateTime now = now();
+            OffsetDateTime expiresAt = now.plus(ttl);
+            
+            List<WorkerLeaseEntity> expired = repository.findByExpiresAtBeforeOrderByWorkerIdAsc(now, Limit.of(CLAIM_CANDIDATES));
+            for (WorkerLeaseEntity candidate : expired) {
+                if (candidate.getWorkerId() < maxWorkers
+                    && repository.claim(candidate.getWorkerId(), candidate.getFencingToken(), owner, now, expiresAt) == 1) {
+                    return new Lease(candidate.getWorkerId(), candidate.getFencingToken() + 1, owner,
+                                     expiresAt.toInstant(), validUntil(now));
+                }
+            }
+            
+            Integer maxWorkerId = repository.findMaxWorkerId();
+            int next = maxWorkerId == null ? 0 : maxWorkerId + 1;
+            if (next >= maxWorkers) {
+                if (expired.isEmpty()) {
+                    return null;
+                }
+                continue;
+            }
+            try {
+                repository.insertLease(next, owner, now, expiresAt);
+                return new Lease(next, 1, owner, expiresAt.toInstant(), validUntil(now));
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Worker ID {} was created by another instance, retrying", next);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Counted from before the write, so the local view never outlives the row
+     */
+    private Instant validUntil(OffsetDateTime renewalStart) {
+        return renewalStart.toInstant().plus(ttl).minus(maxClockSkew);
+    }
+    
+    private OffsetDateTime now() {
+        return OffsetDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+    
+    private static String defaultOwner() {
+        String host = System.getenv("HOSTNAME");
+        return (host == null || host.isBlank() ? "instance" : host) + "-" + ProcessHandle.current().pid()
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    /**
+     * A held worker ID; validUntil is the local deadline after which generation is refused
+     */
+    public record Lease(
+        int workerId,
+        long fencingToken,
+        String owner,
+        Instant expiresAt,
+        Instant validUntil
+    ) {}
+}
@@ -0,0 +1,3 @@
+-- Stream catch-up reads one worker's rows after a given id; CONCURRENTLY keeps inserts flowing while it builds
+-- Kept apart from V9 because Flyway cannot mix it with transactional statements in one script
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_worker_id_id ON tracking_numbers(worker_id, id);
@@ -0,0 +1,12 @@
+-- Per-minute lane aggregates persisted by the in-memory lane statistics
+CREATE TABLE IF NOT EXISTS lane_statistics_rollup (
+    id BIGSERIAL PRIMARY KEY,
+    window_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    origin_country_id VARCHAR(2) NOT NULL,
+    destination_country_id VARCHAR(2) NOT NULL,
+    tracking_number_count BIGINT NOT NULL,
+    weight_sum DECIMAL(19,3) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_lane_rollup_window ON lane_statistics_rollup(window_start);
+CREATE INDEX IF NOT EXISTS idx_lane_rollup_lane ON lane_statistics_rollup(origin_country_id, destination_country_id, window_start);
@@ -0,0 +1,9 @@
+-- Per-customer quota consumption shared between instances, one row per customer and sync window
+CREATE TABLE IF NOT EXISTS customer_quota_usage (
+    customer_id UUID NOT NULL,
+    window_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    consumed BIGINT NOT NULL,
+    PRIMARY KEY (customer_id, window_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_quota_usage_window ON customer_quota_usage(window_start);
@@ -0,0 +1,12 @@
+-- One row per worker ID ever handed out; an instance holds an ID while its lease is unexpired
+-- fencing_token increases with every claim so a lease taken over cannot be renewed by its old holder
+CREATE TABLE IF NOT EXISTS worker_leases (
+    worker_id INTEGER PRIMARY KEY,
+    owner VARCHAR(255),
+    fencing_token BIGINT NOT NULL,
+    acquired_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    renewed_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_worker_leases_expires_at ON worker_leases(expires_at);
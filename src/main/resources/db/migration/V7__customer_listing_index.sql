@@ -0,0 +1,5 @@
+-- Keyset pagination of a customer's tracking numbers, newest first, walks this index backwards
+-- It also serves customer_id lookups, so the single-column index only cost inserts
+-- CONCURRENTLY keeps inserts flowing while it builds; Flyway runs this script outside a transaction
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_created_id ON tracking_numbers(customer_id, created_at, id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_customer_id;
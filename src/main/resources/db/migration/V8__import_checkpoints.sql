@@ -0,0 +1,10 @@
+-- Progress of the backfill importer, one row per input segment (file and byte offset)
+-- next_offset is committed in the same transaction as the rows merged up to it
+CREATE TABLE IF NOT EXISTS import_checkpoints (
+    segment_key VARCHAR(1024) PRIMARY KEY,
+    next_offset BIGINT NOT NULL,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    imported_rows BIGINT NOT NULL DEFAULT 0,
+    rejected_rows BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,3 @@
+-- Worker ID of the instance that issued each number, so a resumed stream replays only that instance's rows
+-- Nullable: rows from before this column, from the backfill importer or from instances without a lease have none
+ALTER TABLE tracking_numbers ADD COLUMN IF NOT EXISTS worker_id INTEGER;
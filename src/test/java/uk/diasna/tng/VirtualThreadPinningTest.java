@@ -0,0 +1,93 @@
+package uk.diasna.tng;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import uk.diasna.tng.controller.TrackingNumberController;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the generation hot path from many virtual threads and fails if JFR reports
+ * a virtual thread parking while pinned inside application code
+ * Frames from H2 are ignored: it is the test database only and is not used in production
+ */
+@SpringBootTest(properties = {
+    "spring.threads.virtual.enabled=true",
+    "tng.db.max-concurrency=4",
+    "tng.limiter.enabled=false"
+})
+@ActiveProfiles("test")
+class VirtualThreadPinningTest {
+    
+    @Autowired
+    private TrackingNumberController controller;
+    
+    @Test
+    void generateTrackingNumber_DoesNotPinCarrierThreads() throws Exception {
+        List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+        
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                if (isApplicationPinning(event)) {
+                    pinnedStacks.add(describe(event));
+                }
+            });
+            recording.startAsync();
+            
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> requests = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    requests.add(executor.submit(() -> controller.generateTrackingNumber(
+                        "MY", "ID", new BigDecimal("1.234"), UUID.randomUUID(), "Test Customer", "test-customer", null)));
+                }
+                for (Future<?> request : requests) {
+                    request.get();
+                }
+            }
+            
+            recording.stop();
+        }
+        
+        assertTrue(pinnedStacks.isEmpty(), () -> "Virtual threads pinned:\n" + String.join("\n\n", pinnedStacks));
+    }
+    
+    private static boolean isApplicationPinning(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        boolean application = false;
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("org.h2.")) {
+                return false;
+            }
+            application |= type.startsWith("uk.diasna.tng.");
+        }
+        return application;
+    }
+    
+    private static String describe(RecordedEvent event) {
+        StringBuilder stack = new StringBuilder();
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            stack.append("  at ").append(frame.getMethod().getType().getName())
+                .append('.').append(frame.getMethod().getName()).append('\n');
+        }
+        return stack.toString();
+    }
+}
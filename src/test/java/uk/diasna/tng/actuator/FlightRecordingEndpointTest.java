@@ -0,0 +1,101 @@
+package uk.diasna.tng.actuator;
+
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.metrics.GenerationStage;
+import uk.diasna.tng.metrics.GenerationStageEvent;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingEndpointTest {
+    
+    @TempDir
+    Path directory;
+    
+    private FlightRecordingEndpoint endpoint;
+    
+    @BeforeEach
+    void setUp() {
+        endpoint = new FlightRecordingEndpoint(directory, Duration.ofMinutes(1), Duration.ofMinutes(5), 16L << 20, 2);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+    
+    @Test
+    void control_StartsStopsAndDumpsARecordingWithGenerationStageEvents() throws Exception {
+        WebEndpointResponse<Map<String, Object>> started = endpoint.control("start", null, null);
+        assertEquals(WebEndpointResponse.STATUS_OK, started.getStatus());
+        assertEquals("RUNNING", started.getBody().get("state"));
+        assertEquals(Duration.ofMinutes(1), started.getBody().get("duration"));
+        
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"), UUID.randomUUID(), "Test Customer", "test-customer");
+        GenerationStageEvent.start(GenerationStage.INSERT).commit(request, 0);
+        
+        assertEquals("STOPPED", endpoint.control("stop", null, null).getBody().get("state"));
+        WebEndpointResponse<Map<String, Object>> dumped = endpoint.control("dump", null, null);
+        assertEquals(WebEndpointResponse.STATUS_OK, dumped.getStatus());
+        
+        Path file = directory.resolve((String) dumped.getBody().get("file"));
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+            .anyMatch(event -> event.getEventType().getName().equals(GenerationStageEvent.NAME)
+                && event.getString("lane").equals("MY-ID")
+                && event.getString("stage").equals("insert")));
+        assertEquals(List.of(file.getFileName().toString()), endpoint.status().get("dumps"));
+        assertTrue(endpoint.download(file.getFileName().toString()).getBody().exists());
+    }
+    
+    @Test
+    void control_RejectsConflictingAndInvalidRequests() throws Exception {
+        assertEquals(409, endpoint.control("stop", null, null).getStatus());
+        assertEquals(409, endpoint.control("dump", null, null).getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.control("pause", null, null).getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.control("start", Duration.ofHours(1), null).getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.control("start", null, "no-such-settings").getStatus());
+        assertEquals("NONE", endpoint.status().get("state"));
+        
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.control("start", null, "profile").getStatus());
+        assertEquals(409, endpoint.control("start", null, null).getStatus());
+    }
+    
+    @Test
+    void control_KeepsOnlyTheNewestDumps() throws Exception {
+        endpoint.control("start", null, null);
+        for (int i = 0; i < 4; i++) {
+            endpoint.control("dump", null, null);
+            Thread.sleep(2);
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<String> dumps = (List<String>) endpoint.status().get("dumps");
+        assertEquals(2, dumps.size());
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+    
+    @Test
+    void download_OnlyServesDumpFiles() throws Exception {
+        Files.writeString(directory.resolve("secrets.txt"), "no");
+        
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.download("secrets.txt").getStatus());
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.download("../tng-20250101-000000-000.jfr").getStatus());
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.download("tng-20250101-000000-000.jfr").getStatus());
+    }
+}
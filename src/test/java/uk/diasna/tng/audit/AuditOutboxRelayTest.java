@@ -0,0 +1,132 @@
+package uk.diasna.tng.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import uk.diasna.tng.entity.AuditOutboxEntity;
+import uk.diasna.tng.repository.AuditOutboxRepository;
+import uk.diasna.tng.support.MutableClock;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditOutboxRelayTest {
+    
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+    
+    @Mock
+    private AuditOutboxRepository repository;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    private RecordingSink sink;
+    private MeterRegistry meterRegistry;
+    private AuditOutboxRelay relay;
+    
+    @BeforeEach
+    void setUp() {
+        sink = new RecordingSink();
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new AuditOutboxRelay(repository, sink, transactionManager, meterRegistry, 3, new MutableClock(NOW));
+    }
+    
+    @Test
+    void relay_DrainsFullBatchesThenStops() {
+        when(repository.lockBatch(3))
+            .thenReturn(rows(1, 3))
+            .thenReturn(rows(4, 5));
+        
+        relay.relay();
+        
+        assertEquals(List.of(3, 2), sink.batchSizes);
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(repository).deleteAllByIdInBatch(List.of(4L, 5L));
+        verify(repository, times(2)).lockBatch(3);
+        assertEquals(5, meterRegistry.get("tracking_number.audit.relayed").counter().count());
+    }
+    
+    @Test
+    void relayBatch_DeletesTheLockedBatchBeforeCommitting() {
+        when(repository.lockBatch(3)).thenReturn(rows(1, 2));
+        
+        relay.relayBatch();
+        
+        InOrder inOrder = inOrder(transactionManager, repository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(repository).lockBatch(3);
+        inOrder.verify(repository).deleteAllByIdInBatch(List.of(1L, 2L));
+        inOrder.verify(transactionManager).commit(any());
+    }
+    
+    @Test
+    void relay_KeepsRowsWhenSinkFails() {
+        when(repository.lockBatch(3)).thenReturn(rows(1, 3));
+        sink.failing = true;
+        
+        relay.relay();
+        
+        verify(repository, never()).deleteAllByIdInBatch(any());
+        assertEquals(1, meterRegistry.get("tracking_number.audit.relay.failures").counter().count());
+    }
+    
+    @Test
+    void relay_ReportsAgeOfOldestPendingEvent() {
+        when(repository.lockBatch(3))
+            .thenReturn(rows(1, 2))
+            .thenReturn(List.of());
+        
+        relay.relay();
+        assertEquals(30_000, meterRegistry.get("tracking_number.audit.outbox.lag").timeGauge().value(TimeUnit.MILLISECONDS));
+        
+        relay.relay();
+        assertEquals(0, meterRegistry.get("tracking_number.audit.outbox.lag").timeGauge().value(TimeUnit.MILLISECONDS));
+    }
+    
+    private static List<AuditOutboxEntity> rows(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId).mapToObj(id -> {
+            AuditOutboxEntity entity = new AuditOutboxEntity(
+                "ABC123DEF456GH%02d".formatted(id), "MY", "ID", new BigDecimal("1.234"),
+                UUID.randomUUID(), "Test Customer", "test-customer",
+                OffsetDateTime.ofInstant(NOW.minus(Duration.ofSeconds(30)), ZoneOffset.UTC));
+            entity.setId(id);
+            return entity;
+        }).toList();
+    }
+    
+    private static final class RecordingSink implements AuditSink {
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private boolean failing;
+        
+        @Override
+        public void write(List<AuditEvent> events) {
+            if (failing) {
+                throw new IllegalStateException("Sink unavailable");
+            }
+            batchSizes.add(events.size());
+        }
+        
+        @Override
+        public String name() {
+            return "recording";
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package uk.diasna.tng.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileAuditSinkTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void write_AppendsOneJsonLinePerEvent() throws IOException {
+        Path file = directory.resolve("audit/events.ndjson");
+        FileAuditSink sink = new FileAuditSink(file);
+        
+        sink.write(List.of(event(1, "ABC123DEF456GHI1"), event(2, "ABC123DEF456GHI2")));
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"outbox_id\":1,\"tracking_number\":\"ABC123DEF456GHI1\""));
+        assertTrue(lines.get(1).contains("\"weight\":1.234"));
+    }
+    
+    @Test
+    void write_SkipsRedeliveredEventsAcrossRestarts() throws IOException {
+        Path file = directory.resolve("events.ndjson");
+        new FileAuditSink(file).write(List.of(event(1, "ABC123DEF456GHI1"), event(2, "ABC123DEF456GHI2")));
+        
+        FileAuditSink restarted = new FileAuditSink(file);
+        restarted.write(List.of(event(2, "ABC123DEF456GHI2"), event(3, "ABC123DEF456GHI3")));
+        restarted.write(List.of(event(3, "ABC123DEF456GHI3")));
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(2).contains("\"outbox_id\":3"));
+    }
+    
+    @Test
+    void write_KeepsNewEventsWhenOutboxIdsRestart() throws IOException {
+        Path file = directory.resolve("events.ndjson");
+        new FileAuditSink(file).write(List.of(event(1, "ABC123DEF456GHI1"), event(2, "ABC123DEF456GHI2")));
+        
+        // A recreated outbox (H2 create-drop, a reset table) numbers its rows from 1 again
+        FileAuditSink restarted = new FileAuditSink(file);
+        restarted.write(List.of(event(1, "XYZ789UVW012RST1"), event(2, "ABC123DEF456GHI2")));
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(2).contains("\"tracking_number\":\"XYZ789UVW012RST1\""));
+    }
+    
+    @Test
+    void write_StartsNewLineAfterTornWrite() throws IOException {
+        Path file = directory.resolve("events.ndjson");
+        new FileAuditSink(file).write(List.of(event(1, "ABC123DEF456GHI1")));
+        Files.writeString(file, "{\"outbox_id\":2,\"track", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        
+        new FileAuditSink(file).write(List.of(event(2, "ABC123DEF456GHI2")));
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(2).startsWith("{\"outbox_id\":2,\"tracking_number\":\"ABC123DEF456GHI2\""));
+    }
+    
+    private static AuditEvent event(long outboxId, String trackingNumber) {
+        return new AuditEvent(outboxId, trackingNumber, "MY", "ID", new BigDecimal("1.234"),
+                              UUID.randomUUID(), "Test Customer", "test-customer",
+                              OffsetDateTime.parse("2025-01-01T12:00:00Z"));
+    }
+}
@@ -0,0 +1,99 @@
+package uk.diasna.tng.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.diasna.tng.exception.LoadSheddingException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+    
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimiter limiter;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter(meterRegistry, true, 10, 2, 50,
+                                                 Duration.ofMillis(250), 0.5, Duration.ofSeconds(2));
+    }
+    
+    @Test
+    void tryAcquire_RejectsBeyondLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(10, limiter.inflight());
+    }
+    
+    @Test
+    void call_ShedsImmediatelyWithRetryAfterWhenFull() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+        }
+        
+        LoadSheddingException exception = assertThrows(LoadSheddingException.class, () -> limiter.call(() -> "ok"));
+        
+        assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(1.0, meterRegistry.get("tracking_number.limiter.rejected").counter().count());
+    }
+    
+    @Test
+    void release_FastRequestsAtCapacityGrowTheLimit() {
+        for (int round = 0; round < 40; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(FAST, false);
+            }
+        }
+        
+        // Only releases seen with at least half the limit in flight count, so about +0.5 per round
+        assertTrue(limiter.limit() > 20, "limit should grow additively: " + limiter.limit());
+        assertTrue(limiter.limit() <= 50);
+    }
+    
+    @Test
+    void release_IdleLimiterDoesNotGrow() {
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+        }
+        
+        assertEquals(10.0, limiter.limit());
+    }
+    
+    @Test
+    void release_SlowRequestBacksOffOncePerInterval() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 5; i++) {
+            limiter.release(SLOW, false);
+        }
+        
+        // Several slow completions in one interval count as a single congestion signal
+        assertEquals(5.0, limiter.limit());
+        assertEquals(0, limiter.inflight());
+        assertEquals(5.0, meterRegistry.get("tracking_number.limiter.limit").gauge().value());
+    }
+    
+    @Test
+    void call_Disabled_NeverSheds() {
+        AdaptiveConcurrencyLimiter disabled = new AdaptiveConcurrencyLimiter(
+            new SimpleMeterRegistry(), false, 1, 1, 1, Duration.ofMillis(250), 0.5, Duration.ofSeconds(1));
+        
+        assertEquals("ok", disabled.call(() -> disabled.call(() -> "ok")));
+    }
+}
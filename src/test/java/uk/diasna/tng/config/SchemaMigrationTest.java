@@ -0,0 +1,132 @@
+package uk.diasna.tng.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs db/migration against PostgreSQL, both on an empty database and on one created by the
+ * pre-Flyway scripts/init-db.sql (kept verbatim in src/test/resources/db/pre-flyway)
+ * Skipped when Docker is not available
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaMigrationTest {
+    
+    private static final List<String> LATER_TABLES = List.of(
+        "lane_statistics_rollup", "customer_quota_usage", "idempotency_keys", "audit_outbox",
+        "worker_leases", "import_checkpoints");
+    
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        execute("DROP SCHEMA public CASCADE; CREATE SCHEMA public");
+    }
+    
+    @Test
+    void migrate_CreatesTheWholeSchemaOnAnEmptyDatabase() throws SQLException {
+        flyway().migrate();
+        
+        assertTrue(tableExists("tracking_numbers"));
+        for (String table : LATER_TABLES) {
+            assertTrue(tableExists(table), table);
+        }
+        assertTrue(columnExists("tracking_numbers", "worker_id"));
+    }
+    
+    @Test
+    void migrate_BaselinesAPreFlywayDatabaseAndAppliesEveryLaterScript() throws Exception {
+        execute(preFlywaySchema());
+        execute("""
+            INSERT INTO tracking_numbers (tracking_number, origin_country_id, destination_country_id, weight,
+                                          customer_id, customer_name, customer_slug)
+            VALUES ('ABC123DEF456GHI7', 'MY', 'ID', 1.234, 'de619854-b59b-425e-9db4-943979e1bd49',
+                    'RedBox Logistics', 'redbox-logistics')
+            """);
+        
+        flyway().migrate();
+        
+        assertEquals("1", queryString("SELECT version FROM flyway_schema_history WHERE type = 'BASELINE'"));
+        for (String table : LATER_TABLES) {
+            assertTrue(tableExists(table), table);
+        }
+        assertTrue(columnExists("tracking_numbers", "worker_id"));
+        assertEquals("1", queryString("SELECT COUNT(*) FROM tracking_numbers"));
+        assertNull(queryString("SELECT worker_id FROM tracking_numbers"));
+    }
+    
+    @Test
+    void migrate_IsUpToDateAfterBaselining() throws Exception {
+        execute(preFlywaySchema());
+        flyway().migrate();
+        
+        assertEquals(0, flyway().migrate().migrationsExecuted);
+        assertTrue(flyway().validateWithResult().validationSuccessful);
+    }
+    
+    private static Flyway flyway() {
+        // Same settings as spring.flyway.* in application.properties
+        return Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .locations("classpath:db/migration")
+            .baselineOnMigrate(true)
+            .load();
+    }
+    
+    private static String preFlywaySchema() throws IOException {
+        try (InputStream in = SchemaMigrationTest.class.getResourceAsStream("/db/pre-flyway/init-db.sql")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    private static boolean tableExists(String table) throws SQLException {
+        return queryString("SELECT to_regclass('public." + table + "')") != null;
+    }
+    
+    private static boolean columnExists(String table, String column) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT 1 FROM information_schema.columns WHERE table_name = ? AND column_name = ?")) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+    
+    private static String queryString(String sql) throws SQLException {
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+    
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+    
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
@@ -0,0 +1,219 @@
+package uk.diasna.tng.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import uk.diasna.tng.entity.TrackingNumberEntity;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+import uk.diasna.tng.support.SqlBudget;
+import uk.diasna.tng.support.SqlCountingConfiguration;
+import uk.diasna.tng.support.SqlRecording;
+import uk.diasna.tng.worker.WorkerLeaseManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Holds every endpoint to the statements, round-trips and transactions it is allowed per request
+ * The stream's catch-up runs on its subscriber thread, which inherits the request's recording
+ * A failing budget lists the SQL the request sent; raise a budget only with a reason
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlCountingConfiguration.class)
+class SqlBudgetTest {
+    
+    /** Existence check, tracking number insert and audit outbox insert, then one commit */
+    static final SqlBudget GENERATE = new SqlBudget("generate", 3, 4, 1);
+    
+    /** The key lookup outside the generation transaction, then the generation and the key insert */
+    static final SqlBudget GENERATE_IDEMPOTENT = new SqlBudget("generate with Idempotency-Key", 5, 7, 2);
+    
+    /** Replays of a recent key are answered from the in-flight cache */
+    static final SqlBudget GENERATE_REPLAY = new SqlBudget("generate replay", 0, 0, 0);
+    
+    /** One keyset query per page in one read-only transaction */
+    static final SqlBudget LIST = new SqlBudget("list customer tracking numbers", 1, 2, 1);
+    
+    /** One = ANY query per chunk of cache misses in one read-only transaction */
+    static final SqlBudget LOOKUP = new SqlBudget("lookup", 1, 2, 1);
+    
+    /** Tracking numbers already looked up are served from the cache */
+    static final SqlBudget LOOKUP_CACHED = new SqlBudget("cached lookup", 0, 0, 0);
+    
+    /** Resuming beyond the event ring reads one catch-up page per 500 rows in a read-only transaction */
+    static final SqlBudget STREAM_CATCH_UP = new SqlBudget("stream catch-up", 1, 2, 1);
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TrackingNumberRepository repository;
+    
+    @Autowired
+    private WorkerLeaseManager workerLease;
+    
+    @Test
+    void generate_StaysWithinBudget() throws Exception {
+        within(GENERATE, generate(UUID.randomUUID(), null));
+    }
+    
+    @Test
+    void generateWithIdempotencyKey_StaysWithinBudgetAndReplaysWithoutSql() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        String key = UUID.randomUUID().toString();
+        
+        JsonNode first = within(GENERATE_IDEMPOTENT, generate(customerId, key));
+        JsonNode replay = within(GENERATE_REPLAY, generate(customerId, key));
+        
+        assertEquals(first.get("tracking_number"), replay.get("tracking_number"));
+    }
+    
+    @Test
+    void listTrackingNumbers_StaysWithinBudgetOnEveryPage() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            perform(generate(customerId, null));
+        }
+        
+        JsonNode first = within(LIST, get("/api/v1/customers/{customerId}/tracking-numbers", customerId)
+            .param("limit", "2")
+            .accept(MediaType.APPLICATION_JSON));
+        JsonNode second = within(LIST, get("/api/v1/customers/{customerId}/tracking-numbers", customerId)
+            .param("limit", "2")
+            .param("cursor", first.get("next_cursor").asText())
+            .accept(MediaType.APPLICATION_JSON));
+        
+        assertEquals(2, first.get("items").size());
+        assertEquals(1, second.get("items").size());
+    }
+    
+    @Test
+    void lookup_StaysWithinBudgetAndServesRepeatsFromCache() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        String first = perform(generate(customerId, null)).get("tracking_number").asText();
+        String second = perform(generate(customerId, null)).get("tracking_number").asText();
+        
+        JsonNode found = within(LOOKUP, lookup(List.of(first, second, "not-a-tracking-number")));
+        JsonNode cached = within(LOOKUP_CACHED, lookup(List.of(second, first)));
+        
+        assertEquals(3, found.get("results").size());
+        assertEquals(2, cached.get("results").size());
+    }
+    
+    @Test
+    void streamCatchUp_StaysWithinBudgetOnTheSubscriberThread() throws Exception {
+        // Saved directly, so neither row is in the event ring and resuming after the first reads the database
+        TrackingNumberEntity first = repository.save(unpublishedRow());
+        TrackingNumberEntity second = repository.save(unpublishedRow());
+        
+        try (SqlRecording recording = SqlRecording.start()) {
+            MvcResult stream = mockMvc.perform(get("/api/v1/tracking-numbers/stream")
+                    .header("Last-Event-ID", first.getId())
+                    .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            try {
+                awaitContent(stream, "id:" + second.getId() + "\n");
+                STREAM_CATCH_UP.assertWithin(recording);
+            } finally {
+                // Ends the subscription the way a disconnecting client does
+                stream.getRequest().getAsyncContext().complete();
+            }
+        }
+    }
+    
+    @Test
+    void budget_ReportsTheSqlOfARequestThatExceedsIt() throws Exception {
+        SqlBudget none = new SqlBudget("generate", 0, 0, 0);
+        
+        AssertionFailedError error = assertThrows(AssertionFailedError.class,
+            () -> within(none, generate(UUID.randomUUID(), null)));
+        
+        String report = error.getMessage().toLowerCase();
+        assertTrue(report.contains("generate exceeded its sql budget: 3 statements (budget 0)"), report);
+        assertTrue(report.contains("insert into tracking_numbers"), report);
+        assertTrue(report.contains("insert into audit_outbox"), report);
+        assertTrue(report.contains("commit"), report);
+    }
+    
+    private JsonNode within(SqlBudget budget, RequestBuilder request) throws Exception {
+        JsonNode response;
+        try (SqlRecording recording = SqlRecording.start()) {
+            response = perform(request);
+            budget.assertWithin(recording);
+        }
+        return response;
+    }
+    
+    private JsonNode perform(RequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return objectMapper.readTree(body);
+    }
+    
+    private static void awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!stream.getResponse().getContentAsString().contains(expected)) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("Stream did not send " + expected.strip() + ": " + stream.getResponse().getContentAsString());
+            }
+            Thread.sleep(10);
+        }
+    }
+    
+    private TrackingNumberEntity unpublishedRow() {
+        String trackingNumber = UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+        TrackingNumberEntity entity = new TrackingNumberEntity(trackingNumber, "MY", "ID", new BigDecimal("1.234"),
+                                                               UUID.randomUUID(), "Budget Customer", "budget-customer");
+        entity.setWorkerId(workerLease.currentLease().map(WorkerLeaseManager.Lease::workerId).orElse(null));
+        entity.setCreatedAt(OffsetDateTime.now());
+        return entity;
+    }
+    
+    private static RequestBuilder generate(UUID customerId, String idempotencyKey) {
+        var request = get("/api/v1/next-tracking-number")
+            .param("origin_country_id", "MY")
+            .param("destination_country_id", "ID")
+            .param("weight", "1.234")
+            .param("customer_id", customerId.toString())
+            .param("customer_name", "Budget Customer")
+            .param("customer_slug", "budget-customer")
+            .accept(MediaType.APPLICATION_JSON);
+        return idempotencyKey == null ? request : request.header("Idempotency-Key", idempotencyKey);
+    }
+    
+    private RequestBuilder lookup(List<String> trackingNumbers) throws Exception {
+        return post("/api/v1/tracking-numbers:lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(Map.of("tracking_numbers", trackingNumbers)));
+    }
+}
@@ -0,0 +1,111 @@
+package uk.diasna.tng.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import uk.diasna.tng.concurrency.AdaptiveConcurrencyLimiter;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.exception.TrackingNumberCollisionException;
+import uk.diasna.tng.idempotency.IdempotencyService;
+import uk.diasna.tng.metrics.GenerationStageMetrics;
+import uk.diasna.tng.quota.CustomerQuotaService;
+import uk.diasna.tng.service.TrackingNumberLookupService;
+import uk.diasna.tng.service.TrackingNumberQueryService;
+import uk.diasna.tng.service.TrackingNumberService;
+import uk.diasna.tng.validator.TrackingNumberRequestValidator;
+
+import java.time.OffsetDateTime;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TrackingNumberController.class)
+class TrackingNumberControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockitoBean
+    private TrackingNumberService trackingNumberService;
+    
+    @MockitoBean
+    private TrackingNumberQueryService queryService;
+    
+    @MockitoBean
+    private TrackingNumberLookupService lookupService;
+    
+    @MockitoBean
+    private TrackingNumberRequestValidator validator;
+    
+    @MockitoBean
+    private GenerationStageMetrics stageMetrics;
+    
+    @MockitoBean
+    private DatabaseConcurrencyLimiter databaseLimiter;
+    
+    @MockitoBean
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    
+    @MockitoBean
+    private CustomerQuotaService customerQuota;
+    
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    
+    @BeforeEach
+    void setUp() {
+        when(concurrencyLimiter.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(databaseLimiter.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
+    
+    @Test
+    void generate_RetriesOnceInAFreshTransactionAfterAnInsertCollision() throws Exception {
+        when(trackingNumberService.generateTrackingNumber(any()))
+            .thenThrow(collision())
+            .thenReturn(new TrackingNumberResponse("ABC123DEF456GHI7", OffsetDateTime.parse("2025-01-01T12:00:00Z")));
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tracking_number").value("ABC123DEF456GHI7"));
+        
+        verify(trackingNumberService, times(2)).generateTrackingNumber(any());
+        verify(customerQuota, times(1)).acquire(any(), any());
+    }
+    
+    @Test
+    void generate_GivesUpAfterASecondCollision() throws Exception {
+        when(trackingNumberService.generateTrackingNumber(any())).thenThrow(collision());
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$.error").value("TRACKING_NUMBER_GENERATION_FAILED"));
+        
+        verify(trackingNumberService, times(2)).generateTrackingNumber(any());
+    }
+    
+    private static TrackingNumberCollisionException collision() {
+        return new TrackingNumberCollisionException("Tracking number collision detected",
+                                                    new DataIntegrityViolationException("uk_tracking_number"));
+    }
+    
+    private static MockHttpServletRequestBuilder generate() {
+        return get("/api/v1/next-tracking-number")
+            .param("origin_country_id", "MY")
+            .param("destination_country_id", "ID")
+            .param("weight", "1.234")
+            .param("customer_id", "de619854-b59b-425e-9db4-943979e1bd49")
+            .param("customer_name", "RedBox Logistics")
+            .param("customer_slug", "redbox-logistics")
+            .accept(MediaType.APPLICATION_JSON);
+    }
+}
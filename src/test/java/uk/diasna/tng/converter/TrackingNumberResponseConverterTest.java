@@ -0,0 +1,86 @@
+package uk.diasna.tng.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+
+import java.lang.reflect.Type;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackingNumberResponseConverterTest {
+    
+    private static final Type RESPONSE_LIST = new ParameterizedTypeReference<List<TrackingNumberResponse>>() {}.getType();
+    
+    private TrackingNumberResponseConverter converter;
+    private ObjectMapper objectMapper;
+    
+    @BeforeEach
+    void setUp() {
+        converter = new TrackingNumberResponseConverter();
+        // Same date settings as Spring Boot's auto-configured mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    }
+    
+    @Test
+    void write_Json_MatchesJacksonOutput() throws Exception {
+        List<TrackingNumberResponse> responses = List.of(
+            new TrackingNumberResponse("ABC123DEF4567890", OffsetDateTime.parse("2025-01-01T12:00:00Z")),
+            new TrackingNumberResponse("ABC123DEF4567891", OffsetDateTime.parse("2025-01-01T12:00:00.120+08:00")),
+            new TrackingNumberResponse("ABC123DEF4567892", OffsetDateTime.parse("2025-01-01T12:00:00.000001234-05:30")),
+            new TrackingNumberResponse("QUOTE\"D\\", OffsetDateTime.parse("2025-01-01T12:00:01.5Z")),
+            new TrackingNumberResponse("ABC123DEF4567893", null)
+        );
+        
+        for (TrackingNumberResponse response : responses) {
+            MockHttpOutputMessage message = new MockHttpOutputMessage();
+            converter.write(response, TrackingNumberResponse.class, MediaType.APPLICATION_JSON, message);
+            
+            assertEquals(objectMapper.writeValueAsString(response), message.getBodyAsString());
+            assertEquals(message.getBodyAsBytes().length, message.getHeaders().getContentLength());
+        }
+        
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(responses, RESPONSE_LIST, MediaType.APPLICATION_JSON, message);
+        assertEquals(objectMapper.writeValueAsString(responses), message.getBodyAsString());
+    }
+    
+    @Test
+    void write_Binary_RoundTripsSingleAndBatch() throws Exception {
+        TrackingNumberResponse single = new TrackingNumberResponse(
+            "ABC123DEF4567890", OffsetDateTime.parse("2025-01-01T12:00:00.123456789+08:00"));
+        
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(single, TrackingNumberResponse.class, TrackingNumberResponseConverter.BINARY, message);
+        
+        assertEquals(TrackingNumberBinaryFormat.HEADER_BYTES + TrackingNumberBinaryFormat.RECORD_BYTES,
+                     message.getBodyAsBytes().length);
+        assertEquals(List.of(single), TrackingNumberBinaryFormat.decode(message.getBodyAsBytes()));
+        
+        List<TrackingNumberResponse> batch = List.of(
+            single, new TrackingNumberResponse("SHORT", OffsetDateTime.parse("2025-01-01T00:00:00Z")));
+        message = new MockHttpOutputMessage();
+        converter.write(batch, RESPONSE_LIST, TrackingNumberResponseConverter.BINARY, message);
+        
+        assertEquals(batch, TrackingNumberBinaryFormat.decode(message.getBodyAsBytes()));
+    }
+    
+    @Test
+    void canWrite_OnlyTrackingNumberResponses() {
+        assertTrue(converter.canWrite(TrackingNumberResponse.class, TrackingNumberResponse.class, null));
+        assertTrue(converter.canWrite(RESPONSE_LIST, List.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(String.class, String.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(TrackingNumberResponse.class, TrackingNumberResponse.class, MediaType.TEXT_PLAIN));
+        assertFalse(converter.canRead(TrackingNumberResponse.class, null, MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,177 @@
+package uk.diasna.tng.exception;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import uk.diasna.tng.concurrency.AdaptiveConcurrencyLimiter;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.controller.TrackingNumberController;
+import uk.diasna.tng.idempotency.IdempotencyService;
+import uk.diasna.tng.metrics.GenerationStageMetrics;
+import uk.diasna.tng.quota.CustomerQuotaService;
+import uk.diasna.tng.service.TrackingNumberLookupService;
+import uk.diasna.tng.service.TrackingNumberQueryService;
+import uk.diasna.tng.service.TrackingNumberService;
+import uk.diasna.tng.validator.TrackingNumberRequestValidator;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(TrackingNumberController.class)
+class GlobalExceptionHandlerTest {
+    
+    private static final String CUSTOMER_ID = "de619854-b59b-425e-9db4-943979e1bd49";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockitoBean
+    private TrackingNumberService trackingNumberService;
+    
+    @MockitoBean
+    private TrackingNumberQueryService queryService;
+    
+    @MockitoBean
+    private TrackingNumberLookupService lookupService;
+    
+    @MockitoBean
+    private TrackingNumberRequestValidator validator;
+    
+    @MockitoBean
+    private GenerationStageMetrics stageMetrics;
+    
+    @MockitoBean
+    private DatabaseConcurrencyLimiter databaseLimiter;
+    
+    @MockitoBean
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    
+    @MockitoBean
+    private CustomerQuotaService customerQuota;
+    
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    
+    @BeforeEach
+    void setUp() {
+        when(concurrencyLimiter.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(databaseLimiter.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
+    
+    @Test
+    void trackingNumberGenerationException_Returns500WithItsMessage() throws Exception {
+        when(trackingNumberService.generateTrackingNumber(any()))
+            .thenThrow(new TrackingNumberGenerationException("Tracking number collision detected"));
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$.error").value("TRACKING_NUMBER_GENERATION_FAILED"))
+            .andExpect(jsonPath("$.message").value("Tracking number collision detected"))
+            .andExpect(jsonPath("$.timestamp").exists());
+    }
+    
+    @Test
+    void loadSheddingException_Returns503WithRetryAfterOfAtLeastOneSecond() throws Exception {
+        doThrow(new LoadSheddingException("Concurrency limit reached", Duration.ofMillis(200)))
+            .when(concurrencyLimiter).call(any());
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "1"))
+            .andExpect(jsonPath("$.error").value("SERVICE_OVERLOADED"))
+            .andExpect(jsonPath("$.message").value("Concurrency limit reached"));
+    }
+    
+    @Test
+    void quotaExceededException_Returns429WithRetryAfter() throws Exception {
+        doThrow(new QuotaExceededException("Quota exceeded for customer", Duration.ofSeconds(3)))
+            .when(customerQuota).acquire(any(), any());
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "3"))
+            .andExpect(jsonPath("$.error").value("QUOTA_EXCEEDED"))
+            .andExpect(jsonPath("$.message").value("Quota exceeded for customer"));
+        verifyNoInteractions(trackingNumberService);
+    }
+    
+    @Test
+    void invalidTrackingNumberRequestException_Returns400() throws Exception {
+        doThrow(new InvalidTrackingNumberRequestException("Weight must be at least 0.001 kg"))
+            .when(validator).validate(any());
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("INVALID_REQUEST_PARAMETER"))
+            .andExpect(jsonPath("$.message").value("Weight must be at least 0.001 kg"));
+        verifyNoInteractions(trackingNumberService);
+    }
+    
+    @Test
+    void idempotencyKeyReusedException_Returns422() throws Exception {
+        when(idempotencyService.execute(any(), any(), any()))
+            .thenThrow(new IdempotencyKeyReusedException("Idempotency-Key was already used with different request parameters"));
+        
+        mockMvc.perform(generate().header("Idempotency-Key", "order-1"))
+            .andExpect(status().isUnprocessableEntity())
+            .andExpect(jsonPath("$.error").value("IDEMPOTENCY_KEY_REUSED"))
+            .andExpect(jsonPath("$.message").value("Idempotency-Key was already used with different request parameters"));
+        verifyNoInteractions(trackingNumberService);
+    }
+    
+    @Test
+    void illegalArgumentException_Returns400() throws Exception {
+        when(trackingNumberService.generateTrackingNumber(any()))
+            .thenThrow(new IllegalArgumentException("Unsupported lane"));
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("INVALID_REQUEST_PARAMETER"))
+            .andExpect(jsonPath("$.message").value("Unsupported lane"));
+    }
+    
+    @Test
+    void methodArgumentTypeMismatchException_Returns400NamingTheParameter() throws Exception {
+        mockMvc.perform(generate("not-a-uuid"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("INVALID_PARAMETER_TYPE"))
+            .andExpect(jsonPath("$.message").value("Invalid value 'not-a-uuid' for parameter 'customer_id'"));
+        verifyNoInteractions(trackingNumberService);
+    }
+    
+    @Test
+    void unexpectedException_Returns500WithoutItsDetails() throws Exception {
+        when(trackingNumberService.generateTrackingNumber(any()))
+            .thenThrow(new IllegalStateException("connection refused to 10.0.0.5"));
+        
+        mockMvc.perform(generate())
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$.error").value("INTERNAL_SERVER_ERROR"))
+            .andExpect(jsonPath("$.message").value("An unexpected error occurred"));
+    }
+    
+    private static MockHttpServletRequestBuilder generate() {
+        return generate(CUSTOMER_ID);
+    }
+    
+    private static MockHttpServletRequestBuilder generate(String customerId) {
+        return get("/api/v1/next-tracking-number")
+            .param("origin_country_id", "MY")
+            .param("destination_country_id", "ID")
+            .param("weight", "1.234")
+            .param("customer_id", customerId)
+            .param("customer_name", "RedBox Logistics")
+            .param("customer_slug", "redbox-logistics")
+            .accept(MediaType.APPLICATION_JSON);
+    }
+}
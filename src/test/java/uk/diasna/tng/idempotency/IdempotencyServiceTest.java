@@ -0,0 +1,233 @@
+package uk.diasna.tng.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.entity.IdempotencyKeyEntity;
+import uk.diasna.tng.exception.IdempotencyKeyReusedException;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.exception.TrackingNumberGenerationException;
+import uk.diasna.tng.repository.IdempotencyKeyRepository;
+import uk.diasna.tng.support.MutableClock;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+    
+    @Mock
+    private IdempotencyKeyRepository repository;
+    
+    private MutableClock clock;
+    private MeterRegistry meterRegistry;
+    private IdempotencyService idempotencyService;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(repository, meterRegistry, 100, Duration.ofHours(24), clock);
+    }
+    
+    @Test
+    void execute_ConcurrentDuplicatesShareOneGeneration() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        when(repository.findByCustomerIdAndIdempotencyKey(customerId, "order-1")).thenReturn(Optional.empty());
+        
+        AtomicInteger generations = new AtomicInteger();
+        CountDownLatch generationStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TrackingNumberResponse issued = response("ABC123DEF456GHI7");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TrackingNumberResponse>> results = new ArrayList<>();
+            results.add(executor.submit(() -> idempotencyService.execute(request(customerId), "order-1", () -> {
+                generations.incrementAndGet();
+                generationStarted.countDown();
+                await(release);
+                return issued;
+            })));
+            assertTrue(generationStarted.await(5, TimeUnit.SECONDS));
+            
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> idempotencyService.execute(request(customerId), "order-1", () -> {
+                    generations.incrementAndGet();
+                    return response("ZZZ999ZZZ999ZZZ9");
+                })));
+            }
+            release.countDown();
+            
+            for (Future<TrackingNumberResponse> result : results) {
+                assertEquals(issued, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertEquals(1, generations.get());
+        assertEquals(7, meterRegistry.get("tracking_number.idempotency.replays").tag("source", "cache").counter().count());
+    }
+    
+    @Test
+    void execute_ReplaysStoredKeyWithoutGenerating() {
+        UUID customerId = UUID.randomUUID();
+        OffsetDateTime issuedAt = OffsetDateTime.ofInstant(NOW.minusSeconds(60), ZoneOffset.UTC);
+        when(repository.findByCustomerIdAndIdempotencyKey(customerId, "order-1")).thenReturn(Optional.of(
+            new IdempotencyKeyEntity(customerId, "order-1", hash(customerId), "ABC123DEF456GHI7", issuedAt, issuedAt.plusHours(24))));
+        
+        TrackingNumberResponse response = idempotencyService.execute(request(customerId), "order-1", () -> fail("Must not generate"));
+        
+        assertEquals(new TrackingNumberResponse("ABC123DEF456GHI7", issuedAt), response);
+        assertEquals(1, meterRegistry.get("tracking_number.idempotency.replays").tag("source", "database").counter().count());
+    }
+    
+    @Test
+    void execute_RejectsStoredKeyReusedWithOtherParameters() {
+        UUID customerId = UUID.randomUUID();
+        OffsetDateTime issuedAt = OffsetDateTime.ofInstant(NOW.minusSeconds(60), ZoneOffset.UTC);
+        when(repository.findByCustomerIdAndIdempotencyKey(customerId, "order-1")).thenReturn(Optional.of(
+            new IdempotencyKeyEntity(customerId, "order-1", hash(customerId), "ABC123DEF456GHI7", issuedAt, issuedAt.plusHours(24))));
+        
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute(
+            request(customerId, new BigDecimal("2.000")), "order-1", () -> fail("Must not generate")));
+    }
+    
+    @Test
+    void execute_RejectsCachedKeyReusedWithOtherParameters() {
+        UUID customerId = UUID.randomUUID();
+        when(repository.findByCustomerIdAndIdempotencyKey(customerId, "order-1")).thenReturn(Optional.empty());
+        idempotencyService.execute(request(customerId), "order-1", () -> response("ABC123DEF456GHI7"));
+        
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute(
+            request(customerId, new BigDecimal("2.000")), "order-1", () -> fail("Must not generate")));
+        
+        // Still replayed for the parameters it was issued for
+        TrackingNumberResponse replay = idempotencyService.execute(request(customerId), "order-1", () -> fail("Must not generate"));
+        assertEquals("ABC123DEF456GHI7", replay.trackingNumber());
+    }
+    
+    @Test
+    void requestHash_ComparesWeightByValue() {
+        UUID customerId = UUID.randomUUID();
+        
+        assertEquals(hash(customerId), IdempotencyService.requestHash(request(customerId, new BigDecimal("1.2340"))));
+        assertNotEquals(hash(customerId), IdempotencyService.requestHash(request(customerId, new BigDecimal("1.235"))));
+        assertEquals(64, hash(customerId).length());
+    }
+    
+    @Test
+    void execute_ExpiredKeyIsDeletedAndGeneratesAgain() {
+        UUID customerId = UUID.randomUUID();
+        OffsetDateTime issuedAt = OffsetDateTime.ofInstant(NOW.minus(Duration.ofHours(25)), ZoneOffset.UTC);
+        IdempotencyKeyEntity expired = new IdempotencyKeyEntity(customerId, "order-1", hash(customerId), "OLD000OLD000OLD0",
+                                                                issuedAt, issuedAt.plusHours(24));
+        when(repository.findByCustomerIdAndIdempotencyKey(customerId, "order-1")).thenReturn(Optional.of(expired));
+        
+        TrackingNumberResponse response = idempotencyService.execute(request(customerId), "order-1", () -> response("NEW111NEW111NEW1"));
+        
+        assertEquals("NEW111NEW111NEW1", response.trackingNumber());
+        verify(repository).delete(expired);
+    }
+    
+    @Test
+    void execute_FailureIsNotReplayed() {
+        UUID customerId = UUID.randomUUID();
+        when(repository.findByCustomerIdAndIdempotencyKey(customerId, "order-1")).thenReturn(Optional.empty());
+        
+        assertThrows(TrackingNumberGenerationException.class, () -> idempotencyService.execute(request(customerId), "order-1",
+            () -> { throw new TrackingNumberGenerationException("Failed to generate tracking number"); }));
+        
+        TrackingNumberResponse response = idempotencyService.execute(request(customerId), "order-1", () -> response("ABC123DEF456GHI7"));
+        assertEquals("ABC123DEF456GHI7", response.trackingNumber());
+    }
+    
+    @Test
+    void execute_LosingAnInstanceRaceReturnsTheWinner() {
+        UUID customerId = UUID.randomUUID();
+        OffsetDateTime issuedAt = OffsetDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        when(repository.findByCustomerIdAndIdempotencyKey(customerId, "order-1"))
+            .thenReturn(Optional.empty())
+            .thenReturn(Optional.of(new IdempotencyKeyEntity(customerId, "order-1", hash(customerId), "WIN000WIN000WIN0",
+                                                             issuedAt, issuedAt.plusHours(24))));
+        
+        TrackingNumberResponse response = idempotencyService.execute(request(customerId), "order-1",
+            () -> { throw new DataIntegrityViolationException("uk_idempotency_customer_key"); });
+        
+        assertEquals("WIN000WIN000WIN0", response.trackingNumber());
+    }
+    
+    @Test
+    void execute_RejectsBlankOrOversizedKeys() {
+        UUID customerId = UUID.randomUUID();
+        
+        assertThrows(InvalidTrackingNumberRequestException.class,
+            () -> idempotencyService.execute(request(customerId), " ", () -> response("ABC123DEF456GHI7")));
+        assertThrows(InvalidTrackingNumberRequestException.class,
+            () -> idempotencyService.execute(request(customerId), "k".repeat(256), () -> response("ABC123DEF456GHI7")));
+        verifyNoInteractions(repository);
+    }
+    
+    @Test
+    void record_StoresKeyUntilTtl() {
+        UUID customerId = UUID.randomUUID();
+        TrackingNumberResponse response = response("ABC123DEF456GHI7");
+        
+        idempotencyService.record(request(customerId), "order-1", response);
+        
+        verify(repository).saveAndFlush(argThat((IdempotencyKeyEntity entity) ->
+            entity.getTrackingNumber().equals("ABC123DEF456GHI7")
+                && entity.getRequestHash().equals(hash(customerId))
+                && entity.getExpiresAt().toInstant().equals(NOW.plus(Duration.ofHours(24)))));
+    }
+    
+    private static TrackingNumberRequest request(UUID customerId) {
+        return request(customerId, new BigDecimal("1.234"));
+    }
+    
+    private static TrackingNumberRequest request(UUID customerId, BigDecimal weight) {
+        return new TrackingNumberRequest("MY", "ID", weight, customerId, "RedBox Logistics", "redbox-logistics");
+    }
+    
+    private static String hash(UUID customerId) {
+        return IdempotencyService.requestHash(request(customerId));
+    }
+    
+    private static TrackingNumberResponse response(String trackingNumber) {
+        return new TrackingNumberResponse(trackingNumber, OffsetDateTime.ofInstant(NOW, ZoneOffset.UTC));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
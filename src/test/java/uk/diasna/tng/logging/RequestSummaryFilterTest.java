@@ -0,0 +1,98 @@
+package uk.diasna.tng.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestSummaryFilterTest {
+    
+    private final Logger logger = (Logger) LoggerFactory.getLogger("uk.diasna.tng.request");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    
+    // Nothing is sampled, so only the requests that are always logged show up
+    private final RequestSummaryFilter filter = new RequestSummaryFilter(0.0);
+    
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+    
+    @Test
+    void doFilter_SamplesSuccessfulRequests() throws Exception {
+        filter.doFilter(request("/api/v1/next-tracking-number"), new MockHttpServletResponse(), (req, res) -> {});
+        
+        assertTrue(appender.list.isEmpty());
+    }
+    
+    @Test
+    void doFilter_AlwaysLogsClientErrors() throws Exception {
+        filter.doFilter(request("/api/v1/next-tracking-number"), new MockHttpServletResponse(),
+                        (req, res) -> ((MockHttpServletResponse) res).setStatus(429));
+        
+        assertEquals(1, appender.list.size());
+        assertEquals(Level.WARN, appender.list.get(0).getLevel());
+        assertEquals(429, status(appender.list.get(0)));
+    }
+    
+    @Test
+    void doFilter_AlwaysLogsLoadSheddingAsAWarning() throws Exception {
+        filter.doFilter(request("/api/v1/next-tracking-number"), new MockHttpServletResponse(),
+                        (req, res) -> ((MockHttpServletResponse) res).setStatus(503));
+        
+        assertEquals(1, appender.list.size());
+        assertEquals(Level.WARN, appender.list.get(0).getLevel());
+    }
+    
+    @Test
+    void doFilter_LogsServerErrorsAsErrors() throws Exception {
+        filter.doFilter(request("/api/v1/next-tracking-number"), new MockHttpServletResponse(),
+                        (req, res) -> ((MockHttpServletResponse) res).setStatus(500));
+        
+        assertEquals(1, appender.list.size());
+        assertEquals(Level.ERROR, appender.list.get(0).getLevel());
+    }
+    
+    @Test
+    void doFilter_LogsAsyncRequestsWhenTheyComplete() throws Exception {
+        MockHttpServletRequest request = request("/api/v1/tracking-numbers/stream");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+        assertTrue(appender.list.isEmpty());
+        
+        response.setStatus(500);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        
+        assertEquals(1, appender.list.size());
+        assertEquals(500, status(appender.list.get(0)));
+    }
+    
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+    
+    private static Object status(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+            .filter(pair -> pair.key.equals("status"))
+            .findFirst()
+            .orElseThrow()
+            .value;
+    }
+}
@@ -0,0 +1,119 @@
+package uk.diasna.tng.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationStageMetricsTest {
+    
+    private static final TrackingNumberRequest REQUEST = new TrackingNumberRequest(
+        "MY", "ID", new BigDecimal("1.234"), UUID.randomUUID(), "Test Customer", "test-customer");
+    
+    private SimpleMeterRegistry meterRegistry;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void record_TimesEachStageSeparately() {
+        GenerationStageMetrics metrics = new GenerationStageMetrics(meterRegistry, true);
+        
+        metrics.record(GenerationStage.VALIDATION, metrics.start());
+        metrics.record(GenerationStage.EXISTENCE_CHECK, metrics.start());
+        metrics.record(GenerationStage.EXISTENCE_CHECK, metrics.start());
+        
+        assertEquals(GenerationStage.values().length, meterRegistry.find("tracking_number.stage.time").timers().size());
+        assertEquals(1, stageTimer("validation").count());
+        assertEquals(2, stageTimer("existence_check").count());
+        assertEquals(0, stageTimer("insert").count());
+    }
+    
+    @Test
+    void snapshot_DescribesEveryStageAndConnectionAcquire() {
+        GenerationStageMetrics metrics = new GenerationStageMetrics(meterRegistry, true);
+        metrics.record(GenerationStage.INSERT, metrics.start());
+        Timer.builder(GenerationStageMetrics.CONNECTION_ACQUIRE_METER).register(meterRegistry)
+            .record(Duration.ofMillis(2));
+        
+        Map<String, Object> snapshot = metrics.snapshot();
+        
+        assertEquals(List.of("validation", "id_generation", "existence_check", "insert", "commit", "connection_acquire"),
+                     List.copyOf(snapshot.keySet()));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> insert = (Map<String, Object>) snapshot.get("insert");
+        assertEquals(1L, insert.get("count"));
+        assertTrue(insert.keySet().containsAll(List.of("meanMs", "maxMs", "p50Ms", "p95Ms", "p99Ms", "p999Ms")));
+    }
+    
+    @Test
+    void timeCurrentCommit_RecordsTheCommitStageOnlyAfterCommit() {
+        GenerationStageMetrics metrics = new GenerationStageMetrics(meterRegistry, true);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        metrics.timeCurrentCommit(REQUEST);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        
+        TransactionSynchronization commit = synchronizations.get(0);
+        commit.beforeCommit(false);
+        assertEquals(0, stageTimer("commit").count());
+        commit.afterCommit();
+        assertEquals(1, stageTimer("commit").count());
+    }
+    
+    @Test
+    void timeCurrentCommit_IgnoresRolledBackAndNonTransactionalWork() {
+        GenerationStageMetrics metrics = new GenerationStageMetrics(meterRegistry, true);
+        
+        metrics.timeCurrentCommit(REQUEST);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        metrics.timeCurrentCommit(REQUEST);
+        TransactionSynchronizationManager.getSynchronizations().get(0)
+            .afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        
+        assertEquals(0, stageTimer("commit").count());
+    }
+    
+    @Test
+    void disabled_RegistersNothingAndSkipsTheCommitSynchronization() {
+        GenerationStageMetrics metrics = new GenerationStageMetrics(meterRegistry, false);
+        
+        assertFalse(metrics.isEnabled());
+        assertEquals(0L, metrics.start());
+        metrics.record(GenerationStage.VALIDATION, 0L);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        metrics.timeCurrentCommit(REQUEST);
+        
+        assertTrue(meterRegistry.find("tracking_number.stage.time").timers().isEmpty());
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+    
+    private Timer stageTimer(String stage) {
+        return meterRegistry.get("tracking_number.stage.time").tag("stage", stage).timer();
+    }
+}
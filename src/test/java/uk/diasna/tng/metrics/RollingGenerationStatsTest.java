@@ -0,0 +1,89 @@
+package uk.diasna.tng.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.diasna.tng.support.MutableClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingGenerationStatsTest {
+    
+    private MutableClock clock;
+    private RollingGenerationStats stats;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T12:00:00Z"));
+        stats = new RollingGenerationStats(
+            List.of(Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15)),
+            Duration.ofMinutes(1), 10, clock);
+    }
+    
+    @Test
+    void stats_NoEvents_Healthy() {
+        RollingGenerationStats.WindowStats window = stats.statusStats();
+        
+        assertEquals(0, window.generated());
+        assertEquals(0.0, window.failureRate());
+        assertEquals("HEALTHY", window.status());
+    }
+    
+    @Test
+    void stats_FailureStormAfterLongHealthyPeriod_Critical() {
+        // A long healthy history must not dilute a fresh failure storm
+        for (int minute = 0; minute < 60; minute++) {
+            for (int i = 0; i < 100; i++) {
+                stats.recordGenerated();
+            }
+            clock.advance(Duration.ofMinutes(1));
+        }
+        for (int i = 0; i < 20; i++) {
+            stats.recordGenerated();
+            stats.recordFailure();
+        }
+        
+        RollingGenerationStats.WindowStats lastMinute = stats.statusStats();
+        
+        assertEquals(20, lastMinute.generated());
+        assertEquals(20, lastMinute.failures());
+        assertEquals(50.0, lastMinute.failureRate());
+        assertEquals("CRITICAL", lastMinute.status());
+        assertEquals(1420, stats.stats(Duration.ofMinutes(15)).generated());
+    }
+    
+    @Test
+    void stats_HighCollisionRate_Warning() {
+        for (int i = 0; i < 80; i++) {
+            stats.recordGenerated();
+        }
+        for (int i = 0; i < 20; i++) {
+            stats.recordCollision();
+        }
+        
+        assertEquals("WARNING", stats.statusStats().status());
+    }
+    
+    @Test
+    void stats_BelowMinimumEvents_Healthy() {
+        stats.recordFailure();
+        
+        assertEquals(100.0, stats.statusStats().failureRate());
+        assertEquals("HEALTHY", stats.statusStats().status());
+    }
+    
+    @Test
+    void stats_EventsExpireOutOfWindow() {
+        stats.recordFailure();
+        clock.advance(Duration.ofSeconds(61));
+        
+        assertEquals(0, stats.stats(Duration.ofMinutes(1)).failures());
+        assertEquals(1, stats.stats(Duration.ofMinutes(5)).failures());
+        
+        clock.advance(Duration.ofMinutes(15));
+        assertEquals(0, stats.stats(Duration.ofMinutes(15)).failures());
+    }
+}
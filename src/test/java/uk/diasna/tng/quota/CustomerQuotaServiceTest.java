@@ -0,0 +1,91 @@
+package uk.diasna.tng.quota;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.diasna.tng.exception.QuotaExceededException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerQuotaServiceTest {
+    
+    private AtomicLong nanoTime;
+    private CustomerQuotaService quotaService;
+    
+    @BeforeEach
+    void setUp() {
+        nanoTime = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        QuotaProperties properties = new QuotaProperties(
+            true,
+            "standard",
+            Map.of("standard", new QuotaProperties.Tier(10, 5),
+                   "bulk", new QuotaProperties.Tier(100, 50)),
+            Map.of("bulk-customer", "bulk"),
+            1000,
+            Duration.ofMinutes(10),
+            new QuotaProperties.Sync(false, Duration.ofMinutes(1))
+        );
+        quotaService = new CustomerQuotaService(properties, new SimpleMeterRegistry(), nanoTime::get);
+    }
+    
+    @Test
+    void acquire_AllowsBurstThenRejectsWithRetryAfter() {
+        UUID customerId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            quotaService.acquire(customerId, "standard-customer");
+        }
+        
+        QuotaExceededException exception = assertThrows(QuotaExceededException.class,
+            () -> quotaService.acquire(customerId, "standard-customer"));
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+    
+    @Test
+    void acquire_RefillsAtTierRate() {
+        UUID customerId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            quotaService.acquire(customerId, "standard-customer");
+        }
+        
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertDoesNotThrow(() -> quotaService.acquire(customerId, "standard-customer"));
+        assertThrows(QuotaExceededException.class, () -> quotaService.acquire(customerId, "standard-customer"));
+    }
+    
+    @Test
+    void acquire_TiersAndCustomersAreIndependent() {
+        UUID bulkCustomer = UUID.randomUUID();
+        UUID otherCustomer = UUID.randomUUID();
+        for (int i = 0; i < 50; i++) {
+            quotaService.acquire(bulkCustomer, "bulk-customer");
+        }
+        
+        assertThrows(QuotaExceededException.class, () -> quotaService.acquire(bulkCustomer, "bulk-customer"));
+        assertDoesNotThrow(() -> quotaService.acquire(otherCustomer, "standard-customer"));
+    }
+    
+    @Test
+    void applyClusterUsage_ChargesConsumptionFromOtherInstances() {
+        UUID customerId = UUID.randomUUID();
+        quotaService.acquire(customerId, "standard-customer");
+        
+        List<CustomerQuotaService.PendingUsage> pending = quotaService.drainPendingUsage();
+        assertEquals(1, pending.size());
+        assertEquals(1, pending.get(0).consumed());
+        
+        // This instance added 1 and the window total came back as 4: three tokens went elsewhere
+        quotaService.applyClusterUsage(pending.get(0), 0L, 4);
+        
+        assertDoesNotThrow(() -> quotaService.acquire(customerId, "standard-customer"));
+        assertThrows(QuotaExceededException.class, () -> quotaService.acquire(customerId, "standard-customer"));
+        assertTrue(quotaService.drainPendingUsage().stream().allMatch(usage -> usage.consumed() == 1));
+    }
+}
@@ -0,0 +1,41 @@
+package uk.diasna.tng.quota;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotaPropertiesTest {
+    
+    @Test
+    void bind_ReadsTiers() {
+        QuotaProperties properties = bind(Map.of(
+            "tng.quota.tiers.premium.rate-per-second", "2.5",
+            "tng.quota.tiers.premium.burst", "10",
+            "tng.quota.slug-tiers.redbox-logistics", "premium"));
+        
+        assertEquals(new QuotaProperties.Tier(2.5, 10), properties.tierFor("redbox-logistics"));
+    }
+    
+    @Test
+    void bind_RejectsNonPositiveRates() {
+        assertThrows(BindException.class, () -> bind(Map.of("tng.quota.tiers.free.rate-per-second", "0")));
+        assertThrows(BindException.class, () -> bind(Map.of("tng.quota.tiers.free.rate-per-second", "-1")));
+    }
+    
+    @Test
+    void tier_RejectsNonPositiveOrNonFiniteRates() {
+        assertThrows(IllegalArgumentException.class, () -> new QuotaProperties.Tier(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaProperties.Tier(Double.NaN, 10));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaProperties.Tier(Double.POSITIVE_INFINITY, 10));
+    }
+    
+    private static QuotaProperties bind(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+            .bindOrCreate("tng.quota", QuotaProperties.class);
+    }
+}
@@ -0,0 +1,124 @@
+package uk.diasna.tng.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.dto.TrackingNumberLookupResponse;
+import uk.diasna.tng.dto.TrackingNumberLookupResult;
+import uk.diasna.tng.entity.TrackingNumberEntity;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackingNumberLookupServiceTest {
+    
+    private static final String ISSUED = "ABCDEFGH12345678";
+    private static final String OTHER_ISSUED = "ZYXWVUTS87654321";
+    private static final String UNKNOWN = "AAAAAAAAAAAAAAAA";
+    
+    @Mock
+    private TrackingNumberRepository repository;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    private MeterRegistry meterRegistry;
+    private TrackingNumberLookupService service;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new TrackingNumberLookupService(repository,
+            new DatabaseConcurrencyLimiter(meterRegistry, 4, Duration.ofSeconds(1), Duration.ofSeconds(1)),
+            transactionManager, meterRegistry, 10, 3, 100, Duration.ofMinutes(10));
+    }
+    
+    @Test
+    void lookup_AnswersInRequestOrderWithOneQueryForDistinctWellFormedNumbers() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.findAllByTrackingNumberAny(any())).thenReturn(List.of(entity(OTHER_ISSUED), entity(ISSUED)));
+        
+        TrackingNumberLookupResponse response = service.lookup(List.of(ISSUED, "bad", UNKNOWN, ISSUED, OTHER_ISSUED));
+        
+        assertEquals(List.of(ISSUED, "bad", UNKNOWN, ISSUED, OTHER_ISSUED),
+                     response.results().stream().map(TrackingNumberLookupResult::trackingNumber).toList());
+        assertEquals(List.of(TrackingNumberLookupResult.Status.FOUND, TrackingNumberLookupResult.Status.INVALID,
+                             TrackingNumberLookupResult.Status.NOT_FOUND, TrackingNumberLookupResult.Status.FOUND,
+                             TrackingNumberLookupResult.Status.FOUND),
+                     response.results().stream().map(TrackingNumberLookupResult::status).toList());
+        assertEquals("MY", response.results().get(0).details().originCountryId());
+        assertNull(response.results().get(2).details());
+        
+        verify(repository).findAllByTrackingNumberAny(argThat(numbers -> Arrays.equals(numbers, new String[] {ISSUED, UNKNOWN, OTHER_ISSUED})));
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+    
+    @Test
+    void lookup_CachedNumbersSkipTheDatabase() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.findAllByTrackingNumberAny(any())).thenReturn(List.of(entity(ISSUED)));
+        service.lookup(List.of(ISSUED, UNKNOWN));
+        clearInvocations(repository, transactionManager);
+        
+        TrackingNumberLookupResponse response = service.lookup(List.of(ISSUED, ISSUED));
+        
+        assertTrue(response.results().stream().allMatch(result -> result.status() == TrackingNumberLookupResult.Status.FOUND));
+        verifyNoInteractions(repository, transactionManager);
+        assertEquals(1, meterRegistry.get("tracking_number.lookup.results").tag("result", "cache").counter().count());
+        assertEquals(1, meterRegistry.get("tracking_number.lookup.results").tag("result", "not_found").counter().count());
+    }
+    
+    @Test
+    void lookup_SplitsMissesIntoChunksInOneTransaction() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.findAllByTrackingNumberAny(any())).thenReturn(List.of());
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            numbers.add("AAAAAAAAAAAAAAA" + i);
+        }
+        
+        service.lookup(numbers);
+        
+        verify(repository, times(2)).findAllByTrackingNumberAny(argThat(chunk -> chunk.length == 3));
+        verify(repository).findAllByTrackingNumberAny(argThat(chunk -> chunk.length == 1));
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+    
+    @Test
+    void lookup_RejectsEmptyAndOversizedRequests() {
+        assertThrows(InvalidTrackingNumberRequestException.class, () -> service.lookup(List.of()));
+        assertThrows(InvalidTrackingNumberRequestException.class, () -> service.lookup(null));
+        assertThrows(InvalidTrackingNumberRequestException.class, () -> service.lookup(Collections.nCopies(11, ISSUED)));
+        verifyNoInteractions(repository);
+    }
+    
+    private static TrackingNumberEntity entity(String trackingNumber) {
+        TrackingNumberEntity entity = new TrackingNumberEntity(trackingNumber, "MY", "ID", new BigDecimal("1.234"),
+            UUID.fromString("de619854-b59b-425e-9db4-943979e1bd49"), "RedBox Logistics", "redbox-logistics");
+        entity.setId(1L);
+        entity.setCreatedAt(OffsetDateTime.parse("2025-07-21T12:34:56+08:00"));
+        return entity;
+    }
+}
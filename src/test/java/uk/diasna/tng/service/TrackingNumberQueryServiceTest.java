@@ -0,0 +1,109 @@
+package uk.diasna.tng.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import uk.diasna.tng.dto.TrackingNumberPage;
+import uk.diasna.tng.dto.TrackingNumberSummary;
+import uk.diasna.tng.exception.InvalidTrackingNumberRequestException;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackingNumberQueryServiceTest {
+    
+    private static final UUID CUSTOMER_ID = UUID.fromString("de619854-b59b-425e-9db4-943979e1bd49");
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2025, 7, 21, 12, 34, 56, 123_456_000, ZoneOffset.ofHours(8));
+    
+    @Mock
+    private TrackingNumberRepository repository;
+    
+    private TrackingNumberQueryService service;
+    
+    @BeforeEach
+    void setUp() {
+        service = new TrackingNumberQueryService(repository, 2, 100);
+    }
+    
+    @Test
+    void listByCustomer_ReturnsCursorThatSeeksPastTheLastRow() {
+        when(repository.findPageByCustomerId(CUSTOMER_ID, Limit.of(3))).thenReturn(rows(10, 3));
+        
+        TrackingNumberPage first = service.listByCustomer(CUSTOMER_ID, null, null);
+        
+        assertEquals(List.of(10L, 9L), first.items().stream().map(TrackingNumberSummary::id).toList());
+        assertNotNull(first.nextCursor());
+        
+        when(repository.findPageByCustomerIdAfter(CUSTOMER_ID, createdAt(9).withOffsetSameInstant(ZoneOffset.UTC), 9L, Limit.of(3)))
+            .thenReturn(rows(8, 1));
+        
+        TrackingNumberPage last = service.listByCustomer(CUSTOMER_ID, first.nextCursor(), null);
+        
+        assertEquals(List.of(8L), last.items().stream().map(TrackingNumberSummary::id).toList());
+        assertNull(last.nextCursor());
+    }
+    
+    @Test
+    void listByCustomer_NoCursorWhenThePageIsExactlyFull() {
+        when(repository.findPageByCustomerId(CUSTOMER_ID, Limit.of(6))).thenReturn(rows(5, 5));
+        
+        TrackingNumberPage page = service.listByCustomer(CUSTOMER_ID, "", 5);
+        
+        assertEquals(5, page.items().size());
+        assertNull(page.nextCursor());
+    }
+    
+    @Test
+    void listByCustomer_RejectsTamperedCursor() {
+        String cursor = new ListingCursor(NOW, 42).encode();
+        
+        assertThrows(InvalidTrackingNumberRequestException.class,
+                     () -> service.listByCustomer(CUSTOMER_ID, cursor.substring(1), null));
+        assertThrows(InvalidTrackingNumberRequestException.class,
+                     () -> service.listByCustomer(CUSTOMER_ID, "not a cursor!", null));
+        verifyNoInteractions(repository);
+    }
+    
+    @Test
+    void listByCustomer_RejectsPageSizeOutsideBounds() {
+        assertThrows(InvalidTrackingNumberRequestException.class, () -> service.listByCustomer(CUSTOMER_ID, null, 0));
+        assertThrows(InvalidTrackingNumberRequestException.class, () -> service.listByCustomer(CUSTOMER_ID, null, 101));
+        verify(repository, never()).findPageByCustomerId(any(), any());
+    }
+    
+    @Test
+    void cursor_RoundTripsCreatedAtAndId() {
+        ListingCursor cursor = ListingCursor.decode(new ListingCursor(NOW, Long.MAX_VALUE).encode());
+        
+        assertEquals(NOW.toInstant(), cursor.createdAt().toInstant());
+        assertEquals(Long.MAX_VALUE, cursor.id());
+    }
+    
+    /**
+     * Rows as the repository returns them, newest first, ids counting down from firstId
+     */
+    private static List<TrackingNumberSummary> rows(long firstId, int count) {
+        List<TrackingNumberSummary> rows = new ArrayList<>();
+        for (long id = firstId; id > firstId - count; id--) {
+            rows.add(new TrackingNumberSummary(id, "TN" + id, "MY", "ID", BigDecimal.ONE, createdAt(id)));
+        }
+        return rows;
+    }
+    
+    private static OffsetDateTime createdAt(long id) {
+        return NOW.minusSeconds(100 - id);
+    }
+}
@@ -2,20 +2,41 @@ package uk.diasna.tng.service;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import uk.diasna.tng.dto.TrackingNumberRequest;
 import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.entity.AuditOutboxEntity;
 import uk.diasna.tng.entity.TrackingNumberEntity;
+import uk.diasna.tng.exception.LoadSheddingException;
+import uk.diasna.tng.exception.TrackingNumberCollisionException;
 import uk.diasna.tng.exception.TrackingNumberGenerationException;
+import uk.diasna.tng.idempotency.IdempotencyService;
+import uk.diasna.tng.metrics.GenerationStageEvent;
+import uk.diasna.tng.metrics.GenerationStageMetrics;
+import uk.diasna.tng.metrics.RollingGenerationStats;
+import uk.diasna.tng.repository.AuditOutboxRepository;
+import uk.diasna.tng.repository.IdempotencyKeyRepository;
 import uk.diasna.tng.repository.TrackingNumberRepository;
+import uk.diasna.tng.stats.CustomerLoadTracker;
+import uk.diasna.tng.stats.LaneStatisticsAggregator;
+import uk.diasna.tng.stream.TrackingNumberEventBuffer;
 import uk.diasna.tng.util.TrackingNumberGenerator;
+import uk.diasna.tng.worker.WorkerLeaseManager;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,16 +51,30 @@ class TrackingNumberServiceTest {
     @Mock
     private TrackingNumberRepository repository;
 
+    @Mock
+    private AuditOutboxRepository auditOutboxRepository;
+    
     @Mock
     private TrackingNumberGenerator trackingNumberGenerator;
 
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    
     private MeterRegistry meterRegistry;
     private TrackingNumberService service;
 
     @BeforeEach
     void setUp() {
         meterRegistry = new SimpleMeterRegistry();
-        service = new TrackingNumberService(repository, trackingNumberGenerator, meterRegistry);
+        service = new TrackingNumberService(repository, auditOutboxRepository, trackingNumberGenerator,
+                                            new LaneStatisticsAggregator(),
+                                            new CustomerLoadTracker(meterRegistry, 64, Duration.ofMinutes(5)),
+                                            new GenerationStageMetrics(meterRegistry, true),
+                                            new RollingGenerationStats(List.of(Duration.ofMinutes(1)), Duration.ofMinutes(1), 10),
+                                            new IdempotencyService(idempotencyKeyRepository, meterRegistry, 100, Duration.ofHours(24)),
+                                            new TrackingNumberEventBuffer(16),
+                                            workerLease(false),
+                                            meterRegistry);
     }
 
     @Test
@@ -66,6 +101,9 @@ class TrackingNumberServiceTest {
         
         verify(repository).existsByTrackingNumber(expectedTrackingNumber);
         verify(repository).save(any(TrackingNumberEntity.class));
+        verify(auditOutboxRepository).save(argThat((AuditOutboxEntity event) ->
+            event.getTrackingNumber().equals(expectedTrackingNumber)
+                && event.getCreatedAt().equals(response.createdAt())));
     }
 
     @Test
@@ -97,6 +135,43 @@ class TrackingNumberServiceTest {
         verify(repository).existsByTrackingNumber(secondNumber);
         verify(repository).save(any(TrackingNumberEntity.class));
     }
+    
+    @Test
+    void generateTrackingNumber_RecordsStageEventsWithCustomerAndLane() throws Exception {
+        // Given
+        UUID customerId = UUID.randomUUID();
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"), 
+            customerId, "Test Customer", "test-customer"
+        );
+        
+        when(trackingNumberGenerator.generateTrackingNumber())
+            .thenReturn("ABC123DEF456GHI7")
+            .thenReturn("XYZ789UVW012RST3");
+        when(repository.existsByTrackingNumber("ABC123DEF456GHI7")).thenReturn(true);
+        when(repository.existsByTrackingNumber("XYZ789UVW012RST3")).thenReturn(false);
+        when(repository.save(any(TrackingNumberEntity.class))).thenReturn(new TrackingNumberEntity());
+        
+        // When
+        Path file = Files.createTempFile("generation-stages", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(GenerationStageEvent.class);
+            recording.start();
+            service.generateTrackingNumber(request);
+            recording.stop();
+            recording.dump(file);
+        }
+        
+        // Then
+        List<String> stages = RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals(GenerationStageEvent.NAME))
+            .filter(event -> event.getString("customerId").equals(customerId.toString()))
+            .peek(event -> assertEquals("MY-ID", event.getString("lane")))
+            .map(event -> event.getString("stage") + "#" + event.getInt("attempt"))
+            .toList();
+        Files.delete(file);
+        assertEquals(List.of("id_generation#1", "existence_check#1", "id_generation#2", "existence_check#2", "insert#0"), stages);
+    }
 
     @Test
     void generateTrackingNumber_DatabaseConstraintViolation() {
@@ -119,6 +194,7 @@ class TrackingNumberServiceTest {
         
         verify(repository).existsByTrackingNumber(trackingNumber);
         verify(repository).save(any(TrackingNumberEntity.class));
+        verify(auditOutboxRepository, never()).save(any(AuditOutboxEntity.class));
     }
 
     @Test
@@ -251,4 +327,69 @@ class TrackingNumberServiceTest {
             entity.getCreatedAt() != null
         ));
     }
+    
+    @Test
+    void generateTrackingNumber_CountsGeneratedOnlyOnceCommitted() {
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"),
+            UUID.randomUUID(), "Test Customer", "test-customer"
+        );
+        when(trackingNumberGenerator.generateTrackingNumber()).thenReturn("ABC123DEF456GHI7");
+        when(repository.existsByTrackingNumber(anyString())).thenReturn(false);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.generateTrackingNumber(request);
+            assertEquals(0L, service.getStats().totalGenerated());
+            
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1L, service.getStats().totalGenerated());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void generateTrackingNumberWithKey_CollisionIsReportedBeforeTheKeyIsRecorded() {
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"),
+            UUID.randomUUID(), "Test Customer", "test-customer"
+        );
+        when(trackingNumberGenerator.generateTrackingNumber()).thenReturn("ABC123DEF456GHI7");
+        when(repository.existsByTrackingNumber(anyString())).thenReturn(false);
+        doThrow(new DataIntegrityViolationException("uk_tracking_number")).when(repository).flush();
+        
+        assertThrows(TrackingNumberCollisionException.class,
+                     () -> service.generateTrackingNumber(request, "retry-1"));
+        
+        verify(idempotencyKeyRepository, never()).saveAndFlush(any());
+        assertEquals(1L, service.getStats().totalCollisions());
+        assertEquals(0L, service.getStats().totalGenerated());
+    }
+    
+    @Test
+    void generateTrackingNumber_RefusedWithoutWorkerLease() {
+        TrackingNumberService fenced = new TrackingNumberService(repository, auditOutboxRepository, trackingNumberGenerator,
+                                                                 new LaneStatisticsAggregator(),
+                                                                 new CustomerLoadTracker(meterRegistry, 64, Duration.ofMinutes(5)),
+                                                                 new GenerationStageMetrics(meterRegistry, true),
+                                                                 new RollingGenerationStats(List.of(Duration.ofMinutes(1)), Duration.ofMinutes(1), 10),
+                                                                 new IdempotencyService(idempotencyKeyRepository, meterRegistry, 100, Duration.ofHours(24)),
+                                                                 new TrackingNumberEventBuffer(16),
+                                                                 workerLease(true),
+                                                                 meterRegistry);
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"),
+            UUID.randomUUID(), "Test Customer", "test-customer"
+        );
+        
+        assertThrows(LoadSheddingException.class, () -> fenced.generateTrackingNumber(request));
+        verifyNoInteractions(trackingNumberGenerator, repository, auditOutboxRepository);
+    }
+
+    private WorkerLeaseManager workerLease(boolean enabled) {
+        // Never started, so an enabled manager holds no lease
+        return new WorkerLeaseManager(null, meterRegistry, enabled, 1024, Duration.ofSeconds(30), 10_000,
+                                      Duration.ofSeconds(2), "test-instance");
+    }
 }
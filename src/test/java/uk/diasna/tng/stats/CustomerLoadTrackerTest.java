@@ -0,0 +1,43 @@
+package uk.diasna.tng.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.diasna.tng.support.MutableClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerLoadTrackerTest {
+    
+    private final CustomerLoadTracker tracker = new CustomerLoadTracker(
+        new SimpleMeterRegistry(), 16, Duration.ofMinutes(5), new MutableClock(Instant.parse("2025-01-01T12:00:00Z")));
+    
+    @Test
+    void report_CountsRecordedCustomers() {
+        UUID customerId = UUID.randomUUID();
+        tracker.record(customerId, 1_000);
+        tracker.record(customerId, 3_000);
+        
+        CustomerLoadTracker.WindowReport current = tracker.report(10).current();
+        
+        assertEquals(2, current.totalRequests());
+        assertEquals(customerId, current.topCustomers().get(0).key());
+        assertEquals(2_000, current.topCustomers().get(0).avgLatencyNanos());
+    }
+    
+    @Test
+    void record_IgnoresSyntheticTraffic() {
+        for (int i = 0; i < 100; i++) {
+            tracker.record(CustomerLoadTracker.SYNTHETIC_CUSTOMER_ID, 1_000);
+        }
+        tracker.record(null, 1_000);
+        
+        CustomerLoadTracker.WindowReport current = tracker.report(10).current();
+        
+        assertEquals(0, current.totalRequests());
+        assertTrue(current.topCustomers().isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+package uk.diasna.tng.stats;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.diasna.tng.support.MutableClock;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneStatisticsAggregatorTest {
+    
+    private MutableClock clock;
+    private LaneStatisticsAggregator aggregator;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T12:00:30Z"));
+        aggregator = new LaneStatisticsAggregator(clock);
+    }
+    
+    @Test
+    void record_AggregatesCountAndWeightPerLane() {
+        aggregator.record("MY", "ID", new BigDecimal("1.234"));
+        aggregator.record("MY", "ID", new BigDecimal("2.000"));
+        aggregator.record("GB", "US", new BigDecimal("0.500"));
+        
+        List<LaneStatisticsAggregator.LaneSnapshot> lanes = aggregator.snapshot(Duration.ofMinutes(1));
+        
+        assertEquals(2, lanes.size());
+        LaneStatisticsAggregator.LaneSnapshot myToId = findLane(lanes, "MY", "ID");
+        assertEquals(2, myToId.windowCount());
+        assertEquals(0, new BigDecimal("3.234").compareTo(myToId.windowWeightKg()));
+        assertEquals(2, myToId.totalCount());
+    }
+    
+    @Test
+    void record_IgnoresMalformedCountryCodes() {
+        aggregator.record("my", "ID", BigDecimal.ONE);
+        aggregator.record("MYS", "ID", BigDecimal.ONE);
+        aggregator.record(null, "ID", BigDecimal.ONE);
+        
+        assertTrue(aggregator.snapshot(Duration.ofMinutes(60)).isEmpty());
+    }
+    
+    @Test
+    void snapshot_ExcludesBucketsOutsideWindow() {
+        aggregator.record("MY", "ID", BigDecimal.ONE);
+        clock.advance(Duration.ofMinutes(10));
+        aggregator.record("MY", "ID", BigDecimal.ONE);
+        
+        assertEquals(1, findLane(aggregator.snapshot(Duration.ofMinutes(5)), "MY", "ID").windowCount());
+        assertEquals(2, findLane(aggregator.snapshot(Duration.ofMinutes(15)), "MY", "ID").windowCount());
+        
+        clock.advance(Duration.ofMinutes(90));
+        LaneStatisticsAggregator.LaneSnapshot expired = findLane(aggregator.snapshot(Duration.ofMinutes(60)), "MY", "ID");
+        assertEquals(0, expired.windowCount());
+        assertEquals(2, expired.totalCount());
+    }
+    
+    @Test
+    void rollup_ReturnsOnlyRequestedMinute() {
+        long firstMinute = aggregator.currentMinute();
+        aggregator.record("MY", "ID", new BigDecimal("1.000"));
+        clock.advance(Duration.ofMinutes(1));
+        aggregator.record("MY", "ID", new BigDecimal("2.000"));
+        aggregator.record("MY", "ID", new BigDecimal("2.000"));
+        
+        List<LaneStatisticsAggregator.LaneRollup> rollups = aggregator.rollup(firstMinute + 1);
+        
+        assertEquals(1, rollups.size());
+        assertEquals(2, rollups.get(0).count());
+        assertEquals(0, new BigDecimal("4.000").compareTo(rollups.get(0).weightKg()));
+        assertEquals(Instant.parse("2025-01-01T12:01:00Z"), rollups.get(0).windowStart());
+    }
+    
+    @Test
+    void record_ConcurrentUpdatesAreNotLost() throws InterruptedException {
+        int threadCount = 8;
+        int recordsPerThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        
+        for (int i = 0; i < threadCount; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < recordsPerThread; j++) {
+                        aggregator.record("MY", "ID", new BigDecimal("0.001"));
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        
+        latch.await();
+        executor.shutdown();
+        
+        LaneStatisticsAggregator.LaneSnapshot lane = findLane(aggregator.snapshot(Duration.ofMinutes(1)), "MY", "ID");
+        assertEquals(threadCount * recordsPerThread, lane.windowCount());
+        assertEquals(threadCount * recordsPerThread, lane.totalCount());
+    }
+    
+    private LaneStatisticsAggregator.LaneSnapshot findLane(List<LaneStatisticsAggregator.LaneSnapshot> lanes,
+                                                          String origin, String destination) {
+        return lanes.stream()
+            .filter(lane -> lane.originCountryId().equals(origin) && lane.destinationCountryId().equals(destination))
+            .findFirst()
+            .orElseThrow();
+    }
+}
+        
\ No newline at end of file
@@ -0,0 +1,80 @@
+package uk.diasna.tng.stats;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.diasna.tng.entity.LaneStatisticsRollupEntity;
+import uk.diasna.tng.repository.LaneStatisticsRollupRepository;
+import uk.diasna.tng.support.MutableClock;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LaneStatisticsRollupJobTest {
+    
+    @Mock
+    private LaneStatisticsRollupRepository repository;
+    
+    private MutableClock clock;
+    private LaneStatisticsAggregator aggregator;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T12:00:30Z"));
+        aggregator = new LaneStatisticsAggregator(clock);
+    }
+    
+    @Test
+    void persistClosedMinutes_FirstRunPersistsMinutesRecordedBeforeTheJobStarted() {
+        aggregator.record("MY", "ID", new BigDecimal("1.234"));
+        clock.advance(Duration.ofMinutes(1));
+        LaneStatisticsRollupJob job = new LaneStatisticsRollupJob(aggregator, repository);
+        aggregator.record("GB", "US", new BigDecimal("0.500"));
+        clock.advance(Duration.ofMinutes(1));
+        
+        job.persistClosedMinutes();
+        
+        List<LaneStatisticsRollupEntity> rows = saved(1).get(0);
+        assertEquals(2, rows.size());
+        assertEquals(OffsetDateTime.parse("2025-01-01T12:00:00Z"), rows.get(0).getWindowStart());
+        assertEquals("MY", rows.get(0).getOriginCountryId());
+        assertEquals(OffsetDateTime.parse("2025-01-01T12:01:00Z"), rows.get(1).getWindowStart());
+        assertEquals("GB", rows.get(1).getOriginCountryId());
+    }
+    
+    @Test
+    void persistClosedMinutes_PersistsEachClosedMinuteOnce() {
+        LaneStatisticsRollupJob job = new LaneStatisticsRollupJob(aggregator, repository);
+        aggregator.record("MY", "ID", new BigDecimal("1.234"));
+        clock.advance(Duration.ofMinutes(1));
+        job.persistClosedMinutes();
+        
+        aggregator.record("MY", "ID", new BigDecimal("2.000"));
+        job.persistClosedMinutes();
+        clock.advance(Duration.ofMinutes(1));
+        job.persistClosedMinutes();
+        
+        List<List<LaneStatisticsRollupEntity>> batches = saved(2);
+        assertEquals(OffsetDateTime.parse("2025-01-01T12:00:00Z"), batches.get(0).get(0).getWindowStart());
+        assertEquals(1, batches.get(1).size());
+        assertEquals(OffsetDateTime.parse("2025-01-01T12:01:00Z"), batches.get(1).get(0).getWindowStart());
+        assertEquals(0, new BigDecimal("2.000").compareTo(batches.get(1).get(0).getWeightSum()));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<List<LaneStatisticsRollupEntity>> saved(int batches) {
+        ArgumentCaptor<List<LaneStatisticsRollupEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(batches)).saveAll(captor.capture());
+        return captor.getAllValues();
+    }
+}
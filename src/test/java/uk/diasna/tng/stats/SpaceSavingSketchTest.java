@@ -0,0 +1,73 @@
+package uk.diasna.tng.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+    
+    @Test
+    void offer_CountsExactlyBelowCapacity() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(10);
+        
+        for (int i = 0; i < 5; i++) {
+            sketch.offer("a", 1_000);
+        }
+        sketch.offer("b", 3_000);
+        
+        List<SpaceSavingSketch.Estimate<String>> top = sketch.top(10);
+        
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).key());
+        assertEquals(5, top.get(0).count());
+        assertEquals(0, top.get(0).error());
+        assertEquals(1_000, top.get(0).avgLatencyNanos());
+        assertEquals(0, sketch.maxError());
+    }
+    
+    @Test
+    void offer_FindsHeavyHittersInLongTail() {
+        SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<>(50);
+        Map<Integer, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        
+        for (int i = 0; i < 100_000; i++) {
+            // Customers 0-2 produce half of the traffic, the rest is a long tail
+            int key = random.nextBoolean() ? random.nextInt(3) : 3 + random.nextInt(10_000);
+            sketch.offer(key, 0);
+            exact.merge(key, 1L, Long::sum);
+        }
+        
+        List<SpaceSavingSketch.Estimate<Integer>> top = sketch.top(3);
+        
+        assertEquals(100_000, sketch.totalCount());
+        for (SpaceSavingSketch.Estimate<Integer> estimate : top) {
+            assertTrue(estimate.key() < 3, "Unexpected heavy hitter: " + estimate.key());
+            long trueCount = exact.get(estimate.key());
+            assertTrue(estimate.count() >= trueCount);
+            assertTrue(estimate.guaranteedCount() <= trueCount);
+        }
+    }
+    
+    @Test
+    void maxError_BoundedByTotalOverCapacity() {
+        SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<>(100);
+        
+        for (int i = 0; i < 10_000; i++) {
+            sketch.offer(i, 0);
+        }
+        
+        assertTrue(sketch.maxError() <= sketch.totalCount() / sketch.capacity());
+        assertEquals(100, sketch.top(1000).size());
+    }
+    
+    @Test
+    void constructor_RejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingSketch<String>(0));
+    }
+}
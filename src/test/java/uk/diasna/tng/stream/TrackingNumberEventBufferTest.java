@@ -0,0 +1,84 @@
+package uk.diasna.tng.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackingNumberEventBufferTest {
+    
+    private final TrackingNumberEventBuffer buffer = new TrackingNumberEventBuffer(8);
+    
+    @Test
+    void read_ReturnsEventsInPublishOrder() {
+        long start = buffer.head();
+        publish(1, 2, 3);
+        
+        TrackingNumberEventBuffer.Batch batch = buffer.read(start, 10);
+        
+        assertEquals(List.of(1L, 2L, 3L), ids(batch));
+        assertEquals(start + 3, batch.nextSequence());
+        assertEquals(0, batch.missed());
+        assertTrue(buffer.read(batch.nextSequence(), 10).events().isEmpty());
+    }
+    
+    @Test
+    void read_LappedReaderSkipsToOldestEventAndReportsGap() {
+        publish(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        
+        TrackingNumberEventBuffer.Batch batch = buffer.read(0, 100);
+        
+        assertEquals(4, batch.missed());
+        assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L), ids(batch));
+    }
+    
+    @Test
+    void sequenceAfter_FindsBufferedEventsOnly() {
+        publish(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        long head = buffer.head();
+        
+        assertEquals(head - 1, buffer.sequenceAfter(9L, head));
+        assertEquals(List.of(10L), ids(buffer.read(buffer.sequenceAfter(9L, head), 10)));
+        assertEquals(-1, buffer.sequenceAfter(1L, head));
+    }
+    
+    @Test
+    void awaitPublish_WakesWhenEventArrives() throws InterruptedException {
+        long cursor = buffer.head();
+        CountDownLatch woke = new CountDownLatch(1);
+        Thread subscriber = Thread.ofVirtual().start(() -> {
+            buffer.awaitPublish(cursor, TimeUnit.SECONDS.toNanos(30));
+            woke.countDown();
+        });
+        
+        while (subscriber.getState() != Thread.State.WAITING && subscriber.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        publish(1);
+        
+        assertTrue(woke.await(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void constructor_RejectsNonPowerOfTwoCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TrackingNumberEventBuffer(1000));
+    }
+    
+    private void publish(long... ids) {
+        for (long id : ids) {
+            buffer.publish(new TrackingNumberEvent(id, "ABC123DEF456GH%02d".formatted(id), "MY", "ID",
+                                                   new BigDecimal("1.234"), UUID.randomUUID(), "test-customer",
+                                                   OffsetDateTime.now()));
+        }
+    }
+    
+    private static List<Long> ids(TrackingNumberEventBuffer.Batch batch) {
+        return batch.events().stream().map(TrackingNumberEvent::id).toList();
+    }
+}
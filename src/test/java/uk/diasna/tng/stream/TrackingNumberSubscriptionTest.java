@@ -0,0 +1,257 @@
+package uk.diasna.tng.stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.diasna.tng.concurrency.DatabaseConcurrencyLimiter;
+import uk.diasna.tng.entity.TrackingNumberEntity;
+import uk.diasna.tng.exception.LoadSheddingException;
+import uk.diasna.tng.repository.TrackingNumberRepository;
+import uk.diasna.tng.worker.WorkerLeaseManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackingNumberSubscriptionTest {
+    
+    private static final UUID CUSTOMER_ID = UUID.fromString("de619854-b59b-425e-9db4-943979e1bd49");
+    private static final StreamFilter ANY = new StreamFilter(null, null, null);
+    private static final int WORKER_ID = 3;
+    
+    @Mock
+    private TrackingNumberRepository repository;
+    
+    @Mock
+    private DatabaseConcurrencyLimiter databaseLimiter;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TrackingNumberEventBuffer buffer = new TrackingNumberEventBuffer(8);
+    private final RecordingEmitter emitter = new RecordingEmitter();
+    
+    @BeforeEach
+    void setUp() {
+        lenient().when(databaseLimiter.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    }
+    
+    @Test
+    void run_ResumesFromTheBufferWhenLastEventIsStillThere() {
+        publish(1, 2, 3);
+        TrackingNumberSubscription subscription = subscription(ANY, 1L, 100);
+        publish(4);
+        
+        subscription.run();
+        
+        assertEquals(List.of("2", "3", "4"), emitter.ids());
+        verifyNoInteractions(repository);
+    }
+    
+    @Test
+    void run_CatchesUpFromThisWorkersRowsWhenLastEventLeftTheBuffer() {
+        when(repository.findByWorkerIdAndIdGreaterThanOrderByIdAsc(eq(WORKER_ID), eq(5L), any(Limit.class)))
+            .thenReturn(rows(6, 7, 8));
+        
+        subscription(ANY, 5L, 100).run();
+        
+        assertEquals(List.of("6", "7", "8"), emitter.ids());
+        assertEquals(3.0, meterRegistry.get("tracking_number.stream.catch_up.rows").counter().count());
+    }
+    
+    @Test
+    void run_SendsNumbersCommittedDuringCatchUpOnce() {
+        TrackingNumberSubscription subscription = subscription(ANY, 5L, 100);
+        // Committed after the subscription started: in the buffer and also seen by the catch-up query
+        publish(7, 8, 9);
+        when(repository.findByWorkerIdAndIdGreaterThanOrderByIdAsc(eq(WORKER_ID), eq(5L), any(Limit.class)))
+            .thenReturn(rows(6, 7, 8));
+        
+        subscription.run();
+        
+        assertEquals(List.of("6", "7", "8", "9"), emitter.ids());
+    }
+    
+    @Test
+    void run_AppliesTheFilterToCatchUpAndLiveEvents() {
+        StreamFilter customer = new StreamFilter(CUSTOMER_ID, null, null);
+        TrackingNumberSubscription subscription = subscription(customer, 5L, 100);
+        buffer.publish(event(7, UUID.randomUUID()));
+        buffer.publish(event(8, CUSTOMER_ID));
+        when(repository.findByWorkerIdAndIdGreaterThanOrderByIdAsc(eq(WORKER_ID), eq(5L), any(Limit.class)))
+            .thenReturn(List.of(row(6, CUSTOMER_ID), row(7, UUID.randomUUID())));
+        
+        subscription.run();
+        
+        assertEquals(List.of("6", "8"), emitter.ids());
+    }
+    
+    @Test
+    void run_SendsGapWhenCatchUpLimitIsReached() {
+        when(repository.findByWorkerIdAndIdGreaterThanOrderByIdAsc(eq(WORKER_ID), eq(5L), eq(Limit.of(2))))
+            .thenReturn(rows(6, 7));
+        
+        subscription(ANY, 5L, 2).run();
+        
+        assertEquals(List.of("6", "7"), emitter.ids());
+        assertEquals(1, emitter.gaps().size());
+        assertTrue(emitter.gaps().get(0).contains("reason=catch_up_limit"));
+        assertTrue(emitter.gaps().get(0).contains("resume_after=7"));
+    }
+    
+    @Test
+    void run_SendsGapWhenDatabaseIsSaturated() {
+        doThrow(new LoadSheddingException("Database concurrency limit reached", Duration.ofSeconds(1)))
+            .when(databaseLimiter).call(any());
+        
+        subscription(ANY, 5L, 100).run();
+        
+        assertEquals(1, emitter.gaps().size());
+        assertTrue(emitter.gaps().get(0).contains("reason=catch_up_unavailable"));
+        assertTrue(emitter.gaps().get(0).contains("resume_after=5"));
+        assertFalse(emitter.failed());
+    }
+    
+    @Test
+    void run_SendsGapWithMissedCountWhenLapped() {
+        TrackingNumberSubscription subscription = subscription(ANY, null, 100);
+        publish(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        
+        subscription.run();
+        
+        assertEquals(1, emitter.gaps().size());
+        assertTrue(emitter.gaps().get(0).contains("reason=lagged"));
+        assertTrue(emitter.gaps().get(0).contains("missed=4"));
+        assertEquals(List.of("5", "6", "7", "8", "9", "10", "11", "12"), emitter.ids());
+        assertEquals(4.0, meterRegistry.get("tracking_number.stream.skipped").counter().count());
+    }
+    
+    @Test
+    void run_CompletesWithErrorWhenCatchUpFails() {
+        when(repository.findByWorkerIdAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        
+        subscription(ANY, 5L, 100).run();
+        
+        assertTrue(emitter.failed());
+        assertEquals(List.of(), emitter.ids());
+    }
+    
+    @Test
+    void subscribe_FreesTheSlotOfAFailedSubscription() throws InterruptedException {
+        when(repository.findByWorkerIdAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        TrackingNumberStreamService service = new TrackingNumberStreamService(
+            buffer, repository, databaseLimiter, workerLease(), meterRegistry,
+            1, Duration.ofMinutes(1), Duration.ofSeconds(15), 100, Duration.ofSeconds(1));
+        
+        service.subscribe(ANY, 5L);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("tracking_number.stream.subscribers").gauge().value() > 0
+            && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        
+        assertEquals(0.0, meterRegistry.get("tracking_number.stream.subscribers").gauge().value());
+        assertNotNull(service.subscribe(ANY, 5L));
+    }
+    
+    private TrackingNumberSubscription subscription(StreamFilter filter, Long lastEventId, int catchUpLimit) {
+        // A zero heartbeat interval makes the first idle pass send one, which the emitter treats as a disconnect
+        return new TrackingNumberSubscription(buffer, repository, databaseLimiter, emitter, filter, lastEventId,
+                                              WORKER_ID, Duration.ZERO, catchUpLimit,
+                                              meterRegistry.counter("tracking_number.stream.skipped"),
+                                              meterRegistry.counter("tracking_number.stream.catch_up.rows"));
+    }
+    
+    private WorkerLeaseManager workerLease() {
+        // Never started, so it holds no lease and catch-up reads the rows issued without one
+        return new WorkerLeaseManager(null, meterRegistry, false, 1024, Duration.ofSeconds(30), 10_000,
+                                      Duration.ofSeconds(2), "test-instance");
+    }
+    
+    private void publish(long... ids) {
+        for (long id : ids) {
+            buffer.publish(event(id, CUSTOMER_ID));
+        }
+    }
+    
+    private static TrackingNumberEvent event(long id, UUID customerId) {
+        return TrackingNumberEvent.from(row(id, customerId));
+    }
+    
+    private static List<TrackingNumberEntity> rows(long... ids) {
+        return LongStream.of(ids).mapToObj(id -> row(id, CUSTOMER_ID)).toList();
+    }
+    
+    private static TrackingNumberEntity row(long id, UUID customerId) {
+        TrackingNumberEntity entity = new TrackingNumberEntity(String.format("ABC123DEF456%04d", id), "MY", "ID",
+                                                               new BigDecimal("1.234"), customerId,
+                                                               "Test Customer", "test-customer");
+        entity.setId(id);
+        entity.setWorkerId(WORKER_ID);
+        entity.setCreatedAt(OffsetDateTime.parse("2025-01-01T12:00:00Z"));
+        return entity;
+    }
+    
+    /**
+     * Records sent events as their SSE text and disconnects on the first heartbeat, i.e. once the
+     * subscription has nothing left to send
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        
+        private final List<String> events = new ArrayList<>();
+        private volatile boolean failed;
+        
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            if (text.toString().startsWith(":heartbeat")) {
+                throw new IOException("Client disconnected");
+            }
+            events.add(text.toString());
+        }
+        
+        @Override
+        public void completeWithError(Throwable ex) {
+            failed = true;
+        }
+        
+        List<String> ids() {
+            return events.stream()
+                .filter(event -> event.startsWith("id:"))
+                .map(event -> event.substring(3, event.indexOf('\n')))
+                .toList();
+        }
+        
+        List<String> gaps() {
+            return events.stream()
+                .filter(event -> event.startsWith("event:gap\n"))
+                .map(event -> event.substring("event:gap\ndata:".length()).strip())
+                .toList();
+        }
+        
+        boolean failed() {
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package uk.diasna.tng.support;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * The most statements, round-trips and transactions one request may spend
+ * Round-trips are statements sent (a batch is one) plus commits and rollbacks
+ */
+public record SqlBudget(String name, int statements, int roundTrips, int transactions) {
+    
+    /**
+     * Fail with every statement the recording saw if it spent more than the budget
+     */
+    public void assertWithin(SqlRecording recording) {
+        if (recording.statements() <= statements
+            && recording.roundTrips() <= roundTrips
+            && recording.transactions() <= transactions) {
+            return;
+        }
+        StringBuilder report = new StringBuilder()
+            .append(name).append(" exceeded its SQL budget: ")
+            .append(recording.statements()).append(" statements (budget ").append(statements).append("), ")
+            .append(recording.roundTrips()).append(" round-trips (budget ").append(roundTrips).append("), ")
+            .append(recording.transactions()).append(" transactions (budget ").append(transactions).append(")");
+        int position = 1;
+        for (String sql : recording.log()) {
+            report.append(System.lineSeparator()).append("  ").append(position++).append(". ").append(sql);
+        }
+        fail(report.toString());
+    }
+}
@@ -0,0 +1,26 @@
+package uk.diasna.tng.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link SqlCountingDataSource} in front of the application's DataSource
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlCountingConfiguration {
+    
+    @Bean
+    static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof SqlCountingDataSource)
+                    ? new SqlCountingDataSource(dataSource)
+                    : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package uk.diasna.tng.support;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reports every statement, commit and rollback sent through the pool to the calling thread's
+ * {@link SqlRecording}; threads without an open recording pass straight through
+ * A batch counts one statement per entry but a single round-trip
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+    
+    public SqlCountingDataSource(DataSource target) {
+        super(target);
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+    
+    private static Connection countingConnection(Connection target) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            switch (method.getName()) {
+                case "createStatement" -> result = countingStatement(method.getReturnType(), (Statement) result, null);
+                case "prepareStatement", "prepareCall" ->
+                    result = countingStatement(method.getReturnType(), (Statement) result, (String) args[0]);
+                case "commit" -> record(SqlRecording::committed);
+                case "rollback" -> {
+                    // rollback(Savepoint) leaves the transaction open
+                    if (args == null) {
+                        record(SqlRecording::rolledBack);
+                    }
+                }
+                default -> { }
+            }
+            return result;
+        });
+    }
+    
+    private static Object countingStatement(Class<?> type, Statement target, String preparedSql) {
+        List<String> batch = new ArrayList<>();
+        return proxy(type, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "addBatch" -> batch.add(args == null ? preparedSql : (String) args[0]);
+                case "clearBatch" -> batch.clear();
+                case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate" -> {
+                    String sql = args == null ? preparedSql : (String) args[0];
+                    record(recording -> recording.executed(sql, 1));
+                }
+                case "executeBatch", "executeLargeBatch" -> {
+                    if (!batch.isEmpty()) {
+                        String sql = batch.stream().distinct().count() == 1 ? batch.get(0) : String.join("; ", batch);
+                        int count = batch.size();
+                        record(recording -> recording.executed(sql, count));
+                        batch.clear();
+                    }
+                }
+                default -> { }
+            }
+            return invoke(target, method, args);
+        });
+    }
+    
+    private static void record(Consumer<SqlRecording> event) {
+        SqlRecording recording = SqlRecording.current();
+        if (recording != null) {
+            event.accept(recording);
+        }
+    }
+    
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SqlCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package uk.diasna.tng.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JDBC work one thread sends through a {@link SqlCountingDataSource} while the recording is open
+ * Threads it starts meanwhile inherit the recording, so a stream's subscriber thread is counted with
+ * the request that opened it; scheduled jobs run on threads started earlier and are left out
+ */
+public final class SqlRecording implements AutoCloseable {
+    
+    private static final ThreadLocal<SqlRecording> CURRENT = new InheritableThreadLocal<>();
+    
+    private final List<String> log = new ArrayList<>();
+    private final SqlRecording outer;
+    private int statements;
+    private int roundTrips;
+    private int commits;
+    private int rollbacks;
+    private boolean closed;
+    
+    private SqlRecording(SqlRecording outer) {
+        this.outer = outer;
+    }
+    
+    /**
+     * Start recording the current thread's JDBC work; close the recording to stop
+     */
+    public static SqlRecording start() {
+        SqlRecording recording = new SqlRecording(CURRENT.get());
+        CURRENT.set(recording);
+        return recording;
+    }
+    
+    static SqlRecording current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * One execute call carrying the given statements, more than one for a batch
+     */
+    synchronized void executed(String sql, int count) {
+        if (closed) {
+            return;
+        }
+        statements += count;
+        roundTrips++;
+        log.add(count == 1 ? sql : sql + " [batch of " + count + "]");
+    }
+    
+    synchronized void committed() {
+        if (closed) {
+            return;
+        }
+        commits++;
+        roundTrips++;
+        log.add("commit");
+    }
+    
+    synchronized void rolledBack() {
+        if (closed) {
+            return;
+        }
+        rollbacks++;
+        roundTrips++;
+        log.add("rollback");
+    }
+    
+    public synchronized int statements() {
+        return statements;
+    }
+    
+    public synchronized int roundTrips() {
+        return roundTrips;
+    }
+    
+    public synchronized int commits() {
+        return commits;
+    }
+    
+    public synchronized int rollbacks() {
+        return rollbacks;
+    }
+    
+    /**
+     * Transactions ended, whether committed or rolled back
+     */
+    public synchronized int transactions() {
+        return commits + rollbacks;
+    }
+    
+    /**
+     * Every statement, commit and rollback in the order they were sent
+     */
+    public synchronized List<String> log() {
+        return List.copyOf(log);
+    }
+    
+    /**
+     * Stop recording; threads that inherited the recording and outlive it are no longer counted
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
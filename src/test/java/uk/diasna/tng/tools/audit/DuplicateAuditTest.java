@@ -0,0 +1,179 @@
+package uk.diasna.tng.tools.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.diasna.tng.util.TrackingNumberGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateAuditTest {
+    
+    @TempDir
+    Path directory;
+    
+    private final TrackingNumberGenerator generator = new TrackingNumberGenerator();
+    
+    @Test
+    void key_RoundTripsAndSortsLikeTheTrackingNumberValue() {
+        for (int i = 0; i < 10_000; i++) {
+            String trackingNumber = generator.generateTrackingNumber();
+            long high = TrackingNumberKey.high(trackingNumber);
+            int low = TrackingNumberKey.low(trackingNumber, i % TrackingNumberKey.MAX_SOURCES);
+            
+            assertNotEquals(-1, high);
+            assertEquals(i % TrackingNumberKey.MAX_SOURCES, TrackingNumberKey.source(low));
+            assertEquals(trackingNumber, TrackingNumberKey.toTrackingNumber(high, low));
+        }
+        
+        String first = "9999999999999999";
+        long high = TrackingNumberKey.high(first);
+        assertEquals(first, TrackingNumberKey.toTrackingNumber(high, TrackingNumberKey.low(first, 4095)));
+        assertTrue(TrackingNumberKey.sameTrackingNumber(high, TrackingNumberKey.low(first, 1), high, TrackingNumberKey.low(first, 7)));
+        assertTrue(TrackingNumberKey.compare(TrackingNumberKey.high("AAAAAAAAAAAAAAAA"), 0, high, 0) < 0);
+    }
+    
+    @Test
+    void key_RejectsMalformedTrackingNumbers() {
+        assertEquals(-1, TrackingNumberKey.high("ABC"));
+        assertEquals(-1, TrackingNumberKey.high("abcdefghijklmnop"));
+        assertEquals(-1, TrackingNumberKey.high("ABCDEFGH-JKLMNOP"));
+        assertEquals(-1, TrackingNumberKey.high("ABCDEFGHIJKLMNOPQ"));
+    }
+    
+    @Test
+    void run_FindsDuplicatesWithinAndAcrossSourcesThroughManySpillsAndMergePasses() throws Exception {
+        List<String> unique = uniqueTrackingNumbers(20_000);
+        List<String> nodeA = new ArrayList<>(unique.subList(0, 10_000));
+        List<String> nodeB = new ArrayList<>(unique.subList(10_000, 20_000));
+        List<String> archive = new ArrayList<>();
+        
+        nodeA.add(nodeA.get(5));
+        nodeA.add(nodeA.get(5));
+        nodeB.add(nodeA.get(100));
+        archive.add(nodeA.get(100));
+        archive.add(nodeB.get(7));
+        archive.add("not-a-tracking-number");
+        Random random = new Random(42);
+        Collections.shuffle(nodeA, random);
+        Collections.shuffle(nodeB, random);
+        
+        AuditResult result = audit(List.of(
+            new FileSource("node-a", write("node-a.txt", nodeA)),
+            new FileSource("node-b", write("node-b.csv", prepend("id,tracking_number,customer_id", nodeB, i -> i + ",%s,x"))),
+            new FileSource("archive", writeGzip("archive.ndjson.gz",
+                                                prepend(null, archive, i -> "{\"outbox_id\":" + i + ",\"tracking_number\":\"%s\"}")))
+        ), 500, 3);
+        
+        assertFalse(result.clean());
+        assertEquals(20_005, result.records());
+        assertEquals(3, result.duplicateGroups());
+        assertEquals(5, result.extraCopies());
+        
+        AuditResult.SourceResult a = result.sources().get(0);
+        assertEquals(10_002, a.records());
+        assertEquals(2, a.duplicated());
+        assertEquals(2, a.withinSource());
+        assertEquals(1, a.crossSource());
+        AuditResult.SourceResult archived = result.sources().get(2);
+        assertEquals(2, archived.records());
+        assertEquals(1, archived.malformed());
+        assertEquals(2, archived.crossSource());
+        
+        assertEquals(3, result.crossSourceCollisions().size());
+        assertEquals(new AuditResult.SourcePair("node-b", "archive", 2), result.crossSourceCollisions().get(0));
+        List<String> csv = Files.readAllLines(directory.resolve("reports/duplicates.csv"));
+        assertEquals(4, csv.size());
+        assertTrue(csv.contains(nodeBOriginal(unique, 7) + ",2,node-b:1;archive:1"));
+        assertTrue(csv.stream().anyMatch(line -> line.endsWith(",3,node-a:3")));
+        assertTrue(csv.stream().anyMatch(line -> line.endsWith(",3,node-a:1;node-b:1;archive:1")));
+        assertTrue(Files.exists(directory.resolve("reports/duplicate-audit.json")));
+        try (Stream<Path> leftovers = Files.list(directory.resolve("work"))) {
+            assertEquals(0, leftovers.count());
+        }
+    }
+    
+    @Test
+    void run_CleanWhenEveryTrackingNumberIsUnique() throws Exception {
+        List<String> unique = uniqueTrackingNumbers(3_000);
+        Path shards = Files.createDirectories(directory.resolve("shards"));
+        Files.write(shards.resolve("shard-0.txt"), unique.subList(0, 1_000));
+        Files.write(shards.resolve("shard-1.txt"), unique.subList(1_000, 3_000));
+        
+        AuditResult result = audit(List.of(new FileSource("shards", shards)), 10_000, 128);
+        
+        assertTrue(result.clean());
+        assertEquals(3_000, result.records());
+        assertEquals(1, Files.readAllLines(directory.resolve("reports/duplicates.csv")).size());
+    }
+    
+    @Test
+    void runSorter_SortsLargeInputsInParallel() {
+        int count = 100_000;
+        long[] high = new long[count];
+        int[] low = new int[count];
+        Random random = new Random(7);
+        for (int i = 0; i < count; i++) {
+            high[i] = random.nextLong();
+            low[i] = random.nextInt();
+        }
+        
+        new RunSorter(new ForkJoinPool(4)).sort(high, low, new long[count], new int[count], count);
+        
+        for (int i = 1; i < count; i++) {
+            assertTrue(TrackingNumberKey.compare(high[i - 1], low[i - 1], high[i], low[i]) <= 0);
+        }
+    }
+    
+    private AuditResult audit(List<AuditSource> sources, long memoryRecords, int fanIn) throws Exception {
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        return new DuplicateAudit(sources, directory.resolve("work"), directory.resolve("reports"),
+                                  memoryRecords, fanIn, 2, quiet).run();
+    }
+    
+    private List<String> uniqueTrackingNumbers(int count) {
+        return Stream.generate(generator::generateTrackingNumber).distinct().limit(count).toList();
+    }
+    
+    private static String nodeBOriginal(List<String> unique, int index) {
+        return unique.get(10_000 + index);
+    }
+    
+    private static List<String> prepend(String header, List<String> values, IntFunction<String> format) {
+        List<String> lines = new ArrayList<>();
+        if (header != null) {
+            lines.add(header);
+        }
+        for (int i = 0; i < values.size(); i++) {
+            lines.add(format.apply(i).formatted(values.get(i)));
+        }
+        return lines;
+    }
+    
+    private Path write(String name, List<String> lines) throws IOException {
+        return Files.write(directory.resolve(name), lines);
+    }
+    
+    private Path writeGzip(String name, List<String> lines) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write((String.join("\n", lines) + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        return Files.write(directory.resolve(name), bytes.toByteArray());
+    }
+}
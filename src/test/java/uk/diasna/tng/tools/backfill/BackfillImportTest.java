@@ -0,0 +1,171 @@
+package uk.diasna.tng.tools.backfill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackfillImportTest {
+    
+    private static final String CUSTOMER_ID = "de619854-b59b-425e-9db4-943979e1bd49";
+    
+    @TempDir
+    Path directory;
+    
+    private final RowValidator validator = new RowValidator();
+    
+    @Test
+    void segments_ReadEveryLineExactlyOnce() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            lines.add("line-" + i + "-" + "x".repeat(i % 97));
+        }
+        Path file = Files.writeString(directory.resolve("rows.csv"), String.join("\r\n", lines) + "\r\n");
+        
+        for (long segmentBytes : new long[] {7, 1000, 65_537, Long.MAX_VALUE / 2}) {
+            List<String> read = new ArrayList<>();
+            for (ImportSegment segment : ImportSegment.plan(file, segmentBytes)) {
+                try (SegmentReader reader = new SegmentReader(segment, segment.start())) {
+                    while (reader.next()) {
+                        read.add(reader.line());
+                    }
+                }
+            }
+            assertEquals(lines, read, "segment size " + segmentBytes);
+        }
+    }
+    
+    @Test
+    void segments_ResumeAtACheckpointedOffset() throws Exception {
+        Path plain = Files.writeString(directory.resolve("rows.csv"), "a\nbb\nccc\ndddd\n");
+        Path gzipped = directory.resolve("rows.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+            out.write("a\nbb\nccc\ndddd\n".getBytes(StandardCharsets.UTF_8));
+        }
+        
+        for (Path file : List.of(plain, gzipped)) {
+            ImportSegment segment = ImportSegment.plan(file, 1 << 20).get(0);
+            long checkpoint;
+            try (SegmentReader reader = new SegmentReader(segment, segment.start())) {
+                reader.next();
+                reader.next();
+                assertEquals("bb", reader.line());
+                assertEquals(2, reader.offset());
+                checkpoint = reader.nextOffset();
+            }
+            
+            List<String> rest = new ArrayList<>();
+            try (SegmentReader reader = new SegmentReader(segment, checkpoint)) {
+                while (reader.next()) {
+                    rest.add(reader.line() + "@" + reader.offset());
+                }
+            }
+            assertEquals(List.of("ccc@5", "dddd@9"), rest, file.toString());
+        }
+        assertEquals(1, ImportSegment.plan(gzipped, 1).size());
+    }
+    
+    @Test
+    void csv_MapsColumnsByHeaderAndUnquotesFields() throws Exception {
+        Path file = Files.writeString(directory.resolve("legacy.csv"),
+            "customer_slug,tracking_number,weight,origin_country_id,destination_country_id,customer_id,customer_name,extra\n");
+        RowFormat format = RowFormat.forFile(file);
+        
+        LegacyRow row = format.parse("redbox,ABCDEFGHIJ123456,1.5,MY,ID," + CUSTOMER_ID + ",\"RedBox, \"\"Logistics\"\"\",ignored");
+        
+        assertTrue(format.hasHeader());
+        assertEquals("ABCDEFGHIJ123456", row.trackingNumber());
+        assertEquals("RedBox, \"Logistics\"", row.customerName());
+        assertEquals("redbox", row.customerSlug());
+        assertNull(row.createdAt());
+        assertThrows(IllegalArgumentException.class, () -> format.parse("\"unterminated,MY"));
+        assertThrows(IllegalArgumentException.class,
+            () -> RowFormat.forFile(Files.writeString(directory.resolve("partial.csv"), "tracking_number,weight\n")));
+    }
+    
+    @Test
+    void ndjson_ParsesObjectsAndIgnoresUnknownFields() throws Exception {
+        RowFormat format = RowFormat.forFile(directory.resolve("legacy.ndjson.gz"));
+        
+        LegacyRow row = format.parse("{\"tracking_number\":\"ABCDEFGHIJ123456\",\"weight\":1.5,\"created_at\":"
+            + "\"2019-03-01T10:15:30+08:00\",\"legacy_id\":42}");
+        
+        assertFalse(format.hasHeader());
+        assertEquals("1.5", row.weight());
+        assertEquals("2019-03-01T10:15:30+08:00", row.createdAt());
+        assertThrows(IllegalArgumentException.class, () -> format.parse("{not json"));
+    }
+    
+    @Test
+    void validate_NormalisesLikeTheEndpoint() {
+        RowValidator.Result result = validator.validate(
+            row("ABCDEFGHIJ123456", "my", "id", "1.500", "RedBox Logistics", "RedBox-Logistics", "2019-03-01T10:15:30+08:00"), 12);
+        
+        assertNull(result.rejection());
+        assertEquals(12, result.row().offset());
+        assertEquals("MY", result.row().request().originCountryId());
+        assertEquals("redbox-logistics", result.row().request().customerSlug());
+        assertEquals("2019-03-01T10:15:30+08:00", result.row().createdAt().toString());
+    }
+    
+    @Test
+    void validate_RejectsWithAReason() {
+        assertNotNull(validator.validate(row("abcdefghij123456", "MY", "ID", "1", "Name", "slug", null), 0).rejection());
+        assertNotNull(validator.validate(row("ABCDEFGHIJ123456", "XX", "ID", "1", "Name", "slug", null), 0).rejection());
+        assertNotNull(validator.validate(row("ABCDEFGHIJ123456", "MY", "ID", "heavy", "Name", "slug", null), 0).rejection());
+        assertNotNull(validator.validate(row("ABCDEFGHIJ123456", "MY", "ID", "1", "Name", "slug", "2019-03-01"), 0).rejection());
+        assertNotNull(validator.validate(row("ABCDEFGHIJ123456", "MY", "ID", "1", "Name", "s".repeat(256), null), 0).rejection());
+        assertNotNull(validator.validate(new LegacyRow("ABCDEFGHIJ123456", "MY", "ID", "1", "not-a-uuid", "Name", "slug", null), 0).rejection());
+        assertNotNull(validator.validate(new LegacyRow(null, null, null, null, null, null, null, null), 0).rejection());
+    }
+    
+    @Test
+    void copyBuffer_EscapesTextAndWritesNullTimestamps() {
+        CopyBuffer copy = new CopyBuffer(2);
+        copy.add(validator.validate(row("ABCDEFGHIJ123456", "MY", "ID", "1.5", "Tab\tNew\nBack\\slash", "slug", null), 7).row());
+        
+        assertEquals(1, copy.rows());
+        assertEquals("7\tABCDEFGHIJ123456\tMY\tID\t1.5\t" + CUSTOMER_ID + "\tTab\\tNew\\nBack\\\\slash\tslug\t\\N\n",
+                     new String(copy.toBytes(), StandardCharsets.UTF_8));
+        copy.clear();
+        assertEquals(0, copy.toBytes().length);
+    }
+    
+    @Test
+    void rejectLog_AppendsQuotedRowsPerSourceFile() throws IOException {
+        Path source = directory.resolve("legacy.csv");
+        for (int run = 0; run < 2; run++) {
+            try (RejectLog log = new RejectLog(directory.resolve("rejected"))) {
+                log.write(source, List.of(new RejectLog.Rejection(10 * run, "A,B", "weight is not a number")));
+            }
+        }
+        
+        assertEquals(List.of("offset,tracking_number,reason", "0,\"A,B\",weight is not a number", "10,\"A,B\",weight is not a number"),
+                     Files.readAllLines(RejectLog.fileFor(directory.resolve("rejected"), source)));
+    }
+    
+    @Test
+    void inputFiles_ExpandsDirectoriesToExports() throws IOException {
+        Path exports = Files.createDirectories(directory.resolve("exports"));
+        Files.writeString(exports.resolve("b.ndjson"), "");
+        Files.writeString(exports.resolve("a.csv.gz"), "");
+        Files.writeString(exports.resolve("notes.txt"), "");
+        
+        assertEquals(List.of(exports.resolve("a.csv.gz"), exports.resolve("b.ndjson"), Path.of("single.jsonl")),
+                     BackfillImport.inputFiles(List.of(exports.toString(), "single.jsonl")));
+    }
+    
+    private static LegacyRow row(String trackingNumber, String origin, String destination, String weight,
+                                 String name, String slug, String createdAt) {
+        return new LegacyRow(trackingNumber, origin, destination, weight, CUSTOMER_ID, name, slug, createdAt);
+    }
+}
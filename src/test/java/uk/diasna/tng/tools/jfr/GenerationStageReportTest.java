@@ -0,0 +1,87 @@
+package uk.diasna.tng.tools.jfr;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.diasna.tng.dto.TrackingNumberRequest;
+import uk.diasna.tng.metrics.GenerationStage;
+import uk.diasna.tng.metrics.GenerationStageEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationStageReportTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void read_CountsGenerationStageEventsPerStage() throws Exception {
+        TrackingNumberRequest myToId = request("MY", "ID");
+        TrackingNumberRequest gbToUs = request("GB", "US");
+        Path file = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(GenerationStageEvent.class);
+            recording.start();
+            for (int i = 0; i < 30; i++) {
+                TrackingNumberRequest request = i % 3 == 0 ? gbToUs : myToId;
+                GenerationStageEvent.start(GenerationStage.ID_GENERATION).commit(request, 1);
+                GenerationStageEvent.start(GenerationStage.EXISTENCE_CHECK).commit(request, 1);
+                if (i % 2 == 0) {
+                    GenerationStageEvent.start(GenerationStage.INSERT).commit(request, 0);
+                }
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        
+        GenerationStageReport report = new GenerationStageReport("lane");
+        assertEquals(75, report.read(file));
+        assertEquals(30, report.stage("id_generation").count());
+        assertEquals(30, report.stage("existence_check").count());
+        assertEquals(15, report.stage("insert").count());
+        assertEquals(0, report.stage("commit").count());
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out, true, StandardCharsets.UTF_8), 5);
+        String printed = out.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains("existence_check"));
+        assertTrue(printed.indexOf("MY-ID") < printed.indexOf("GB-US"));
+        assertFalse(printed.contains("commit"));
+    }
+    
+    @Test
+    void histogram_BucketsByPowersOfTwoMicroseconds() {
+        assertEquals(0, StageHistogram.bucket(999));
+        assertEquals(1, StageHistogram.bucket(1_000));
+        assertEquals(2, StageHistogram.bucket(2_000));
+        assertEquals(2, StageHistogram.bucket(3_999));
+        assertEquals(11, StageHistogram.bucket(1_500_000));
+        assertEquals(StageHistogram.BUCKETS - 1, StageHistogram.bucket(60_000_000_000L));
+        
+        StageHistogram histogram = new StageHistogram();
+        for (int i = 100; i >= 1; i--) {
+            histogram.add(i * 1_000_000L);
+        }
+        assertEquals(100, histogram.count());
+        assertEquals(50_000_000, histogram.percentileNanos(0.5));
+        assertEquals(99_000_000, histogram.percentileNanos(0.99));
+        assertEquals(100_000_000, histogram.maxNanos());
+        assertEquals(50_500_000, histogram.meanNanos(), 0.001);
+    }
+    
+    @Test
+    void constructor_RejectsUnknownBreakdown() {
+        assertThrows(IllegalArgumentException.class, () -> new GenerationStageReport("weight"));
+    }
+    
+    private static TrackingNumberRequest request(String origin, String destination) {
+        return new TrackingNumberRequest(origin, destination, new BigDecimal("1.234"), UUID.randomUUID(), "Customer", "customer");
+    }
+}
@@ -177,4 +177,14 @@ class TrackingNumberGeneratorTest {
         // Should have some variation in timestamp parts due to time progression
         assertTrue(timestampParts.size() >= 1, "Should have at least one unique timestamp part");
     }
+    
+    @Test
+    void testIsWellFormed() {
+        assertTrue(TrackingNumberGenerator.isWellFormed(generator.generateTrackingNumber()));
+        assertTrue(TrackingNumberGenerator.isWellFormed("ABCDEFGH12345678"));
+        assertFalse(TrackingNumberGenerator.isWellFormed("abcdefgh12345678"));
+        assertFalse(TrackingNumberGenerator.isWellFormed("ABCDEFGH1234567"));
+        assertFalse(TrackingNumberGenerator.isWellFormed("ABCDEFGH-2345678"));
+        assertFalse(TrackingNumberGenerator.isWellFormed(null));
+    }
 }
@@ -47,6 +47,24 @@ class TrackingNumberRequestValidatorTest {
         assertTrue(exception.getMessage().contains("Origin country ID must be ISO 3166-1 alpha-2 format"));
     }
 
+    @Test
+    void validate_UnassignedCountryCode_ThrowsException() {
+        // Given
+        TrackingNumberRequest request = new TrackingNumberRequest(
+            "MY", "ZZ", new BigDecimal("1.234"),
+            UUID.randomUUID(), "Test Customer", "test-customer"
+        );
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class, 
+            () -> validator.validate(request)
+        );
+        
+        assertTrue(exception.getMessage().contains("Destination country ID must be ISO 3166-1 alpha-2 format"));
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
     @Test
     void validate_NullWeight_ThrowsException() {
         // Given
@@ -145,6 +163,24 @@ class TrackingNumberRequestValidatorTest {
         assertTrue(validator.isValid(request));
     }
 
+    @Test
+    void isValid_BlankNameOrUppercaseSlug_ReturnsFalse() {
+        // Given
+        TrackingNumberRequest blankName = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"),
+            UUID.randomUUID(), " \t ", "test-customer"
+        );
+        TrackingNumberRequest uppercaseSlug = new TrackingNumberRequest(
+            "MY", "ID", new BigDecimal("1.234"),
+            UUID.randomUUID(), "Test Customer", "Test-customer"
+        );
+
+        // When & Then
+        assertFalse(validator.isValid(blankName));
+        assertFalse(validator.isValid(uppercaseSlug));
+        assertEquals(List.of("Customer name cannot be blank"), validator.collectValidationErrors(blankName));
+    }
+
     @Test
     void isValid_InvalidRequest_ReturnsFalse() {
         // Given
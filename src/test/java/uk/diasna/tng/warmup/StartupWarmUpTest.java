@@ -0,0 +1,140 @@
+package uk.diasna.tng.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import uk.diasna.tng.actuator.WarmUpHealthIndicator;
+import uk.diasna.tng.dto.TrackingNumberResponse;
+import uk.diasna.tng.exception.TrackingNumberGenerationException;
+import uk.diasna.tng.repository.IdempotencyKeyRepository;
+import uk.diasna.tng.service.TrackingNumberService;
+import uk.diasna.tng.validator.TrackingNumberRequestValidator;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmUpTest {
+    
+    @Mock
+    private DataSource dataSource;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private TrackingNumberService trackingNumberService;
+    
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    
+    private final TransactionStatus transaction = new SimpleTransactionStatus();
+    private final TrackingNumberResponse response =
+        new TrackingNumberResponse("ABC123DEF456GHI7", OffsetDateTime.parse("2025-01-01T12:00:00Z"));
+    private MeterRegistry meterRegistry;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    
+    @Test
+    void run_GeneratesThroughTheServiceAndRollsBackEveryIteration() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        when(trackingNumberService.generateTrackingNumber(any())).thenReturn(response);
+        when(trackingNumberService.generateTrackingNumber(any(), anyString())).thenReturn(response);
+        StartupWarmUp warmUp = warmUp(true, 25, Duration.ofSeconds(30));
+        
+        warmUp.run();
+        
+        assertEquals(StartupWarmUp.State.COMPLETED, warmUp.state());
+        assertEquals(25, warmUp.completedIterations());
+        verify(trackingNumberService, times(13)).generateTrackingNumber(any());
+        verify(trackingNumberService, times(12)).generateTrackingNumber(any(), anyString());
+        InOrder inOrder = inOrder(transactionManager, trackingNumberService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(trackingNumberService).generateTrackingNumber(any());
+        inOrder.verify(transactionManager).rollback(transaction);
+        verify(transactionManager, times(25)).rollback(transaction);
+        verify(transactionManager, never()).commit(any());
+        assertTrue(meterRegistry.get("tracking_number.warmup.duration").timeGauge().value() > 0);
+        assertEquals(25, meterRegistry.get("tracking_number.warmup.iterations").gauge().value());
+    }
+    
+    @Test
+    void health_DownUntilWarmUpCompletes() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        when(trackingNumberService.generateTrackingNumber(any())).thenReturn(response);
+        StartupWarmUp warmUp = warmUp(true, 1, Duration.ofSeconds(30));
+        WarmUpHealthIndicator indicator = new WarmUpHealthIndicator(warmUp);
+        
+        assertFalse(warmUp.isReady());
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+        
+        warmUp.run();
+        
+        assertTrue(warmUp.isReady());
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+    
+    @Test
+    void run_StopsAtDeadline() throws Exception {
+        StartupWarmUp warmUp = warmUp(true, 1000, Duration.ZERO);
+        
+        warmUp.run();
+        
+        assertEquals(StartupWarmUp.State.TIMED_OUT, warmUp.state());
+        assertEquals(0, warmUp.completedIterations());
+        assertTrue(warmUp.isReady());
+        verifyNoInteractions(transactionManager);
+    }
+    
+    @Test
+    void run_FailureDoesNotHoldBackReadiness() throws Exception {
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        when(trackingNumberService.generateTrackingNumber(any()))
+            .thenThrow(new TrackingNumberGenerationException("Failed to generate tracking number",
+                                                             new QueryTimeoutException("timeout")));
+        StartupWarmUp warmUp = warmUp(true, 10, Duration.ofSeconds(30));
+        
+        warmUp.run();
+        
+        assertEquals(StartupWarmUp.State.FAILED, warmUp.state());
+        assertTrue(warmUp.isReady());
+        verify(transactionManager).rollback(transaction);
+    }
+    
+    @Test
+    void onApplicationReady_SkipsWhenDisabled() {
+        StartupWarmUp warmUp = warmUp(false, 10, Duration.ofSeconds(30));
+        
+        warmUp.onApplicationReady();
+        
+        assertEquals(StartupWarmUp.State.SKIPPED, warmUp.state());
+        assertTrue(warmUp.isReady());
+        verifyNoInteractions(transactionManager, trackingNumberService);
+    }
+    
+    private StartupWarmUp warmUp(boolean enabled, int iterations, Duration deadline) {
+        return new StartupWarmUp(dataSource, transactionManager, trackingNumberService, idempotencyKeyRepository,
+                                 new TrackingNumberRequestValidator(), new ObjectMapper().findAndRegisterModules(),
+                                 meterRegistry, enabled, iterations, deadline);
+    }
+}
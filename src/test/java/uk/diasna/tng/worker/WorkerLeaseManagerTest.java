@@ -0,0 +1,267 @@
+package uk.diasna.tng.worker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+import uk.diasna.tng.entity.WorkerLeaseEntity;
+import uk.diasna.tng.exception.LoadSheddingException;
+import uk.diasna.tng.repository.WorkerLeaseRepository;
+import uk.diasna.tng.support.MutableClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorkerLeaseManagerTest {
+    
+    private static final Duration TTL = Duration.ofSeconds(30);
+    private static final Duration HEARTBEAT = Duration.ofSeconds(10);
+    private static final Duration SKEW = Duration.ofSeconds(2);
+    
+    @Mock
+    private WorkerLeaseRepository repository;
+    
+    private final LeaseTable table = new LeaseTable();
+    private MutableClock clock;
+    private MeterRegistry meterRegistry;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T12:00:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        
+        lenient().when(repository.findByExpiresAtBeforeOrderByWorkerIdAsc(any(), any()))
+            .thenAnswer(invocation -> table.expired(invocation.getArgument(0), invocation.getArgument(1)));
+        lenient().when(repository.findMaxWorkerId()).thenAnswer(invocation -> table.maxWorkerId());
+        lenient().when(repository.claim(anyInt(), anyLong(), anyString(), any(), any()))
+            .thenAnswer(invocation -> table.claim(invocation.getArgument(0), invocation.getArgument(1),
+                                                  invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4)));
+        lenient().when(repository.insertLease(anyInt(), anyString(), any(), any()))
+            .thenAnswer(invocation -> table.insert(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        lenient().when(repository.renew(anyInt(), anyLong(), anyString(), any(), any()))
+            .thenAnswer(invocation -> table.renew(invocation.getArgument(0), invocation.getArgument(1),
+                                                  invocation.getArgument(2), invocation.getArgument(4)));
+        lenient().when(repository.release(anyInt(), anyLong(), any()))
+            .thenAnswer(invocation -> table.release(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+    }
+    
+    @Test
+    void start_InstancesRacingForWorkerIdsEachGetADistinctOne() throws Exception {
+        int instances = 64;
+        List<WorkerLeaseManager> managers = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            managers.add(manager("instance-" + i, 1024));
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Integer>> workerIds = new ArrayList<>();
+        for (WorkerLeaseManager manager : managers) {
+            workerIds.add(executor.submit(() -> {
+                startGate.await();
+                manager.start();
+                return manager.currentLease().orElseThrow().workerId();
+            }));
+        }
+        startGate.countDown();
+        
+        Set<Integer> distinct = new HashSet<>();
+        for (Future<Integer> workerId : workerIds) {
+            distinct.add(workerId.get());
+        }
+        executor.shutdown();
+        
+        assertEquals(instances, distinct.size());
+        assertTrue(distinct.stream().allMatch(id -> id >= 0 && id < instances));
+        managers.forEach(manager -> assertDoesNotThrow(manager::checkNotFenced));
+    }
+    
+    @Test
+    void start_FailsWhenEveryWorkerIdIsHeld() {
+        manager("a", 2).start();
+        manager("b", 2).start();
+        
+        assertThrows(IllegalStateException.class, () -> manager("c", 2).start());
+    }
+    
+    @Test
+    void stop_ReleasesWorkerIdForTheNextInstance() {
+        WorkerLeaseManager first = manager("a", 16);
+        first.start();
+        first.stop();
+        
+        assertTrue(first.currentLease().isEmpty());
+        assertThrows(LoadSheddingException.class, first::checkNotFenced);
+        
+        clock.advance(Duration.ofMillis(1));
+        WorkerLeaseManager second = manager("b", 16);
+        second.start();
+        
+        WorkerLeaseManager.Lease lease = second.currentLease().orElseThrow();
+        assertEquals(0, lease.workerId());
+        assertEquals(2, lease.fencingToken());
+    }
+    
+    @Test
+    void heartbeat_ExtendsLease() {
+        WorkerLeaseManager manager = manager("a", 16);
+        manager.start();
+        Instant firstExpiry = manager.currentLease().orElseThrow().expiresAt();
+        
+        clock.advance(HEARTBEAT);
+        manager.heartbeat();
+        clock.advance(HEARTBEAT);
+        manager.heartbeat();
+        clock.advance(HEARTBEAT);
+        
+        assertTrue(clock.instant().isAfter(firstExpiry.minus(SKEW)));
+        assertDoesNotThrow(manager::checkNotFenced);
+        assertEquals(firstExpiry.plus(HEARTBEAT.multipliedBy(2)), manager.currentLease().orElseThrow().expiresAt());
+    }
+    
+    @Test
+    void heartbeat_FencesOnceRenewalsFailPastTheLease() {
+        WorkerLeaseManager manager = manager("a", 16);
+        manager.start();
+        table.failRenewals = true;
+        
+        clock.advance(HEARTBEAT);
+        manager.heartbeat();
+        assertDoesNotThrow(manager::checkNotFenced);
+        
+        clock.advance(TTL.minus(HEARTBEAT).minus(SKEW));
+        manager.heartbeat();
+        assertTrue(manager.isFenced());
+        assertThrows(LoadSheddingException.class, manager::checkNotFenced);
+        assertEquals(2, meterRegistry.get("tracking_number.worker_lease.renewal_failures").counter().count());
+        assertEquals(1, meterRegistry.get("tracking_number.worker_lease.fenced").counter().count());
+        
+        // Nobody took the worker ID meanwhile, so the same fencing token still renews
+        table.failRenewals = false;
+        manager.heartbeat();
+        assertFalse(manager.isFenced());
+        assertEquals(0, manager.currentLease().orElseThrow().workerId());
+    }
+    
+    @Test
+    void heartbeat_FencesWhenAnotherInstanceTookTheWorkerId() {
+        WorkerLeaseManager stalled = manager("a", 16);
+        stalled.start();
+        
+        clock.advance(TTL.plusSeconds(1));
+        WorkerLeaseManager successor = manager("b", 16);
+        successor.start();
+        assertEquals(0, successor.currentLease().orElseThrow().workerId());
+        
+        stalled.heartbeat();
+        assertTrue(stalled.isFenced());
+        assertTrue(stalled.currentLease().isEmpty());
+        
+        // The next heartbeat claims a fresh worker ID
+        stalled.heartbeat();
+        assertFalse(stalled.isFenced());
+        assertEquals(1, stalled.currentLease().orElseThrow().workerId());
+        assertEquals(0, successor.currentLease().orElseThrow().workerId());
+    }
+    
+    @Test
+    void checkNotFenced_NoOpWhenDisabled() {
+        WorkerLeaseManager manager = new WorkerLeaseManager(repository, meterRegistry, false, 16, TTL, HEARTBEAT, SKEW, "a", clock);
+        manager.start();
+        
+        assertDoesNotThrow(manager::checkNotFenced);
+        verifyNoInteractions(repository);
+    }
+    
+    private WorkerLeaseManager manager(String owner, int maxWorkers) {
+        return new WorkerLeaseManager(repository, meterRegistry, true, maxWorkers, TTL, HEARTBEAT, SKEW, owner, clock);
+    }
+    
+    /**
+     * worker_leases with the row-level atomicity the database gives each statement
+     */
+    private static final class LeaseTable {
+        private final TreeMap<Integer, WorkerLeaseEntity> rows = new TreeMap<>();
+        private volatile boolean failRenewals;
+        
+        synchronized List<WorkerLeaseEntity> expired(OffsetDateTime now, Limit limit) {
+            return rows.values().stream()
+                .filter(row -> row.getExpiresAt().isBefore(now))
+                .limit(limit.max())
+                .map(LeaseTable::copy)
+                .toList();
+        }
+        
+        synchronized Integer maxWorkerId() {
+            return rows.isEmpty() ? null : rows.lastKey();
+        }
+        
+        synchronized int claim(int workerId, long fencingToken, String owner, OffsetDateTime now, OffsetDateTime expiresAt) {
+            WorkerLeaseEntity row = rows.get(workerId);
+            if (row == null || row.getFencingToken() != fencingToken || !row.getExpiresAt().isBefore(now)) {
+                return 0;
+            }
+            rows.put(workerId, new WorkerLeaseEntity(workerId, owner, fencingToken + 1, now, now, expiresAt));
+            return 1;
+        }
+        
+        synchronized int insert(int workerId, String owner, OffsetDateTime now) {
+            if (rows.containsKey(workerId)) {
+                throw new DataIntegrityViolationException("duplicate key worker_id=" + workerId);
+            }
+            rows.put(workerId, new WorkerLeaseEntity(workerId, owner, 1, now, now, now.plus(TTL)));
+            return 1;
+        }
+        
+        synchronized int renew(int workerId, long fencingToken, String owner, OffsetDateTime expiresAt) {
+            if (failRenewals) {
+                throw new QueryTimeoutException("connection lost");
+            }
+            WorkerLeaseEntity row = rows.get(workerId);
+            if (row == null || row.getFencingToken() != fencingToken || !owner.equals(row.getOwner())) {
+                return 0;
+            }
+            row.setExpiresAt(expiresAt);
+            return 1;
+        }
+        
+        synchronized int release(int workerId, long fencingToken, OffsetDateTime now) {
+            WorkerLeaseEntity row = rows.get(workerId);
+            if (row == null || row.getFencingToken() != fencingToken) {
+                return 0;
+            }
+            row.setOwner(null);
+            row.setExpiresAt(now);
+            return 1;
+        }
+        
+        private static WorkerLeaseEntity copy(WorkerLeaseEntity row) {
+            return new WorkerLeaseEntity(row.getWorkerId(), row.getOwner(), row.getFencingToken(),
+                                         row.getAcquiredAt(), row.getRenewedAt(), row.getExpiresAt());
+        }
+    }
+}